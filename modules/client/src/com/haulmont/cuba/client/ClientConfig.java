@@ -55,6 +55,41 @@ public interface ClientConfig extends Config {
     @DefaultString("/upload")
     String getFileUploadContext();
 
+    /**
+     * @return Maximum number of connections in the pool used for file uploads and downloads.
+     */
+    @Property("cuba.fileTransferPoolMaxTotal")
+    @DefaultInt(50)
+    int getFileTransferPoolMaxTotal();
+
+    /**
+     * @return Maximum number of connections to one middleware server used for file uploads and downloads.
+     */
+    @Property("cuba.fileTransferPoolMaxPerRoute")
+    @DefaultInt(10)
+    int getFileTransferPoolMaxPerRoute();
+
+    /**
+     * @return Time in milliseconds to wait for a free connection of the file transfer pool.
+     */
+    @Property("cuba.fileTransferPoolLeaseTimeout")
+    @DefaultInt(30000)
+    int getFileTransferPoolLeaseTimeout();
+
+    /**
+     * @return Time in milliseconds to wait for data from the middleware during file uploads and downloads.
+     */
+    @Property("cuba.fileTransferReadTimeout")
+    @DefaultInt(300000)
+    int getFileTransferReadTimeout();
+
+    /**
+     * @return Time in seconds after which idle connections of the file transfer pool are closed.
+     */
+    @Property("cuba.fileTransferPoolIdleTimeoutSec")
+    @DefaultInt(60)
+    int getFileTransferPoolIdleTimeoutSec();
+
     /**
      * @return Maximum size of uploaded file in megabytes.
      */
@@ -76,6 +111,14 @@ public interface ClientConfig extends Config {
     @DefaultBoolean(true)
     boolean getCollectionDatasourceDbSortEnabled();
 
+    /**
+     * @return Whether to calculate total aggregations of a collection datasource on DB (using separate SELECT with
+     * an aggregate function) if the datasource does not contain all instances matching its query.
+     */
+    @Property("cuba.collectionDatasourceDbAggregationEnabled")
+    @DefaultBoolean(false)
+    boolean getCollectionDatasourceDbAggregationEnabled();
+
     /**
      * @return If true, client will try to find missing localized messages on the server.
      */
@@ -342,6 +385,15 @@ public interface ClientConfig extends Config {
     @DefaultInteger(5000)
     Integer getBackgroundTaskTimeoutCheckInterval();
 
+    /**
+     * Timeout of asynchronous loading of screen data, see {@code DataLoader#loadAsync(Frame)}.
+     *
+     * @return timeout in seconds
+     */
+    @Property("cuba.gui.asyncDataLoadTimeoutSec")
+    @DefaultInt(300)
+    int getAsyncDataLoadTimeoutSec();
+
     /**
      * @return true if Table will ignore unfetched attribute read errors
      */
@@ -28,26 +28,40 @@ import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
-import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
 import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
-import org.apache.http.impl.conn.BasicHttpClientConnectionManager;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
 import javax.inject.Inject;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 import static com.haulmont.bali.util.Preconditions.checkNotNullArgument;
 
+/**
+ * Client-side implementation of {@link FileLoader}. Transfers files through the middleware servlets using keep-alive
+ * connections of a pool dedicated to file transfers, so that concurrent downloads do not open a new TCP connection
+ * for each file and slow transfers cannot exhaust connections used for service invocations. The pool is configured
+ * by the {@code cuba.fileTransfer*} properties of {@link ClientConfig}. If a request to a middleware server fails,
+ * the next server is tried.
+ */
 @Component(FileLoader.NAME)
 public class FileLoaderClientImpl implements FileLoader {
 
@@ -65,6 +79,10 @@ public class FileLoaderClientImpl implements FileLoader {
     @Inject
     protected FileStorageService fileStorageService;
 
+    protected volatile CloseableHttpClient httpClient;
+
+    protected PoolingHttpClientConnectionManager connectionManager;
+
     @Override
     public void saveStream(FileDescriptor fd, Supplier<InputStream> inputStreamSupplier) throws FileStorageException {
         try {
@@ -142,15 +160,15 @@ public class FileLoaderClientImpl implements FileLoader {
                 }
 
                 HttpPost method = new HttpPost(url);
+                method.setConfig(createRequestConfig());
                 method.setEntity(new InputStreamProgressEntity(inputStream,
                         ContentType.APPLICATION_OCTET_STREAM, progressListener));
 
-                HttpClientConnectionManager connectionManager = new BasicHttpClientConnectionManager();
-                HttpClient client = HttpClientBuilder.create()
-                        .setConnectionManager(connectionManager)
-                        .build();
+                HttpClient client = getHttpClient();
                 try {
                     HttpResponse response = client.execute(method);
+                    // release the connection to the pool
+                    EntityUtils.consumeQuietly(response.getEntity());
 
                     int statusCode = response.getStatusLine().getStatusCode();
                     if (statusCode == HttpStatus.SC_OK) {
@@ -162,17 +180,21 @@ public class FileLoaderClientImpl implements FileLoader {
                             throw new FileStorageException(FileStorageException.Type.fromHttpStatus(statusCode), fd.getName());
                         }
                     }
-                } catch (InterruptedIOException e) {
-                    log.trace("Uploading has been interrupted");
-                    throw new InterruptedException("File uploading is interrupted");
+                } catch (ConnectionPoolTimeoutException e) {
+                    log.warn("No free connection to upload file to {}", url);
+                    method.abort();
+                    throw new FileStorageException(FileStorageException.Type.IO_EXCEPTION, fd.getName(), e);
                 } catch (IOException e) {
+                    method.abort();
+                    if (isInterruption(e)) {
+                        log.trace("Uploading has been interrupted");
+                        throw new InterruptedException("File uploading is interrupted");
+                    }
                     log.debug("Unable to upload file to {}\n{}", url, e);
                     selectedUrl = failAndGetNextUrl(context);
                     if (selectedUrl == null) {
                         throw new FileStorageException(FileStorageException.Type.IO_EXCEPTION, fd.getName(), e);
                     }
-                } finally {
-                    connectionManager.shutdown();
                 }
             } catch (IOException | RetryUnsupportedException e) {
                 throw new FileStorageException(FileStorageException.Type.IO_EXCEPTION, fd.getName(), e);
@@ -206,12 +228,10 @@ public class FileLoaderClientImpl implements FileLoader {
                     "?s=" + userSessionSource.getUserSession().getId() +
                     "&f=" + fd.getId().toString();
 
-            HttpClientConnectionManager connectionManager = new BasicHttpClientConnectionManager();
-            HttpClient httpClient = HttpClientBuilder.create()
-                    .setConnectionManager(connectionManager)
-                    .build();
+            HttpClient httpClient = getHttpClient();
 
             HttpGet httpGet = new HttpGet(url);
+            httpGet.setConfig(createRequestConfig());
 
             try {
                 HttpResponse httpResponse = httpClient.execute(httpGet);
@@ -219,6 +239,7 @@ public class FileLoaderClientImpl implements FileLoader {
                 if (httpStatus == HttpStatus.SC_OK) {
                     HttpEntity httpEntity = httpResponse.getEntity();
                     if (httpEntity != null) {
+                        // the connection returns to the pool when the stream is read to the end or closed
                         return httpEntity.getContent();
                     } else {
                         log.debug("Unable to download file from {}\nHttpEntity is null", url);
@@ -229,15 +250,22 @@ public class FileLoaderClientImpl implements FileLoader {
                     }
                 } else {
                     log.debug("Unable to download file from {}\n{}", url, httpResponse.getStatusLine());
+                    EntityUtils.consumeQuietly(httpResponse.getEntity());
                     selectedUrl = failAndGetNextUrl(context);
                     if (selectedUrl == null) {
                         throw new FileStorageException(FileStorageException.Type.fromHttpStatus(httpStatus), fd.getName());
                     }
                 }
-            } catch (InterruptedIOException e) {
-                log.trace("Downloading has been interrupted");
+            } catch (ConnectionPoolTimeoutException e) {
+                log.warn("No free connection to download file from {}", url);
+                httpGet.abort();
                 throw new FileStorageException(FileStorageException.Type.IO_EXCEPTION, fd.getName(), e);
             } catch (IOException ex) {
+                httpGet.abort();
+                if (isInterruption(ex)) {
+                    log.trace("Downloading has been interrupted");
+                    throw new FileStorageException(FileStorageException.Type.IO_EXCEPTION, fd.getName(), ex);
+                }
                 log.debug("Unable to download file from {}\n{}", url, ex);
                 selectedUrl = failAndGetNextUrl(context);
                 if (selectedUrl == null) {
@@ -247,6 +275,86 @@ public class FileLoaderClientImpl implements FileLoader {
         }
     }
 
+    /**
+     * @return HTTP client with the pool of connections used for file transfers, created on first invocation
+     */
+    protected HttpClient getHttpClient() {
+        CloseableHttpClient client = httpClient;
+        if (client == null) {
+            synchronized (this) {
+                client = httpClient;
+                if (client == null) {
+                    client = createHttpClient();
+                    httpClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    protected CloseableHttpClient createHttpClient() {
+        ClientConfig clientConfig = configuration.getConfig(ClientConfig.class);
+
+        connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(clientConfig.getFileTransferPoolMaxTotal());
+        connectionManager.setDefaultMaxPerRoute(clientConfig.getFileTransferPoolMaxPerRoute());
+
+        log.info("Creating HTTP client for file transfers, max connections: {}, max connections per route: {}",
+                connectionManager.getMaxTotal(), connectionManager.getDefaultMaxPerRoute());
+
+        return HttpClientBuilder.create()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(createRequestConfig())
+                .evictExpiredConnections()
+                .evictIdleConnections(clientConfig.getFileTransferPoolIdleTimeoutSec(), TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * @return connection manager of the file transfer pool or null if the pool is not created yet
+     */
+    @Nullable
+    public PoolingHttpClientConnectionManager getConnectionManager() {
+        return httpClient == null ? null : connectionManager;
+    }
+
+    @PreDestroy
+    protected void closeHttpClient() {
+        CloseableHttpClient client = httpClient;
+        if (client != null) {
+            httpClient = null;
+            try {
+                client.close();
+            } catch (IOException e) {
+                log.warn("Unable to close HTTP client for file transfers", e);
+            }
+        }
+    }
+
+    /**
+     * Returns configuration of file transfer requests. The connect timeout is the same as for service invocations,
+     * waiting for a free connection of the pool and for data from the server are limited by
+     * {@link ClientConfig#getFileTransferPoolLeaseTimeout()} and {@link ClientConfig#getFileTransferReadTimeout()}.
+     */
+    protected RequestConfig createRequestConfig() {
+        ClientConfig clientConfig = configuration.getConfig(ClientConfig.class);
+        String connectTimeout = AppContext.getProperty("cuba.connectionTimeout");
+        return RequestConfig.custom()
+                .setConnectTimeout(connectTimeout == null ? -1 : Integer.parseInt(connectTimeout))
+                .setConnectionRequestTimeout(clientConfig.getFileTransferPoolLeaseTimeout())
+                .setSocketTimeout(clientConfig.getFileTransferReadTimeout())
+                .build();
+    }
+
+    /**
+     * @return true if the exception is caused by interruption of the transfer rather than by a timeout
+     */
+    protected boolean isInterruption(IOException e) {
+        return e instanceof InterruptedIOException
+                && !(e instanceof ConnectTimeoutException)
+                && !(e instanceof SocketTimeoutException);
+    }
+
     @Nullable
     protected String failAndGetNextUrl(Object context) {
         serverSelector.fail(context);
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.haulmont.cuba.client.sys.jmx;
+
+import com.haulmont.cuba.client.sys.FileLoaderClientImpl;
+import com.haulmont.cuba.core.global.FileLoader;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+
+@Component("cuba_FileTransferConnectionPoolMBean")
+public class FileTransferConnectionPool implements FileTransferConnectionPoolMBean {
+
+    @Inject
+    protected FileLoader fileLoader;
+
+    @Override
+    public int getMaxTotal() {
+        PoolStats stats = getTotalStats();
+        return stats == null ? 0 : stats.getMax();
+    }
+
+    @Override
+    public int getDefaultMaxPerRoute() {
+        PoolingHttpClientConnectionManager connectionManager = getConnectionManager();
+        return connectionManager == null ? 0 : connectionManager.getDefaultMaxPerRoute();
+    }
+
+    @Override
+    public int getLeased() {
+        PoolStats stats = getTotalStats();
+        return stats == null ? 0 : stats.getLeased();
+    }
+
+    @Override
+    public int getAvailable() {
+        PoolStats stats = getTotalStats();
+        return stats == null ? 0 : stats.getAvailable();
+    }
+
+    @Override
+    public int getPending() {
+        PoolStats stats = getTotalStats();
+        return stats == null ? 0 : stats.getPending();
+    }
+
+    @Override
+    public String printRouteStats() {
+        PoolingHttpClientConnectionManager connectionManager = getConnectionManager();
+        if (connectionManager == null) {
+            return "Connection pool is not initialized";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (HttpRoute route : connectionManager.getRoutes()) {
+            PoolStats stats = connectionManager.getStats(route);
+            sb.append(String.format("%s: leased %s, available %s, pending %s, max %s\n",
+                    route.getTargetHost(), stats.getLeased(), stats.getAvailable(), stats.getPending(), stats.getMax()));
+        }
+        return sb.toString();
+    }
+
+    protected PoolingHttpClientConnectionManager getConnectionManager() {
+        if (fileLoader instanceof FileLoaderClientImpl) {
+            return ((FileLoaderClientImpl) fileLoader).getConnectionManager();
+        }
+        return null;
+    }
+
+    protected PoolStats getTotalStats() {
+        PoolingHttpClientConnectionManager connectionManager = getConnectionManager();
+        return connectionManager == null ? null : connectionManager.getTotalStats();
+    }
+}
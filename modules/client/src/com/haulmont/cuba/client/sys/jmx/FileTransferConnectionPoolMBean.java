@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.haulmont.cuba.client.sys.jmx;
+
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+/**
+ * JMX interface for the pool of HTTP connections used for file uploads and downloads, see
+ * {@link com.haulmont.cuba.client.sys.FileLoaderClientImpl}.
+ */
+@ManagedResource(description = "Provides information about the pool of HTTP connections used for file transfers")
+public interface FileTransferConnectionPoolMBean {
+
+    /**
+     * @return maximum number of connections in the pool
+     */
+    int getMaxTotal();
+
+    /**
+     * @return maximum number of connections to one server
+     */
+    int getDefaultMaxPerRoute();
+
+    /**
+     * @return number of connections currently used by transfers
+     */
+    int getLeased();
+
+    /**
+     * @return number of idle connections kept alive in the pool
+     */
+    int getAvailable();
+
+    /**
+     * @return number of transfers waiting for a connection
+     */
+    int getPending();
+
+    /**
+     * @return statistics of connections to each server
+     */
+    String printRouteStats();
+}
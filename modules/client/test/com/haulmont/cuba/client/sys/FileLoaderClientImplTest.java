@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.haulmont.cuba.client.sys;
+
+import com.haulmont.cuba.client.ClientConfig;
+import com.haulmont.cuba.core.entity.FileDescriptor;
+import com.haulmont.cuba.core.global.Configuration;
+import com.haulmont.cuba.core.global.FileStorageException;
+import com.haulmont.cuba.core.global.UuidProvider;
+import com.haulmont.cuba.core.global.UserSessionSource;
+import com.haulmont.cuba.core.sys.AppContext;
+import com.haulmont.cuba.core.sys.remoting.discovery.ServerSelector;
+import mockit.Expectations;
+import mockit.Mocked;
+import mockit.Verifications;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class FileLoaderClientImplTest {
+
+    private static final String SERVER_1 = "http://server1:8080/app-core";
+    private static final String SERVER_2 = "http://server2:8080/app-core";
+
+    // no application properties, so files are transferred through the servlets
+    @Mocked
+    private AppContext appContext;
+
+    @Mocked
+    private UuidProvider uuidProvider;
+
+    @Mocked
+    private ServerSelector serverSelector;
+
+    @Mocked
+    private UserSessionSource userSessionSource;
+
+    @Mocked
+    private Configuration configuration;
+
+    @Mocked
+    private ClientConfig clientConfig;
+
+    @Mocked
+    private HttpClient client;
+
+    private FileLoaderClientImpl fileLoader;
+
+    private FileDescriptor fd;
+
+    @Before
+    public void setUp() throws Exception {
+        fileLoader = new FileLoaderClientImpl() {
+            @Override
+            protected HttpClient getHttpClient() {
+                return client;
+            }
+        };
+        fileLoader.serverSelector = serverSelector;
+        fileLoader.userSessionSource = userSessionSource;
+        fileLoader.configuration = configuration;
+
+        fd = new FileDescriptor();
+        fd.setId(UUID.randomUUID());
+        fd.setName("test.txt");
+        fd.setExtension("txt");
+        fd.setCreateDate(new Date());
+
+        new Expectations() {{
+            configuration.getConfig(ClientConfig.class); result = clientConfig; minTimes = 0;
+            clientConfig.getFileDownloadContext(); result = "/download"; minTimes = 0;
+            clientConfig.getFileUploadContext(); result = "/upload"; minTimes = 0;
+        }};
+    }
+
+    @Test
+    public void testDownloadFailsOverOnIOException() throws Exception {
+        new Expectations() {{
+            serverSelector.getUrl(any); returns(SERVER_1, SERVER_2);
+            client.execute((HttpUriRequest) any);
+            result = new ConnectException("Connection refused");
+            result = createResponse(HttpStatus.SC_OK, "content");
+        }};
+
+        try (InputStream stream = fileLoader.openStream(fd)) {
+            assertEquals("content", IOUtils.toString(stream, StandardCharsets.UTF_8));
+        }
+
+        new Verifications() {{
+            serverSelector.fail(any); times = 1;
+
+            List<HttpUriRequest> requests = new ArrayList<>();
+            client.execute(withCapture(requests));
+            assertEquals(2, requests.size());
+            assertTrue(requests.get(0).getURI().toString().startsWith(SERVER_1 + "/download"));
+            assertTrue(requests.get(1).getURI().toString().startsWith(SERVER_2 + "/download"));
+        }};
+    }
+
+    @Test
+    public void testDownloadFailsOverOnErrorStatus() throws Exception {
+        new Expectations() {{
+            serverSelector.getUrl(any); returns(SERVER_1, SERVER_2);
+            client.execute((HttpUriRequest) any);
+            result = createResponse(HttpStatus.SC_SERVICE_UNAVAILABLE, "");
+            result = createResponse(HttpStatus.SC_OK, "content");
+        }};
+
+        try (InputStream stream = fileLoader.openStream(fd)) {
+            assertEquals("content", IOUtils.toString(stream, StandardCharsets.UTF_8));
+        }
+
+        new Verifications() {{
+            serverSelector.fail(any); times = 1;
+        }};
+    }
+
+    @Test
+    public void testDownloadFailsWhenNoServerLeft() throws Exception {
+        new Expectations() {{
+            serverSelector.getUrl(any); returns(SERVER_1, null);
+            client.execute((HttpUriRequest) any); result = new ConnectException("Connection refused");
+        }};
+
+        try {
+            fileLoader.openStream(fd);
+            fail("FileStorageException expected");
+        } catch (FileStorageException e) {
+            assertEquals(FileStorageException.Type.IO_EXCEPTION, e.getType());
+        }
+
+        new Verifications() {{
+            serverSelector.fail(any); times = 1;
+            client.execute((HttpUriRequest) any); times = 1;
+        }};
+    }
+
+    @Test
+    public void testDownloadDoesNotFailOverWhenPoolIsExhausted() throws Exception {
+        new Expectations() {{
+            serverSelector.getUrl(any); result = SERVER_1;
+            client.execute((HttpUriRequest) any); result = new ConnectionPoolTimeoutException("Timeout");
+        }};
+
+        try {
+            fileLoader.openStream(fd);
+            fail("FileStorageException expected");
+        } catch (FileStorageException e) {
+            assertEquals(FileStorageException.Type.IO_EXCEPTION, e.getType());
+        }
+
+        new Verifications() {{
+            serverSelector.fail(any); times = 0;
+        }};
+    }
+
+    @Test
+    public void testUploadFailsOverOnIOException() throws Exception {
+        new Expectations() {{
+            serverSelector.getUrl(any); returns(SERVER_1, SERVER_2);
+            client.execute((HttpUriRequest) any);
+            result = new ConnectException("Connection refused");
+            result = createResponse(HttpStatus.SC_OK, "");
+        }};
+
+        fileLoader.saveStream(fd, () -> new ByteArrayInputStream("content".getBytes(StandardCharsets.UTF_8)));
+
+        new Verifications() {{
+            serverSelector.fail(any); times = 1;
+
+            List<HttpUriRequest> requests = new ArrayList<>();
+            client.execute(withCapture(requests));
+            assertEquals(2, requests.size());
+            assertTrue(requests.get(1).getURI().toString().startsWith(SERVER_2 + "/upload"));
+        }};
+    }
+
+    private HttpResponse createResponse(int status, String content) {
+        BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, status, null);
+        response.setEntity(new StringEntity(content, StandardCharsets.UTF_8));
+        return response;
+    }
+}
@@ -57,6 +57,16 @@ public interface Query {
      */
     List getResultList();
 
+    /**
+     * Execute a SELECT query and return the query results through a database cursor. Unlike {@link #getResultList()},
+     * the results are read from the database while iterating and are not cached by the query.
+     *
+     * @param fetchSize JDBC fetch size and the number of results read from the cursor at once
+     * @return cursor of the results, which must be closed before the end of the transaction
+     * @throws IllegalStateException if called for a Java Persistence query language UPDATE or DELETE statement
+     */
+    QueryCursor getResultCursor(int fetchSize);
+
     /**
      * Execute a SELECT query that returns a single result.
      *
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.haulmont.cuba.core;
+
+import java.util.Iterator;
+
+/**
+ * Iterator over query results which are read from a database cursor.
+ * <p>
+ * The cursor is bound to the current transaction and must be closed before the transaction ends.
+ *
+ * @see Query#getResultCursor(int)
+ */
+public interface QueryCursor<T> extends Iterator<T>, AutoCloseable {
+
+    /**
+     * Closes the underlying database cursor. Subsequent calls have no effect.
+     */
+    @Override
+    void close();
+}
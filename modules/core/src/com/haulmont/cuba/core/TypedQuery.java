@@ -35,6 +35,9 @@ public interface TypedQuery<T> extends Query {
     @Override
     List<T> getResultList();
 
+    @Override
+    QueryCursor<T> getResultCursor(int fetchSize);
+
     @Override
     T getSingleResult();
 
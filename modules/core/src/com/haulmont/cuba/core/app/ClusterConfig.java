@@ -66,4 +66,33 @@ public interface ClusterConfig extends Config {
     @Property("cuba.cluster.messageSendingQueueCapacity")
     @DefaultInt(Integer.MAX_VALUE)
     int getClusterMessageSendingQueueCapacity();
+
+    /**
+     * @return whether asynchronously sent messages are packed into batches before sending to the cluster members
+     */
+    @Property("cuba.cluster.messageBatchingEnabled")
+    @DefaultBoolean(false)
+    boolean getMessageBatchingEnabled();
+
+    /**
+     * @return time window in milliseconds during which queued messages are collected into one batch
+     */
+    @Property("cuba.cluster.messageBatchingWindow")
+    @DefaultLong(20)
+    long getMessageBatchingWindow();
+
+    /**
+     * @return maximum number of messages in one batch. A batch is sent before the end of the window if it is full
+     */
+    @Property("cuba.cluster.messageBatchMaxSize")
+    @DefaultInt(100)
+    int getMessageBatchMaxSize();
+
+    /**
+     * @return maximum number of messages kept in the batch queue until the cluster channel is connected.
+     * Messages above the limit are discarded
+     */
+    @Property("cuba.cluster.messageBatchMaxPendingMessages")
+    @DefaultInt(10000)
+    int getMessageBatchMaxPendingMessages();
 }
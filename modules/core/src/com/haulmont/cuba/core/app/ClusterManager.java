@@ -38,14 +38,13 @@ import org.springframework.context.event.EventListener;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.Nullable;
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 import javax.management.MBeanServer;
 import java.io.*;
 import java.lang.management.ManagementFactory;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.LongAdder;
 
@@ -65,6 +64,12 @@ public class ClusterManager implements ClusterManagerAPI {
 
     protected ThreadPoolExecutor executor;
 
+    protected boolean batchingEnabled;
+
+    protected BlockingQueue<QueuedMessage> batchQueue;
+
+    protected ScheduledExecutorService batchSender;
+
     @Inject
     protected Resources resources;
 
@@ -78,8 +83,14 @@ public class ClusterManager implements ClusterManagerAPI {
 
     protected Map<String, MessageStat> messagesStat = new ConcurrentHashMap<>();
 
+    protected Map<Class, ClusterMessageCodec> codecsByClass = new ConcurrentHashMap<>();
+
+    protected Map<Short, ClusterMessageCodec> codecsById = new ConcurrentHashMap<>();
+
     protected static final String STATE_MAGIC = "CUBA_STATE";
 
+    protected static final byte[] CODEC_MAGIC = {(byte) 0xCB, (byte) 0xA0, (byte) 0xC0, (byte) 0xDE};
+
     public JChannel getChannel() {
         return channel;
     }
@@ -97,6 +108,15 @@ public class ClusterManager implements ClusterManagerAPI {
                         log.info("Queue capacity is exceeded. Message: {}: {}", sendMessageRunnable.message.getClass(), sendMessageRunnable.message);
                     }
                 });
+
+        batchingEnabled = clusterConfig.getMessageBatchingEnabled();
+        if (batchingEnabled) {
+            batchQueue = new LinkedBlockingQueue<>(clusterConfig.getClusterMessageSendingQueueCapacity());
+            batchSender = Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactoryBuilder().setNameFormat("ClusterManagerBatchSender-%d").build());
+            long window = clusterConfig.getMessageBatchingWindow();
+            batchSender.scheduleWithFixedDelay(this::sendQueuedMessages, window, window, TimeUnit.MILLISECONDS);
+        }
     }
 
     @EventListener(AppContextInitializedEvent.class)
@@ -110,17 +130,46 @@ public class ClusterManager implements ClusterManagerAPI {
     @EventListener(AppContextStoppedEvent.class)
     protected void applicationStopped() {
         executor.shutdown();
+        if (batchSender != null) {
+            batchSender.shutdown();
+            try {
+                batchSender.awaitTermination(clusterConfig.getMessageBatchingWindow() * 10, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sendQueuedMessages();
+        }
         stop();
     }
 
     @Override
     public void send(final Serializable message) {
-        if (channel == null)
+        Boolean sync = forceSyncSending.get();
+        boolean syncSending = sync != null && sync;
+        if (channel == null && (syncSending || !batchingEnabled || !clusterConfig.getEnabled())) {
+            logNotSent(message);
             return;
+        }
 
-        Boolean sync = forceSyncSending.get();
-        if (sync != null && sync) {
+        if (syncSending) {
             internalSend(message, true);
+        } else if (batchingEnabled) {
+            // if the cluster is not connected yet, the message stays in the queue until the channel is available
+            if (channel == null && batchQueue.size() >= clusterConfig.getMessageBatchMaxPendingMessages()) {
+                log.info("Cluster is not started and pending messages limit is exceeded. Message: {}: {}",
+                        message.getClass(), message);
+                return;
+            }
+            log.trace("Queueing message: {}: {} to send in batch", message.getClass(), message);
+            if (!batchQueue.offer(new QueuedMessage(message))) {
+                log.info("Queue capacity is exceeded. Message: {}: {}", message.getClass(), message);
+            } else if (batchQueue.size() >= clusterConfig.getMessageBatchMaxSize()) {
+                try {
+                    batchSender.execute(this::sendQueuedMessages);
+                } catch (RejectedExecutionException e) {
+                    log.debug("Batch sender is stopped");
+                }
+            }
         } else {
             log.trace("Submitting message: {}: {} to send asynchronously", message.getClass(), message);
             executor.execute(new SendMessageRunnable(message));
@@ -129,16 +178,26 @@ public class ClusterManager implements ClusterManagerAPI {
 
     @Override
     public void sendSync(Serializable message) {
-        if (channel == null)
+        if (channel == null) {
+            logNotSent(message);
             return;
+        }
 
         internalSend(message, true);
     }
 
+    protected void logNotSent(Serializable message) {
+        if (clusterConfig.getEnabled()) {
+            log.info("Cluster is not started, message is not sent: {}: {}", message.getClass(), message);
+        } else {
+            log.trace("Cluster is disabled, message is not sent: {}: {}", message.getClass(), message);
+        }
+    }
+
     protected void internalSend(Serializable message, boolean sync) {
         StopWatch sw = new Slf4JStopWatch(String.format("sendClusterMessage(%s)", message.getClass().getSimpleName()));
         try {
-            byte[] bytes = SerializationSupport.serialize(message);
+            byte[] bytes = encode(message);
             log.debug("Sending message: {}: {} ({} bytes)", message.getClass(), message, bytes.length);
             MessageStat stat = messagesStat.get(message.getClass().getName());
             if (stat != null) {
@@ -158,6 +217,71 @@ public class ClusterManager implements ClusterManagerAPI {
         }
     }
 
+    /**
+     * Sends all messages accumulated in the batch queue. Invoked periodically by the batch sender thread and
+     * when the queue reaches the maximum batch size. Messages are kept in the queue while the channel is not connected.
+     */
+    protected synchronized void sendQueuedMessages() {
+        if (channel == null)
+            return;
+
+        try {
+            int maxSize = clusterConfig.getMessageBatchMaxSize();
+            List<QueuedMessage> queued = new ArrayList<>();
+            while (batchQueue.drainTo(queued, maxSize) > 0) {
+                internalSendBatch(queued);
+                queued.clear();
+            }
+        } catch (Throwable e) {
+            log.error("Error sending messages batch", e);
+        }
+    }
+
+    protected void internalSendBatch(List<QueuedMessage> queued) {
+        StopWatch sw = new Slf4JStopWatch("sendClusterMessageBatch");
+        try {
+            long now = System.nanoTime();
+            Set<Serializable> idempotentMessages = new HashSet<>();
+            List<Serializable> messages = new ArrayList<>(queued.size());
+            List<QueuedMessage> sent = new ArrayList<>(queued.size());
+            for (QueuedMessage queuedMessage : queued) {
+                Serializable message = queuedMessage.message;
+                if (message instanceof IdempotentClusterMessage && !idempotentMessages.add(message)) {
+                    log.trace("Merging duplicate message: {}: {}", message.getClass(), message);
+                    MessageStat stat = messagesStat.get(message.getClass().getName());
+                    if (stat != null) {
+                        stat.updateMerged();
+                    }
+                    continue;
+                }
+                messages.add(message);
+                sent.add(queuedMessage);
+            }
+
+            MessageBatch batch = new MessageBatch(messages.size());
+            for (int i = 0; i < messages.size(); i++) {
+                Serializable message = messages.get(i);
+                byte[] bytes = encode(message);
+                batch.messages.add(bytes);
+                MessageStat stat = messagesStat.get(message.getClass().getName());
+                if (stat != null) {
+                    stat.updateSent(bytes.length);
+                    stat.updateBatched(messages.size(), now - sent.get(i).queuedAt);
+                }
+            }
+
+            byte[] bytes = batch.messages.size() == 1 ? batch.messages.get(0) : SerializationSupport.serialize(batch);
+            log.debug("Sending batch of {} messages ({} bytes)", batch.messages.size(), bytes.length);
+            try {
+                channel.send(new Message(null, null, bytes));
+            } catch (Exception e) {
+                log.error("Error sending message", e);
+            }
+        } finally {
+            sw.stop();
+        }
+    }
+
     @Override
     public boolean getSyncSendingForCurrentThread() {
         return forceSyncSending.get() == null ? false : forceSyncSending.get();
@@ -186,6 +310,76 @@ public class ClusterManager implements ClusterManagerAPI {
         messagesStat.remove(className);
     }
 
+    @Override
+    public void addCodec(ClusterMessageCodec codec) {
+        Preconditions.checkNotNullArgument(codec, "Codec is null");
+        ClusterMessageCodec existing = codecsById.putIfAbsent(codec.getTypeId(), codec);
+        if (existing != null && existing != codec) {
+            throw new IllegalStateException(String.format("Type id %s of codec %s is already used by %s",
+                    codec.getTypeId(), codec.getClass().getName(), existing.getClass().getName()));
+        }
+        codecsByClass.put(codec.getMessageClass(), codec);
+    }
+
+    /**
+     * Converts a message to bytes using a registered codec or the standard serialization if there is no codec
+     * for the message class.
+     */
+    @SuppressWarnings("unchecked")
+    protected byte[] encode(Serializable message) {
+        ClusterMessageCodec codec = codecsByClass.get(message.getClass());
+        if (codec == null) {
+            return SerializationSupport.serialize(message);
+        }
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bos)) {
+            out.write(CODEC_MAGIC);
+            out.writeShort(codec.getTypeId());
+            out.writeByte(codec.getVersion());
+            codec.write(message, out);
+        } catch (IOException e) {
+            throw new RuntimeException("Error encoding message " + message.getClass().getName(), e);
+        }
+        return bos.toByteArray();
+    }
+
+    /**
+     * Restores a message converted to bytes by {@link #encode(Serializable)}.
+     *
+     * @return message or null if it was written by a codec which is not registered on this node
+     */
+    @Nullable
+    protected Serializable decode(byte[] bytes) {
+        if (!hasCodecMagic(bytes)) {
+            return (Serializable) SerializationSupport.deserialize(bytes);
+        }
+        try (DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(bytes, CODEC_MAGIC.length, bytes.length - CODEC_MAGIC.length))) {
+            short typeId = in.readShort();
+            byte version = in.readByte();
+            ClusterMessageCodec codec = codecsById.get(typeId);
+            if (codec == null) {
+                log.warn("Received message with unknown codec type id {}", typeId);
+                return null;
+            }
+            return codec.read(in, version);
+        } catch (IOException e) {
+            throw new RuntimeException("Error decoding message", e);
+        }
+    }
+
+    protected boolean hasCodecMagic(byte[] bytes) {
+        if (bytes.length < CODEC_MAGIC.length) {
+            return false;
+        }
+        for (int i = 0; i < CODEC_MAGIC.length; i++) {
+            if (bytes[i] != CODEC_MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public void start() {
         log.info("Starting cluster");
@@ -269,7 +463,7 @@ public class ClusterManager implements ClusterManagerAPI {
 
     @Override
     public int getMessagesCount() {
-        return executor.getQueue().size();
+        return executor.getQueue().size() + (batchQueue != null ? batchQueue.size() : 0);
     }
 
     @Override
@@ -336,9 +530,16 @@ public class ClusterManager implements ClusterManagerAPI {
             MessageStat stat = entry.getValue();
             if (stat != null) {
                 messagesStats
-                        .append(String.format("Class: %s; received: %s, %s bytes; sent: %s, %s bytes\n",
+                        .append(String.format("Class: %s; received: %s, %s bytes; sent: %s, %s bytes",
                                 entry.getKey(), stat.getReceivedMessages(), stat.getReceivedBytes(),
                                 stat.getSentMessages(), stat.getSentBytes()));
+                if (stat.getBatchedMessages() > 0 || stat.getMergedMessages() > 0) {
+                    messagesStats
+                            .append(String.format("; batched: %s, avg batch size: %.1f, avg queue time: %.2f ms, merged: %s",
+                                    stat.getBatchedMessages(), stat.getAverageBatchSize(),
+                                    stat.getAverageQueueTime() / 1_000_000.0, stat.getMergedMessages()));
+                }
+                messagesStats.append("\n");
             }
         }
         return messagesStats.toString();
@@ -393,23 +594,40 @@ public class ClusterManager implements ClusterManagerAPI {
                 log.debug("Null buffer received");
                 return;
             }
+            Serializable data = decode(bytes);
+            if (data instanceof MessageBatch) {
+                List<byte[]> messages = ((MessageBatch) data).messages;
+                log.debug("Received batch of {} messages ({} bytes)", messages.size(), bytes.length);
+                for (byte[] messageBytes : messages) {
+                    try {
+                        Serializable message = decode(messageBytes);
+                        if (message != null) {
+                            receiveMessage(message, messageBytes.length);
+                        }
+                    } catch (Exception e) {
+                        log.error("Error receiving message from batch", e);
+                    }
+                }
+            } else if (data != null) {
+                receiveMessage(data, bytes.length);
+            }
+        }
+
+        protected void receiveMessage(Serializable data, int length) {
             StopWatch sw = new Slf4JStopWatch();
-            String simpleClassName = null;
             try {
-                Serializable data = (Serializable) SerializationSupport.deserialize(bytes);
                 String className = data.getClass().getName();
-                simpleClassName = data.getClass().getSimpleName();
-                log.debug("Received message: {}: {} ({} bytes)", data.getClass(), data, bytes.length);
+                log.debug("Received message: {}: {} ({} bytes)", data.getClass(), data, length);
                 MessageStat stat = messagesStat.get(className);
                 if (stat != null) {
-                    stat.updateReceived(bytes.length);
+                    stat.updateReceived(length);
                 }
                 ClusterListener listener = listeners.get(className);
                 if (listener != null) {
                     listener.receive(data);
                 }
             } finally {
-                sw.stop(String.format("receiveClusterMessage(%s)", simpleClassName));
+                sw.stop(String.format("receiveClusterMessage(%s)", data.getClass().getSimpleName()));
             }
         }
 
@@ -519,11 +737,38 @@ public class ClusterManager implements ClusterManagerAPI {
         }
     }
 
+    protected static class QueuedMessage {
+        protected final Serializable message;
+        protected final long queuedAt;
+
+        public QueuedMessage(Serializable message) {
+            this.message = message;
+            this.queuedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * Frame containing several serialized messages sent to the cluster as one JGroups message.
+     */
+    protected static class MessageBatch implements Serializable {
+        private static final long serialVersionUID = 3207354405932457162L;
+
+        protected List<byte[]> messages;
+
+        public MessageBatch(int size) {
+            messages = new ArrayList<>(size);
+        }
+    }
+
     protected class MessageStat {
         protected LongAdder sentBytes = new LongAdder();
         protected LongAdder receivedBytes = new LongAdder();
         protected LongAdder receivedMessages = new LongAdder();
         protected LongAdder sentMessages = new LongAdder();
+        protected LongAdder batchedMessages = new LongAdder();
+        protected LongAdder batchSizes = new LongAdder();
+        protected LongAdder queueTime = new LongAdder();
+        protected LongAdder mergedMessages = new LongAdder();
 
         public void updateReceived(int bytes) {
             receivedMessages.increment();
@@ -535,6 +780,16 @@ public class ClusterManager implements ClusterManagerAPI {
             sentBytes.add(bytes);
         }
 
+        public void updateBatched(int batchSize, long queueTimeNanos) {
+            batchedMessages.increment();
+            batchSizes.add(batchSize);
+            queueTime.add(queueTimeNanos);
+        }
+
+        public void updateMerged() {
+            mergedMessages.increment();
+        }
+
         public long getSentBytes() {
             return sentBytes.longValue();
         }
@@ -550,5 +805,29 @@ public class ClusterManager implements ClusterManagerAPI {
         public long getReceivedMessages() {
             return receivedMessages.longValue();
         }
+
+        public long getBatchedMessages() {
+            return batchedMessages.longValue();
+        }
+
+        public long getMergedMessages() {
+            return mergedMessages.longValue();
+        }
+
+        /**
+         * @return average size of the batches in which messages of this class were sent
+         */
+        public double getAverageBatchSize() {
+            long count = batchedMessages.longValue();
+            return count == 0 ? 0 : (double) batchSizes.longValue() / count;
+        }
+
+        /**
+         * @return average time in nanoseconds that messages of this class spent in the batch queue
+         */
+        public double getAverageQueueTime() {
+            long count = batchedMessages.longValue();
+            return count == 0 ? 0 : (double) queueTime.longValue() / count;
+        }
     }
 }
\ No newline at end of file
@@ -69,6 +69,13 @@ public interface ClusterManagerAPI {
      */
     void removeListener(Class messageClass, ClusterListener listener);
 
+    /**
+     * Register a binary codec used instead of the standard serialization for messages of the codec's class.
+     *
+     * @param codec codec instance
+     */
+    void addCodec(ClusterMessageCodec codec);
+
     /**
      * Inform whether the current node is currently the master node in the cluster. A middleware cluster always
      * elects one of its members as master, usually it is the oldest one.
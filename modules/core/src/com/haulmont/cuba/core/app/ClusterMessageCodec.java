@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.app;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+
+/**
+ * Hand-written binary encoder of a cluster message class.
+ * <p>
+ * Messages of classes without a registered codec are sent using the standard serialization. A codec replaces it
+ * with a compact format that contains only a short type identifier, the format version and the message fields.
+ * <p>
+ * Codecs are registered by {@link ClusterManagerAPI#addCodec(ClusterMessageCodec)}. The same codecs must be
+ * registered on all nodes of the cluster.
+ *
+ * @param <T> message class
+ */
+public interface ClusterMessageCodec<T extends Serializable> {
+
+    /**
+     * @return class of messages handled by this codec
+     */
+    Class<T> getMessageClass();
+
+    /**
+     * @return identifier of the message class unique within the cluster. Values from 0 to 999 are reserved
+     * for the platform.
+     */
+    short getTypeId();
+
+    /**
+     * @return version of the format written by {@link #write(Serializable, DataOutput)}
+     */
+    byte getVersion();
+
+    /**
+     * Writes message fields to the output.
+     */
+    void write(T message, DataOutput out) throws IOException;
+
+    /**
+     * Reads a message written by this or a previous version of the codec.
+     *
+     * @param version version of the codec that has written the message
+     */
+    T read(DataInput in, byte version) throws IOException;
+}
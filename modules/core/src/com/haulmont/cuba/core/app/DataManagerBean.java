@@ -76,6 +76,37 @@ public class DataManagerBean implements DataManager {
         return entities;
     }
 
+    @Override
+    public <E extends Entity> EntityCursor<E> loadCursor(LoadContext<E> context) {
+        MetaClass metaClass = metadata.getClassNN(context.getMetaClass());
+        DataStore storage = storeFactory.get(getStoreName(metaClass));
+        int fetchSize = serverConfig.getDataManagerCursorFetchSize();
+        EntityCursor<E> cursor = storage.loadCursor(context, fetchSize);
+        if (Stores.getAdditional().isEmpty() || context.getView() == null) {
+            return cursor;
+        }
+        return new ChunkedEntityCursor<E>() {
+            @Nullable
+            @Override
+            protected List<E> loadNextChunk() {
+                if (!cursor.hasNext()) {
+                    return null;
+                }
+                List<E> chunk = new ArrayList<>(fetchSize);
+                while (chunk.size() < fetchSize && cursor.hasNext()) {
+                    chunk.add(cursor.next());
+                }
+                readCrossDataStoreReferences(chunk, context.getView(), metaClass, context.isJoinTransaction());
+                return chunk;
+            }
+
+            @Override
+            protected void releaseResources() {
+                cursor.close();
+            }
+        };
+    }
+
     @Override
     public long getCount(LoadContext<? extends Entity> context) {
         MetaClass metaClass = metadata.getClassNN(context.getMetaClass());
@@ -250,6 +281,7 @@ public class DataManagerBean implements DataManager {
         newCtx.setDiscardCommitted(context.isDiscardCommitted());
         newCtx.setAuthorizationRequired(context.isAuthorizationRequired());
         newCtx.setJoinTransaction(context.isJoinTransaction());
+        newCtx.setBulkMode(context.isBulkMode());
         return newCtx;
     }
 
@@ -381,6 +413,12 @@ public class DataManagerBean implements DataManager {
             return dataManager.loadList(context);
         }
 
+        @Override
+        public <E extends Entity> EntityCursor<E> loadCursor(LoadContext<E> context) {
+            context.setAuthorizationRequired(true);
+            return dataManager.loadCursor(context);
+        }
+
         @Override
         public List<KeyValueEntity> loadValues(ValueLoadContext context) {
             context.setAuthorizationRequired(true);
@@ -19,7 +19,9 @@ package com.haulmont.cuba.core.app;
 import com.haulmont.cuba.core.entity.Entity;
 import com.haulmont.cuba.core.entity.KeyValueEntity;
 import com.haulmont.cuba.core.global.CommitContext;
+import com.haulmont.cuba.core.global.EntityCursor;
 import com.haulmont.cuba.core.global.LoadContext;
+import com.haulmont.cuba.core.global.PagedEntityCursor;
 import com.haulmont.cuba.core.global.ValueLoadContext;
 
 import javax.annotation.Nullable;
@@ -47,6 +49,16 @@ public interface DataStore {
      */
     <E extends Entity> List<E> loadList(LoadContext<E> context);
 
+    /**
+     * Loads entity instances through a cursor which reads them from the storage in chunks.
+     * The default implementation loads instances page by page using {@link #loadList(LoadContext)}.
+     * @param fetchSize number of instances read at once
+     * @return cursor of instances which must be closed after use
+     */
+    default <E extends Entity> EntityCursor<E> loadCursor(LoadContext<E> context, int fetchSize) {
+        return new PagedEntityCursor<>(context, fetchSize, this::loadList);
+    }
+
     /**
      * Returns the number of entity instances for the given query passed in the {@link LoadContext}.
      * @return number of instances in the storage
@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.app;
+
+import java.io.Serializable;
+
+/**
+ * Marker interface of cluster messages that can be delivered once instead of several times.
+ * <p>
+ * If message batching is enabled (see {@link ClusterConfig#getMessageBatchingEnabled()}), messages that are
+ * equal according to their {@code equals()} method are merged into one when they get into the same batch.
+ * Implementations must therefore define {@code equals()} and {@code hashCode()}.
+ */
+public interface IdempotentClusterMessage extends Serializable {
+}
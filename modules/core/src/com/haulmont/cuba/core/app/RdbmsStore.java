@@ -30,6 +30,7 @@ import com.haulmont.cuba.core.entity.*;
 import com.haulmont.cuba.core.global.*;
 import com.haulmont.cuba.core.sys.EntityFetcher;
 import com.haulmont.cuba.core.sys.persistence.EntityChangedEventManager;
+import com.haulmont.cuba.core.sys.persistence.PersistenceImplSupport;
 import com.haulmont.cuba.security.entity.ConstraintOperationType;
 import com.haulmont.cuba.security.entity.EntityAttrAccess;
 import com.haulmont.cuba.security.entity.EntityOp;
@@ -101,6 +102,9 @@ public class RdbmsStore implements DataStore {
     @Inject
     protected EntityChangedEventManager entityChangedEventManager;
 
+    @Inject
+    protected PersistenceImplSupport persistenceImplSupport;
+
     protected String storeName;
 
     public RdbmsStore(String storeName) {
@@ -257,6 +261,26 @@ public class RdbmsStore implements DataStore {
         return resultList;
     }
 
+    @Override
+    public <E extends Entity> EntityCursor<E> loadCursor(LoadContext<E> context, int fetchSize) {
+        if (log.isDebugEnabled())
+            log.debug("loadCursor: metaClass=" + context.getMetaClass() + ", view=" + context.getView()
+                    + (context.getPrevQueries().isEmpty() ? "" : ", from selected")
+                    + ", query=" + (context.getQuery() == null ? null : RdbmsQueryBuilder.printQuery(context.getQuery().getQueryString()))
+                    + ", fetchSize=" + fetchSize);
+
+        MetaClass metaClass = metadata.getClassNN(context.getMetaClass());
+
+        if (isAuthorizationRequired(context) && !isEntityOpPermitted(metaClass, EntityOp.READ)) {
+            log.debug("reading of {} not permitted, returning empty cursor", metaClass);
+            return EntityCursor.empty();
+        }
+
+        queryResultsManager.savePreviousQueryResults(context);
+
+        return new RdbmsEntityCursor<>(context, fetchSize);
+    }
+
     @Override
     public long getCount(LoadContext<? extends Entity> context) {
         if (log.isDebugEnabled())
@@ -341,6 +365,22 @@ public class RdbmsStore implements DataStore {
         List<BaseGenericIdEntity> identityEntitiesToStoreDynamicAttributes = new ArrayList<>();
         List<CategoryAttributeValue> attributeValuesToRemove = new ArrayList<>();
 
+        boolean bulkMode = context.isBulkMode();
+        Collection<Entity> commitInstances = context.getCommitInstances();
+        Collection<Entity> newInstances = commitInstances;
+        boolean flushNewInBatches = false;
+        int bulkBatchSize = 0;
+        if (bulkMode) {
+            commitInstances = groupByMetaClass(commitInstances);
+            newInstances = commitInstances.stream().filter(entityStates::isNew).collect(Collectors.toList());
+            List<Entity> orderedNewInstances = orderByReferences(newInstances);
+            if (orderedNewInstances != null) {
+                newInstances = orderedNewInstances;
+                flushNewInBatches = true;
+            }
+            bulkBatchSize = serverConfig.getBulkCommitBatchSize();
+        }
+
         try (Transaction tx = getSaveTransaction(storeName, context.isJoinTransaction())) {
             EntityManager em = persistence.getEntityManager(storeName);
             checkPermissions(context);
@@ -352,8 +392,10 @@ public class RdbmsStore implements DataStore {
 
             List<BaseGenericIdEntity> entitiesToStoreDynamicAttributes = new ArrayList<>();
 
+            int unflushedCount = 0;
+
             // persist new
-            for (Entity entity : context.getCommitInstances()) {
+            for (Entity entity : newInstances) {
                 if (entityStates.isNew(entity)) {
                     if (isAuthorizationRequired(context)) {
                         attributeSecurity.beforePersist(entity);
@@ -378,11 +420,24 @@ public class RdbmsStore implements DataStore {
                             entitiesToStoreDynamicAttributes.add((BaseGenericIdEntity) entity);
                         }
                     }
+
+                    if (bulkMode) {
+                        unflushedCount++;
+                        if (flushNewInBatches && unflushedCount >= bulkBatchSize) {
+                            flushBulkBatch(em, entitiesToStoreDynamicAttributes);
+                            unflushedCount = 0;
+                        }
+                    }
                 }
             }
 
+            if (unflushedCount > 0) {
+                flushBulkBatch(em, entitiesToStoreDynamicAttributes);
+                unflushedCount = 0;
+            }
+
             // merge the rest - instances can be detached or not
-            for (Entity entity : context.getCommitInstances()) {
+            for (Entity entity : commitInstances) {
                 if (!entityStates.isNew(entity)) {
                     if (isAuthorizationRequired(context)) {
                         security.assertToken(entity);
@@ -407,9 +462,18 @@ public class RdbmsStore implements DataStore {
                         mergedBaseGenericIdEntity.setDynamicAttributes(originalBaseGenericIdEntity.getDynamicAttributes());
                         entitiesToStoreDynamicAttributes.add(mergedBaseGenericIdEntity);
                     }
+
+                    if (bulkMode && ++unflushedCount >= bulkBatchSize) {
+                        flushBulkBatch(em, entitiesToStoreDynamicAttributes);
+                        unflushedCount = 0;
+                    }
                 }
             }
 
+            if (unflushedCount > 0) {
+                flushBulkBatch(em, entitiesToStoreDynamicAttributes);
+            }
+
             for (BaseGenericIdEntity entity : entitiesToStoreDynamicAttributes) {
                 dynamicAttributesManagerAPI.storeDynamicAttributes(entity);
             }
@@ -499,13 +563,18 @@ public class RdbmsStore implements DataStore {
 
         if (!context.isDiscardCommitted()) {
             if (isAuthorizationRequired(context)) {
+                Set<Entity> persistedSet = new HashSet<>(persisted);
                 for (Entity entity : saved) {
-                    if (!persisted.contains(entity)) {
+                    if (!persistedSet.contains(entity)) {
                         attributeSecurity.afterCommit(entity);
                     }
                 }
             }
-            updateReferences(persisted, saved);
+            if (bulkMode) {
+                updateReferencesByIndex(persisted, saved);
+            } else {
+                updateReferences(persisted, saved);
+            }
         }
 
         return context.isDiscardCommitted() ? Collections.emptySet() : saved;
@@ -892,6 +961,134 @@ public class RdbmsStore implements DataStore {
         return indexes;
     }
 
+    protected Collection<Entity> groupByMetaClass(Collection<Entity> entities) {
+        Map<MetaClass, List<Entity>> groups = new LinkedHashMap<>();
+        for (Entity entity : entities) {
+            groups.computeIfAbsent(entity.getMetaClass(), metaClass -> new ArrayList<>()).add(entity);
+        }
+        List<Entity> result = new ArrayList<>(entities.size());
+        for (List<Entity> group : groups.values()) {
+            result.addAll(group);
+        }
+        return result;
+    }
+
+    /**
+     * Orders new instances committed in the bulk mode so that instances referenced by other new instances go first.
+     * Then the instances can be flushed in batches without references to new instances which are not persisted yet.
+     *
+     * @return ordered instances or null if new instances reference each other cyclically
+     */
+    @Nullable
+    protected List<Entity> orderByReferences(Collection<Entity> newInstances) {
+        Set<Entity> pending = Collections.newSetFromMap(new IdentityHashMap<>());
+        pending.addAll(newInstances);
+        Set<Entity> inProgress = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Entity> result = new ArrayList<>(newInstances.size());
+        for (Entity entity : newInstances) {
+            if (!addWithReferences(entity, pending, inProgress, result)) {
+                return null;
+            }
+        }
+        return result;
+    }
+
+    protected boolean addWithReferences(Entity entity, Set<Entity> pending, Set<Entity> inProgress, List<Entity> result) {
+        if (!pending.contains(entity)) {
+            return true;
+        }
+        if (!inProgress.add(entity)) {
+            return false;
+        }
+        for (MetaProperty property : entity.getMetaClass().getProperties()) {
+            if (!property.getRange().isClass() || !entityStates.isLoaded(entity, property.getName()))
+                continue;
+            Object value = entity.getValue(property.getName());
+            if (value instanceof Entity) {
+                if (!addWithReferences((Entity) value, pending, inProgress, result)) {
+                    return false;
+                }
+            } else if (value instanceof Collection) {
+                for (Object item : (Collection) value) {
+                    if (item instanceof Entity && !addWithReferences((Entity) item, pending, inProgress, result)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        inProgress.remove(entity);
+        pending.remove(entity);
+        result.add(entity);
+        return true;
+    }
+
+    /**
+     * Flushes changes of instances committed in the bulk mode. The instances stay in the persistence context until
+     * commit, and entity listeners, entity log, full-text indexing and ORM cache eviction are processed for them
+     * on flush as on commit.
+     */
+    protected void flushBulkBatch(EntityManager em, List<BaseGenericIdEntity> entitiesToStoreDynamicAttributes) {
+        for (BaseGenericIdEntity entity : entitiesToStoreDynamicAttributes) {
+            dynamicAttributesManagerAPI.storeDynamicAttributes(entity);
+        }
+        entitiesToStoreDynamicAttributes.clear();
+
+        persistenceImplSupport.flushAsOnCommit(em);
+    }
+
+    /**
+     * Does the same as {@link #updateReferences(Collection, Collection)} but looks up committed instances by
+     * identifier instead of checking each pair of instances.
+     */
+    protected void updateReferencesByIndex(Collection<Entity> persisted, Collection<Entity> committed) {
+        Map<MetaClass, Map<Object, Entity>> index = new HashMap<>();
+        for (Entity entity : committed) {
+            index.computeIfAbsent(entity.getMetaClass(), metaClass -> new HashMap<>()).put(entity.getId(), entity);
+        }
+        for (Entity persistedEntity : persisted) {
+            for (Map.Entry<MetaClass, Map<Object, Entity>> entry : index.entrySet()) {
+                updateReferencesByIndex(persistedEntity, persistedEntity, entry.getKey(), entry.getValue(), new HashSet<>());
+            }
+        }
+    }
+
+    protected void updateReferencesByIndex(Entity entity, Entity persistedEntity, MetaClass refMetaClass,
+                                           Map<Object, Entity> refEntities, Set<Entity> visited) {
+        if (entity == null || visited.contains(entity))
+            return;
+        visited.add(entity);
+
+        for (MetaProperty property : entity.getMetaClass().getProperties()) {
+            if (!property.getRange().isClass() || !property.getRange().asClass().equals(refMetaClass))
+                continue;
+            if (entityStates.isLoaded(entity, property.getName())) {
+                if (property.getRange().getCardinality().isMany()) {
+                    Collection collection = entity.getValue(property.getName());
+                    if (collection != null) {
+                        for (Object obj : collection) {
+                            updateReferencesByIndex((Entity) obj, persistedEntity, refMetaClass, refEntities, visited);
+                        }
+                    }
+                } else {
+                    Entity value = entity.getValue(property.getName());
+                    if (value != null) {
+                        Entity refEntity = refEntities.get(value.getId());
+                        if (refEntity != null && refEntity != persistedEntity) {
+                            if (entity instanceof AbstractInstance) {
+                                if (property.isReadOnly() && metadataTools.isNotPersistent(property)) {
+                                    continue;
+                                }
+                                ((AbstractInstance) entity).setValue(property.getName(), refEntity, false);
+                            }
+                        } else {
+                            updateReferencesByIndex(value, persistedEntity, refMetaClass, refEntities, visited);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * Update references from newly persisted entities to merged detached entities. Otherwise a new entity can
      * contain a stale instance of merged entity.
@@ -1018,6 +1215,114 @@ public class RdbmsStore implements DataStore {
                 persistence.getTransaction(storeName) : persistence.createTransaction(storeName);
     }
 
+    /**
+     * Cursor reading entities through a JDBC cursor inside its own transaction. Each chunk is processed like a result
+     * of {@link #loadList(LoadContext)} and detached from the persistence context before it is returned, so the
+     * memory consumption does not depend on the total number of instances.
+     * <p>
+     * The transaction of the cursor stays active in the current thread until the cursor is closed.
+     */
+    protected class RdbmsEntityCursor<E extends Entity> extends ChunkedEntityCursor<E> {
+
+        protected LoadContext<E> context;
+        protected int fetchSize;
+        protected View view;
+        protected boolean needToFilterByInMemoryReadConstraints;
+        protected boolean needToApplyInMemoryReadConstraints;
+        protected Set<Class> dynamicAttributesClasses;
+
+        protected Transaction tx;
+        protected EntityManager em;
+        protected QueryCursor<E> queryCursor;
+        protected boolean failed;
+
+        protected RdbmsEntityCursor(LoadContext<E> context, int fetchSize) {
+            this.context = context;
+            this.fetchSize = fetchSize;
+            needToFilterByInMemoryReadConstraints = needToFilterByInMemoryReadConstraints(context);
+            needToApplyInMemoryReadConstraints = needToApplyInMemoryReadConstraints(context);
+            if (context.isLoadDynamicAttributes()) {
+                dynamicAttributesClasses = collectEntityClassesWithDynamicAttributes(context.getView());
+            }
+
+            tx = getLoadTransaction(context.isJoinTransaction());
+            try {
+                em = persistence.getEntityManager(storeName);
+                em.setSoftDeletion(context.isSoftDeletion());
+                persistence.getEntityManagerContext(storeName).setDbHints(context.getDbHints());
+
+                view = createRestrictedView(context);
+                Query query = createQuery(em, context, false);
+                query.setView(view);
+
+                queryCursor = query.getResultCursor(fetchSize);
+            } catch (RuntimeException e) {
+                tx.close();
+                throw e;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        @Nullable
+        @Override
+        protected List<E> loadNextChunk() {
+            try {
+                if (!queryCursor.hasNext()) {
+                    return null;
+                }
+                List<E> chunk = new ArrayList<>(fetchSize);
+                while (chunk.size() < fetchSize && queryCursor.hasNext()) {
+                    chunk.add(queryCursor.next());
+                }
+
+                if (needToFilterByInMemoryReadConstraints) {
+                    security.filterByConstraints((Collection<Entity>) chunk);
+                }
+
+                if (!chunk.isEmpty() && chunk.get(0) instanceof BaseGenericIdEntity && dynamicAttributesClasses != null) {
+                    dynamicAttributesManagerAPI.fetchDynamicAttributes((List<BaseGenericIdEntity>) chunk,
+                            dynamicAttributesClasses);
+                }
+
+                if (needToApplyInMemoryReadConstraints) {
+                    security.calculateFilteredData((Collection<Entity>) chunk);
+                }
+
+                attributeSecurity.onLoad(chunk, view);
+
+                for (E entity : chunk) {
+                    detachEntity(em, entity, view);
+                }
+
+                if (needToApplyInMemoryReadConstraints) {
+                    security.applyConstraints((Collection<Entity>) chunk);
+                }
+
+                if (context.isAuthorizationRequired()) {
+                    attributeSecurity.afterLoad(chunk);
+                }
+
+                return chunk;
+            } catch (RuntimeException e) {
+                failed = true;
+                close();
+                throw e;
+            }
+        }
+
+        @Override
+        protected void releaseResources() {
+            try {
+                queryCursor.close();
+                if (!failed) {
+                    tx.commit();
+                }
+            } finally {
+                tx.close();
+            }
+        }
+    }
+
     protected <E extends Entity> void detachEntity(EntityManager em, @Nullable E rootEntity, View view) {
         if (rootEntity == null)
             return;
@@ -157,6 +157,23 @@ public interface ServerConfig extends Config {
     int getSchedulingThreadPoolSize();
     void setSchedulingThreadPoolSize(int value);
 
+    /**
+     * @return whether {@link com.haulmont.cuba.core.app.scheduling.Scheduling} keeps the next check times of
+     * scheduled tasks in a priority queue and processes only the tasks which are due, instead of processing all
+     * active tasks on each scheduling tick
+     */
+    @Property("cuba.schedulingTaskQueueEnabled")
+    @DefaultBoolean(false)
+    boolean getSchedulingTaskQueueEnabled();
+
+    /**
+     * @return interval of unconditional reloading of active scheduled tasks by
+     * {@link com.haulmont.cuba.core.app.scheduling.ClusterBasedCoordinator}
+     */
+    @Property("cuba.schedulingTasksReloadIntervalSec")
+    @DefaultInt(300)
+    int getSchedulingTasksReloadIntervalSec();
+
     /**
      * @return Tells DataService to ensure distinct results by processing them in memory, instead of issue
      * 'select distinct' to the database.
@@ -270,6 +287,27 @@ public interface ServerConfig extends Config {
     @DefaultInt(50)
     int getCrossDataStoreReferenceLoadingBatchSize();
 
+    /**
+     * @return JDBC fetch size and the number of instances processed at once by cursors returned from
+     * {@code DataManager.loadCursor()}
+     */
+    @Property("cuba.dataManagerCursorFetchSize")
+    @Source(type = SourceType.DATABASE)
+    @DefaultInt(500)
+    int getDataManagerCursorFetchSize();
+
+    /**
+     * @return number of instances flushed to the database at once when committing in the bulk mode
+     * (see {@code CommitContext.setBulkMode()}). To send the statements of each flush in JDBC batches, set the
+     * {@code eclipselink.jdbc.batch-writing} and {@code eclipselink.jdbc.batch-writing.size} application properties.
+     */
+    @Property("cuba.bulkCommitBatchSize")
+    @Source(type = SourceType.DATABASE)
+    @DefaultInt(1000)
+    int getBulkCommitBatchSize();
+
+    void setBulkCommitBatchSize(int value);
+
     /**
      * @return use read-only transactions in {@code DataManager} load operations and do not commit them
      */
@@ -18,6 +18,7 @@
 package com.haulmont.cuba.core.app.queryresults;
 
 import com.haulmont.bali.db.QueryRunner;
+import com.haulmont.bali.util.ReflectionHelper;
 import com.haulmont.cuba.core.*;
 import com.haulmont.cuba.core.app.ClusterManagerAPI;
 import com.haulmont.cuba.core.app.RdbmsQueryBuilder;
@@ -25,6 +26,8 @@ import com.haulmont.cuba.core.global.*;
 import com.haulmont.cuba.core.sys.AppContext;
 import com.haulmont.cuba.core.sys.QueryHolder;
 import com.haulmont.cuba.core.sys.persistence.DbTypeConverter;
+import com.haulmont.cuba.core.sys.persistence.DbmsFeatures;
+import com.haulmont.cuba.core.sys.persistence.DbmsSpecificFactory;
 import com.haulmont.cuba.security.app.UserSessionsAPI;
 import com.haulmont.cuba.security.global.UserSession;
 import org.slf4j.Logger;
@@ -32,6 +35,11 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import javax.inject.Inject;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -66,7 +74,7 @@ public class QueryResultsManager implements QueryResultsManagerAPI {
 
     protected static final int DELETE_BATCH_SIZE = 100;
 
-    protected static final int INACTIVE_DELETION_MAX = 100000;
+    protected static final int COPY_BATCH_SIZE = 10000;
 
     @Override
     public void savePreviousQueryResults(LoadContext loadContext) {
@@ -171,19 +179,14 @@ public class QueryResultsManager implements QueryResultsManagerAPI {
             } else {
                 columnName = "ENTITY_ID";
             }
-            QueryRunner runner = new QueryRunner();
+            DbmsFeatures dbmsFeatures = DbmsSpecificFactory.getDbmsFeatures();
             try {
                 String userSessionIdStr = converter.getSqlObject(userSessionId).toString(); // assuming that UUID can be passed to query as string in all databases
-                String sql = String.format("insert into SYS_QUERY_RESULT (SESSION_ID, QUERY_KEY, %s) values ('%s', %s, ?)",
-                        columnName, userSessionIdStr, queryKey);
-                int[] paramTypes = new int[]{converter.getSqlType(idFromList.getClass())};
-                for (int i = 0; i < idList.size(); i += BATCH_SIZE) {
-                    List<UUID> sublist = idList.subList(i, Math.min(i + BATCH_SIZE, idList.size()));
-                    Object[][] params = new Object[sublist.size()][1];
-                    for (int j = 0; j < sublist.size(); j++) {
-                        params[j][0] = converter.getSqlObject(sublist.get(j));
-                    }
-                    runner.batch(em.getConnection(), sql, params, paramTypes);
+                Connection connection = em.getConnection();
+                if (!dbmsFeatures.supportsCopyFromStdin()
+                        || !copyFromStdin(connection, userSessionIdStr, queryKey, columnName, idList)) {
+                    insertByStatements(connection, userSessionIdStr, queryKey, columnName, idList,
+                            dbmsFeatures.getMaxRowsPerInsert());
                 }
             } catch (SQLException e) {
                 throw new RuntimeException(e);
@@ -196,6 +199,107 @@ public class QueryResultsManager implements QueryResultsManagerAPI {
         }
     }
 
+    protected void insertByStatements(Connection connection, String userSessionIdStr, int queryKey, String columnName,
+                                      List idList, int rowsPerInsert) throws SQLException {
+        DbTypeConverter converter = persistence.getDbTypeConverter();
+        QueryRunner runner = new QueryRunner();
+        int sqlType = converter.getSqlType(idList.get(0).getClass());
+        int rows = Math.max(1, Math.min(rowsPerInsert, idList.size()));
+        int statements = idList.size() / rows;
+
+        // statements inserting the same number of rows are executed in JDBC batches
+        String sql = createInsertStatement(userSessionIdStr, queryKey, columnName, rows);
+        int[] paramTypes = new int[rows];
+        Arrays.fill(paramTypes, sqlType);
+        int batchSize = Math.max(1, BATCH_SIZE / rows);
+        for (int i = 0; i < statements; i += batchSize) {
+            int batchStatements = Math.min(batchSize, statements - i);
+            Object[][] params = new Object[batchStatements][rows];
+            for (int j = 0; j < batchStatements; j++) {
+                for (int k = 0; k < rows; k++) {
+                    params[j][k] = converter.getSqlObject(idList.get((i + j) * rows + k));
+                }
+            }
+            runner.batch(connection, sql, params, paramTypes);
+        }
+
+        int remainder = idList.size() - statements * rows;
+        if (remainder > 0) {
+            Object[] params = new Object[remainder];
+            for (int k = 0; k < remainder; k++) {
+                params[k] = converter.getSqlObject(idList.get(statements * rows + k));
+            }
+            int[] remainderTypes = new int[remainder];
+            Arrays.fill(remainderTypes, sqlType);
+            runner.update(connection, createInsertStatement(userSessionIdStr, queryKey, columnName, remainder),
+                    params, remainderTypes);
+        }
+    }
+
+    protected String createInsertStatement(String userSessionIdStr, int queryKey, String columnName, int rows) {
+        StringBuilder sb = new StringBuilder(String.format("insert into SYS_QUERY_RESULT (SESSION_ID, QUERY_KEY, %s) values ",
+                columnName));
+        String row = String.format("('%s', %s, ?)", userSessionIdStr, queryKey);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0)
+                sb.append(", ");
+            sb.append(row);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Loads the identifiers by PostgreSQL {@code copy ... from stdin} statement. The JDBC driver is accessed
+     * reflectively because it is not a compile-time dependency.
+     *
+     * @return false if the connection does not support the copy API
+     */
+    protected boolean copyFromStdin(Connection connection, String userSessionIdStr, int queryKey, String columnName,
+                                    List idList) throws SQLException {
+        Object copyManager;
+        Method copyInMethod;
+        try {
+            Class<?> pgConnectionClass = ReflectionHelper.loadClass("org.postgresql.PGConnection");
+            if (!connection.isWrapperFor(pgConnectionClass)) {
+                return false;
+            }
+            Object pgConnection = connection.unwrap(pgConnectionClass);
+            copyManager = pgConnectionClass.getMethod("getCopyAPI").invoke(pgConnection);
+            copyInMethod = copyManager.getClass().getMethod("copyIn", String.class, Reader.class);
+        } catch (ReflectiveOperationException e) {
+            log.debug("Copy API is not available, falling back to insert statements: {}", e.toString());
+            return false;
+        }
+
+        String sql = String.format("copy SYS_QUERY_RESULT (SESSION_ID, QUERY_KEY, %s) from stdin", columnName);
+        String rowPrefix = userSessionIdStr + "\t" + queryKey + "\t";
+        for (int i = 0; i < idList.size(); i += COPY_BATCH_SIZE) {
+            List sublist = idList.subList(i, Math.min(i + COPY_BATCH_SIZE, idList.size()));
+            StringBuilder sb = new StringBuilder(sublist.size() * 80);
+            for (Object id : sublist) {
+                sb.append(rowPrefix).append(escapeCopyValue(id.toString())).append('\n');
+            }
+            try {
+                copyInMethod.invoke(copyManager, sql, new StringReader(sb.toString()));
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException("Error copying query results", e);
+            } catch (InvocationTargetException e) {
+                if (e.getCause() instanceof SQLException) {
+                    throw (SQLException) e.getCause();
+                }
+                throw new RuntimeException("Error copying query results", e.getCause());
+            }
+        }
+        return true;
+    }
+
+    protected String escapeCopyValue(String value) {
+        if (value.indexOf('\\') < 0 && value.indexOf('\t') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
     @Override
     public void delete(int queryKey) {
         DbTypeConverter converter = persistence.getDbTypeConverter();
@@ -243,42 +347,33 @@ public class QueryResultsManager implements QueryResultsManagerAPI {
     public void internalDeleteForInactiveSessions() {
         log.debug("Delete query results for inactive user sessions");
 
-        List<Object[]> rows;
+        List<UUID> storedSessionIds;
         try (Transaction tx = persistence.createTransaction()) {
-            TypedQuery<Object[]> query = persistence.getEntityManager().createQuery(
-                    "select e.id, e.sessionId from sys$QueryResult e", Object[].class);
-            query.setMaxResults(INACTIVE_DELETION_MAX);
-            rows = query.getResultList();
-        }
-        if (rows.size() == INACTIVE_DELETION_MAX) {
-            log.debug("Processing " + INACTIVE_DELETION_MAX + " records, run again for the rest");
+            TypedQuery<UUID> query = persistence.getEntityManager().createQuery(
+                    "select distinct e.sessionId from sys$QueryResult e", UUID.class);
+            storedSessionIds = query.getResultList();
         }
 
         Set<UUID> sessionIds = userSessions.getUserSessionsStream().map(UserSession::getId).collect(Collectors.toSet());
 
-        List<Long> ids = new ArrayList<>();
-        int i = 0;
-        for (Object[] row : rows) {
-            if (!sessionIds.contains((UUID) row[1])) {
-                ids.add((Long) row[0]);
-            }
-            i++;
-            if (i % DELETE_BATCH_SIZE == 0) {
-                if (!ids.isEmpty())
-                    delete(ids);
-                ids.clear();
-            }
+        List<UUID> inactiveSessionIds = storedSessionIds.stream()
+                .filter(sessionId -> !sessionIds.contains(sessionId))
+                .collect(Collectors.toList());
+
+        for (int i = 0; i < inactiveSessionIds.size(); i += DELETE_BATCH_SIZE) {
+            deleteForSessions(inactiveSessionIds.subList(i, Math.min(i + DELETE_BATCH_SIZE, inactiveSessionIds.size())));
         }
-        if (!ids.isEmpty())
-            delete(ids);
     }
 
-    protected void delete(List<Long> ids) {
-        log.debug("Deleting " + ids.size() + " records");
-        String str = ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+    protected void deleteForSessions(List<UUID> sessionIds) {
+        log.debug("Deleting query results of " + sessionIds.size() + " sessions");
+        DbTypeConverter converter = persistence.getDbTypeConverter();
+        String str = sessionIds.stream()
+                .map(sessionId -> "'" + converter.getSqlObject(sessionId).toString() + "'")
+                .collect(Collectors.joining(","));
         QueryRunner runner = new QueryRunner(persistence.getDataSource());
         try {
-            runner.update("delete from SYS_QUERY_RESULT where ID in (" + str + ")");
+            runner.update("delete from SYS_QUERY_RESULT where SESSION_ID in (" + str + ")");
         } catch (SQLException e) {
             throw new RuntimeException("Error deleting query result records", e);
         }
@@ -0,0 +1,429 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.app.scheduling;
+
+import com.haulmont.cuba.core.Persistence;
+import com.haulmont.cuba.core.Query;
+import com.haulmont.cuba.core.app.ClusterListenerAdapter;
+import com.haulmont.cuba.core.app.ClusterManagerAPI;
+import com.haulmont.cuba.core.app.ServerConfig;
+import com.haulmont.cuba.core.app.ServerInfoAPI;
+import com.haulmont.cuba.core.entity.ScheduledTask;
+import com.haulmont.cuba.core.global.MetadataTools;
+import com.haulmont.cuba.core.global.TimeSource;
+import com.haulmont.cuba.core.listener.AfterDeleteEntityListener;
+import com.haulmont.cuba.core.listener.AfterInsertEntityListener;
+import com.haulmont.cuba.core.listener.AfterUpdateEntityListener;
+import com.haulmont.cuba.core.sys.AppContext;
+import com.haulmont.cuba.core.sys.listener.EntityListenerManager;
+import org.apache.commons.lang3.BooleanUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.Nullable;
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import java.io.Serializable;
+import java.sql.Connection;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Implementation of {@link Coordinator} interface, performing synchronization of singleton schedulers by cluster
+ * messages instead of database locks.
+ * <p>
+ * Active tasks are kept in memory and reloaded from the database only when a task is changed on any server of the
+ * cluster, or after {@link ServerConfig#getSchedulingTasksReloadIntervalSec()}. Starts and finishes of singleton
+ * tasks are sent to other servers, and a server hands off the singleton tasks started by it on shutdown, so the
+ * next server in the list of permitted servers can start them without waiting for an extra period.
+ * <p>
+ * Tasks are not locked in the database. Instead, a server acquires a singleton task before starting it by a
+ * conditional update of the last start of the task, which succeeds only if nobody has started the task since the
+ * last start known to the server. So if cluster messages are delayed, the task is not started twice, but the
+ * server refreshes its state from the database and makes the decision again on the next scheduling tick.
+ * <p>
+ * To use this implementation, register it in the {@code spring.xml} of the core module:
+ * <pre>
+ *     &lt;bean id="cuba_SchedulingCoordinator" class="com.haulmont.cuba.core.app.scheduling.ClusterBasedCoordinator"/&gt;
+ * </pre>
+ */
+public class ClusterBasedCoordinator implements Coordinator,
+        AfterInsertEntityListener<ScheduledTask>, AfterUpdateEntityListener<ScheduledTask>,
+        AfterDeleteEntityListener<ScheduledTask> {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterBasedCoordinator.class);
+
+    protected static class ContextImpl implements Context {
+
+        protected List<ScheduledTask> tasks;
+
+        protected ContextImpl(List<ScheduledTask> tasks) {
+            this.tasks = tasks;
+        }
+
+        @Override
+        public List<ScheduledTask> getTasks() {
+            return tasks;
+        }
+    }
+
+    protected static class TaskState {
+        protected volatile long lastStart;
+        protected volatile String lastStartServer;
+        protected volatile long lastFinish = -1;
+    }
+
+    @Inject
+    protected Persistence persistence;
+
+    @Inject
+    protected MetadataTools metadataTools;
+
+    @Inject
+    protected TimeSource timeSource;
+
+    @Inject
+    protected ClusterManagerAPI clusterManager;
+
+    @Inject
+    protected ServerInfoAPI serverInfo;
+
+    @Inject
+    protected ServerConfig serverConfig;
+
+    @Inject
+    protected EntityListenerManager entityListenerManager;
+
+    protected volatile List<ScheduledTask> tasks;
+    protected volatile boolean tasksChanged = true;
+    protected volatile long tasksLoadTime;
+
+    protected ConcurrentMap<UUID, TaskState> states = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    protected void init() {
+        entityListenerManager.addListener(ScheduledTask.class, Coordinator.NAME);
+
+        clusterManager.addListener(TaskStartedMsg.class, new ClusterListenerAdapter<TaskStartedMsg>() {
+            @Override
+            public void receive(TaskStartedMsg message) {
+                updateLastStart(message.taskId, message.startTime, message.server);
+            }
+        });
+        clusterManager.addListener(TaskFinishedMsg.class, new ClusterListenerAdapter<TaskFinishedMsg>() {
+            @Override
+            public void receive(TaskFinishedMsg message) {
+                updateLastFinish(message.taskId, message.finishTime);
+            }
+        });
+        clusterManager.addListener(TaskReleasedMsg.class, new ClusterListenerAdapter<TaskReleasedMsg>() {
+            @Override
+            public void receive(TaskReleasedMsg message) {
+                TaskState state = states.get(message.taskId);
+                if (state != null && Objects.equals(state.lastStartServer, message.server)) {
+                    log.debug("Task {} released by {}", message.taskId, message.server);
+                    state.lastStartServer = null;
+                }
+            }
+        });
+        clusterManager.addListener(TasksChangedMsg.class, new ClusterListenerAdapter<TasksChangedMsg>() {
+            @Override
+            public void receive(TasksChangedMsg message) {
+                tasksChanged = true;
+            }
+        });
+
+        AppContext.addListener(new AppContext.Listener() {
+            @Override
+            public void applicationStarted() {
+            }
+
+            @Override
+            public void applicationStopped() {
+                releaseTasks();
+            }
+        });
+    }
+
+    @Override
+    public Context begin() {
+        List<ScheduledTask> activeTasks = getTasks();
+        List<ScheduledTask> result = new ArrayList<>(activeTasks.size());
+        for (ScheduledTask task : activeTasks) {
+            // tasks are modified by Scheduling and passed to clients, so the cached instances are not exposed
+            ScheduledTask copy = metadataTools.copy(task);
+            TaskState state = states.get(task.getId());
+            if (state != null && state.lastStart >= copy.getLastStart()) {
+                copy.setLastStartTime(state.lastStart == 0 ? null : new Date(state.lastStart));
+                copy.setLastStartServer(state.lastStartServer);
+            }
+            result.add(copy);
+        }
+        return new ContextImpl(result);
+    }
+
+    @Override
+    public void end(Context context) {
+        // starts of singleton tasks are saved when the tasks are acquired
+    }
+
+    @Override
+    public boolean acquire(ScheduledTask task, long startTime, String server) {
+        boolean acquired = saveLastStart(task, new Date(startTime), server);
+        // the database can round the start time, so the stored value is used as the expected one on the next start
+        ScheduledTask stored = loadTask(task.getId());
+        if (stored == null) {
+            tasksChanged = true;
+            return false;
+        }
+        if (acquired) {
+            log.trace("{}: acquired at {} by {}", task, stored.getLastStartTime(), stored.getLastStartServer());
+            updateLastStart(task.getId(), stored.getLastStart(), stored.getLastStartServer());
+            clusterManager.send(new TaskStartedMsg(task.getId(), stored.getLastStart(), stored.getLastStartServer()));
+        } else {
+            log.debug("{}: already started at {} by {}", task, stored.getLastStartTime(), stored.getLastStartServer());
+            resetLastStart(task.getId(), stored.getLastStart(), stored.getLastStartServer());
+        }
+        return acquired;
+    }
+
+    @Override
+    public boolean isLastExecutionFinished(ScheduledTask task, long now) {
+        TaskState state = states.get(task.getId());
+        if (state != null && state.lastFinish >= task.getLastStart()) {
+            log.trace("{} : finished at {}", task, state.lastFinish);
+            return true;
+        }
+        return persistence.callInTransaction(em -> {
+            Query query = em.createQuery(
+                    "select e.finishTime from sys$ScheduledExecution e where e.task.id = ?1 and e.startTime = ?2");
+            query.setParameter(1, task.getId());
+            query.setParameter(2, task.getLastStartTime());
+            List list = query.getResultList();
+            if (list.isEmpty() || list.get(0) == null) {
+                // Execution finish was not registered for some reason, so using timeout value or just return false
+                return task.getTimeout() != null && (task.getLastStart() + task.getTimeout() * 1000) <= now;
+            }
+            updateLastFinish(task.getId(), ((Date) list.get(0)).getTime());
+            return true;
+        });
+    }
+
+    @Override
+    public long getLastFinished(ScheduledTask task) {
+        TaskState state = states.computeIfAbsent(task.getId(), id -> new TaskState());
+        if (state.lastFinish < 0) {
+            Date date = persistence.callInTransaction(em -> (Date) em.createQuery(
+                    "select max(e.finishTime) from sys$ScheduledExecution e where e.task.id = ?1")
+                    .setParameter(1, task.getId())
+                    .getFirstResult());
+            updateLastFinish(task.getId(), date == null ? 0 : date.getTime());
+        }
+        return state.lastFinish;
+    }
+
+    @Override
+    public void setFinished(ScheduledTask task, long finishTime) {
+        updateLastFinish(task.getId(), finishTime);
+        if (BooleanUtils.isTrue(task.getSingleton())) {
+            clusterManager.send(new TaskFinishedMsg(task.getId(), finishTime));
+        }
+    }
+
+    @Override
+    public void onAfterInsert(ScheduledTask entity, Connection connection) {
+        invalidateAfterCommit();
+    }
+
+    @Override
+    public void onAfterUpdate(ScheduledTask entity, Connection connection) {
+        invalidateAfterCommit();
+    }
+
+    @Override
+    public void onAfterDelete(ScheduledTask entity, Connection connection) {
+        invalidateAfterCommit();
+    }
+
+    /**
+     * Reloads active tasks on all servers of the cluster on next scheduling tick.
+     */
+    public void invalidate() {
+        tasksChanged = true;
+        clusterManager.send(new TasksChangedMsg());
+    }
+
+    protected void invalidateAfterCommit() {
+        tasksChanged = true;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    invalidate();
+                }
+            });
+        } else {
+            invalidate();
+        }
+    }
+
+    protected List<ScheduledTask> getTasks() {
+        long now = timeSource.currentTimeMillis();
+        if (tasks == null || tasksChanged
+                || now - tasksLoadTime > serverConfig.getSchedulingTasksReloadIntervalSec() * 1000L) {
+            tasksChanged = false;
+            tasks = loadTasks();
+            tasksLoadTime = now;
+        }
+        return tasks;
+    }
+
+    protected List<ScheduledTask> loadTasks() {
+        log.trace("Read all active tasks from DB");
+        return persistence.callInTransaction(em -> {
+            Query query = em.createQuery("select t from sys$ScheduledTask t where t.active = true");
+            List<ScheduledTask> list = query.getResultList();
+            return list;
+        });
+    }
+
+    /**
+     * Saves the new last start of the task if the task has not been started since its current last start.
+     *
+     * @return true if the last start is saved
+     */
+    protected boolean saveLastStart(ScheduledTask task, Date startTime, String server) {
+        return persistence.callInTransaction(em -> {
+            Query query = em.createQuery("update sys$ScheduledTask t set t.lastStartTime = ?1, t.lastStartServer = ?2 " +
+                    "where t.id = ?3 and " + (task.getLastStartTime() == null ? "t.lastStartTime is null" : "t.lastStartTime = ?4"));
+            query.setParameter(1, startTime);
+            query.setParameter(2, server);
+            query.setParameter(3, task.getId());
+            if (task.getLastStartTime() != null) {
+                query.setParameter(4, task.getLastStartTime());
+            }
+            return query.executeUpdate() == 1;
+        });
+    }
+
+    @Nullable
+    protected ScheduledTask loadTask(UUID taskId) {
+        return persistence.callInTransaction(em -> em.find(ScheduledTask.class, taskId));
+    }
+
+    protected void releaseTasks() {
+        String me = serverInfo.getServerId();
+        for (Map.Entry<UUID, TaskState> entry : states.entrySet()) {
+            if (me.equals(entry.getValue().lastStartServer)) {
+                log.debug("Release task {}", entry.getKey());
+                clusterManager.send(new TaskReleasedMsg(entry.getKey(), me));
+            }
+        }
+    }
+
+    protected void updateLastStart(UUID taskId, long startTime, String server) {
+        TaskState state = states.computeIfAbsent(taskId, id -> new TaskState());
+        synchronized (state) {
+            if (startTime >= state.lastStart) {
+                state.lastStart = startTime;
+                state.lastStartServer = server;
+            }
+        }
+    }
+
+    protected void resetLastStart(UUID taskId, long startTime, String server) {
+        TaskState state = states.computeIfAbsent(taskId, id -> new TaskState());
+        synchronized (state) {
+            state.lastStart = startTime;
+            state.lastStartServer = server;
+        }
+    }
+
+    protected void updateLastFinish(UUID taskId, long finishTime) {
+        TaskState state = states.computeIfAbsent(taskId, id -> new TaskState());
+        synchronized (state) {
+            if (finishTime > state.lastFinish) {
+                state.lastFinish = finishTime;
+            }
+        }
+    }
+
+    public static class TaskStartedMsg implements Serializable {
+        private static final long serialVersionUID = -2581707587455924381L;
+
+        public final UUID taskId;
+        public final long startTime;
+        public final String server;
+
+        public TaskStartedMsg(UUID taskId, long startTime, String server) {
+            this.taskId = taskId;
+            this.startTime = startTime;
+            this.server = server;
+        }
+
+        @Override
+        public String toString() {
+            return "TaskStartedMsg{taskId=" + taskId + ", startTime=" + startTime + ", server=" + server + '}';
+        }
+    }
+
+    public static class TaskFinishedMsg implements Serializable {
+        private static final long serialVersionUID = 4305125914541366917L;
+
+        public final UUID taskId;
+        public final long finishTime;
+
+        public TaskFinishedMsg(UUID taskId, long finishTime) {
+            this.taskId = taskId;
+            this.finishTime = finishTime;
+        }
+
+        @Override
+        public String toString() {
+            return "TaskFinishedMsg{taskId=" + taskId + ", finishTime=" + finishTime + '}';
+        }
+    }
+
+    public static class TaskReleasedMsg implements Serializable {
+        private static final long serialVersionUID = 7715343651873305183L;
+
+        public final UUID taskId;
+        public final String server;
+
+        public TaskReleasedMsg(UUID taskId, String server) {
+            this.taskId = taskId;
+            this.server = server;
+        }
+
+        @Override
+        public String toString() {
+            return "TaskReleasedMsg{taskId=" + taskId + ", server=" + server + '}';
+        }
+    }
+
+    public static class TasksChangedMsg implements Serializable {
+        private static final long serialVersionUID = -6340532480412235542L;
+
+        @Override
+        public String toString() {
+            return "TasksChangedMsg{}";
+        }
+    }
+}
@@ -43,4 +43,22 @@ public interface Coordinator {
     boolean isLastExecutionFinished(ScheduledTask task, long now);
 
     long getLastFinished(ScheduledTask task);
+
+    /**
+     * Invoked before this server starts a singleton task.
+     *
+     * @param task      task with the last start the decision to start it is based on
+     * @param startTime start time of the new execution
+     * @param server    this server id
+     * @return false if the task has been started by another server meanwhile and must not be started
+     */
+    default boolean acquire(ScheduledTask task, long startTime, String server) {
+        return true;
+    }
+
+    /**
+     * Invoked when an execution of the task started by this server is finished.
+     */
+    default void setFinished(ScheduledTask task, long finishTime) {
+    }
 }
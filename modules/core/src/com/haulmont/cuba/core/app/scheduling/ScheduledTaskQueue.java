@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.app.scheduling;
+
+import com.haulmont.cuba.core.entity.ScheduledTask;
+
+import java.util.*;
+
+/**
+ * Priority queue of the times when {@link ScheduledTask}s should be checked next, used by {@link Scheduling}
+ * to avoid processing of all active tasks on each scheduling tick.
+ * <p>
+ * A task which is new or has been changed since the last check is due immediately. A due task is removed from
+ * the queue until it is scheduled again.
+ */
+public class ScheduledTaskQueue {
+
+    protected PriorityQueue<Entry> queue = new PriorityQueue<>(Comparator.comparingLong(entry -> entry.time));
+
+    protected Map<UUID, Entry> entries = new HashMap<>();
+
+    /**
+     * Synchronizes the queue with the list of active tasks and removes the due tasks from the queue.
+     *
+     * @param tasks active tasks
+     * @param now   current time
+     * @return tasks to be checked now
+     */
+    public synchronized List<ScheduledTask> pollDue(List<ScheduledTask> tasks, long now) {
+        Map<UUID, ScheduledTask> activeTasks = new HashMap<>(tasks.size());
+        for (ScheduledTask task : tasks) {
+            activeTasks.put(task.getId(), task);
+            Entry entry = entries.get(task.getId());
+            if (entry == null || !Objects.equals(entry.updateTs, task.getUpdateTs())) {
+                add(task, now);
+            }
+        }
+        for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+            Entry entry = it.next();
+            if (!activeTasks.containsKey(entry.taskId)) {
+                entry.removed = true;
+                it.remove();
+            }
+        }
+
+        List<ScheduledTask> dueTasks = new ArrayList<>();
+        while (!queue.isEmpty() && queue.peek().time <= now) {
+            Entry entry = queue.poll();
+            if (!entry.removed) {
+                entries.remove(entry.taskId);
+                dueTasks.add(activeTasks.get(entry.taskId));
+            }
+        }
+        return dueTasks;
+    }
+
+    /**
+     * Sets the time when the task should be checked next.
+     */
+    public synchronized void schedule(ScheduledTask task, long time) {
+        add(task, time);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void clear() {
+        queue.clear();
+        entries.clear();
+    }
+
+    protected void add(ScheduledTask task, long time) {
+        Entry entry = new Entry(task.getId(), task.getUpdateTs(), time);
+        Entry prev = entries.put(task.getId(), entry);
+        if (prev != null) {
+            prev.removed = true;
+        }
+        queue.add(entry);
+    }
+
+    protected static class Entry {
+        protected final UUID taskId;
+        protected final Date updateTs;
+        protected final long time;
+        protected boolean removed;
+
+        protected Entry(UUID taskId, Date updateTs, long time) {
+            this.taskId = taskId;
+            this.updateTs = updateTs;
+            this.time = time;
+        }
+    }
+}
@@ -89,6 +89,8 @@ public class Scheduling implements SchedulingAPI {
 
     protected volatile long schedulingStartTime;
 
+    protected ScheduledTaskQueue taskQueue = new ScheduledTaskQueue();
+
     @Override
     public void processScheduledTasks() {
         if (AppContext.isStarted()) {
@@ -110,8 +112,19 @@ public class Scheduling implements SchedulingAPI {
             StopWatch sw = new Slf4JStopWatch("Scheduling.processTasks");
             Coordinator.Context context = coordinator.begin();
             try {
-                for (ScheduledTask task : context.getTasks()) {
-                    processTask(task);
+                if (isTaskQueueEnabled()) {
+                    long now = timeSource.currentTimeMillis();
+                    for (ScheduledTask task : taskQueue.pollDue(context.getTasks(), now)) {
+                        try {
+                            processTask(task);
+                        } finally {
+                            taskQueue.schedule(task, calculateNextCheckTime(task, now));
+                        }
+                    }
+                } else {
+                    for (ScheduledTask task : context.getTasks()) {
+                        processTask(task);
+                    }
                 }
             } finally {
                 coordinator.end(context);
@@ -140,7 +153,12 @@ public class Scheduling implements SchedulingAPI {
 
     @Override
     public void setFinished(ScheduledTask task) {
-        lastFinishCache.put(task, timeSource.currentTimeMillis());
+        long finishTime = timeSource.currentTimeMillis();
+        lastFinishCache.put(task, finishTime);
+        coordinator.setFinished(task, finishTime);
+        if (isTaskQueueEnabled() && SchedulingType.FIXED_DELAY == task.getSchedulingType() && task.getPeriod() != null) {
+            taskQueue.schedule(task, finishTime + task.getPeriod() * 1000);
+        }
     }
 
     @Override
@@ -178,6 +196,50 @@ public class Scheduling implements SchedulingAPI {
         return configuration.getConfig(ServerConfig.class).getSchedulingInterval();
     }
 
+    protected boolean isTaskQueueEnabled() {
+        return configuration.getConfig(ServerConfig.class).getSchedulingTaskQueueEnabled();
+    }
+
+    /**
+     * Calculates the time when the task should be checked next. The result is not earlier than the next
+     * scheduling tick, and can be earlier than the actual start of the task.
+     */
+    protected long calculateNextCheckTime(ScheduledTask task, long now) {
+        long nextTick = now + getSchedulingInterval();
+        try {
+            if (task.getStartDelay() != null) {
+                long startTimeMillis = schedulingStartTime + task.getStartDelay() * 1000;
+                if (startTimeMillis > now) {
+                    return Math.max(nextTick, startTimeMillis);
+                }
+            }
+            if (task.getStartDate() != null && task.getStartDate().getTime() > now) {
+                return Math.max(nextTick, task.getStartDate().getTime());
+            }
+            if (SchedulingType.CRON == task.getSchedulingType()) {
+                CronSequenceGenerator cronSequenceGenerator = new CronSequenceGenerator(task.getCron(), getCurrentTimeZone());
+                return Math.max(nextTick, cronSequenceGenerator.next(new Date(now)).getTime());
+            }
+            long period = task.getPeriod() != null ? task.getPeriod() * 1000 : 0;
+            // the start of singleton tasks depends on other servers
+            if (BooleanUtils.isTrue(task.getSingleton()) || period <= 0) {
+                return nextTick;
+            }
+            if (SchedulingType.FIXED_DELAY == task.getSchedulingType()) {
+                // rescheduled by setFinished()
+                return Math.max(nextTick, lastFinishCache.getOrDefault(task, 0L) + period);
+            }
+            if (task.getStartDate() != null) {
+                long startDate = task.getStartDate().getTime();
+                return Math.max(nextTick, startDate + ((now - startDate) / period + 1) * period);
+            }
+            return Math.max(nextTick, lastStartCache.getOrDefault(task, 0L) + period);
+        } catch (Exception e) {
+            log.error("Unable to calculate next check time for " + task, e);
+            return nextTick;
+        }
+    }
+
     protected void processTask(ScheduledTask task) {
         if (isRunning(task)) {
             log.trace("{} is running", task);
@@ -340,12 +402,15 @@ public class Scheduling implements SchedulingAPI {
             // Check whether the task is finished if the last execution was from another server
             finished = coordinator.isLastExecutionFinished(task, now);
         }
-        if (finished) {
+        if (!finished) {
+            log.trace("{}\n not finished", task);
+        } else if (coordinator.acquire(task, now, server)) {
             task.setLastStartTime(new Date(now));
             task.setLastStartServer(server);
             runner.runTask(task, now, getUserSession(task));
-        } else
-            log.trace("{}\n not finished", task);
+        } else {
+            log.trace("{}\n started by another server", task);
+        }
     }
 
     protected void runTask(ScheduledTask task, long time) throws LoginException {
@@ -30,6 +30,7 @@ import com.haulmont.cuba.core.entity.BaseGenericIdEntity;
 import com.haulmont.cuba.core.entity.Entity;
 import com.haulmont.cuba.core.global.*;
 import com.haulmont.cuba.core.sys.jpql.JpqlSyntaxException;
+import com.haulmont.cuba.core.sys.jpql.QueryTreeCache;
 import com.haulmont.cuba.security.entity.ConstraintOperationType;
 import com.haulmont.cuba.security.global.ConstraintData;
 import com.haulmont.cuba.security.global.UserSession;
@@ -70,6 +71,9 @@ public class PersistenceSecurityImpl extends SecurityImpl implements Persistence
     @Inject
     protected GlobalConfig globalConfig;
 
+    @Inject
+    protected QueryTreeCache queryTreeCache;
+
     @Override
     public boolean applyConstraints(Query query) {
         QueryParser parser = QueryTransformerFactory.createParser(query.getQueryString());
@@ -83,19 +87,39 @@ public class PersistenceSecurityImpl extends SecurityImpl implements Persistence
         if (constraints.isEmpty())
             return false;
 
-        QueryTransformer transformer = QueryTransformerFactory.createTransformer(query.getQueryString());
+        String queryString = query.getQueryString();
+        List<String> constraintTexts = getConstraintTexts(constraints);
 
-        for (ConstraintData constraint : constraints) {
-            processConstraint(transformer, constraint, entityName);
+        QueryTreeCache.Transformation transformation = queryTreeCache.getTransformation(queryString, constraintTexts);
+        if (transformation == null) {
+            QueryTransformer transformer = QueryTransformerFactory.createTransformer(queryString);
+
+            for (ConstraintData constraint : constraints) {
+                processConstraint(transformer, constraint, entityName);
+            }
+            transformation = queryTreeCache.putTransformation(queryString, constraintTexts,
+                    transformer.getResult(), transformer.getAddedParams());
         }
-        query.setQueryString(transformer.getResult());
+        query.setQueryString(transformation.getResult());
 
-        for (String paramName : transformer.getAddedParams()) {
+        for (String paramName : transformation.getAddedParams()) {
             setQueryParam(query, paramName);
         }
         return true;
     }
 
+    /**
+     * Returns texts of constraints which identify the result of applying them to a query.
+     */
+    protected List<String> getConstraintTexts(List<ConstraintData> constraints) {
+        List<String> texts = new ArrayList<>(constraints.size() * 2);
+        for (ConstraintData constraint : constraints) {
+            texts.add(StringUtils.defaultString(constraint.getJoin()));
+            texts.add(StringUtils.defaultString(constraint.getWhereClause()));
+        }
+        return texts;
+    }
+
     @Override
     public void setQueryParam(Query query, String paramName) {
         if (paramName.startsWith(CONSTRAINT_PARAM_SESSION_ATTR)) {
@@ -131,9 +155,10 @@ public class PersistenceSecurityImpl extends SecurityImpl implements Persistence
     @Override
     public boolean filterByConstraints(Collection<Entity> entities) {
         boolean filtered = false;
+        ConstraintsEvaluator evaluator = createInMemoryConstraintsEvaluator();
         for (Iterator<Entity> iterator = entities.iterator(); iterator.hasNext(); ) {
             Entity entity = iterator.next();
-            if (!isPermittedInMemory(entity)) {
+            if (!evaluator.isPermitted(entity)) {
                 //we ignore situations when the collection is immutable
                 iterator.remove();
                 filtered = true;
@@ -160,13 +185,14 @@ public class PersistenceSecurityImpl extends SecurityImpl implements Persistence
 
     @Override
     public void calculateFilteredData(Entity entity) {
-        calculateFilteredData(entity, new HashSet<>(), false);
+        calculateFilteredData(entity, new HashSet<>(), createInMemoryConstraintsEvaluator(), false);
     }
 
     @Override
     public void calculateFilteredData(Collection<Entity> entities) {
         Set<EntityId> handled = new LinkedHashSet<>();
-        entities.forEach(entity -> calculateFilteredData(entity, handled, false));
+        ConstraintsEvaluator evaluator = createInMemoryConstraintsEvaluator();
+        entities.forEach(entity -> calculateFilteredData(entity, handled, evaluator, false));
     }
 
     @Override
@@ -332,12 +358,13 @@ public class PersistenceSecurityImpl extends SecurityImpl implements Persistence
     }
 
     @SuppressWarnings("unchecked")
-    protected boolean calculateFilteredData(Entity entity, Set<EntityId> handled, boolean checkPermitted) {
+    protected boolean calculateFilteredData(Entity entity, Set<EntityId> handled, ConstraintsEvaluator evaluator,
+                                            boolean checkPermitted) {
         if (referenceToEntitySupport.getReferenceId(entity) == null) {
             return false;
         }
         MetaClass metaClass = entity.getMetaClass();
-        if (!isPermittedInMemory(entity) && checkPermitted) {
+        if (checkPermitted && !evaluator.isPermitted(entity)) {
             return true;
         }
         EntityId entityId = new EntityId(referenceToEntitySupport.getReferenceId(entity), metaClass.getName());
@@ -353,7 +380,7 @@ public class PersistenceSecurityImpl extends SecurityImpl implements Persistence
                     if (value instanceof Collection) {
                         Set filtered = new LinkedHashSet();
                         for (Entity item : (Collection<Entity>) value) {
-                            if (calculateFilteredData(item, handled, true)) {
+                            if (calculateFilteredData(item, handled, evaluator, true)) {
                                 filtered.add(referenceToEntitySupport.getReferenceId(item));
                             }
                         }
@@ -362,7 +389,7 @@ public class PersistenceSecurityImpl extends SecurityImpl implements Persistence
                         }
                     } else if (value instanceof Entity) {
                         Entity valueEntity = (Entity) value;
-                        if (calculateFilteredData(valueEntity, handled, true)) {
+                        if (calculateFilteredData(valueEntity, handled, evaluator, true)) {
                             securityTokenManager.addFiltered(baseGenericIdEntity, property.getName(),
                                     referenceToEntitySupport.getReferenceId(valueEntity));
                         }
@@ -375,10 +402,17 @@ public class PersistenceSecurityImpl extends SecurityImpl implements Persistence
     }
 
     protected boolean isPermittedInMemory(Entity entity) {
-        return isPermitted(entity, constraint ->
-                constraint.getCheckType().memory()
-                        && (constraint.getOperationType() == ConstraintOperationType.READ
-                        || constraint.getOperationType() == ConstraintOperationType.ALL));
+        return isPermitted(entity, this::isInMemoryReadConstraint);
+    }
+
+    protected ConstraintsEvaluator createInMemoryConstraintsEvaluator() {
+        return createConstraintsEvaluator(this::isInMemoryReadConstraint);
+    }
+
+    protected boolean isInMemoryReadConstraint(ConstraintData constraint) {
+        return constraint.getCheckType().memory()
+                && (constraint.getOperationType() == ConstraintOperationType.READ
+                || constraint.getOperationType() == ConstraintOperationType.ALL);
     }
 
     protected static class EntityId {
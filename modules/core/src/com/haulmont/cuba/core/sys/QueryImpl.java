@@ -21,6 +21,7 @@ import com.google.common.collect.Sets;
 import com.haulmont.bali.util.ReflectionHelper;
 import com.haulmont.chile.core.datatypes.impl.EnumClass;
 import com.haulmont.chile.core.model.MetaClass;
+import com.haulmont.cuba.core.QueryCursor;
 import com.haulmont.cuba.core.TypedQuery;
 import com.haulmont.cuba.core.app.ServerConfig;
 import com.haulmont.cuba.core.entity.Entity;
@@ -40,6 +41,7 @@ import org.eclipse.persistence.config.QueryHints;
 import org.eclipse.persistence.internal.helper.CubaUtil;
 import org.eclipse.persistence.internal.jpa.EJBQueryImpl;
 import org.eclipse.persistence.jpa.JpaQuery;
+import org.eclipse.persistence.queries.CursoredStream;
 import org.eclipse.persistence.queries.DatabaseQuery;
 import org.eclipse.persistence.queries.ObjectLevelReadQuery;
 import org.slf4j.Logger;
@@ -379,6 +381,22 @@ public class QueryImpl<T> implements TypedQuery<T> {
         return resultList;
     }
 
+    @Override
+    public QueryCursor<T> getResultCursor(int fetchSize) {
+        if (log.isDebugEnabled())
+            log.debug(queryString.replaceAll("[\\t\\n\\x0B\\f\\r]", " "));
+
+        singleResultExpected = false;
+
+        JpaQuery<T> jpaQuery = getQuery();
+        jpaQuery.setHint(QueryHints.CURSOR, HintValues.TRUE);
+        jpaQuery.setHint(QueryHints.CURSOR_PAGE_SIZE, fetchSize);
+        jpaQuery.setHint(QueryHints.JDBC_FETCH_SIZE, fetchSize);
+        preExecute(jpaQuery);
+        CursoredStream stream = (CursoredStream) jpaQuery.getSingleResult();
+        return new QueryCursorImpl<>(stream, fetchSize);
+    }
+
     @Override
     public T getSingleResult() {
         if (log.isDebugEnabled())
@@ -729,6 +747,51 @@ public class QueryImpl<T> implements TypedQuery<T> {
                 .collect(Collectors.toList());
     }
 
+    protected class QueryCursorImpl<R> implements QueryCursor<R> {
+        protected CursoredStream stream;
+        protected int fetchSize;
+        protected int count;
+        protected boolean closed;
+
+        public QueryCursorImpl(CursoredStream stream, int fetchSize) {
+            this.stream = stream;
+            this.fetchSize = fetchSize;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !closed && stream.hasNext();
+        }
+
+        @Override
+        public R next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            // the stream keeps all read objects until they are released
+            if (count > 0 && count % fetchSize == 0) {
+                stream.releasePrevious();
+            }
+            count++;
+            @SuppressWarnings("unchecked")
+            R item = (R) stream.next();
+            if (item instanceof Entity) {
+                for (View view : views) {
+                    entityFetcher.fetch((Entity) item, view);
+                }
+            }
+            return item;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                stream.close();
+            }
+        }
+    }
+
     protected static class Param {
         protected Object name;
         protected Object value;
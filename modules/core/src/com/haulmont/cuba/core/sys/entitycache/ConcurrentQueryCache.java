@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.sys.entitycache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Query cache implementation that does not use a global lock.
+ * <p>
+ * Keys of cached queries are indexed by related types in concurrent sets. An entry is removed from the index when
+ * it is evicted or invalidated in the underlying cache, so invalidation of a type touches only the queries that
+ * are actually cached for it.
+ * <p>
+ * If {@link QueryCacheConfig#getQueryCacheVersionedInvalidation()} is true, the type index is not maintained at all:
+ * each type has a version counter, cached queries remember versions of their related types, and invalidation of
+ * a type is a single increment. Outdated entries are discarded on access or evicted by the cache size policy.
+ * <p>
+ * To use this implementation, register it in the {@code spring.xml} of the core module:
+ * <pre>
+ *     &lt;bean id="cuba_QueryCache" class="com.haulmont.cuba.core.sys.entitycache.ConcurrentQueryCache"/&gt;
+ * </pre>
+ */
+public class ConcurrentQueryCache implements QueryCache {
+
+    protected Cache<QueryKey, CachedQuery> data;
+    protected ConcurrentMap<String, Set<QueryKey>> typeIndex = new ConcurrentHashMap<>();
+    protected ConcurrentMap<String, AtomicLong> typeVersions = new ConcurrentHashMap<>();
+
+    protected boolean versionedInvalidation;
+
+    @Inject
+    protected QueryCacheConfig queryCacheConfig;
+
+    protected static final Logger log = LoggerFactory.getLogger(QueryCache.class);
+
+    @PostConstruct
+    protected void init() {
+        versionedInvalidation = queryCacheConfig.getQueryCacheVersionedInvalidation();
+        data = CacheBuilder.newBuilder()
+                .maximumSize(queryCacheConfig.getQueryCacheMaxSize())
+                .removalListener(this::onRemoval)
+                .build();
+    }
+
+    @Override
+    public QueryResult get(QueryKey queryKey) {
+        CachedQuery cachedQuery = data.getIfPresent(queryKey);
+        if (cachedQuery == null) {
+            return null;
+        }
+        if (isOutdated(cachedQuery)) {
+            log.debug("Discard outdated query {}", queryKey.printDescription());
+            data.asMap().remove(queryKey, cachedQuery);
+            return null;
+        }
+        return cachedQuery.queryResult;
+    }
+
+    @Override
+    public void put(QueryKey queryKey, QueryResult queryResult) {
+        Set<String> relatedTypes = queryResult.getRelatedTypes();
+        if (versionedInvalidation) {
+            data.put(queryKey, new CachedQuery(queryResult, getVersions(relatedTypes)));
+        } else {
+            data.put(queryKey, new CachedQuery(queryResult, null));
+            if (relatedTypes != null) {
+                for (String type : relatedTypes) {
+                    typeIndex.computeIfAbsent(type, k -> ConcurrentHashMap.newKeySet()).add(queryKey);
+                }
+            }
+        }
+    }
+
+    @Override
+    public QueryKey findQueryKeyById(UUID queryId) {
+        for (QueryKey key : data.asMap().keySet()) {
+            if (Objects.equals(queryId, key.getId())) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public QueryKey invalidate(UUID queryId) {
+        QueryKey key = findQueryKeyById(queryId);
+        if (key != null) {
+            log.debug("Invalidate query by identifier {}", queryId);
+            data.invalidate(key);
+        }
+        return key;
+    }
+
+    @Override
+    public void invalidate(QueryKey queryKey) {
+        log.debug("Invalidate query by key {}", queryKey.printDescription());
+        data.invalidate(queryKey);
+    }
+
+    @Override
+    public void invalidate(String typeName) {
+        log.debug("Invalidate cache for type {}", typeName);
+        if (versionedInvalidation) {
+            typeVersions.computeIfAbsent(typeName, k -> new AtomicLong()).incrementAndGet();
+        } else {
+            Set<QueryKey> keys = typeIndex.get(typeName);
+            if (keys == null) return;
+            for (Iterator<QueryKey> it = keys.iterator(); it.hasNext(); ) {
+                QueryKey key = it.next();
+                it.remove();
+                data.invalidate(key);
+            }
+        }
+    }
+
+    @Override
+    public void invalidate(Set<String> typeNames) {
+        typeNames.forEach(this::invalidate);
+    }
+
+    @Override
+    public void invalidateAll() {
+        log.debug("Invalidate all cache");
+        data.invalidateAll();
+        typeIndex.clear();
+    }
+
+    @Override
+    public long size() {
+        return data.size();
+    }
+
+    @Override
+    public long getMaxSize() {
+        return queryCacheConfig.getQueryCacheMaxSize();
+    }
+
+    @Override
+    public Map<QueryKey, QueryResult> asMap() {
+        Map<QueryKey, QueryResult> map = new HashMap<>();
+        for (Map.Entry<QueryKey, CachedQuery> entry : data.asMap().entrySet()) {
+            if (!isOutdated(entry.getValue())) {
+                map.put(entry.getKey(), entry.getValue().queryResult);
+            }
+        }
+        return map;
+    }
+
+    protected void onRemoval(RemovalNotification<QueryKey, CachedQuery> notification) {
+        // a replaced key stays in the cache with the new result and is indexed by put()
+        if (versionedInvalidation || notification.getCause() == RemovalCause.REPLACED) {
+            return;
+        }
+        QueryKey queryKey = notification.getKey();
+        CachedQuery cachedQuery = notification.getValue();
+        if (queryKey == null || cachedQuery == null) {
+            return;
+        }
+        Set<String> relatedTypes = cachedQuery.queryResult.getRelatedTypes();
+        if (relatedTypes != null) {
+            for (String type : relatedTypes) {
+                Set<QueryKey> keys = typeIndex.get(type);
+                if (keys != null) {
+                    keys.remove(queryKey);
+                }
+            }
+        }
+    }
+
+    protected Map<String, Long> getVersions(Set<String> relatedTypes) {
+        if (relatedTypes == null || relatedTypes.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, Long> versions = new HashMap<>(relatedTypes.size());
+        for (String type : relatedTypes) {
+            versions.put(type, getVersion(type));
+        }
+        return versions;
+    }
+
+    protected long getVersion(String type) {
+        AtomicLong version = typeVersions.get(type);
+        return version == null ? 0 : version.get();
+    }
+
+    protected boolean isOutdated(CachedQuery cachedQuery) {
+        if (cachedQuery.versions == null) {
+            return false;
+        }
+        for (Map.Entry<String, Long> entry : cachedQuery.versions.entrySet()) {
+            if (getVersion(entry.getKey()) != entry.getValue()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    protected static class CachedQuery {
+        protected final QueryResult queryResult;
+        protected final Map<String, Long> versions;
+
+        public CachedQuery(QueryResult queryResult, Map<String, Long> versions) {
+            this.queryResult = queryResult;
+            this.versions = versions;
+        }
+    }
+}
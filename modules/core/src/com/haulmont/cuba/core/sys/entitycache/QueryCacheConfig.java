@@ -34,4 +34,12 @@ public interface QueryCacheConfig extends Config {
     @Property("cuba.queryCache.maxSize")
     @DefaultInt(100)
     int getQueryCacheMaxSize();
+
+    /**
+     * Used by {@link ConcurrentQueryCache}. If true, queries are invalidated by incrementing a version counter
+     * of the related types instead of walking the per-type index of cached queries.
+     */
+    @Property("cuba.queryCache.versionedInvalidation")
+    @DefaultBoolean(false)
+    boolean getQueryCacheVersionedInvalidation();
 }
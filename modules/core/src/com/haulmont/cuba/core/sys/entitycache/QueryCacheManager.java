@@ -24,9 +24,12 @@ import com.haulmont.cuba.core.EntityManager;
 import com.haulmont.cuba.core.Persistence;
 import com.haulmont.cuba.core.app.ClusterListenerAdapter;
 import com.haulmont.cuba.core.app.ClusterManagerAPI;
+import com.haulmont.cuba.core.app.ClusterMessageCodec;
+import com.haulmont.cuba.core.app.IdempotentClusterMessage;
 import com.haulmont.cuba.core.entity.BaseGenericIdEntity;
 import com.haulmont.cuba.core.global.Metadata;
 import com.haulmont.cuba.core.global.View;
+import com.haulmont.cuba.core.sys.serialization.SerializationSupport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
@@ -35,7 +38,9 @@ import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 import javax.persistence.MappedSuperclass;
 import javax.persistence.TypedQuery;
-import java.io.Serializable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -59,6 +64,7 @@ public class QueryCacheManager {
 
     @PostConstruct
     public void init() {
+        clusterManager.addCodec(new InvalidateQueryCacheMsgCodec());
         clusterManager.addListener(InvalidateQueryCacheMsg.class, new ClusterListenerAdapter<InvalidateQueryCacheMsg>() {
             @Override
             public void receive(InvalidateQueryCacheMsg message) {
@@ -272,7 +278,7 @@ public class QueryCacheManager {
         return newRelatedTypes;
     }
 
-    protected static class InvalidateQueryCacheMsg implements Serializable {
+    protected static class InvalidateQueryCacheMsg implements IdempotentClusterMessage {
         private static final long serialVersionUID = -9099037380378341477L;
 
         protected Set<String> typeNames;
@@ -290,5 +296,84 @@ public class QueryCacheManager {
         public InvalidateQueryCacheMsg(QueryKey queryKey) {
             this.queryKey = queryKey;
         }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            InvalidateQueryCacheMsg that = (InvalidateQueryCacheMsg) o;
+
+            return invalidateAll == that.invalidateAll
+                    && Objects.equals(typeNames, that.typeNames)
+                    && Objects.equals(queryKey, that.queryKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(typeNames, queryKey, invalidateAll);
+        }
+    }
+
+    protected static class InvalidateQueryCacheMsgCodec implements ClusterMessageCodec<InvalidateQueryCacheMsg> {
+
+        protected static final byte ALL = 0;
+        protected static final byte TYPES = 1;
+        protected static final byte QUERY = 2;
+
+        @Override
+        public Class<InvalidateQueryCacheMsg> getMessageClass() {
+            return InvalidateQueryCacheMsg.class;
+        }
+
+        @Override
+        public short getTypeId() {
+            return 1;
+        }
+
+        @Override
+        public byte getVersion() {
+            return 1;
+        }
+
+        @Override
+        public void write(InvalidateQueryCacheMsg message, DataOutput out) throws IOException {
+            if (message.invalidateAll) {
+                out.writeByte(ALL);
+            } else if (message.queryKey != null) {
+                out.writeByte(QUERY);
+                byte[] bytes = SerializationSupport.serialize(message.queryKey);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            } else {
+                out.writeByte(TYPES);
+                out.writeInt(message.typeNames.size());
+                for (String typeName : message.typeNames) {
+                    out.writeUTF(typeName);
+                }
+            }
+        }
+
+        @Override
+        public InvalidateQueryCacheMsg read(DataInput in, byte version) throws IOException {
+            byte kind = in.readByte();
+            switch (kind) {
+                case ALL:
+                    return new InvalidateQueryCacheMsg(true);
+                case QUERY:
+                    byte[] bytes = new byte[in.readInt()];
+                    in.readFully(bytes);
+                    return new InvalidateQueryCacheMsg((QueryKey) SerializationSupport.deserialize(bytes));
+                case TYPES:
+                    int size = in.readInt();
+                    Set<String> typeNames = new HashSet<>(size);
+                    for (int i = 0; i < size; i++) {
+                        typeNames.add(in.readUTF());
+                    }
+                    return new InvalidateQueryCacheMsg(typeNames);
+                default:
+                    throw new IOException("Unknown message kind: " + kind);
+            }
+        }
     }
 }
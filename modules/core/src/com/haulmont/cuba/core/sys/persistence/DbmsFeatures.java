@@ -95,4 +95,19 @@ public interface DbmsFeatures {
     default boolean useOrderByForPaging() {
         return false;
     }
+
+    /**
+     * @return maximum number of rows inserted by a single {@code insert ... values (...), (...)} statement,
+     * or 1 if the DBMS does not support multi-row inserts
+     */
+    default int getMaxRowsPerInsert() {
+        return 1;
+    }
+
+    /**
+     * @return true if the DBMS supports bulk loading of data by {@code copy ... from stdin} statement
+     */
+    default boolean supportsCopyFromStdin() {
+        return false;
+    }
 }
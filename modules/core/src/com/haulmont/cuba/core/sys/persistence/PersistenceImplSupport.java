@@ -195,6 +195,32 @@ public class PersistenceImplSupport implements ApplicationContextAware {
         traverseEntities(getInstanceContainerResourceHolder(storeName), new OnFlushEntityVisitor(storeName), warnAboutImplicitFlush);
     }
 
+    /**
+     * Flushes changes of the current transaction to the database doing for changed instances what is normally done
+     * on commit: entity listeners, registration in entity log, enqueueing for full-text indexing, eviction from the
+     * ORM cache and publishing of {@link EntityChangedEvent}s for updated and deleted instances. The instances stay
+     * in the persistence context, so they are not processed again on commit, except for {@code EntityChangedEvent}s
+     * of new instances which are published on commit as usual.
+     */
+    public void flushAsOnCommit(EntityManager entityManager) {
+        UnitOfWork unitOfWork = entityManager.getDelegate().unwrap(UnitOfWork.class);
+        String storeName = getStorageName(unitOfWork);
+        ContainerResourceHolder container = getInstanceContainerResourceHolder(storeName);
+
+        traverseEntities(container, new OnCommitEntityVisitor(storeName), false);
+
+        // changes of existing instances are not available after flush
+        List<Entity> existingInstances = container.getAllInstances().stream()
+                .filter(instance -> !(instance instanceof BaseGenericIdEntity)
+                        || !BaseEntityInternalAccess.isNew((BaseGenericIdEntity) instance))
+                .collect(Collectors.toList());
+        List<EntityChangedEvent> events = entityChangedEventManager.collect(existingInstances);
+
+        entityManager.getDelegate().flush();
+
+        entityChangedEventManager.publish(events);
+    }
+
     protected void fireBeforeDetachEntityListener(BaseGenericIdEntity entity, String storeName) {
         if (!BaseEntityInternalAccess.isDetached(entity)) {
             CubaEntityFetchGroup.setAccessLocalUnfetched(false);
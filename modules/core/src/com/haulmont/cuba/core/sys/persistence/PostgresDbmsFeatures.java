@@ -77,4 +77,14 @@ public class PostgresDbmsFeatures implements DbmsFeatures {
     public boolean supportsLobSortingAndFiltering() {
         return true;
     }
-}
\ No newline at end of file
+
+    @Override
+    public int getMaxRowsPerInsert() {
+        return 1000;
+    }
+
+    @Override
+    public boolean supportsCopyFromStdin() {
+        return true;
+    }
+}
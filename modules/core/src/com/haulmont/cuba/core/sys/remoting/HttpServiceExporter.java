@@ -32,6 +32,7 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OptionalDataException;
+import java.util.Collection;
 
 /**
  * Exports a middleware service bean as an HTTP invoker service endpoint.
@@ -75,6 +76,7 @@ public class HttpServiceExporter extends HttpInvokerServiceExporter implements B
             try {
                 RemoteInvocation invocation = readRemoteInvocation(request);
                 result = invokeAndCreateResult(invocation, getProxy());
+                result = createStreamedResultIfRequested(invocation, result);
             } catch (OptionalDataException | ClassCastException e) { // typical binary incompatibility exceptions
                 logger.error("Failed to read remote invocation request", e);
                 result = new RemoteInvocationResult(e);
@@ -86,9 +88,28 @@ public class HttpServiceExporter extends HttpInvokerServiceExporter implements B
         }
     }
 
+    /**
+     * Replaces a collection returned by the service method with {@link StreamedCollection} if the client has
+     * requested streaming and the collection contains more than one batch of elements.
+     */
+    protected RemoteInvocationResult createStreamedResultIfRequested(RemoteInvocation invocation,
+                                                                     RemoteInvocationResult result) {
+        if (invocation instanceof CubaRemoteInvocation && !result.hasException()) {
+            int batchSize = ((CubaRemoteInvocation) invocation).getResultBatchSize();
+            Object value = result.getValue();
+            if (batchSize > 0 && StreamedCollection.isSupported(value) && ((Collection) value).size() > batchSize) {
+                return new RemoteInvocationResult(new StreamedCollection((Collection<?>) value, batchSize));
+            }
+        }
+        return result;
+    }
+
     @Override
     protected void doWriteRemoteInvocationResult(RemoteInvocationResult result, ObjectOutputStream oos) throws IOException {
         SerializationSupport.serialize(result, oos);
+        if (result.getValue() instanceof StreamedCollection) {
+            ((StreamedCollection) result.getValue()).writeElements(oos);
+        }
     }
 
     @Override
@@ -77,6 +77,8 @@ public class EntityLog implements EntityLogAPI {
     protected DataManager dataManager;
     @Inject
     protected ServerConfig serverConfig;
+    @Inject
+    protected EntityLogWriter entityLogWriter;
 
     protected volatile boolean loaded;
     protected EntityLogConfig config;
@@ -194,6 +196,10 @@ public class EntityLog implements EntityLogAPI {
     }
 
     protected void saveItem(EntityLogItem item) {
+        if (config.getAsyncWriting() && TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueueAfterCommit(item);
+            return;
+        }
         String storeName = metadataTools.getStoreName(metadata.getClassNN(item.getEntity()));
         if (item.getDbGeneratedIdEntity() == null) {
             if (Stores.isMain(storeName)) {
@@ -223,6 +229,20 @@ public class EntityLog implements EntityLogAPI {
         }
     }
 
+    protected void enqueueAfterCommit(EntityLogItem item) {
+        item.setCreateTs(timeSource.currentTimestamp());
+        item.setCreatedBy(auditInfoProvider.getCurrentUserLogin());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                if (item.getDbGeneratedIdEntity() != null) {
+                    item.setObjectEntityId(item.getDbGeneratedIdEntity().getId().getNN());
+                }
+                entityLogWriter.enqueue(item);
+            }
+        });
+    }
+
     @Override
     public synchronized boolean isEnabled() {
         return config.getEnabled() && isLoggingForCurrentThread();
@@ -21,6 +21,7 @@ import com.haulmont.cuba.core.config.Property;
 import com.haulmont.cuba.core.config.Source;
 import com.haulmont.cuba.core.config.SourceType;
 import com.haulmont.cuba.core.config.defaults.DefaultBoolean;
+import com.haulmont.cuba.core.config.defaults.DefaultInt;
 
 /**
  * {@link com.haulmont.cuba.security.app.EntityLog} configuration parameters
@@ -35,4 +36,36 @@ public interface EntityLogConfig extends Config {
     @DefaultBoolean(true)
     boolean getEnabled();
     void setEnabled(boolean value);
-}
\ No newline at end of file
+
+    /**
+     * @return whether log items are written to the database asynchronously by {@link EntityLogWriter}
+     * after the transaction that registered them is committed
+     */
+    @Property("cuba.entityLog.asyncWriting")
+    @DefaultBoolean(false)
+    boolean getAsyncWriting();
+    void setAsyncWriting(boolean value);
+
+    /**
+     * @return maximum number of log items waiting to be written asynchronously
+     */
+    @Property("cuba.entityLog.asyncQueueCapacity")
+    @Source(type = SourceType.APP)
+    @DefaultInt(10000)
+    int getAsyncQueueCapacity();
+
+    /**
+     * @return time in milliseconds a committing thread waits for free space in the full queue
+     * before writing the log item itself
+     */
+    @Property("cuba.entityLog.asyncQueueTimeoutMs")
+    @DefaultInt(1000)
+    int getAsyncQueueTimeoutMs();
+
+    /**
+     * @return maximum number of log items inserted in one transaction by the asynchronous writer
+     */
+    @Property("cuba.entityLog.asyncBatchSize")
+    @DefaultInt(100)
+    int getAsyncBatchSize();
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.security.app;
+
+import com.haulmont.cuba.core.EntityManager;
+import com.haulmont.cuba.core.Persistence;
+import com.haulmont.cuba.core.Transaction;
+import com.haulmont.cuba.core.global.Configuration;
+import com.haulmont.cuba.core.sys.AppContext;
+import com.haulmont.cuba.security.entity.EntityLogItem;
+import com.haulmont.cuba.security.entity.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes entity log items to the database in a background thread when
+ * {@link EntityLogConfig#getAsyncWriting()} is true.
+ * <p>
+ * Items are passed through a bounded queue and inserted in batches of
+ * {@link EntityLogConfig#getAsyncBatchSize()} items in a separate transaction. If the queue is full, the caller
+ * waits for {@link EntityLogConfig#getAsyncQueueTimeoutMs()} and then writes the item itself, so the items are
+ * never dropped. The queue is flushed on application shutdown.
+ */
+@Component(EntityLogWriter.NAME)
+public class EntityLogWriter {
+
+    public static final String NAME = "cuba_EntityLogWriter";
+
+    private static final Logger log = LoggerFactory.getLogger(EntityLogWriter.class);
+
+    @Inject
+    protected Persistence persistence;
+
+    protected EntityLogConfig config;
+
+    protected BlockingQueue<EntityLogItem> queue;
+
+    protected volatile Thread writerThread;
+    protected volatile boolean stopped;
+
+    protected AtomicLong writtenCount = new AtomicLong();
+    protected AtomicLong failedCount = new AtomicLong();
+    protected AtomicLong directWriteCount = new AtomicLong();
+    protected volatile long lastWriteLagMs;
+
+    @Inject
+    public EntityLogWriter(Configuration configuration) {
+        config = configuration.getConfig(EntityLogConfig.class);
+        queue = new ArrayBlockingQueue<>(config.getAsyncQueueCapacity());
+    }
+
+    @PostConstruct
+    protected void init() {
+        AppContext.addListener(new AppContext.Listener() {
+            @Override
+            public void applicationStarted() {
+            }
+
+            @Override
+            public void applicationStopped() {
+                stop();
+            }
+        });
+    }
+
+    /**
+     * Puts the item to the queue. Blocks if the queue is full, and writes the item in the current thread if the
+     * queue has not been freed within the timeout.
+     */
+    public void enqueue(EntityLogItem item) {
+        if (!stopped) {
+            startWriterThread();
+            try {
+                if (queue.offer(item, config.getAsyncQueueTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+                log.debug("Entity log queue is full, writing the item directly");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        directWriteCount.incrementAndGet();
+        write(Collections.singletonList(item));
+    }
+
+    /**
+     * Writes all queued items in the current thread.
+     */
+    public void flush() {
+        List<EntityLogItem> batch = new ArrayList<>();
+        while (queue.drainTo(batch, getBatchSize()) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public int getQueueCapacity() {
+        return queue.size() + queue.remainingCapacity();
+    }
+
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public long getDirectWriteCount() {
+        return directWriteCount.get();
+    }
+
+    /**
+     * @return time in milliseconds between the registration of the oldest item of the last written batch and
+     * the end of its writing
+     */
+    public long getLastWriteLagMs() {
+        return lastWriteLagMs;
+    }
+
+    protected synchronized void startWriterThread() {
+        if (writerThread != null || stopped) {
+            return;
+        }
+        Thread thread = new Thread(this::processQueue, "EntityLogWriter");
+        thread.setDaemon(true);
+        thread.start();
+        writerThread = thread;
+    }
+
+    protected void processQueue() {
+        List<EntityLogItem> batch = new ArrayList<>();
+        while (!stopped) {
+            try {
+                EntityLogItem item = queue.poll(1, TimeUnit.SECONDS);
+                if (item == null) {
+                    continue;
+                }
+                batch.add(item);
+                queue.drainTo(batch, getBatchSize() - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                break;
+            } catch (Throwable e) {
+                log.error("Error writing entity log", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    protected void stop() {
+        Thread thread;
+        synchronized (this) {
+            stopped = true;
+            thread = writerThread;
+        }
+        if (thread != null) {
+            try {
+                thread.join(config.getAsyncQueueTimeoutMs() + TimeUnit.SECONDS.toMillis(1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (!queue.isEmpty()) {
+            log.info("Writing {} queued entity log items", queue.size());
+            flush();
+        }
+    }
+
+    protected void write(List<EntityLogItem> items) {
+        try (Transaction tx = persistence.createTransaction()) {
+            EntityManager em = persistence.getEntityManager();
+            for (EntityLogItem item : items) {
+                // the user is a reference obtained in the transaction that registered the item
+                if (item.getUser() != null) {
+                    item.setUser(em.getReference(User.class, item.getUser().getId()));
+                }
+                // audit fields are filled on registration, as there is no user session in the writer thread
+                String createdBy = item.getCreatedBy();
+                Date createTs = item.getCreateTs();
+                em.persist(item);
+                item.setCreatedBy(createdBy);
+                item.setCreateTs(createTs);
+            }
+            tx.commit();
+
+            writtenCount.addAndGet(items.size());
+            Date eventTs = items.get(0).getEventTs();
+            if (eventTs != null) {
+                lastWriteLagMs = System.currentTimeMillis() - eventTs.getTime();
+            }
+        } catch (RuntimeException e) {
+            failedCount.addAndGet(items.size());
+            log.error("Unable to write " + items.size() + " entity log items", e);
+        }
+    }
+
+    protected int getBatchSize() {
+        return Math.max(1, config.getAsyncBatchSize());
+    }
+}
@@ -17,7 +17,9 @@ package com.haulmont.cuba.security.app;
 
 import com.haulmont.bali.util.Preconditions;
 import com.haulmont.cuba.core.app.ClusterListener;
+import com.haulmont.cuba.core.app.ClusterListenerAdapter;
 import com.haulmont.cuba.core.app.ClusterManagerAPI;
+import com.haulmont.cuba.core.app.ClusterMessageCodec;
 import com.haulmont.cuba.core.app.ServerConfig;
 import com.haulmont.cuba.core.global.Configuration;
 import com.haulmont.cuba.core.global.Metadata;
@@ -53,6 +55,8 @@ public class UserSessions implements UserSessionsAPI {
         public final long since;
         public volatile long lastUsedTs; // set to 0 when propagating removal to cluster
         public volatile long lastSentTs;
+        // whether this node has already sent the whole session to the cluster, not transferred with the session
+        protected transient volatile boolean sent;
 
         public UserSessionInfo(UserSession session, long now) {
             this.session = session;
@@ -84,6 +88,59 @@ public class UserSessions implements UserSessionsAPI {
         }
     }
 
+    /**
+     * Compact cluster message propagating the last usage time or removal of a session which is already
+     * known to other nodes. Each node sends the whole {@link UserSessionInfo} on its first propagation of
+     * a session, so that nodes which missed the session can recover it.
+     */
+    public static class TouchSessionMsg implements Serializable {
+        private static final long serialVersionUID = 2360262364183466378L;
+
+        public final UUID sessionId;
+        public final long lastUsedTs; // 0 if the session is removed
+
+        public TouchSessionMsg(UUID sessionId, long lastUsedTs) {
+            this.sessionId = sessionId;
+            this.lastUsedTs = lastUsedTs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s, lastUsed: %s", sessionId, new Date(lastUsedTs));
+        }
+    }
+
+    protected static class TouchSessionMsgCodec implements ClusterMessageCodec<TouchSessionMsg> {
+
+        @Override
+        public Class<TouchSessionMsg> getMessageClass() {
+            return TouchSessionMsg.class;
+        }
+
+        @Override
+        public short getTypeId() {
+            return 2;
+        }
+
+        @Override
+        public byte getVersion() {
+            return 1;
+        }
+
+        @Override
+        public void write(TouchSessionMsg message, DataOutput out) throws IOException {
+            out.writeLong(message.sessionId.getMostSignificantBits());
+            out.writeLong(message.sessionId.getLeastSignificantBits());
+            out.writeLong(message.lastUsedTs);
+        }
+
+        @Override
+        public TouchSessionMsg read(DataInput in, byte version) throws IOException {
+            UUID sessionId = new UUID(in.readLong(), in.readLong());
+            return new TouchSessionMsg(sessionId, in.readLong());
+        }
+    }
+
     private static final Logger log = LoggerFactory.getLogger(UserSessions.class);
 
     protected Map<UUID, UserSessionInfo> cache = new ConcurrentHashMap<>();
@@ -153,6 +210,29 @@ public class UserSessions implements UserSessionsAPI {
                     }
                 }
         );
+        this.clusterManager.addListener(TouchSessionMsg.class, new ClusterListenerAdapter<TouchSessionMsg>() {
+            @Override
+            public void receive(TouchSessionMsg message) {
+                receiveTouchMessage(message);
+            }
+        });
+        this.clusterManager.addCodec(new TouchSessionMsgCodec());
+    }
+
+    protected void receiveTouchMessage(TouchSessionMsg message) {
+        if (message.lastUsedTs == 0) {
+            log.debug("Removing session due to cluster message: {}", message);
+            removeSessionInfo(message.sessionId);
+        } else {
+            UserSessionInfo usi = getSessionInfo(message.sessionId);
+            if (usi == null) {
+                // the whole session will come with the first propagation from another node
+                log.debug("Received touch of unknown session: {}", message);
+            } else if (usi.lastUsedTs < message.lastUsedTs) {
+                usi.lastUsedTs = message.lastUsedTs;
+                putSessionInfo(message.sessionId, usi);
+            }
+        }
     }
 
     protected void receiveClusterMessage(UserSessionInfo message) {
@@ -213,6 +293,7 @@ public class UserSessions implements UserSessionsAPI {
         UserSessionInfo usi = new UserSessionInfo(session, timeSource.currentTimeMillis());
         putSessionInfo(session.getId(), usi);
         if (!session.isSystem()) {
+            usi.sent = true;
             if (serverConfig.getSyncNewUserSessionReplication())
                 clusterManager.sendSync(usi);
             else
@@ -227,7 +308,7 @@ public class UserSessions implements UserSessionsAPI {
             log.debug("Removed session: {}", usi);
             if (!session.isSystem()) {
                 usi.lastUsedTs = 0;
-                clusterManager.send(usi);
+                clusterManager.send(new TouchSessionMsg(session.getId(), 0));
             }
         }
     }
@@ -292,7 +373,12 @@ public class UserSessions implements UserSessionsAPI {
                 if (propagate && !usi.session.isSystem()) {
                     if (now > (usi.lastSentTs + toMillis(sendTimeout))) {
                         usi.lastSentTs = now;
-                        clusterManager.send(usi);
+                        if (usi.sent) {
+                            clusterManager.send(new TouchSessionMsg(id, usi.lastUsedTs));
+                        } else {
+                            usi.sent = true;
+                            clusterManager.send(usi);
+                        }
                     }
                 }
             }
@@ -308,6 +394,7 @@ public class UserSessions implements UserSessionsAPI {
             long now = timeSource.currentTimeMillis();
             usi.lastUsedTs = now;
             usi.lastSentTs = now;
+            usi.sent = true;
             putSessionInfo(id, usi);
             clusterManager.send(usi);
         }
@@ -19,6 +19,7 @@ package com.haulmont.cuba.security.jmx;
 
 import com.haulmont.cuba.security.app.Authenticated;
 import com.haulmont.cuba.security.app.EntityLogAPI;
+import com.haulmont.cuba.security.app.EntityLogWriter;
 
 import org.springframework.stereotype.Component;
 import javax.inject.Inject;
@@ -29,6 +30,9 @@ public class EntityLog implements EntityLogMBean {
     @Inject
     protected EntityLogAPI entityLog;
 
+    @Inject
+    protected EntityLogWriter entityLogWriter;
+
     @Override
     public boolean isEnabled() {
         return entityLog.isEnabled();
@@ -44,4 +48,40 @@ public class EntityLog implements EntityLogMBean {
     public void invalidateCache() {
         entityLog.invalidateCache();
     }
-}
\ No newline at end of file
+
+    @Override
+    public int getAsyncQueueSize() {
+        return entityLogWriter.getQueueSize();
+    }
+
+    @Override
+    public int getAsyncQueueCapacity() {
+        return entityLogWriter.getQueueCapacity();
+    }
+
+    @Override
+    public long getAsyncWrittenCount() {
+        return entityLogWriter.getWrittenCount();
+    }
+
+    @Override
+    public long getAsyncFailedCount() {
+        return entityLogWriter.getFailedCount();
+    }
+
+    @Override
+    public long getAsyncDirectWriteCount() {
+        return entityLogWriter.getDirectWriteCount();
+    }
+
+    @Override
+    public long getAsyncWriteLagMs() {
+        return entityLogWriter.getLastWriteLagMs();
+    }
+
+    @Authenticated
+    @Override
+    public void flushAsyncQueue() {
+        entityLogWriter.flush();
+    }
+}
@@ -36,4 +36,39 @@ public interface EntityLogMBean {
      * The configuration will be recreated from the database on next lifecycle event.
      */
     void invalidateCache();
+
+    /**
+     * @return number of log items waiting to be written asynchronously
+     */
+    int getAsyncQueueSize();
+
+    /**
+     * @return maximum number of log items waiting to be written asynchronously
+     */
+    int getAsyncQueueCapacity();
+
+    /**
+     * @return number of log items written asynchronously since the server start
+     */
+    long getAsyncWrittenCount();
+
+    /**
+     * @return number of log items that could not be written asynchronously because of errors
+     */
+    long getAsyncFailedCount();
+
+    /**
+     * @return number of log items written by committing threads because the queue was full
+     */
+    long getAsyncDirectWriteCount();
+
+    /**
+     * @return time in milliseconds between registration and writing of the last written log items
+     */
+    long getAsyncWriteLagMs();
+
+    /**
+     * Writes all queued log items.
+     */
+    void flushAsyncQueue();
 }
@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.haulmont.cuba.core;
+
+import com.haulmont.bali.db.QueryRunner;
+import com.haulmont.cuba.core.app.FtsSender;
+import com.haulmont.cuba.core.app.ServerConfig;
+import com.haulmont.cuba.core.entity.Entity;
+import com.haulmont.cuba.core.entity.FtsChangeType;
+import com.haulmont.cuba.core.global.*;
+import com.haulmont.cuba.core.sys.persistence.PersistenceImplSupport;
+import com.haulmont.cuba.security.app.EntityLogAPI;
+import com.haulmont.cuba.security.entity.*;
+import com.haulmont.cuba.testmodel.sales_1.Order;
+import com.haulmont.cuba.testmodel.sales_1.TestEntityChangedEventListener;
+import com.haulmont.cuba.testsupport.TestContainer;
+import mockit.Mock;
+import mockit.MockUp;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class DataManagerBulkCommitTest {
+
+    @ClassRule
+    public static TestContainer cont = TestContainer.Common.INSTANCE;
+
+    private DataManager dataManager;
+    private UUID groupId = UUID.fromString("0fa2b1a5-1d68-4d69-9fbd-dff348347f93");
+    private UUID roleId = UUID.fromString("0c018061-b26f-4de2-a5be-dff348347f93");
+    private List<User> users = new ArrayList<>();
+    private List<UserRole> userRoles = new ArrayList<>();
+    private List<Order> orders = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        dataManager = AppBeans.get(DataManager.class);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (UserRole userRole : userRoles) {
+            cont.deleteRecord(userRole);
+        }
+        for (User user : users) {
+            cont.deleteRecord(user);
+        }
+        for (Order order : orders) {
+            cont.deleteRecord(order);
+        }
+    }
+
+    @Test
+    public void testBulkInsertAndUpdate() throws Exception {
+        Group group = dataManager.getReference(Group.class, groupId);
+        Role role = dataManager.getReference(Role.class, roleId);
+
+        CommitContext commitContext = new CommitContext().setBulkMode(true);
+        for (int i = 0; i < 10; i++) {
+            User user = dataManager.create(User.class);
+            user.setLogin("bulk-" + user.getId());
+            user.setName("Bulk user " + i);
+            user.setGroup(group);
+            users.add(user);
+
+            // user roles go before users to check that new instances can reference each other
+            UserRole userRole = dataManager.create(UserRole.class);
+            userRole.setUser(user);
+            userRole.setRole(role);
+            userRoles.add(userRole);
+            commitContext.addInstanceToCommit(userRole);
+        }
+        users.forEach(commitContext::addInstanceToCommit);
+
+        EntitySet committed = dataManager.commit(commitContext);
+        assertEquals(20, committed.size());
+        for (User user : users) {
+            User committedUser = committed.get(user);
+            assertNotNull(committedUser);
+            assertFalse(PersistenceHelper.isNew(committedUser));
+            assertTrue(PersistenceHelper.isDetached(committedUser));
+        }
+
+        commitContext = new CommitContext().setBulkMode(true);
+        for (User user : users) {
+            User committedUser = committed.get(user);
+            committedUser.setName(committedUser.getName() + " changed");
+            commitContext.addInstanceToCommit(committedUser);
+        }
+        dataManager.commit(commitContext);
+
+        List<User> loaded = dataManager.load(User.class)
+                .query("select u from sec$User u where u.login like 'bulk-%'")
+                .list();
+        assertEquals(users.size(), loaded.size());
+        for (User user : loaded) {
+            assertTrue(user.getName().endsWith(" changed"));
+        }
+    }
+
+    @Test
+    public void testCommitProcessingInBatches() throws Exception {
+        ServerConfig serverConfig = AppBeans.get(Configuration.class).getConfig(ServerConfig.class);
+        int batchSize = serverConfig.getBulkCommitBatchSize();
+        serverConfig.setBulkCommitBatchSize(3);
+
+        QueryRunner runner = new QueryRunner(cont.persistence().getDataSource());
+        runner.update("delete from SEC_ENTITY_LOG where ENTITY = 'sales1$Order'");
+        LoggedEntity loggedEntity = cont.metadata().create(LoggedEntity.class);
+        loggedEntity.setName("sales1$Order");
+        loggedEntity.setAuto(true);
+        LoggedAttribute loggedAttribute = cont.metadata().create(LoggedAttribute.class);
+        loggedAttribute.setEntity(loggedEntity);
+        loggedAttribute.setName("number");
+        dataManager.commit(loggedEntity, loggedAttribute);
+        AppBeans.get(EntityLogAPI.class).invalidateCache();
+
+        new MockUp<FtsConfigHelper>() {
+            @Mock
+            boolean getEnabled() {
+                return true;
+            }
+        };
+        TestFtsSender ftsSender = new TestFtsSender();
+        PersistenceImplSupport support = AppBeans.get(PersistenceImplSupport.class);
+        FieldUtils.writeField(support, "ftsSender", ftsSender, true);
+
+        TestEntityChangedEventListener listener = AppBeans.get(TestEntityChangedEventListener.class);
+        listener.clear();
+        try {
+            CommitContext commitContext = new CommitContext().setBulkMode(true);
+            for (int i = 0; i < 7; i++) {
+                Order order = cont.metadata().create(Order.class);
+                order.setNumber("bulk-" + i);
+                order.setAmount(BigDecimal.valueOf(i));
+                orders.add(order);
+                commitContext.addInstanceToCommit(order);
+            }
+            EntitySet committed = dataManager.commit(commitContext);
+
+            assertEquals(7, countEvents(listener, "BeforeInsertEntityListener"));
+            assertEquals(7, countEvents(listener, "AfterInsertEntityListener"));
+            assertEquals(7, countEvents(listener, "EntityChangedEvent: beforeCommit, CREATED"));
+            assertEquals(7, countEvents(listener, "EntityChangedEvent: afterCommit, CREATED"));
+            assertTrue(getBeforeCommitInstances(listener).containsAll(orders));
+            assertEquals(7, ftsSender.getEntities(FtsChangeType.INSERT).size());
+            assertEquals(7, getEntityLogItems(EntityLogItem.Type.CREATE).size());
+
+            listener.clear();
+            ftsSender.clear();
+
+            commitContext = new CommitContext().setBulkMode(true);
+            for (Order order : orders) {
+                Order committedOrder = committed.get(order);
+                committedOrder.setNumber(committedOrder.getNumber() + "-changed");
+                commitContext.addInstanceToCommit(committedOrder);
+            }
+            dataManager.commit(commitContext);
+
+            assertEquals(7, countEvents(listener, "BeforeUpdateEntityListener"));
+            assertEquals(7, countEvents(listener, "AfterUpdateEntityListener"));
+            assertEquals(7, countEvents(listener, "EntityChangedEvent: beforeCommit, UPDATED"));
+            assertEquals(7, countEvents(listener, "EntityChangedEvent: afterCommit, UPDATED"));
+            assertTrue(getBeforeCommitInstances(listener).containsAll(orders));
+            assertEquals(7, ftsSender.getEntities(FtsChangeType.UPDATE).size());
+            assertEquals(7, getEntityLogItems(EntityLogItem.Type.MODIFY).size());
+        } finally {
+            listener.clear();
+            FieldUtils.writeField(support, "ftsSender", null, true);
+            serverConfig.setBulkCommitBatchSize(batchSize);
+            runner.update("delete from SEC_ENTITY_LOG where ENTITY = 'sales1$Order'");
+            cont.deleteRecord(loggedAttribute);
+            cont.deleteRecord(loggedEntity);
+            AppBeans.get(EntityLogAPI.class).invalidateCache();
+        }
+    }
+
+    private long countEvents(TestEntityChangedEventListener listener, String message) {
+        return listener.allEvents.stream()
+                .filter(eventInfo -> eventInfo.message.equals(message))
+                .count();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<Entity> getBeforeCommitInstances(TestEntityChangedEventListener listener) {
+        Set<Entity> instances = new HashSet<>();
+        for (TestEntityChangedEventListener.EventInfo eventInfo : listener.allEvents) {
+            if (eventInfo.message.equals("BeforeCommitTransactionListener")) {
+                instances.addAll((Collection<Entity>) eventInfo.payload[0]);
+            }
+        }
+        return instances;
+    }
+
+    private List<EntityLogItem> getEntityLogItems(EntityLogItem.Type type) {
+        return dataManager.load(EntityLogItem.class)
+                .query("select i from sec$EntityLog i where i.entity = 'sales1$Order' and i.type = :type")
+                .parameter("type", type.getId())
+                .list();
+    }
+
+    private static class TestFtsSender implements FtsSender {
+
+        private Map<FtsChangeType, Set<Object>> entities = new EnumMap<>(FtsChangeType.class);
+
+        synchronized Set<Object> getEntities(FtsChangeType changeType) {
+            return entities.getOrDefault(changeType, Collections.emptySet());
+        }
+
+        synchronized void clear() {
+            entities.clear();
+        }
+
+        @Override
+        public synchronized void enqueue(Entity entity, FtsChangeType changeType) {
+            entities.computeIfAbsent(changeType, type -> new HashSet<>()).add(entity.getId());
+        }
+
+        @Override
+        public void enqueue(String entityName, Object entityId, FtsChangeType changeType) {
+        }
+
+        @Override
+        public void enqueueFake(String entityName, Object entityId) {
+        }
+
+        @Override
+        public void emptyQueue(String entityName) {
+        }
+
+        @Override
+        public void emptyFakeQueue(String entityName) {
+        }
+
+        @Override
+        public void emptyQueue() {
+        }
+
+        @Override
+        public void initDefault() {
+        }
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.haulmont.cuba.core;
+
+import com.haulmont.cuba.core.app.DataStore;
+import com.haulmont.cuba.core.app.StoreFactory;
+import com.haulmont.cuba.core.global.*;
+import com.haulmont.cuba.security.app.LoginWorker;
+import com.haulmont.cuba.security.entity.*;
+import com.haulmont.cuba.security.global.UserSession;
+import com.haulmont.cuba.testsupport.TestContainer;
+import com.haulmont.cuba.testsupport.TestUserSessionSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+public class EntityCursorTest {
+
+    @ClassRule
+    public static TestContainer cont = TestContainer.Common.INSTANCE;
+
+    private static final int USERS_SIZE = 30;
+    private static final int FETCH_SIZE = 10;
+    private static final String PASSWORD = "1";
+    private static final String QUERY = "select u from sec$User u where u.login like 'cursorUser%' order by u.login";
+
+    private Group group;
+    private Group constraintGroup;
+    private Constraint constraint;
+    private User constraintUser;
+    private List<User> users = new ArrayList<>(USERS_SIZE);
+
+    private DataStore dataStore;
+    private View view;
+
+    private TestUserSessionSource userSessionSource;
+    private UserSession savedUserSession;
+
+    @Before
+    public void setUp() throws Exception {
+        PasswordEncryption passwordEncryption = AppBeans.get(PasswordEncryption.class);
+
+        try (Transaction tx = cont.persistence().createTransaction()) {
+            EntityManager em = cont.persistence().getEntityManager();
+
+            group = new Group();
+            group.setName("cursorGroup");
+            em.persist(group);
+
+            constraintGroup = new Group();
+            constraintGroup.setName("cursorConstraintGroup");
+            em.persist(constraintGroup);
+
+            // the second chunk of users is filtered out completely
+            constraint = new Constraint();
+            constraint.setEntityName("sec$User");
+            constraint.setCheckType(ConstraintCheckType.MEMORY);
+            constraint.setOperationType(ConstraintOperationType.READ);
+            constraint.setGroovyScript("!({E}.login >= 'cursorUser11' && {E}.login <= 'cursorUser20')");
+            constraint.setGroup(constraintGroup);
+            em.persist(constraint);
+
+            for (int i = 1; i <= USERS_SIZE; i++) {
+                User user = new User();
+                user.setLogin(String.format("cursorUser%02d", i));
+                user.setGroup(group);
+                users.add(user);
+                em.persist(user);
+            }
+
+            constraintUser = new User();
+            constraintUser.setLogin("cursorConstraintUser");
+            constraintUser.setPassword(passwordEncryption.getPasswordHash(constraintUser.getId(), PASSWORD));
+            constraintUser.setGroup(constraintGroup);
+            em.persist(constraintUser);
+
+            tx.commit();
+        }
+
+        LoginWorker loginWorker = AppBeans.get(LoginWorker.NAME);
+        UserSession userSession = loginWorker.login("cursorConstraintUser",
+                passwordEncryption.getPlainHash(PASSWORD), Locale.getDefault());
+
+        userSessionSource = (TestUserSessionSource) AppBeans.get(UserSessionSource.class);
+        savedUserSession = userSessionSource.getUserSession();
+        userSessionSource.setUserSession(userSession);
+
+        dataStore = AppBeans.get(StoreFactory.class).get(Stores.MAIN);
+        view = new View(User.class)
+                .addProperty("login")
+                .addProperty("group", new View(Group.class).addProperty("name"));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        userSessionSource.setUserSession(savedUserSession);
+
+        for (User user : users) {
+            cont.deleteRecord("SEC_USER", user.getId());
+        }
+        cont.deleteRecord("SEC_USER", constraintUser.getId());
+        cont.deleteRecord("SEC_CONSTRAINT", constraint.getId());
+        cont.deleteRecord("SEC_GROUP", group.getId(), constraintGroup.getId());
+    }
+
+    @Test
+    public void testChunks() {
+        List<String> logins = new ArrayList<>();
+        User first = null;
+        try (EntityCursor<User> cursor = dataStore.loadCursor(createLoadContext(QUERY), FETCH_SIZE)) {
+            assertTrue(cursor.hasNext());
+            // the transaction is bound to the thread until the cursor is closed
+            assertTrue(cont.persistence().isInTransaction());
+
+            while (cursor.hasNext()) {
+                User user = cursor.next();
+                // instances are detached chunk by chunk, before the transaction is committed
+                assertTrue(PersistenceHelper.isDetached(user));
+                assertTrue(PersistenceHelper.isDetached(user.getGroup()));
+                logins.add(user.getLogin());
+                if (first == null) {
+                    first = user;
+                }
+            }
+            // the cursor commits the transaction when the last chunk is read
+            assertFalse(cont.persistence().isInTransaction());
+        }
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 1; i <= USERS_SIZE; i++) {
+            if (i <= 10 || i > 20) {
+                expected.add(String.format("cursorUser%02d", i));
+            }
+        }
+        assertEquals(expected, logins);
+
+        // attributes of the view are available after the transaction is committed
+        assertNotNull(first);
+        assertEquals("cursorGroup", first.getGroup().getName());
+    }
+
+    @Test
+    public void testClose() {
+        EntityCursor<User> cursor = dataStore.loadCursor(createLoadContext(QUERY), FETCH_SIZE);
+        assertEquals("cursorUser01", cursor.next().getLogin());
+        assertTrue(cont.persistence().isInTransaction());
+
+        cursor.close();
+        assertFalse(cont.persistence().isInTransaction());
+        assertFalse(cursor.hasNext());
+
+        // closing again has no effect
+        cursor.close();
+    }
+
+    @Test
+    public void testCloseAfterFailure() {
+        try (EntityCursor<User> cursor = dataStore.loadCursor(createLoadContext(QUERY), FETCH_SIZE)) {
+            cursor.next();
+            throw new IllegalStateException("processing failed");
+        } catch (IllegalStateException e) {
+            assertEquals("processing failed", e.getMessage());
+        }
+        assertFalse(cont.persistence().isInTransaction());
+    }
+
+    @Test
+    public void testFailureOnOpen() {
+        try {
+            dataStore.loadCursor(createLoadContext("select u from sec$User u where u.notExistingAttribute = 1"),
+                    FETCH_SIZE);
+            fail("Exception expected");
+        } catch (RuntimeException e) {
+            // expected
+        }
+        assertFalse(cont.persistence().isInTransaction());
+    }
+
+    @Test
+    public void testQueryResultCursor() {
+        List<String> logins = new ArrayList<>();
+        try (Transaction tx = cont.persistence().createTransaction()) {
+            EntityManager em = cont.persistence().getEntityManager();
+            TypedQuery<User> query = em.createQuery(QUERY, User.class);
+            try (QueryCursor<User> cursor = query.getResultCursor(FETCH_SIZE)) {
+                while (cursor.hasNext()) {
+                    User user = cursor.next();
+                    assertTrue(PersistenceHelper.isManaged(user));
+                    logins.add(user.getLogin());
+                }
+            }
+            tx.commit();
+        }
+        // constraints are not applied by EntityManager
+        assertEquals(USERS_SIZE, logins.size());
+        assertEquals("cursorUser01", logins.get(0));
+        assertEquals("cursorUser30", logins.get(USERS_SIZE - 1));
+    }
+
+    private LoadContext<User> createLoadContext(String queryString) {
+        return LoadContext.create(User.class)
+                .setQuery(LoadContext.createQuery(queryString))
+                .setView(view)
+                .setAuthorizationRequired(true);
+    }
+}
@@ -22,6 +22,8 @@ import com.haulmont.cuba.core.global.Scripting;
 import com.haulmont.cuba.security.entity.User;
 import com.haulmont.cuba.testsupport.TestContainer;
 import groovy.lang.Binding;
+import groovy.lang.Script;
+import org.codehaus.groovy.runtime.InvokerHelper;
 import org.junit.Before;
 import org.junit.ClassRule;
 import org.junit.Test;
@@ -74,4 +76,21 @@ public class ScriptingTest {
                                        "return PersistenceHelper.isNew(instance)", binding);
         assertTrue(result);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCompileGroovy() {
+        Class<? extends Script> scriptClass = scripting.compileGroovy("return instance?.login == null");
+        assertSame(scriptClass, scripting.compileGroovy("return instance?.login == null"));
+
+        Binding binding = new Binding();
+        Script script = InvokerHelper.createScript(scriptClass, binding);
+
+        binding.setVariable("instance", new User());
+        assertEquals(Boolean.TRUE, script.run());
+
+        User user = new User();
+        user.setLogin("admin");
+        binding.setVariable("instance", user);
+        assertEquals(Boolean.FALSE, script.run());
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.app;
+
+import com.haulmont.cuba.core.sys.AppContext;
+import mockit.Delegate;
+import mockit.Expectations;
+import mockit.Mocked;
+import org.jgroups.JChannel;
+import org.jgroups.Message;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class ClusterManagerBatchingTest {
+
+    // standard serialization is configured by application properties
+    @Mocked
+    private AppContext appContext;
+
+    @Mocked
+    private ClusterConfig clusterConfig;
+
+    @Mocked
+    private JChannel channel;
+
+    private int batchMaxSize = 3;
+
+    private TestClusterManager clusterManager;
+
+    private TestClusterManager receiver;
+
+    private final List<Message> sent = Collections.synchronizedList(new ArrayList<>());
+
+    private final List<Serializable> received = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        new Expectations() {{
+            clusterConfig.getEnabled(); result = true; minTimes = 0;
+            clusterConfig.getMessageBatchingEnabled(); result = true; minTimes = 0;
+            // messages are sent only when a batch is full or on explicit flush
+            clusterConfig.getMessageBatchingWindow(); result = 60_000L; minTimes = 0;
+            clusterConfig.getMessageBatchMaxSize(); minTimes = 0;
+            result = new Delegate<Integer>() {
+                @SuppressWarnings("unused")
+                int getMessageBatchMaxSize() {
+                    return batchMaxSize;
+                }
+            };
+            clusterConfig.getClusterMessageSendingQueueCapacity(); result = 100; minTimes = 0;
+            clusterConfig.getMessageBatchMaxPendingMessages(); result = 3; minTimes = 0;
+            clusterConfig.getClusterMessageSendingThreadPoolSize(); result = 1; minTimes = 0;
+            channel.send((Message) any); minTimes = 0;
+            result = new Delegate<Void>() {
+                @SuppressWarnings("unused")
+                void send(Message msg) {
+                    sent.add(msg);
+                }
+            };
+        }};
+
+        clusterManager = new TestClusterManager();
+        clusterManager.clusterConfig = clusterConfig;
+        clusterManager.init();
+        clusterManager.channel = channel;
+
+        receiver = new TestClusterManager();
+        receiver.addListener(String.class, new TestListener<String>());
+        receiver.addListener(TestIdempotentMessage.class, new TestListener<TestIdempotentMessage>());
+    }
+
+    @After
+    public void tearDown() {
+        clusterManager.setSyncSendingForCurrentThread(false);
+        clusterManager.executor.shutdownNow();
+        clusterManager.batchSender.shutdownNow();
+    }
+
+    @Test
+    public void testBatchSentWhenFull() throws Exception {
+        clusterManager.send("a");
+        clusterManager.send("b");
+        assertTrue(sent.isEmpty());
+        assertEquals(2, clusterManager.getMessagesCount());
+
+        clusterManager.send("c");
+        waitForSent(1);
+
+        assertEquals(1, sent.size());
+        assertTrue(clusterManager.decode(sent.get(0).getBuffer()) instanceof ClusterManager.MessageBatch);
+        receiveAll();
+        assertEquals(Arrays.asList("a", "b", "c"), received);
+        assertEquals(0, clusterManager.getMessagesCount());
+    }
+
+    @Test
+    public void testFlush() {
+        batchMaxSize = 100;
+
+        clusterManager.send("a");
+        clusterManager.send("b");
+        clusterManager.sendQueuedMessages();
+
+        assertEquals(1, sent.size());
+        receiveAll();
+        assertEquals(Arrays.asList("a", "b"), received);
+
+        // nothing is sent if the queue is empty
+        clusterManager.sendQueuedMessages();
+        assertEquals(1, sent.size());
+
+        // a single message is sent as is
+        clusterManager.send("c");
+        clusterManager.sendQueuedMessages();
+        assertEquals(2, sent.size());
+        assertEquals("c", clusterManager.decode(sent.get(1).getBuffer()));
+    }
+
+    @Test
+    public void testFlushSplitsByMaxSize() {
+        batchMaxSize = 100;
+        for (int i = 0; i < 5; i++) {
+            clusterManager.send("m" + i);
+        }
+
+        batchMaxSize = 2;
+        clusterManager.sendQueuedMessages();
+
+        assertEquals(3, sent.size());
+        receiveAll();
+        assertEquals(Arrays.asList("m0", "m1", "m2", "m3", "m4"), received);
+    }
+
+    @Test
+    public void testIdempotentMessagesMerged() {
+        batchMaxSize = 100;
+
+        clusterManager.send(new TestIdempotentMessage("x"));
+        clusterManager.send("a");
+        clusterManager.send(new TestIdempotentMessage("x"));
+        clusterManager.send(new TestIdempotentMessage("y"));
+        clusterManager.send("a");
+        clusterManager.sendQueuedMessages();
+
+        assertEquals(1, sent.size());
+        receiveAll();
+        // only idempotent messages are merged, the first occurrence keeps its position
+        assertEquals(Arrays.asList(new TestIdempotentMessage("x"), "a", new TestIdempotentMessage("y"), "a"), received);
+    }
+
+    @Test
+    public void testMessagesKeptUntilConnected() {
+        batchMaxSize = 100;
+        clusterManager.channel = null;
+
+        clusterManager.send("a");
+        clusterManager.send("b");
+        clusterManager.sendQueuedMessages();
+
+        assertTrue(sent.isEmpty());
+        assertEquals(2, clusterManager.getMessagesCount());
+
+        clusterManager.channel = channel;
+        clusterManager.sendQueuedMessages();
+
+        assertEquals(1, sent.size());
+        receiveAll();
+        assertEquals(Arrays.asList("a", "b"), received);
+    }
+
+    @Test
+    public void testPendingMessagesLimit() {
+        batchMaxSize = 100;
+        clusterManager.channel = null;
+
+        for (int i = 0; i < 5; i++) {
+            clusterManager.send("m" + i);
+        }
+        assertEquals(3, clusterManager.getMessagesCount());
+
+        clusterManager.channel = channel;
+        clusterManager.sendQueuedMessages();
+        receiveAll();
+        assertEquals(Arrays.asList("m0", "m1", "m2"), received);
+
+        // the limit does not apply to a connected channel
+        for (int i = 0; i < 5; i++) {
+            clusterManager.send("n" + i);
+        }
+        assertEquals(5, clusterManager.getMessagesCount());
+    }
+
+    @Test
+    public void testSyncSendingBypassesBatching() {
+        clusterManager.setSyncSendingForCurrentThread(true);
+        clusterManager.send("a");
+
+        assertEquals(1, sent.size());
+        assertTrue(sent.get(0).isFlagSet(Message.Flag.RSVP));
+        assertEquals(0, clusterManager.getMessagesCount());
+
+        // synchronous messages are not kept without a channel
+        clusterManager.channel = null;
+        clusterManager.send("b");
+        clusterManager.sendSync("c");
+        assertEquals(1, sent.size());
+        assertEquals(0, clusterManager.getMessagesCount());
+    }
+
+    private void waitForSent(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (sent.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private void receiveAll() {
+        ClusterManager.ClusterReceiver clusterReceiver = receiver.new ClusterReceiver();
+        for (Message message : sent) {
+            clusterReceiver.receive(message);
+        }
+    }
+
+    private class TestListener<T extends Serializable> extends ClusterListenerAdapter<T> {
+        @Override
+        public void receive(T message) {
+            received.add(message);
+        }
+    }
+
+    private static class TestIdempotentMessage implements IdempotentClusterMessage {
+        private static final long serialVersionUID = 1L;
+
+        private final String key;
+
+        TestIdempotentMessage(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof TestIdempotentMessage && key.equals(((TestIdempotentMessage) o).key);
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return "TestIdempotentMessage{" + key + "}";
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.haulmont.cuba.core.app;
+
+import com.haulmont.cuba.core.sys.AppContext;
+import mockit.Mocked;
+import org.junit.Test;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class ClusterMessageCodecTest {
+
+    // standard serialization is configured by application properties
+    @Mocked
+    private AppContext appContext;
+
+    @Test
+    public void testRoundTrip() {
+        TestClusterManager clusterManager = new TestClusterManager();
+        clusterManager.addCodec(new TestMessageCodec());
+
+        byte[] bytes = clusterManager.encode(new TestMessage("abc", 42));
+        // magic prefix, type id, version and fields
+        assertEquals(4 + 2 + 1 + 5 + 4, bytes.length);
+
+        TestMessage message = (TestMessage) clusterManager.decode(bytes);
+        assertNotNull(message);
+        assertEquals("abc", message.name);
+        assertEquals(42, message.value);
+    }
+
+    @Test
+    public void testMessageWithoutCodec() {
+        TestClusterManager clusterManager = new TestClusterManager();
+        clusterManager.addCodec(new TestMessageCodec());
+
+        byte[] bytes = clusterManager.encode("standard serialization");
+        assertFalse(clusterManager.hasCodecMagic(bytes));
+        assertEquals("standard serialization", clusterManager.decode(bytes));
+    }
+
+    @Test
+    public void testUnknownTypeId() {
+        TestClusterManager sender = new TestClusterManager();
+        sender.addCodec(new TestMessageCodec());
+        TestClusterManager receiver = new TestClusterManager();
+
+        assertNull(receiver.decode(sender.encode(new TestMessage("abc", 42))));
+    }
+
+    @Test
+    public void testTypeIdConflict() {
+        TestClusterManager clusterManager = new TestClusterManager();
+        clusterManager.addCodec(new TestMessageCodec());
+        try {
+            clusterManager.addCodec(new TestMessageCodec());
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testPreviousVersion() {
+        TestClusterManager clusterManager = new TestClusterManager();
+        clusterManager.addCodec(new TestMessageCodec());
+
+        byte[] bytes = clusterManager.encode(new TestMessage("abc", 42));
+        // version 1 did not write the value
+        bytes = Arrays.copyOf(bytes, bytes.length - 4);
+        bytes[6] = 1;
+
+        TestMessage message = (TestMessage) clusterManager.decode(bytes);
+        assertNotNull(message);
+        assertEquals("abc", message.name);
+        assertEquals(0, message.value);
+    }
+
+    public static class TestMessage implements Serializable {
+        private static final long serialVersionUID = 2918323718521707640L;
+
+        public final String name;
+        public final int value;
+
+        public TestMessage(String name, int value) {
+            this.name = name;
+            this.value = value;
+        }
+    }
+
+    public static class TestMessageCodec implements ClusterMessageCodec<TestMessage> {
+
+        @Override
+        public Class<TestMessage> getMessageClass() {
+            return TestMessage.class;
+        }
+
+        @Override
+        public short getTypeId() {
+            return 1000;
+        }
+
+        @Override
+        public byte getVersion() {
+            return 2;
+        }
+
+        @Override
+        public void write(TestMessage message, DataOutput out) throws IOException {
+            out.writeUTF(message.name);
+            out.writeInt(message.value);
+        }
+
+        @Override
+        public TestMessage read(DataInput in, byte version) throws IOException {
+            String name = in.readUTF();
+            int value = version >= 2 ? in.readInt() : 0;
+            return new TestMessage(name, value);
+        }
+    }
+}
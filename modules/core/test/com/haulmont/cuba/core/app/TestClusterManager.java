@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.haulmont.cuba.core.app;
+
+import javax.annotation.Nullable;
+import java.io.Serializable;
+
+/**
+ * {@link ClusterManager} which exposes message encoding to tests and works without a channel.
+ */
+public class TestClusterManager extends ClusterManager {
+
+    @Override
+    public byte[] encode(Serializable message) {
+        return super.encode(message);
+    }
+
+    @Nullable
+    @Override
+    public Serializable decode(byte[] bytes) {
+        return super.decode(bytes);
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.haulmont.cuba.core.app.scheduling;
+
+import com.haulmont.chile.core.model.Instance;
+import com.haulmont.cuba.core.app.ClusterListener;
+import com.haulmont.cuba.core.app.ClusterManagerAPI;
+import com.haulmont.cuba.core.app.ServerConfig;
+import com.haulmont.cuba.core.app.ServerInfoAPI;
+import com.haulmont.cuba.core.entity.ScheduledTask;
+import com.haulmont.cuba.core.global.MetadataTools;
+import com.haulmont.cuba.core.global.PersistenceHelper;
+import com.haulmont.cuba.core.global.TimeSource;
+import com.haulmont.cuba.core.sys.listener.EntityListenerManager;
+import mockit.Delegate;
+import mockit.Expectations;
+import mockit.Injectable;
+import mockit.Mocked;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class ClusterBasedCoordinatorTest {
+
+    // used by ScheduledTask.toString() in log messages
+    @Mocked
+    private PersistenceHelper persistenceHelper;
+
+    @Mocked
+    private EntityListenerManager entityListenerManager;
+
+    @Mocked
+    private MetadataTools metadataTools;
+
+    @Mocked
+    private TimeSource timeSource;
+
+    @Mocked
+    private ServerConfig serverConfig;
+
+    @Mocked
+    private ServerInfoAPI serverInfo;
+
+    @Injectable
+    private ClusterManagerAPI clusterManager1;
+
+    @Injectable
+    private ClusterManagerAPI clusterManager2;
+
+    // rows of the scheduled tasks table, start times are stored with the precision of seconds
+    private final Map<UUID, ScheduledTask> database = new LinkedHashMap<>();
+
+    private Node node1;
+
+    private Node node2;
+
+    @Before
+    public void setUp() {
+        new Expectations() {{
+            serverConfig.getSchedulingTasksReloadIntervalSec(); result = 3600; minTimes = 0;
+            serverInfo.getServerId(); result = "server1"; minTimes = 0;
+            metadataTools.copy((Instance) any); minTimes = 0;
+            result = new Delegate<Instance>() {
+                @SuppressWarnings("unused")
+                Instance copy(Instance source) {
+                    return copyTask((ScheduledTask) source);
+                }
+            };
+        }};
+
+        node1 = new Node(clusterManager1);
+        node2 = new Node(clusterManager2);
+        connect(node1, node2);
+        connect(node2, node1);
+        node1.coordinator.init();
+        node2.coordinator.init();
+    }
+
+    @Test
+    public void testCompetingCoordinators() {
+        UUID taskId = createTask().getId();
+
+        // both servers see the task as never started
+        ScheduledTask task1 = getTask(node1);
+        ScheduledTask task2 = getTask(node2);
+
+        assertTrue(node1.coordinator.acquire(task1, 10_500, "server1"));
+        // the start message has not been delivered to the second server yet
+        assertFalse(node2.coordinator.acquire(task2, 10_700, "server2"));
+
+        assertEquals(10_000, database.get(taskId).getLastStart());
+        assertEquals("server1", database.get(taskId).getLastStartServer());
+
+        // the second server has refreshed the last start from the database
+        task2 = getTask(node2);
+        assertEquals(10_000, task2.getLastStart());
+        assertEquals("server1", task2.getLastStartServer());
+
+        // the late message changes nothing
+        node2.receiveAll();
+        assertEquals(10_000, getTask(node2).getLastStart());
+
+        // the next start is expected at the stored time, not at the time the task was acquired with
+        task1 = getTask(node1);
+        assertEquals(10_000, task1.getLastStart());
+        assertTrue(node1.coordinator.acquire(task1, 20_500, "server1"));
+        assertFalse(node2.coordinator.acquire(getTask(node2), 20_700, "server2"));
+        assertEquals(20_000, database.get(taskId).getLastStart());
+        assertEquals("server1", database.get(taskId).getLastStartServer());
+    }
+
+    @Test
+    public void testHandoffOnTaskReleased() {
+        createTask();
+
+        assertTrue(node1.coordinator.acquire(getTask(node1), 10_000, "server1"));
+        node2.receiveAll();
+
+        ScheduledTask task2 = getTask(node2);
+        assertEquals(10_000, task2.getLastStart());
+        assertEquals("server1", task2.getLastStartServer());
+
+        node1.coordinator.releaseTasks();
+        node2.receiveAll();
+
+        task2 = getTask(node2);
+        assertEquals(10_000, task2.getLastStart());
+        assertNull(task2.getLastStartServer());
+
+        assertTrue(node2.coordinator.acquire(task2, 11_000, "server2"));
+        node1.receiveAll();
+        assertEquals("server2", getTask(node1).getLastStartServer());
+
+        // the task started by another server is not released
+        node1.coordinator.releaseTasks();
+        assertTrue(node2.inbox.isEmpty());
+    }
+
+    @Test
+    public void testAcquireDeletedTask() {
+        ScheduledTask task = createTask();
+        ScheduledTask task1 = getTask(node1);
+        database.remove(task.getId());
+
+        assertFalse(node1.coordinator.acquire(task1, 10_000, "server1"));
+        assertTrue(node2.inbox.isEmpty());
+        assertTrue(node1.coordinator.begin().getTasks().isEmpty());
+    }
+
+    @Test
+    public void testReloadAfterTasksChanged() {
+        createTask();
+
+        getTask(node1);
+        getTask(node1);
+        assertEquals(1, node1.loads);
+
+        createTask();
+        assertEquals(1, node1.coordinator.begin().getTasks().size());
+
+        node2.coordinator.invalidate();
+        assertEquals(1, node1.loads);
+
+        node1.receiveAll();
+        assertEquals(2, node1.coordinator.begin().getTasks().size());
+        assertEquals(2, node1.loads);
+    }
+
+    private void connect(Node node, Node other) {
+        new Expectations() {{
+            node.clusterManager.addListener((Class) any, (ClusterListener) any); minTimes = 0;
+            result = new Delegate<Void>() {
+                @SuppressWarnings("unused")
+                void addListener(Class messageClass, ClusterListener listener) {
+                    node.listeners.put(messageClass, listener);
+                }
+            };
+            node.clusterManager.send((Serializable) any); minTimes = 0;
+            result = new Delegate<Void>() {
+                @SuppressWarnings("unused")
+                void send(Serializable message) {
+                    other.inbox.add(message);
+                }
+            };
+        }};
+    }
+
+    private ScheduledTask getTask(Node node) {
+        Coordinator.Context context = node.coordinator.begin();
+        node.coordinator.end(context);
+        assertEquals(1, context.getTasks().size());
+        return context.getTasks().get(0);
+    }
+
+    private ScheduledTask createTask() {
+        ScheduledTask task = new ScheduledTask();
+        task.setActive(true);
+        task.setSingleton(true);
+        database.put(task.getId(), task);
+        return task;
+    }
+
+    private ScheduledTask copyTask(ScheduledTask source) {
+        ScheduledTask task = new ScheduledTask();
+        task.setId(source.getId());
+        task.setActive(source.getActive());
+        task.setSingleton(source.getSingleton());
+        task.setLastStartTime(source.getLastStartTime());
+        task.setLastStartServer(source.getLastStartServer());
+        return task;
+    }
+
+    private class Node {
+
+        private final ClusterManagerAPI clusterManager;
+
+        private final Map<Class, ClusterListener> listeners = new HashMap<>();
+
+        private final List<Serializable> inbox = new ArrayList<>();
+
+        private final TestCoordinator coordinator = new TestCoordinator();
+
+        private int loads;
+
+        private Node(ClusterManagerAPI clusterManager) {
+            this.clusterManager = clusterManager;
+            coordinator.clusterManager = clusterManager;
+            coordinator.metadataTools = metadataTools;
+            coordinator.timeSource = timeSource;
+            coordinator.serverInfo = serverInfo;
+            coordinator.serverConfig = serverConfig;
+            coordinator.entityListenerManager = entityListenerManager;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void receiveAll() {
+            for (Serializable message : inbox) {
+                listeners.get(message.getClass()).receive(message);
+            }
+            inbox.clear();
+        }
+
+        private class TestCoordinator extends ClusterBasedCoordinator {
+
+            @Override
+            protected List<ScheduledTask> loadTasks() {
+                loads++;
+                return database.values().stream()
+                        .map(ClusterBasedCoordinatorTest.this::copyTask)
+                        .collect(Collectors.toList());
+            }
+
+            @Override
+            protected boolean saveLastStart(ScheduledTask task, Date startTime, String server) {
+                ScheduledTask row = database.get(task.getId());
+                if (row == null || !Objects.equals(row.getLastStartTime(), task.getLastStartTime())) {
+                    return false;
+                }
+                row.setLastStartTime(new Date(startTime.getTime() / 1000 * 1000));
+                row.setLastStartServer(server);
+                return true;
+            }
+
+            @Override
+            protected ScheduledTask loadTask(UUID taskId) {
+                ScheduledTask row = database.get(taskId);
+                return row == null ? null : copyTask(row);
+            }
+        }
+    }
+}
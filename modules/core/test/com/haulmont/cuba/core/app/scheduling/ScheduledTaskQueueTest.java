@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.app.scheduling;
+
+import com.haulmont.cuba.core.entity.ScheduledTask;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ScheduledTaskQueueTest {
+
+    @Test
+    public void testNewTasksAreDue() {
+        ScheduledTaskQueue queue = new ScheduledTaskQueue();
+        ScheduledTask task1 = new ScheduledTask();
+        ScheduledTask task2 = new ScheduledTask();
+
+        List<ScheduledTask> due = queue.pollDue(Arrays.asList(task1, task2), 1000);
+        assertEquals(2, due.size());
+
+        queue.schedule(task1, 2000);
+        queue.schedule(task2, 3000);
+
+        assertTrue(queue.pollDue(Arrays.asList(task1, task2), 1500).isEmpty());
+        assertEquals(Collections.singletonList(task1), queue.pollDue(Arrays.asList(task1, task2), 2000));
+        queue.schedule(task1, 4000);
+        assertEquals(Collections.singletonList(task2), queue.pollDue(Arrays.asList(task1, task2), 3500));
+    }
+
+    @Test
+    public void testChangedTaskIsDue() {
+        ScheduledTaskQueue queue = new ScheduledTaskQueue();
+        ScheduledTask task = new ScheduledTask();
+        queue.pollDue(Collections.singletonList(task), 1000);
+        queue.schedule(task, 5000);
+
+        assertTrue(queue.pollDue(Collections.singletonList(task), 2000).isEmpty());
+
+        task.setUpdateTs(new Date());
+        assertEquals(Collections.singletonList(task), queue.pollDue(Collections.singletonList(task), 2000));
+
+        // the old entry is skipped
+        queue.schedule(task, 10000);
+        assertTrue(queue.pollDue(Collections.singletonList(task), 6000).isEmpty());
+    }
+
+    @Test
+    public void testRemovedTask() {
+        ScheduledTaskQueue queue = new ScheduledTaskQueue();
+        ScheduledTask task1 = new ScheduledTask();
+        ScheduledTask task2 = new ScheduledTask();
+        queue.pollDue(Arrays.asList(task1, task2), 1000);
+        queue.schedule(task1, 2000);
+        queue.schedule(task2, 2000);
+
+        assertEquals(Collections.singletonList(task2), queue.pollDue(Collections.singletonList(task2), 2000));
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testTaskNotRescheduledIsDueAgain() {
+        ScheduledTaskQueue queue = new ScheduledTaskQueue();
+        ScheduledTask task = new ScheduledTask();
+        queue.pollDue(Collections.singletonList(task), 1000);
+
+        assertEquals(Collections.singletonList(task), queue.pollDue(Collections.singletonList(task), 1001));
+    }
+}
@@ -942,6 +942,24 @@ public class QueryTransformerAstBasedTest {
 //                res);
     }
 
+    @Test
+    public void testReplaceWithAggregate() throws RecognitionException {
+        DomainModel model = prepareDomainModel();
+
+        QueryTransformerAstBased transformer = new QueryTransformerAstBased(model,
+                "select h from sec$GroupHierarchy h where h.createdBy = ' from ' and h.other in " +
+                        "(select o from sec$GroupHierarchy o where o.group = ?1) order by h.level");
+        transformer.replaceWithAggregate("sum", "level");
+        assertEquals(
+                "select sum(h.level) from sec$GroupHierarchy h where h.createdBy = ' from ' and h.other in " +
+                        "(select o from sec$GroupHierarchy o where o.group = ?1)",
+                transformer.getResult());
+
+        transformer = new QueryTransformerAstBased(model, "select h from sec$GroupHierarchy h");
+        transformer.replaceWithAggregate("max", "level");
+        assertEquals("select max(h.level) from sec$GroupHierarchy h", transformer.getResult());
+    }
+
     @Test
     public void testReplaceWithCount() throws RecognitionException {
         DomainModel model = prepareDomainModel();
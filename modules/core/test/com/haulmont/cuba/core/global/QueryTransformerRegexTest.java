@@ -124,6 +124,13 @@ public class QueryTransformerRegexTest extends TestCase {
                 res);
     }
 
+    public void testReplaceWithAggregate() {
+        QueryTransformerRegex transformer = new QueryTransformerRegex(
+                "select h from sec$GroupHierarchy h where h.group = ?1 order by h.level");
+        transformer.replaceWithAggregate("sum", "level");
+        assertEquals("select sum(h.level) from sec$GroupHierarchy h where h.group = ?1", transformer.getResult());
+    }
+
     public void testReplaceWithCount() {
         QueryTransformerRegex transformer = new QueryTransformerRegex(
                 "select c from sec$GroupHierarchy h join h.parent.constraints c where h.group = ?1 " +
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.sys.entitycache;
+
+import com.google.common.collect.Sets;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentQueryCacheTest {
+
+    @Test
+    public void testIndexedInvalidation() {
+        ConcurrentQueryCache cache = createCache(false, 100);
+
+        QueryKey userQuery = createKey("select u from sec$User u");
+        QueryKey groupQuery = createKey("select g from sec$Group g");
+        cache.put(userQuery, createResult("sec$User", "sec$Group"));
+        cache.put(groupQuery, createResult("sec$Group"));
+
+        cache.invalidate("sec$User");
+        assertNull(cache.get(userQuery));
+        assertNotNull(cache.get(groupQuery));
+        assertFalse(cache.typeIndex.get("sec$Group").contains(userQuery));
+
+        cache.invalidate(Sets.newHashSet("sec$Group"));
+        assertNull(cache.get(groupQuery));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testEvictedKeysLeaveIndex() {
+        ConcurrentQueryCache cache = createCache(false, 1);
+
+        QueryKey first = createKey("select u from sec$User u where u.login = 'a'");
+        QueryKey second = createKey("select u from sec$User u where u.login = 'b'");
+        cache.put(first, createResult("sec$User"));
+        cache.put(second, createResult("sec$User"));
+
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.typeIndex.get("sec$User").size());
+    }
+
+    @Test
+    public void testVersionedInvalidation() {
+        ConcurrentQueryCache cache = createCache(true, 100);
+
+        QueryKey userQuery = createKey("select u from sec$User u");
+        QueryKey roleQuery = createKey("select r from sec$Role r");
+        cache.put(userQuery, createResult("sec$User", "sec$Group"));
+        cache.put(roleQuery, createResult("sec$Role"));
+
+        cache.invalidate("sec$Group");
+        assertNull(cache.get(userQuery));
+        assertNotNull(cache.get(roleQuery));
+        assertTrue(cache.typeIndex.isEmpty());
+
+        cache.put(userQuery, createResult("sec$User", "sec$Group"));
+        assertNotNull(cache.get(userQuery));
+        assertEquals(2, cache.asMap().size());
+
+        cache.invalidateAll();
+        assertNull(cache.get(roleQuery));
+    }
+
+    protected ConcurrentQueryCache createCache(boolean versioned, int maxSize) {
+        ConcurrentQueryCache cache = new ConcurrentQueryCache();
+        cache.queryCacheConfig = new QueryCacheConfig() {
+            @Override
+            public boolean getQueryCacheEnabled() {
+                return true;
+            }
+
+            @Override
+            public int getQueryCacheMaxSize() {
+                return maxSize;
+            }
+
+            @Override
+            public boolean getQueryCacheVersionedInvalidation() {
+                return versioned;
+            }
+        };
+        cache.init();
+        return cache;
+    }
+
+    protected QueryKey createKey(String query) {
+        return new QueryKey(query, 0, 0, true, false, null, null);
+    }
+
+    protected QueryResult createResult(String type, String... relatedTypes) {
+        Set<String> types = Sets.newHashSet(relatedTypes);
+        types.add(type);
+        return new QueryResult(Collections.emptyList(), type, types);
+    }
+}
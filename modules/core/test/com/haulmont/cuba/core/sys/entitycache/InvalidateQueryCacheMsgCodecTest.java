@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.haulmont.cuba.core.sys.entitycache;
+
+import com.google.common.collect.Sets;
+import com.haulmont.cuba.core.app.TestClusterManager;
+import com.haulmont.cuba.core.sys.AppContext;
+import com.haulmont.cuba.core.sys.entitycache.QueryCacheManager.InvalidateQueryCacheMsg;
+import com.haulmont.cuba.core.sys.entitycache.QueryCacheManager.InvalidateQueryCacheMsgCodec;
+import mockit.Mocked;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+public class InvalidateQueryCacheMsgCodecTest {
+
+    // standard serialization is configured by application properties
+    @Mocked
+    private AppContext appContext;
+
+    private TestClusterManager clusterManager;
+
+    @Before
+    public void setUp() {
+        clusterManager = new TestClusterManager();
+        clusterManager.addCodec(new InvalidateQueryCacheMsgCodec());
+    }
+
+    @Test
+    public void testTypeId() {
+        // the type id is a part of the wire format and must not change
+        assertEquals(1, new InvalidateQueryCacheMsgCodec().getTypeId());
+    }
+
+    @Test
+    public void testInvalidateAll() {
+        assertRoundTrip(new InvalidateQueryCacheMsg(true));
+    }
+
+    @Test
+    public void testInvalidateTypes() {
+        assertRoundTrip(new InvalidateQueryCacheMsg(Sets.newHashSet("sec$User", "sec$Group")));
+        assertRoundTrip(new InvalidateQueryCacheMsg(Collections.emptySet()));
+    }
+
+    @Test
+    public void testInvalidateQuery() {
+        QueryKey queryKey = new QueryKey("select u from sec$User u where u.login = :login", 0, 10, true, false,
+                Collections.singletonMap("login", "admin"), null);
+        assertRoundTrip(new InvalidateQueryCacheMsg(queryKey));
+    }
+
+    private void assertRoundTrip(InvalidateQueryCacheMsg message) {
+        assertEquals(message, clusterManager.decode(clusterManager.encode(message)));
+    }
+}
@@ -24,8 +24,11 @@ import com.haulmont.cuba.core.Query;
 import com.haulmont.cuba.core.Transaction;
 import com.haulmont.cuba.core.TypedQuery;
 import com.haulmont.cuba.core.global.AppBeans;
+import com.haulmont.cuba.core.global.Configuration;
 import com.haulmont.cuba.core.global.Messages;
 import com.haulmont.cuba.security.app.EntityLogAPI;
+import com.haulmont.cuba.security.app.EntityLogConfig;
+import com.haulmont.cuba.security.app.EntityLogWriter;
 import com.haulmont.cuba.security.entity.*;
 import com.haulmont.cuba.testsupport.TestContainer;
 import org.junit.After;
@@ -313,6 +316,49 @@ public class EntityLogTest {
         assertEquals("changed-name@test.com", attr.getOldValue());
     }
 
+    @Test
+    public void testAsyncWriting() throws Exception {
+        EntityLogConfig config = AppBeans.get(Configuration.class).getConfig(EntityLogConfig.class);
+        EntityLogWriter writer = AppBeans.get(EntityLogWriter.NAME);
+        config.setAsyncWriting(true);
+        try {
+            Transaction tx = cont.persistence().createTransaction();
+            try {
+                EntityManager em = cont.persistence().getEntityManager();
+
+                Group group = em.find(Group.class, UUID.fromString("0fa2b1a5-1d68-4d69-9fbd-dff348347f93"));
+
+                User user = new User();
+                userId = user.getId();
+                user.setGroup(group);
+                user.setLogin("test");
+                user.setName("test-name");
+                user.setEmail("name@test.com");
+                em.persist(user);
+
+                tx.commit();
+            } finally {
+                tx.end();
+            }
+
+            writer.flush();
+
+            List<EntityLogItem> items = getEntityLogItems();
+            for (int i = 0; i < 50 && items.isEmpty(); i++) {
+                Thread.sleep(100); // the item can be being written by the writer thread
+                items = getEntityLogItems();
+            }
+            assertEquals(1, items.size());
+
+            EntityLogItem item = items.get(0);
+            assertEquals(EntityLogItem.Type.CREATE, item.getType());
+            assertNotNull(item.getCreatedBy());
+            assertNotNull(item.getCreateTs());
+        } finally {
+            config.setAsyncWriting(false);
+        }
+    }
+
     private List<EntityLogItem> getEntityLogItems() {
         Transaction tx;
         List<EntityLogItem> items;
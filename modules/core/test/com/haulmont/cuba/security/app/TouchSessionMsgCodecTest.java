@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.haulmont.cuba.security.app;
+
+import com.haulmont.cuba.core.app.TestClusterManager;
+import com.haulmont.cuba.security.app.UserSessions.TouchSessionMsg;
+import com.haulmont.cuba.security.app.UserSessions.TouchSessionMsgCodec;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+
+public class TouchSessionMsgCodecTest {
+
+    private TestClusterManager clusterManager;
+
+    @Before
+    public void setUp() {
+        clusterManager = new TestClusterManager();
+        clusterManager.addCodec(new TouchSessionMsgCodec());
+    }
+
+    @Test
+    public void testTypeId() {
+        // the type id is a part of the wire format and must not change
+        assertEquals(2, new TouchSessionMsgCodec().getTypeId());
+    }
+
+    @Test
+    public void testTouch() {
+        TouchSessionMsg message = new TouchSessionMsg(UUID.randomUUID(), System.currentTimeMillis());
+
+        TouchSessionMsg decoded = (TouchSessionMsg) clusterManager.decode(clusterManager.encode(message));
+        assertEquals(message.sessionId, decoded.sessionId);
+        assertEquals(message.lastUsedTs, decoded.lastUsedTs);
+    }
+
+    @Test
+    public void testRemoval() {
+        TouchSessionMsg message = new TouchSessionMsg(UUID.randomUUID(), 0);
+
+        TouchSessionMsg decoded = (TouchSessionMsg) clusterManager.decode(clusterManager.encode(message));
+        assertEquals(message.sessionId, decoded.sessionId);
+        assertEquals(0, decoded.lastUsedTs);
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.security.app;
+
+import com.haulmont.cuba.core.app.ClusterManagerAPI;
+import com.haulmont.cuba.core.app.ServerConfig;
+import com.haulmont.cuba.core.global.TimeSource;
+import com.haulmont.cuba.core.global.UuidProvider;
+import com.haulmont.cuba.core.sys.AppContext;
+import com.haulmont.cuba.security.app.UserSessions.TouchSessionMsg;
+import com.haulmont.cuba.security.app.UserSessions.UserSessionInfo;
+import com.haulmont.cuba.security.entity.User;
+import com.haulmont.cuba.security.global.UserSession;
+import mockit.Expectations;
+import mockit.Mocked;
+import mockit.Verifications;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class UserSessionsTest {
+
+    @Mocked
+    private AppContext appContext;
+
+    @Mocked
+    private UuidProvider uuidProvider;
+
+    @Mocked
+    private ClusterManagerAPI clusterManager;
+
+    @Mocked
+    private TimeSource timeSource;
+
+    @Mocked
+    private ServerConfig serverConfig;
+
+    private UserSessions userSessions;
+
+    private UserSession session;
+
+    @Before
+    public void setUp() {
+        new Expectations() {{
+            AppContext.isStarted(); result = true; minTimes = 0;
+            timeSource.currentTimeMillis(); result = 100_000L; result = 200_000L; result = 300_000L; minTimes = 0;
+        }};
+
+        userSessions = new UserSessions();
+        userSessions.setClusterManager(clusterManager);
+        userSessions.timeSource = timeSource;
+        userSessions.serverConfig = serverConfig;
+
+        User user = new User();
+        user.setLogin("test");
+        session = new UserSession(UUID.randomUUID(), user, Collections.emptyList(), Locale.ENGLISH, false);
+        userSessions.putSessionInfo(session.getId(), new UserSessionInfo(session, 0));
+    }
+
+    @Test
+    public void testFirstPropagationSendsWholeSession() {
+        userSessions.getAndRefresh(session.getId(), true);
+        userSessions.getAndRefresh(session.getId(), true);
+
+        List<Serializable> sent = new ArrayList<>();
+        new Verifications() {{
+            clusterManager.send(withCapture(sent));
+        }};
+
+        assertEquals(2, sent.size());
+        assertTrue(sent.get(0) instanceof UserSessionInfo);
+        assertSame(session, ((UserSessionInfo) sent.get(0)).getSession());
+        assertTrue(sent.get(1) instanceof TouchSessionMsg);
+        assertEquals(session.getId(), ((TouchSessionMsg) sent.get(1)).sessionId);
+        assertEquals(200_000L, ((TouchSessionMsg) sent.get(1)).lastUsedTs);
+    }
+
+    @Test
+    public void testAddedSessionIsTouched() {
+        User user = new User();
+        user.setLogin("added");
+        UserSession added = new UserSession(UUID.randomUUID(), user, Collections.emptyList(), Locale.ENGLISH, false);
+
+        userSessions.add(added);
+        userSessions.getAndRefresh(added.getId(), true);
+
+        List<Serializable> sent = new ArrayList<>();
+        new Verifications() {{
+            clusterManager.send(withCapture(sent));
+        }};
+
+        // the whole session is sent once when it is added
+        assertEquals(2, sent.size());
+        assertTrue(sent.get(0) instanceof UserSessionInfo);
+        assertSame(added, ((UserSessionInfo) sent.get(0)).getSession());
+        assertTrue(sent.get(1) instanceof TouchSessionMsg);
+        assertEquals(added.getId(), ((TouchSessionMsg) sent.get(1)).sessionId);
+    }
+
+    @Test
+    public void testTouchOfKnownSession() {
+        userSessions.receiveTouchMessage(new TouchSessionMsg(session.getId(), 500_000L));
+        assertEquals(500_000L, userSessions.getSessionInfo(session.getId()).getLastUsedTs());
+
+        // an older touch does not move the session back
+        userSessions.receiveTouchMessage(new TouchSessionMsg(session.getId(), 400_000L));
+        assertEquals(500_000L, userSessions.getSessionInfo(session.getId()).getLastUsedTs());
+    }
+
+    @Test
+    public void testTouchOfUnknownSession() {
+        UUID unknownId = UUID.randomUUID();
+        userSessions.receiveTouchMessage(new TouchSessionMsg(unknownId, 500_000L));
+        assertNull(userSessions.getSessionInfo(unknownId));
+        assertNull(userSessions.get(unknownId));
+    }
+
+    @Test
+    public void testRemoval() {
+        userSessions.receiveTouchMessage(new TouchSessionMsg(session.getId(), 0));
+        assertNull(userSessions.getSessionInfo(session.getId()));
+    }
+}
@@ -6,7 +6,9 @@
 package spec.cuba.core.entity_serialization
 
 import com.haulmont.cuba.core.app.serialization.EntitySerializationAPI
+import com.haulmont.cuba.core.app.serialization.EntitySerializationOption
 import com.haulmont.cuba.core.global.AppBeans
+import com.haulmont.cuba.core.global.View
 import com.haulmont.cuba.testmodel.entity_serialization.Serialization_Order
 import com.haulmont.cuba.testmodel.entity_serialization.Serialization_OrderItem
 import com.haulmont.cuba.testsupport.TestContainer
@@ -14,6 +16,7 @@ import groovy.json.JsonSlurper
 import org.junit.ClassRule
 import spock.lang.Shared
 import spock.lang.Specification
+import spock.lang.Unroll
 
 class EntityJsonSerializationTest extends Specification {
 
@@ -59,4 +62,99 @@ class EntityJsonSerializationTest extends Specification {
         item2.relatedItem.order.id == parsedObject.id
         item2.relatedItem.order.name == null //order name should NOT exist, it is a cyclic reference
     }
+
+    @Unroll
+    def "writing entity to a Writer gives the same JSON as the String overload with options #options"() {
+        def order = createOrder()
+        def view = createOrderView()
+
+        when:
+
+        def writer = new StringWriter()
+        entitySerializationAPI.toJson(order, view, writer, options as EntitySerializationOption[])
+
+        then:
+
+        writer.toString() == entitySerializationAPI.toJson(order, view, options as EntitySerializationOption[])
+
+        where:
+
+        options << [
+                [],
+                [EntitySerializationOption.COMPACT_REPEATED_ENTITIES],
+                [EntitySerializationOption.SERIALIZE_NULLS],
+                [EntitySerializationOption.COMPACT_REPEATED_ENTITIES, EntitySerializationOption.SERIALIZE_NULLS]
+        ]
+    }
+
+    @Unroll
+    def "writing collection to a Writer gives the same JSON as the String overload with options #options"() {
+        def order1 = createOrder()
+        def order2 = createOrder()
+        order2.number = null
+        def view = createOrderView()
+
+        when:
+
+        def writer = new StringWriter()
+        entitySerializationAPI.toJson([order1, order2], view, writer, options as EntitySerializationOption[])
+
+        then:
+
+        writer.toString() == entitySerializationAPI.toJson([order1, order2], view, options as EntitySerializationOption[])
+
+        where:
+
+        options << [
+                [],
+                [EntitySerializationOption.COMPACT_REPEATED_ENTITIES],
+                [EntitySerializationOption.SERIALIZE_NULLS],
+                [EntitySerializationOption.COMPACT_REPEATED_ENTITIES, EntitySerializationOption.SERIALIZE_NULLS]
+        ]
+    }
+
+    def "serialization with a cached Gson does not depend on the previous call"() {
+        def order = createOrder()
+        def view = createOrderView()
+
+        when:
+
+        def json1 = entitySerializationAPI.toJson(order, view, EntitySerializationOption.COMPACT_REPEATED_ENTITIES)
+        def json2 = entitySerializationAPI.toJson(order, view, EntitySerializationOption.COMPACT_REPEATED_ENTITIES)
+
+        then:
+
+        json1 == json2
+
+        def parsedObject = new JsonSlurper().parseText(json2)
+        parsedObject.number == 'order-1'
+        parsedObject.items[0].name == 'item-1'
+        parsedObject.items[1].relatedItem.id == parsedObject.items[0].id
+    }
+
+    private Serialization_Order createOrder() {
+        def order = cont.metadata().create(Serialization_Order.class)
+        order.setNumber('order-1')
+
+        def orderItem1 = cont.metadata().create(Serialization_OrderItem.class)
+        orderItem1.name = 'item-1'
+        orderItem1.order = order
+
+        def orderItem2 = cont.metadata().create(Serialization_OrderItem.class)
+        orderItem2.name = null
+        orderItem2.order = order
+        orderItem2.relatedItem = orderItem1
+
+        order.items = [orderItem1, orderItem2]
+        return order
+    }
+
+    private static View createOrderView() {
+        def itemView = new View(Serialization_OrderItem.class)
+                .addProperty('name')
+                .addProperty('relatedItem', new View(Serialization_OrderItem.class).addProperty('name'))
+        return new View(Serialization_Order.class)
+                .addProperty('number')
+                .addProperty('items', itemView)
+    }
 }
@@ -98,4 +98,18 @@ class QueryResultsManagerTest extends Specification {
         userSessions.remove(session1)
         userSessions.remove(session2)
     }
+
+    def "test insert - number of ids is not a multiple of the batch size"() {
+        def ids = (0..2520).collect { UUID.randomUUID() }
+
+        when:
+
+        queryResultsManager.insert(1, ids)
+
+        then:
+
+        def list = persistence.callInTransaction { em -> em.createQuery('select e from sys$QueryResult e').resultList }
+        list.size() == ids.size()
+        list.collect { it.entityId } as Set == ids as Set
+    }
 }
@@ -69,7 +69,8 @@ public interface MetaClass extends MetadataObject {
     MetaProperty getPropertyNN(String name);
 
     /**
-     * Returns MetaPropertyPath object, representing path to the property from the current class
+     * Returns MetaPropertyPath object, representing path to the property from the current class.
+     * Resolved paths are cached, so the returned instance is shared and must not be modified.
      * @param propertyPath dot-separated string
      * @return MetaPropertyPath instance, or null if the input parameter doesn't represent a valid path.
      */
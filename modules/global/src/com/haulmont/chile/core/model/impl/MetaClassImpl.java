@@ -24,12 +24,16 @@ import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 @SuppressWarnings({"TransientFieldNotInitialized"})
 public class MetaClassImpl extends MetadataObjectImpl implements MetaClass {
 
 	private transient Map<String, MetaProperty> propertyByName = new HashMap<>();
     private transient Map<String, MetaProperty> ownPropertyByName = new HashMap<>();
+    // resolved paths are immutable and shared, invalid paths are not cached
+    private transient ConcurrentMap<String, MetaPropertyPath> propertyPaths = new ConcurrentHashMap<>();
 
 	private transient final MetaModel model;
     private transient Class javaClass;
@@ -111,6 +115,20 @@ public class MetaClassImpl extends MetadataObjectImpl implements MetaClass {
 
     @Override
     public MetaPropertyPath getPropertyPath(String propertyPath) {
+        MetaPropertyPath path = propertyPaths.get(propertyPath);
+        if (path == null) {
+            path = resolvePropertyPath(propertyPath);
+            if (path != null) {
+                MetaPropertyPath existing = propertyPaths.putIfAbsent(propertyPath, path);
+                if (existing != null) {
+                    path = existing;
+                }
+            }
+        }
+        return path;
+    }
+
+    protected MetaPropertyPath resolvePropertyPath(String propertyPath) {
         String[] properties = propertyPath.split("\\."); // split should not create java.util.regex.Pattern
 
         // do not use ArrayList, leads to excessive memory allocation
@@ -142,6 +160,16 @@ public class MetaClassImpl extends MetadataObjectImpl implements MetaClass {
         return ownPropertyByName.values();
     }
 
+    /**
+     * Discards resolved property paths of this class and its descendants. Invoked when the set of properties changes.
+     */
+    public void invalidatePropertyPaths() {
+        propertyPaths.clear();
+        for (MetaClass descendant : descendants) {
+            ((MetaClassImpl) descendant).invalidatePropertyPaths();
+        }
+    }
+
     public void setJavaClass(Class javaClass) {
         this.javaClass = javaClass;
         ((MetaModelImpl) model).registerClass(this);
@@ -153,6 +181,7 @@ public class MetaClassImpl extends MetadataObjectImpl implements MetaClass {
             for (MetaProperty metaProperty : ancestorClass.getProperties()) {
                 propertyByName.put(metaProperty.getName(), metaProperty);
             }
+            invalidatePropertyPaths();
         }
         if (!((MetaClassImpl) ancestorClass).descendants.contains(this))
             ((MetaClassImpl) ancestorClass).descendants.add(this);
@@ -161,6 +190,7 @@ public class MetaClassImpl extends MetadataObjectImpl implements MetaClass {
     public void registerProperty(MetaProperty metaProperty) {
         propertyByName.put(metaProperty.getName(), metaProperty);
         ownPropertyByName.put(metaProperty.getName(), metaProperty);
+        propertyPaths.clear();
         for (MetaClass descendant : descendants) {
             ((MetaClassImpl) descendant).registerAncestorProperty(metaProperty);
         }
@@ -170,6 +200,7 @@ public class MetaClassImpl extends MetadataObjectImpl implements MetaClass {
         final MetaProperty prop = propertyByName.get(metaProperty.getName());
         if (prop == null) {
             propertyByName.put(metaProperty.getName(), metaProperty);
+            propertyPaths.clear();
             for (MetaClass descendant : descendants) {
                 ((MetaClassImpl) descendant).registerAncestorProperty(metaProperty);
             }
@@ -16,17 +16,43 @@
  */
 package com.haulmont.chile.core.model.utils;
 
+import org.apache.commons.lang3.ClassUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.slf4j.LoggerFactory;
 
-import java.lang.reflect.Method;
+import java.lang.invoke.*;
 import java.lang.reflect.InvocationTargetException;
-import java.util.Map;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
+/**
+ * Accessors of bean properties of a class.
+ * <p>
+ * Getters and setters are compiled into {@link Function} and {@link BiConsumer} instances on first use by
+ * {@link LambdaMetafactory}, so reading or writing a property is a direct call instead of a reflective one.
+ * Lambdas are defined in the class declaring the accessor through {@code MethodHandles.privateLookupIn()}, which is
+ * available since Java 9. On Java 8, or if the lambda factory cannot be used, accessors fall back to method handles.
+ * <p>
+ * {@link #invokeGetter(Object, String)} and {@link #invokeSetter(Object, String, Object)} report errors as reflective
+ * calls do: an exception thrown by the accessor is wrapped into {@code RuntimeException} caused by
+ * {@link InvocationTargetException}, and a value that cannot be passed to the setter (e.g. null for a primitive
+ * property) causes {@link IllegalArgumentException}. Accessors returned by {@link #getGetter(String)} and
+ * {@link #getSetter(String)} throw exceptions as is and accept only values of the exact property type.
+ */
 public class MethodsCache {
 
-    private final transient Map<String, Method> getters = new HashMap<>();
-    private final transient Map<String, Method> setters = new HashMap<>();
+    private static final Method privateLookupIn = getPrivateLookupIn();
+
+    private final transient Map<String, Method> getterMethods = new HashMap<>();
+    private final transient Map<String, Method> setterMethods = new HashMap<>();
+
+    private final transient Map<String, Function<Object, Object>> getters = new ConcurrentHashMap<>();
+    private final transient Map<String, BiConsumer<Object, Object>> setters = new ConcurrentHashMap<>();
 
     public MethodsCache(Class clazz) {
         final Method[] methods = clazz.getMethods();
@@ -35,42 +61,198 @@ public class MethodsCache {
             if (name.startsWith("get") && method.getParameterTypes().length == 0) {
                 name = StringUtils.uncapitalize(name.substring(3));
                 method.setAccessible(true);
-                getters.put(name, method);
+                getterMethods.put(name, method);
             } else if (name.startsWith("is") && method.getParameterTypes().length == 0) {
                 name = StringUtils.uncapitalize(name.substring(2));
                 method.setAccessible(true);
-                getters.put(name, method);
+                getterMethods.put(name, method);
             } else if (name.startsWith("set") && method.getParameterTypes().length == 1) {
                 name = StringUtils.uncapitalize(name.substring(3));
                 method.setAccessible(true);
-                setters.put(name, method);
+                setterMethods.put(name, method);
             }
         }
     }
 
     public void invokeSetter(Object object, String property, Object value) {
-        final Method method = setters.get(property);
-        if (method == null) {
+        BiConsumer<Object, Object> setter = getSetter(property);
+        if (setter == null) {
             throw new IllegalArgumentException(
                     String.format("Can't find setter for property '%s' at %s", property, object.getClass()));
         }
         try {
-            method.invoke(object, value);
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            throw new RuntimeException(e);
+            setter.accept(object, value);
+        } catch (RuntimeException | Error e) {
+            Method method = setterMethods.get(property);
+            Class<?> parameterType = method.getParameterTypes()[0];
+            if (!method.getDeclaringClass().isInstance(object)
+                    || (value == null ? parameterType.isPrimitive() : !ClassUtils.primitiveToWrapper(parameterType).isInstance(value))) {
+                // the accessor accepts only values of the exact type, while reflection also does widening
+                // conversions and reports wrong values by IllegalArgumentException
+                try {
+                    method.invoke(object, value);
+                } catch (IllegalAccessException | InvocationTargetException ex) {
+                    throw new RuntimeException(ex);
+                }
+                return;
+            }
+            throw new RuntimeException(new InvocationTargetException(e));
         }
     }
 
     public Object invokeGetter(Object object, String property) {
-        final Method method = getters.get(property);
-        if (method == null) {
+        Function<Object, Object> getter = getGetter(property);
+        if (getter == null) {
             throw new IllegalArgumentException(
                     String.format("Can't find getter for property '%s' at %s", property, object.getClass()));
         }
         try {
-            return method.invoke(object);
-        } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-            throw new RuntimeException(e);
+            return getter.apply(object);
+        } catch (RuntimeException | Error e) {
+            throw new RuntimeException(new InvocationTargetException(e));
+        }
+    }
+
+    /**
+     * @param property property name
+     * @return getter of the property, or null if the class has no such getter
+     */
+    public Function<Object, Object> getGetter(String property) {
+        Function<Object, Object> getter = getters.get(property);
+        if (getter == null) {
+            Method method = getterMethods.get(property);
+            if (method == null) {
+                return null;
+            }
+            getter = getters.computeIfAbsent(property, p -> createGetter(method));
+        }
+        return getter;
+    }
+
+    /**
+     * @param property property name
+     * @return setter of the property, or null if the class has no such setter
+     */
+    public BiConsumer<Object, Object> getSetter(String property) {
+        BiConsumer<Object, Object> setter = setters.get(property);
+        if (setter == null) {
+            Method method = setterMethods.get(property);
+            if (method == null) {
+                return null;
+            }
+            setter = setters.computeIfAbsent(property, p -> createSetter(method));
+        }
+        return setter;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected Function<Object, Object> createGetter(Method method) {
+        MethodHandle handle = unreflect(method);
+        MethodHandles.Lookup lookup = getLookup(method);
+        if (lookup != null) {
+            Class<?> owner = method.getDeclaringClass();
+            MethodType instantiatedType = MethodType.methodType(
+                    ClassUtils.primitiveToWrapper(method.getReturnType()), owner);
+            try {
+                CallSite site = LambdaMetafactory.metafactory(lookup,
+                        "apply", MethodType.methodType(Function.class),
+                        MethodType.methodType(Object.class, Object.class), handle, instantiatedType);
+                return (Function<Object, Object>) site.getTarget().invoke();
+            } catch (Throwable e) {
+                LoggerFactory.getLogger(MethodsCache.class).debug("Unable to create lambda getter for {}", method, e);
+            }
+        }
+
+        MethodHandle genericHandle = genericHandle(handle, method, 1);
+        return object -> {
+            try {
+                return genericHandle.invokeExact(object);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new RuntimeException(e);
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    protected BiConsumer<Object, Object> createSetter(Method method) {
+        MethodHandle handle = unreflect(method);
+        MethodHandles.Lookup lookup = getLookup(method);
+        if (lookup != null) {
+            Class<?> owner = method.getDeclaringClass();
+            MethodType instantiatedType = MethodType.methodType(void.class,
+                    owner, ClassUtils.primitiveToWrapper(method.getParameterTypes()[0]));
+            try {
+                CallSite site = LambdaMetafactory.metafactory(lookup,
+                        "accept", MethodType.methodType(BiConsumer.class),
+                        MethodType.methodType(void.class, Object.class, Object.class), handle, instantiatedType);
+                return (BiConsumer<Object, Object>) site.getTarget().invoke();
+            } catch (Throwable e) {
+                LoggerFactory.getLogger(MethodsCache.class).debug("Unable to create lambda setter for {}", method, e);
+            }
+        }
+
+        MethodHandle genericHandle = genericHandle(handle, method, 2);
+        return (object, value) -> {
+            try {
+                genericHandle.invokeExact(object, value);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new RuntimeException(e);
+            }
+        };
+    }
+
+    protected MethodHandle unreflect(Method method) {
+        try {
+            return MethodHandles.lookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("Unable to access method " + method, e);
+        }
+    }
+
+    /**
+     * Adapts the handle to the {@code (Object)Object} or {@code (Object, Object)void} type. Static methods ignore
+     * the object argument, as they do when called through reflection.
+     */
+    protected MethodHandle genericHandle(MethodHandle handle, Method method, int parameterCount) {
+        if (Modifier.isStatic(method.getModifiers())) {
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        }
+        MethodType genericType = parameterCount == 1
+                ? MethodType.methodType(Object.class, Object.class)
+                : MethodType.methodType(void.class, Object.class, Object.class);
+        return handle.asType(genericType);
+    }
+
+    /**
+     * @return lookup for defining a lambda accessor in the class declaring the method, or null if a lambda
+     * cannot be used
+     */
+    protected MethodHandles.Lookup getLookup(Method method) {
+        if (Modifier.isStatic(method.getModifiers())) {
+            return null;
+        }
+        if (privateLookupIn == null) {
+            return null;
+        }
+        Class<?> owner = method.getDeclaringClass();
+        try {
+            return (MethodHandles.Lookup) privateLookupIn.invoke(null, owner, MethodHandles.lookup());
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            LoggerFactory.getLogger(MethodsCache.class).debug("Unable to get lookup in {}", owner, e);
+            return null;
+        }
+    }
+
+    private static Method getPrivateLookupIn() {
+        try {
+            // available since Java 9
+            return MethodHandles.class.getMethod("privateLookupIn", Class.class, MethodHandles.Lookup.class);
+        } catch (NoSuchMethodException e) {
+            return null;
         }
     }
-}
\ No newline at end of file
+}
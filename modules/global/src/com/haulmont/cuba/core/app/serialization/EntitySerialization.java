@@ -18,10 +18,13 @@
 package com.haulmont.cuba.core.app.serialization;
 
 import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.Table;
 import com.google.gson.*;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
 import com.haulmont.chile.core.datatypes.Datatype;
 import com.haulmont.chile.core.datatypes.Datatypes;
 import com.haulmont.chile.core.model.MetaClass;
@@ -42,12 +45,18 @@ import org.springframework.stereotype.Component;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.validation.constraints.NotNull;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
 import java.math.BigDecimal;
 import java.text.ParseException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
 import static com.haulmont.cuba.core.entity.BaseEntityInternalAccess.*;
@@ -57,6 +66,8 @@ public class EntitySerialization implements EntitySerializationAPI {
 
     private static final Logger log = LoggerFactory.getLogger(EntitySerialization.class);
 
+    protected static final int VIEW_GSON_CACHE_SIZE = 200;
+
     @Inject
     protected MetadataTools metadataTools;
 
@@ -72,6 +83,23 @@ public class EntitySerialization implements EntitySerializationAPI {
     protected ThreadLocal<EntitySerializationContext> context =
             ThreadLocal.withInitial(EntitySerializationContext::new);
 
+    /**
+     * Gson instances for serialization with a view, by view identity and options. Views are compared by identity
+     * because different views may have the same name. Cached Gson instances reference their views, so weak keys
+     * alone would never be cleared: the cache is bounded in size and its values are softly referenced.
+     */
+    protected Cache<View, ConcurrentMap<Set<EntitySerializationOption>, Gson>> viewGsonCache =
+            CacheBuilder.newBuilder()
+                    .weakKeys()
+                    .softValues()
+                    .maximumSize(VIEW_GSON_CACHE_SIZE)
+                    .build();
+
+    /**
+     * Gson instances for serialization without a view, by options.
+     */
+    protected ConcurrentMap<Set<EntitySerializationOption>, Gson> gsonCache = new ConcurrentHashMap<>();
+
     /**
      * Class is used for storing a collection of entities already processed during the serialization.
      */
@@ -92,8 +120,17 @@ public class EntitySerialization implements EntitySerializationAPI {
     public String toJson(Entity entity,
                          @Nullable View view,
                          EntitySerializationOption... options) {
-        context.remove();
-        return createGsonForSerialization(view, options).toJson(entity);
+        StringWriter writer = new StringWriter();
+        toJson(entity, view, writer, options);
+        return writer.toString();
+    }
+
+    @Override
+    public void toJson(Entity entity,
+                       @Nullable View view,
+                       Writer writer,
+                       EntitySerializationOption... options) {
+        writeJson(entity, view, writer, options);
     }
 
     @Override
@@ -105,14 +142,43 @@ public class EntitySerialization implements EntitySerializationAPI {
     public String toJson(Collection<? extends Entity> entities,
                          @Nullable View view,
                          EntitySerializationOption... options) {
-        context.remove();
-        return createGsonForSerialization(view, options).toJson(entities);
+        StringWriter writer = new StringWriter();
+        toJson(entities, view, writer, options);
+        return writer.toString();
+    }
+
+    @Override
+    public void toJson(Collection<? extends Entity> entities,
+                       @Nullable View view,
+                       Writer writer,
+                       EntitySerializationOption... options) {
+        writeJson(entities, view, writer, options);
     }
 
     @Override
     public String objectToJson(Object object, EntitySerializationOption... options) {
+        StringWriter writer = new StringWriter();
+        writeJson(object, null, writer, options);
+        return writer.toString();
+    }
+
+    protected void writeJson(@Nullable Object object, @Nullable View view, Writer writer,
+                             EntitySerializationOption... options) {
         context.remove();
-        return createGsonForSerialization(null, options).toJson(object);
+        Gson gson = getGsonForSerialization(view, options);
+        try {
+            JsonWriter jsonWriter = gson.newJsonWriter(writer);
+            if (object == null) {
+                gson.toJson(JsonNull.INSTANCE, jsonWriter);
+            } else {
+                gson.toJson(object, object.getClass(), jsonWriter);
+            }
+            jsonWriter.flush();
+        } catch (IOException | JsonIOException e) {
+            throw new EntitySerializationException("Unable to write JSON", e);
+        } finally {
+            context.remove();
+        }
     }
 
     @SuppressWarnings("unchecked")
@@ -140,6 +206,28 @@ public class EntitySerialization implements EntitySerializationAPI {
         return createGsonForDeserialization(null, options).fromJson(json, clazz);
     }
 
+    protected Gson getGsonForSerialization(@Nullable View view, EntitySerializationOption... options) {
+        Set<EntitySerializationOption> optionSet = EnumSet.noneOf(EntitySerializationOption.class);
+        if (options != null) {
+            for (EntitySerializationOption option : options) {
+                if (option != null) {
+                    optionSet.add(option);
+                }
+            }
+        }
+        ConcurrentMap<Set<EntitySerializationOption>, Gson> cache;
+        if (view == null) {
+            cache = gsonCache;
+        } else {
+            try {
+                cache = viewGsonCache.get(view, ConcurrentHashMap::new);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Unable to get serialization cache", e);
+            }
+        }
+        return cache.computeIfAbsent(optionSet, key -> createGsonForSerialization(view, options));
+    }
+
     protected Gson createGsonForSerialization(@Nullable View view, EntitySerializationOption... options) {
         GsonBuilder gsonBuilder = new GsonBuilder();
         if (ArrayUtils.contains(options, EntitySerializationOption.PRETTY_PRINT)) {
@@ -22,6 +22,7 @@ import com.haulmont.cuba.core.entity.Entity;
 import com.haulmont.cuba.core.global.View;
 
 import javax.annotation.Nullable;
+import java.io.Writer;
 import java.util.Collection;
 
 /**
@@ -68,6 +69,37 @@ public interface EntitySerializationAPI {
                   @Nullable View view,
                   EntitySerializationOption... options);
 
+    /**
+     * Serializes a single entity to the given writer. Method works like the {@link #toJson(Entity, View,
+     * EntitySerializationOption...)}, but writes JSON directly instead of building a string. The writer is flushed
+     * but not closed.
+     *
+     * @param entity  an entity to be serialized
+     * @param view    a view that defines which entity properties should be added to the result JSON object
+     * @param writer  a writer to output JSON to
+     * @param options options specifying how an entity should be serialized
+     * @throws EntitySerializationException if writing to the writer fails
+     */
+    void toJson(Entity entity,
+                @Nullable View view,
+                Writer writer,
+                EntitySerializationOption... options);
+
+    /**
+     * Serializes a collection of entities to the given writer as a JSON array. Entities are written one by one, so
+     * JSON of the whole collection is never kept in memory. The writer is flushed but not closed.
+     *
+     * @param entities a collection of entities to be serialized
+     * @param view     a view that defines which entity properties should be added to the result JSON objects
+     * @param writer   a writer to output JSON to
+     * @param options  options specifying how an entity should be serialized
+     * @throws EntitySerializationException if writing to the writer fails
+     */
+    void toJson(Collection<? extends Entity> entities,
+                @Nullable View view,
+                Writer writer,
+                EntitySerializationOption... options);
+
     /**
      * An overloaded version of the {@link #toJson(Entity, View, EntitySerializationOption...)} method with a null
      * {@code view} parameter and with no serialization options.
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.haulmont.cuba.core.global;
+
+import com.haulmont.cuba.core.entity.Entity;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Base implementation of {@link EntityCursor} which iterates over chunks of instances provided by
+ * {@link #loadNextChunk()}. Only the current chunk is referenced by the cursor.
+ */
+public abstract class ChunkedEntityCursor<E extends Entity> implements EntityCursor<E> {
+
+    protected Iterator<E> chunkIterator = Collections.emptyIterator();
+    protected boolean closed;
+
+    /**
+     * Loads the next chunk of instances. The returned chunk can be empty, for example if all its instances were
+     * filtered out by security constraints.
+     *
+     * @return next chunk, or null if there are no more instances
+     */
+    @Nullable
+    protected abstract List<E> loadNextChunk();
+
+    /**
+     * Releases resources held by the cursor. Invoked once, either by {@link #close()} or when the last chunk is read.
+     */
+    protected void releaseResources() {
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!closed && !chunkIterator.hasNext()) {
+            List<E> chunk = loadNextChunk();
+            if (chunk == null) {
+                close();
+            } else {
+                chunkIterator = chunk.iterator();
+            }
+        }
+        return !closed;
+    }
+
+    @Override
+    public E next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return chunkIterator.next();
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            chunkIterator = Collections.emptyIterator();
+            releaseResources();
+        }
+    }
+}
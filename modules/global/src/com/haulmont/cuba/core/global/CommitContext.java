@@ -40,6 +40,7 @@ public class CommitContext implements Serializable {
     protected boolean discardCommitted;
     protected boolean authorizationRequired;
     protected boolean joinTransaction;
+    protected boolean bulkMode;
     protected Map<String, Object> dbHints = new HashMap<>();
 
     /**
@@ -209,6 +210,21 @@ public class CommitContext implements Serializable {
         return this;
     }
 
+    public boolean isBulkMode() {
+        return bulkMode;
+    }
+
+    /**
+     * Set to true to commit a large number of instances in the bulk mode. In this mode, instances are processed
+     * grouped by entity type and changes are flushed to the database in batches. New instances are flushed after the
+     * new instances they reference, and all at once if they reference each other cyclically. Entity listeners,
+     * entity log and full-text indexing are processed for each instance when its batch is flushed.
+     */
+    public CommitContext setBulkMode(boolean bulkMode) {
+        this.bulkMode = bulkMode;
+        return this;
+    }
+
     private View getViewFromRepository(Entity entity, String viewName) {
         Metadata metadata = AppBeans.get(Metadata.NAME);
         return metadata.getViewRepository().getView(metadata.getClass(entity.getClass()), viewName);
@@ -60,6 +60,20 @@ public interface DataManager {
      */
     <E extends Entity> List<E> loadList(LoadContext<E> context);
 
+    /**
+     * Loads entity instances through a cursor which reads them from the data store in chunks, so the whole result
+     * is never kept in memory. Use it for exports and batch processing of large amounts of data.
+     * <p>On the middleware, the cursor of a relational data store reads a single JDBC result set inside its own
+     * transaction. The default implementation loads instances page by page using {@link #loadList(LoadContext)}, so
+     * the query should define a stable sort order.</p>
+     * <p>The returned cursor must be closed after use.</p>
+     * @param context   {@link LoadContext} object, defining what and how to load
+     * @return          cursor of detached instances
+     */
+    default <E extends Entity> EntityCursor<E> loadCursor(LoadContext<E> context) {
+        return new PagedEntityCursor<>(context, PagedEntityCursor.DEFAULT_PAGE_SIZE, this::loadList);
+    }
+
     /**
      * Returns the number of entity instances for the given query passed in the {@link LoadContext}.
      * @param context   defines the query
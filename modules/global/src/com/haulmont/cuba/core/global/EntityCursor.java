@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.haulmont.cuba.core.global;
+
+import com.haulmont.cuba.core.entity.Entity;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterator over entity instances which are read from the storage in chunks while iterating.
+ * <p>
+ * The cursor holds resources of the storage, for example an open transaction and a database cursor, until all
+ * instances are read. Always close it when it is not needed anymore, preferably in a try-with-resources block:
+ * <pre>
+ *     try (EntityCursor&lt;Customer&gt; cursor = dataManager.loadCursor(loadContext)) {
+ *         while (cursor.hasNext()) {
+ *             Customer customer = cursor.next();
+ *             ...
+ *         }
+ *     }
+ * </pre>
+ *
+ * @see DataManager#loadCursor(LoadContext)
+ */
+public interface EntityCursor<E extends Entity> extends Iterator<E>, AutoCloseable {
+
+    /**
+     * Releases resources held by the cursor. Subsequent calls have no effect.
+     */
+    @Override
+    void close();
+
+    /**
+     * @return sequential stream of the remaining instances. Closing the stream closes the cursor.
+     */
+    default Stream<E> stream() {
+        Spliterator<E> spliterator = Spliterators.spliteratorUnknownSize(this,
+                Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(this::close);
+    }
+
+    /**
+     * @return cursor without instances
+     */
+    static <E extends Entity> EntityCursor<E> empty() {
+        return new ChunkedEntityCursor<E>() {
+            @Override
+            protected List<E> loadNextChunk() {
+                return null;
+            }
+        };
+    }
+}
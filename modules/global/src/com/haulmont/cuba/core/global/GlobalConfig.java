@@ -156,6 +156,14 @@ public interface GlobalConfig extends Config {
     @DefaultBoolean(true)
     boolean getUseAstBasedJpqlTransformer();
 
+    /**
+     * @return maximum number of parsed JPQL queries and results of their transformations kept in memory by
+     * {@link com.haulmont.cuba.core.sys.jpql.QueryTreeCache}. 0 disables the cache.
+     */
+    @Property("cuba.jpqlQueryTreeCacheSize")
+    @DefaultInt(1000)
+    int getJpqlQueryTreeCacheSize();
+
     /**
      * @return Overridden AppFolderEditWindow class name
      */
@@ -190,10 +198,25 @@ public interface GlobalConfig extends Config {
     @DefaultInt(8)
     int getGroovyEvaluationPoolMaxIdle();
 
+    /**
+     * @return maximum number of script classes kept in memory by {@code Scripting.compileGroovy()}
+     */
+    @Property("cuba.groovyCompiledScriptsCacheSize")
+    @DefaultInt(1000)
+    int getGroovyCompiledScriptsCacheSize();
+
     @Property("cuba.numberIdCacheSize")
     @DefaultInt(100)
     int getNumberIdCacheSize();
 
+    /**
+     * @return number of remaining ids in the cached block of a sequence when the next block is requested in
+     * background. 0 disables the prefetching.
+     */
+    @Property("cuba.numberIdCachePrefetchThreshold")
+    @DefaultInt(20)
+    int getNumberIdCachePrefetchThreshold();
+
     @Property("cuba.anonymousSessionId")
     @Factory(factory = UuidTypeFactory.class)
     UUID getAnonymousSessionId();
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.haulmont.cuba.core.global;
+
+import com.haulmont.cuba.core.entity.Entity;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * {@link EntityCursor} which loads instances page by page using {@code firstResult} and {@code maxResults} of the
+ * load context query. Each page is loaded by a separate invocation of the given loader.
+ * <p>
+ * The query should define a stable sort order, otherwise pages can overlap. The query of the load context is changed
+ * while iterating and restored when the cursor is closed.
+ */
+public class PagedEntityCursor<E extends Entity> extends ChunkedEntityCursor<E> {
+
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+
+    protected LoadContext<E> context;
+    protected Function<LoadContext<E>, List<E>> loader;
+    protected int pageSize;
+
+    protected int initialFirstResult;
+    protected int initialMaxResults;
+    protected int position;
+    protected int remaining;
+
+    public PagedEntityCursor(LoadContext<E> context, int pageSize, Function<LoadContext<E>, List<E>> loader) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must be positive");
+        }
+        this.context = context;
+        this.loader = loader;
+        this.pageSize = pageSize;
+
+        if (context.getQuery() == null) {
+            context.setQueryString("select e from " + context.getMetaClass() + " e");
+        }
+        initialFirstResult = context.getQuery().getFirstResult();
+        initialMaxResults = context.getQuery().getMaxResults();
+        position = initialFirstResult;
+        remaining = initialMaxResults > 0 ? initialMaxResults : Integer.MAX_VALUE;
+    }
+
+    @Nullable
+    @Override
+    protected List<E> loadNextChunk() {
+        if (remaining <= 0) {
+            return null;
+        }
+        int max = Math.min(pageSize, remaining);
+        context.getQuery().setFirstResult(position);
+        context.getQuery().setMaxResults(max);
+
+        List<E> page = loader.apply(context);
+        position += page.size();
+        remaining = page.size() < max ? 0 : remaining - page.size();
+        return page.isEmpty() ? null : page;
+    }
+
+    @Override
+    protected void releaseResources() {
+        context.getQuery().setFirstResult(initialFirstResult);
+        context.getQuery().setMaxResults(initialMaxResults);
+    }
+}
@@ -49,6 +49,14 @@ public interface QueryTransformer {
     /** Replaces <code>select e.f1, e.f2, ...</code> clause with <code>select count(e) ...</code> */
     void replaceWithCount();
 
+    /**
+     * Replaces <code>select e from ...</code> clause with <code>select function(e.property) from ...</code> and
+     * removes 'order by' clause.
+     * @param function  aggregate function: avg, count, max, min or sum
+     * @param property  property of the selected entity
+     */
+    void replaceWithAggregate(String function, String property);
+
     /** Replaces <code>select e from ...</code> clause with <code>select e.id from ...</code> */
     void replaceWithSelectId();
 
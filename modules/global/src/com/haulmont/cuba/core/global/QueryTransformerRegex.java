@@ -280,6 +280,19 @@ public class QueryTransformerRegex extends QueryParserRegex implements QueryTran
         }
     }
 
+    @Override
+    public void replaceWithAggregate(String function, String property) {
+        Matcher entityMatcher = FROM_ENTITY_PATTERN.matcher(buffer);
+        String alias = findAlias(entityMatcher);
+
+        buffer.replace(0, entityMatcher.start(), "select " + function + "(" + alias + "." + property + ") ");
+
+        Matcher orderMatcher = ORDER_BY_PATTERN.matcher(buffer);
+        if (orderMatcher.find()) {
+            buffer.delete(orderMatcher.start(), buffer.length());
+        }
+    }
+
     @Override
     public void replaceWithSelectEntityVariable(String selectEntityVariable) {
         throw new UnsupportedOperationException();
@@ -18,6 +18,7 @@
 package com.haulmont.cuba.core.global;
 
 import groovy.lang.Binding;
+import groovy.lang.Script;
 
 import javax.annotation.Nullable;
 import java.util.Map;
@@ -81,6 +82,16 @@ public interface Scripting {
      */
     <T> T runGroovyScript(String name, Map<String, Object> context);
 
+    /**
+     * Compiles a Groovy expression into a script class which can be instantiated and run many times with different
+     * bindings, e.g. by {@code InvokerHelper.createScript(scriptClass, binding)}.
+     * <p>Compiled classes are cached by the text and can be cleared by {@link #clearCache()}. The size of the cache
+     * is limited by {@link GlobalConfig#getGroovyCompiledScriptsCacheSize()}.</p>
+     * @param text  Groovy expression
+     * @return      compiled script class
+     */
+    Class<? extends Script> compileGroovy(String text);
+
     /**
      * Returns the dynamic classloader.
      * <p>Actually it is the GroovyClassLoader which parent is {@link com.haulmont.cuba.core.sys.javacl.JavaClassLoader}.
@@ -17,6 +17,8 @@
 
 package com.haulmont.cuba.core.sys;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.haulmont.cuba.core.global.Configuration;
 import com.haulmont.cuba.core.global.GlobalConfig;
 import com.haulmont.cuba.core.global.ScriptExecutionPolicy;
@@ -68,6 +70,7 @@ public abstract class AbstractScripting implements Scripting {
     protected volatile GroovyScriptEngine gse;
     protected volatile CubaGroovyClassLoader gcl;
     protected GenericKeyedObjectPool<String, Script> pool;
+    protected Cache<String, Class<? extends Script>> compiledScripts;
 
     protected GlobalConfig globalConfig;
 
@@ -76,6 +79,9 @@ public abstract class AbstractScripting implements Scripting {
         this.springBeanLoader = springBeanLoader;
         globalConfig = configuration.getConfig(GlobalConfig.class);
         groovyClassPath = globalConfig.getConfDir() + File.pathSeparator;
+        compiledScripts = CacheBuilder.newBuilder()
+                .maximumSize(globalConfig.getGroovyCompiledScriptsCacheSize())
+                .build();
 
         String classPathProp = AppContext.getProperty("cuba.groovyClassPath");
         if (StringUtils.isNotBlank(classPathProp)) {
@@ -221,6 +227,16 @@ public abstract class AbstractScripting implements Scripting {
         return (T) result;
     }
 
+    @Override
+    public Class<? extends Script> compileGroovy(String text) {
+        Class<? extends Script> scriptClass = compiledScripts.getIfPresent(text);
+        if (scriptClass == null) {
+            scriptClass = createScript(text).getClass();
+            compiledScripts.put(text, scriptClass);
+        }
+        return scriptClass;
+    }
+
     @Override
     public <T> T evaluateGroovy(String text, Binding binding) {
         return evaluateGroovy(text, binding, (ScriptExecutionPolicy[]) null);
@@ -307,6 +323,7 @@ public abstract class AbstractScripting implements Scripting {
         getGroovyClassLoader().clearCache();
         javaClassLoader.clearCache();
         getPool().clear();
+        compiledScripts.invalidateAll();
         GroovyScriptEngine gse = getGroovyScriptEngine();
         try {
             Field scriptCacheField = gse.getClass().getDeclaredField("scriptCache");
@@ -21,33 +21,62 @@ import com.haulmont.chile.core.model.MetaClass;
 import com.haulmont.cuba.core.entity.annotation.IdSequence;
 import com.haulmont.cuba.core.global.GlobalConfig;
 import com.haulmont.cuba.core.global.Metadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.TreeMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Intermediate cache for generated ids of entities with long/integer PK.
  * The cache size is determined by the {@code cuba.numberIdCacheSize} app property.
+ * <p>
+ * Ids are taken from the cached block of a sequence without locking. When the number of remaining ids in the block
+ * reaches the {@code cuba.numberIdCachePrefetchThreshold} app property, the next block is requested in background.
  */
 @Component(NumberIdCache.NAME)
 public class NumberIdCache {
 
     public static final String NAME = "cuba_NumberIdCache";
 
+    private static final Logger log = LoggerFactory.getLogger(NumberIdCache.class);
+
     @Inject
     protected Metadata metadata;
 
+    protected static class Block {
+        protected final AtomicLong counter;
+        protected final long lastValue;
+        protected final long size;
+
+        protected Block(long sequenceValue, long size) {
+            this.counter = new AtomicLong(sequenceValue);
+            this.lastValue = sequenceValue + size;
+            this.size = size;
+        }
+    }
+
     protected class Generator {
-        protected long counter;
-        protected long sequenceValue;
         protected String entityName;
         protected String sequenceName;
         protected boolean cached;
         protected NumberIdSequence numberIdSequence;
 
+        protected volatile Block block;
+        protected AtomicReference<CompletableFuture<Block>> nextBlock = new AtomicReference<>();
+
+        protected AtomicLong fetchCount = new AtomicLong();
+        protected AtomicLong prefetchCount = new AtomicLong();
+        protected AtomicLong waitCount = new AtomicLong();
+        protected AtomicLong waitTimeNanos = new AtomicLong();
+
         public Generator(String entityName,
                          String sequenceName,
                          boolean cached,
@@ -56,36 +85,105 @@ public class NumberIdCache {
             this.sequenceName = sequenceName;
             this.cached = cached;
             this.numberIdSequence = sequence;
-            if (useIdCache()) {
-                createCachedCounter();
-            }
         }
 
         protected boolean useIdCache() {
             return config.getNumberIdCacheSize() != 0 && cached;
         }
 
-        protected void createCachedCounter() {
-            sequenceValue = numberIdSequence.createCachedLongId(entityName, sequenceName);
-            counter = sequenceValue;
+        protected Block fetchBlock() {
+            int size = config.getNumberIdCacheSize();
+            long sequenceValue = numberIdSequence.createCachedLongId(entityName, sequenceName);
+            fetchCount.incrementAndGet();
+            return new Block(sequenceValue, size);
         }
 
-        public synchronized long getNext() {
+        public long getNext() {
             if (!useIdCache()) {
                 return numberIdSequence.createLongId(entityName, sequenceName);
-            } else {
-                long next = ++counter;
-                if (next > sequenceValue + config.getNumberIdCacheSize()) {
-                    createCachedCounter();
-                    next = ++counter;
+            }
+            while (true) {
+                Block current = block;
+                if (current != null) {
+                    long next = current.counter.incrementAndGet();
+                    if (next <= current.lastValue) {
+                        // only one thread gets the value at the threshold
+                        if (current.lastValue - next == getPrefetchThreshold(current)) {
+                            prefetch();
+                        }
+                        return next;
+                    }
+                }
+                switchBlock(current);
+            }
+        }
+
+        protected long getPrefetchThreshold(Block block) {
+            int threshold = config.getNumberIdCachePrefetchThreshold();
+            if (threshold <= 0) {
+                return -1;
+            }
+            return Math.min(threshold, block.size - 1);
+        }
+
+        protected void prefetch() {
+            CompletableFuture<Block> future = new CompletableFuture<>();
+            if (nextBlock.compareAndSet(null, future)) {
+                Runnable fetch = () -> future.complete(fetchBlock());
+                if (AppContext.isStarted()) {
+                    // remote sequences require the user session of the client
+                    fetch = new SecurityContextAwareRunnable(fetch);
+                }
+                Runnable prefetchTask = fetch;
+                getExecutor().execute(() -> {
+                    try {
+                        prefetchTask.run();
+                        prefetchCount.incrementAndGet();
+                    } catch (Throwable e) {
+                        future.completeExceptionally(e);
+                    }
+                });
+            }
+        }
+
+        protected synchronized void switchBlock(Block exhausted) {
+            if (block != exhausted) {
+                // another thread has already switched the block
+                return;
+            }
+            long start = System.nanoTime();
+            try {
+                Block newBlock = null;
+                CompletableFuture<Block> future = nextBlock.getAndSet(null);
+                if (future != null) {
+                    try {
+                        newBlock = future.join();
+                    } catch (CompletionException | CancellationException e) {
+                        log.warn("Unable to prefetch ids for {}: {}", getCacheKey(entityName, sequenceName), e.toString());
+                    }
+                }
+                block = newBlock != null ? newBlock : fetchBlock();
+            } finally {
+                if (exhausted != null) {
+                    waitCount.incrementAndGet();
+                    waitTimeNanos.addAndGet(System.nanoTime() - start);
                 }
-                return next;
             }
         }
+
+        protected String printStatistics() {
+            Block current = block;
+            long remaining = current == null ? 0 : Math.max(0, current.lastValue - current.counter.get());
+            return String.format("fetched blocks: %d (in background: %d), waits: %d, wait time: %d ms, remaining ids: %d",
+                    fetchCount.get(), prefetchCount.get(), waitCount.get(),
+                    TimeUnit.NANOSECONDS.toMillis(waitTimeNanos.get()), remaining);
+        }
     }
 
     protected ConcurrentMap<String, Generator> cache = new ConcurrentHashMap<>();
 
+    protected volatile ExecutorService executor;
+
     @Inject
     protected GlobalConfig config;
 
@@ -118,6 +216,28 @@ public class NumberIdCache {
         return gen.getNext();
     }
 
+    /**
+     * @return statistics of fetching id blocks and waiting for them by sequence
+     */
+    public String printStatistics() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Generator> entry : new TreeMap<>(cache).entrySet()) {
+            sb.append(entry.getKey()).append(": ").append(entry.getValue().printStatistics()).append("\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return total time in milliseconds threads have waited for id blocks
+     */
+    public long getTotalWaitTimeMs() {
+        long nanos = 0;
+        for (Generator generator : cache.values()) {
+            nanos += generator.waitTimeNanos.get();
+        }
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
     /**
      * INTERNAL. Used by tests.
      */
@@ -125,7 +245,30 @@ public class NumberIdCache {
         cache.clear();
     }
 
+    @PreDestroy
+    protected void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    protected ExecutorService getExecutor() {
+        if (executor == null) {
+            synchronized (this) {
+                if (executor == null) {
+                    AtomicInteger threadNumber = new AtomicInteger();
+                    executor = Executors.newCachedThreadPool(r -> {
+                        Thread thread = new Thread(r, "NumberIdCachePrefetch-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return executor;
+    }
+
     protected String getCacheKey(String entityName, String sequenceName) {
         return sequenceName == null ? entityName : sequenceName;
     }
-}
\ No newline at end of file
+}
@@ -30,7 +30,11 @@ import com.haulmont.cuba.security.entity.EntityOp;
 import com.haulmont.cuba.security.entity.PermissionType;
 import com.haulmont.cuba.security.global.ConstraintData;
 import com.haulmont.cuba.security.global.UserSession;
+import groovy.lang.Binding;
+import groovy.lang.Script;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.Pair;
+import org.codehaus.groovy.runtime.InvokerHelper;
 import org.codehaus.groovy.runtime.MethodClosure;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -243,6 +247,20 @@ public class SecurityImpl implements Security {
         return scripting.evaluateGroovy(groovyScript.replace("{E}", "__entity__"), context);
     }
 
+    /**
+     * Creates an evaluator of in-memory constraints of the current user session for checking a number of entities,
+     * e.g. all instances loaded by a single query.
+     *
+     * @param predicate selects constraints to check
+     */
+    protected ConstraintsEvaluator createConstraintsEvaluator(Predicate<ConstraintData> predicate) {
+        Map<String, Object> context = new HashMap<>();
+        context.put("parse", new MethodClosure(this, "parseValue"));
+        context.put("userSession", userSessionSource.getUserSession());
+        fillGroovyConstraintsContext(context);
+        return new ConstraintsEvaluator(predicate, context);
+    }
+
     /**
      * Override if you need specific context variables in Groovy constraints.
      *
@@ -284,4 +302,83 @@ public class SecurityImpl implements Security {
                     "See the log for details.", clazz, string), null);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Checks in-memory constraints for many entities in one pass. Constraint scripts are compiled once by
+     * {@link Scripting#compileGroovy(String)}, constraints are resolved once for each meta-class, and the result is
+     * remembered for each entity id. Scripts checking an entity get a new binding filled from the evaluator context,
+     * so variables assigned by a script do not leak to other entities.
+     * <p>
+     * An evaluator is not thread-safe and must be used for a single load only.
+     */
+    protected class ConstraintsEvaluator {
+
+        protected final Predicate<ConstraintData> predicate;
+        protected final Map<String, Object> context;
+
+        protected Map<MetaClass, List<ConstraintData>> constraints = new HashMap<>();
+        protected Map<String, Class<? extends Script>> scriptClasses = new HashMap<>();
+        protected Map<Pair<String, Object>, Boolean> results = new HashMap<>();
+
+        public ConstraintsEvaluator(Predicate<ConstraintData> predicate, Map<String, Object> context) {
+            this.predicate = predicate;
+            this.context = context;
+        }
+
+        public boolean isPermitted(Entity entity) {
+            MetaClass metaClass = entity.getMetaClass();
+            List<ConstraintData> entityConstraints = constraints.computeIfAbsent(metaClass,
+                    key -> getConstraints(key, predicate));
+            if (entityConstraints.isEmpty()) {
+                return true;
+            }
+
+            Object id = entity.getId();
+            Pair<String, Object> key = id != null ? Pair.of(metaClass.getName(), id) : null;
+            if (key != null) {
+                Boolean permitted = results.get(key);
+                if (permitted != null) {
+                    return permitted;
+                }
+            }
+
+            Binding binding = new Binding(new HashMap<>(context));
+            binding.setVariable("__entity__", entity);
+
+            boolean permitted = true;
+            for (ConstraintData constraint : entityConstraints) {
+                if (!isPermitted(entity, constraint, binding)) {
+                    permitted = false;
+                    break;
+                }
+            }
+            if (key != null) {
+                results.put(key, permitted);
+            }
+            return permitted;
+        }
+
+        protected boolean isPermitted(Entity entity, ConstraintData constraint, Binding binding) {
+            String groovyScript = constraint.getGroovyScript();
+            if (!constraint.getCheckType().memory() || StringUtils.isBlank(groovyScript)) {
+                return true;
+            }
+            String metaClassName = entity.getMetaClass().getName();
+            try {
+                Class<? extends Script> scriptClass = scriptClasses.computeIfAbsent(groovyScript, text ->
+                        scripting.compileGroovy(text.replace("{E}", "__entity__")));
+                Object o = InvokerHelper.createScript(scriptClass, binding).run();
+                if (Boolean.FALSE.equals(o)) {
+                    log.trace("Entity does not match security constraint. Entity class [{}]. Entity [{}]. Constraint [{}].",
+                            metaClassName, entity.getId(), constraint.getCheckType());
+                    return false;
+                }
+            } catch (Exception e) {
+                log.error("An error occurred while applying constraint's Groovy script. The entity has been filtered out." +
+                        "Entity class [{}]. Entity [{}].", metaClassName, entity.getId(), e);
+                return false;
+            }
+            return true;
+        }
+    }
+}
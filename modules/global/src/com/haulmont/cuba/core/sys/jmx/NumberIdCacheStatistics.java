@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.sys.jmx;
+
+import com.haulmont.cuba.core.global.GlobalConfig;
+import com.haulmont.cuba.core.sys.NumberIdCache;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+
+@Component("cuba_NumberIdCacheStatisticsMBean")
+public class NumberIdCacheStatistics implements NumberIdCacheStatisticsMBean {
+
+    @Inject
+    protected NumberIdCache numberIdCache;
+
+    @Inject
+    protected GlobalConfig globalConfig;
+
+    @Override
+    public int getCacheSize() {
+        return globalConfig.getNumberIdCacheSize();
+    }
+
+    @Override
+    public int getPrefetchThreshold() {
+        return globalConfig.getNumberIdCachePrefetchThreshold();
+    }
+
+    @Override
+    public long getTotalWaitTimeMs() {
+        return numberIdCache.getTotalWaitTimeMs();
+    }
+
+    @Override
+    public String printStatistics() {
+        return numberIdCache.printStatistics();
+    }
+}
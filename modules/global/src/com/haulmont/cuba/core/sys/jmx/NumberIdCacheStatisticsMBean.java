@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.sys.jmx;
+
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+/**
+ * JMX interface for {@link com.haulmont.cuba.core.sys.NumberIdCache}.
+ */
+@ManagedResource(description = "Provides statistics of the cache of ids for entities with long/integer PK")
+public interface NumberIdCacheStatisticsMBean {
+
+    /**
+     * @return number of ids in a cached block
+     */
+    int getCacheSize();
+
+    /**
+     * @return number of remaining ids in a block when the next block is requested in background
+     */
+    int getPrefetchThreshold();
+
+    /**
+     * @return total time in milliseconds threads have waited for id blocks
+     */
+    long getTotalWaitTimeMs();
+
+    /**
+     * @return statistics of fetching id blocks and waiting for them by sequence
+     */
+    String printStatistics();
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.haulmont.cuba.core.sys.jmx;
+
+import com.haulmont.cuba.core.sys.jpql.QueryTreeCache;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+
+@Component("cuba_QueryTreeCacheStatisticsMBean")
+public class QueryTreeCacheStatistics implements QueryTreeCacheStatisticsMBean {
+
+    @Inject
+    protected QueryTreeCache queryTreeCache;
+
+    @Override
+    public int getMaxSize() {
+        return queryTreeCache.getMaxSize();
+    }
+
+    @Override
+    public long getTreeCount() {
+        return queryTreeCache.getTreeCount();
+    }
+
+    @Override
+    public long getTransformationCount() {
+        return queryTreeCache.getTransformationCount();
+    }
+
+    @Override
+    public long getParseCount() {
+        return queryTreeCache.getParseCount();
+    }
+
+    @Override
+    public long getTotalParseTimeMs() {
+        return queryTreeCache.getTotalParseTimeMs();
+    }
+
+    @Override
+    public String printStatistics() {
+        return queryTreeCache.printStatistics();
+    }
+
+    @Override
+    public void invalidateAll() {
+        queryTreeCache.invalidateAll();
+    }
+}
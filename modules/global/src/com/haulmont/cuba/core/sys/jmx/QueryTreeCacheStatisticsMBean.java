@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.haulmont.cuba.core.sys.jmx;
+
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+/**
+ * JMX interface for {@link com.haulmont.cuba.core.sys.jpql.QueryTreeCache}.
+ */
+@ManagedResource(description = "Provides statistics of the cache of parsed JPQL queries")
+public interface QueryTreeCacheStatisticsMBean {
+
+    /**
+     * @return maximum number of cached trees and maximum number of cached transformations
+     */
+    int getMaxSize();
+
+    /**
+     * @return number of cached query trees
+     */
+    long getTreeCount();
+
+    /**
+     * @return number of cached results of query transformations
+     */
+    long getTransformationCount();
+
+    /**
+     * @return number of parsed queries
+     */
+    long getParseCount();
+
+    /**
+     * @return total time in milliseconds spent on parsing queries
+     */
+    long getTotalParseTimeMs();
+
+    /**
+     * @return hit rates of the cache and parsing time
+     */
+    String printStatistics();
+
+    /**
+     * Discards all cached trees and transformations.
+     */
+    void invalidateAll();
+}
@@ -26,10 +26,12 @@ import org.antlr.runtime.tree.TreeVisitor;
 import org.antlr.runtime.tree.TreeVisitorAction;
 import org.apache.commons.lang3.StringUtils;
 
-
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Stream;
 
+import static java.lang.String.format;
+
 public class QueryTree {
     protected String queryString;
     protected DomainModel model;
@@ -56,6 +58,41 @@ public class QueryTree {
         new TreeVisitor().visit(tree, idVarSelector);
     }
 
+    protected QueryTree(QueryTree source) {
+        this.model = source.model;
+        this.queryString = source.queryString;
+        this.tree = BaseCustomNode.dupTree(source.tree);
+
+        this.idVarSelector = new IdVarSelector(model);
+        new TreeVisitor().visit(tree, idVarSelector);
+    }
+
+    /**
+     * Parses the query and checks that all identification variables are resolved.
+     *
+     * @throws JpqlSyntaxException if the query contains errors
+     */
+    public static QueryTree parse(DomainModel model, String query) {
+        QueryTree queryTree;
+        try {
+            queryTree = new QueryTree(model, query);
+        } catch (JPA2RecognitionException e) {
+            throw new JpqlSyntaxException(format("Errors found for input JPQL:[%s]\n%s", StringUtils.strip(query), e.getMessage()));
+        }
+        List<ErrorRec> errors = new ArrayList<>(queryTree.getInvalidIdVarNodes());
+        if (!errors.isEmpty()) {
+            throw new JpqlSyntaxException(format("Errors found for input JPQL:[%s]", StringUtils.strip(query)), errors);
+        }
+        return queryTree;
+    }
+
+    /**
+     * Creates a deep copy of this tree. The copy can be transformed without affecting the original tree.
+     */
+    public QueryTree copy() {
+        return new QueryTree(this);
+    }
+
     public DomainModel getModel() {
         return model;
     }
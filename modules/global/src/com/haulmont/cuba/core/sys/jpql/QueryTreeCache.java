@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.haulmont.cuba.core.sys.jpql;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.haulmont.cuba.core.global.GlobalConfig;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nullable;
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of parsed JPQL queries and results of their transformations.
+ * <p>
+ * Parsed trees are shared between threads and must not be modified: use {@link QueryTree#copy()} to get a tree
+ * which can be transformed. Results of transformations are cached by the source query text and the list of strings
+ * describing the transformation, for example texts of applied constraints.
+ * <p>
+ * The size of the cache is defined by the {@code cuba.jpqlQueryTreeCacheSize} application property.
+ */
+@Component(QueryTreeCache.NAME)
+public class QueryTreeCache {
+
+    public static final String NAME = "cuba_QueryTreeCache";
+
+    protected Cache<String, QueryTree> trees;
+    protected Cache<TransformationKey, Transformation> transformations;
+
+    protected AtomicLong parseCount = new AtomicLong();
+    protected AtomicLong parseTime = new AtomicLong();
+
+    @Inject
+    protected GlobalConfig globalConfig;
+
+    @PostConstruct
+    protected void init() {
+        int maxSize = globalConfig.getJpqlQueryTreeCacheSize();
+        trees = CacheBuilder.newBuilder().maximumSize(maxSize).recordStats().build();
+        transformations = CacheBuilder.newBuilder().maximumSize(maxSize).recordStats().build();
+    }
+
+    /**
+     * Returns the parsed tree of the query. The returned tree must not be modified.
+     *
+     * @throws JpqlSyntaxException if the query contains errors
+     */
+    public QueryTree getTree(DomainModel model, String query) {
+        QueryTree tree = trees.getIfPresent(query);
+        if (tree == null || tree.getModel() != model) {
+            tree = parse(model, query);
+            trees.put(query, tree);
+        }
+        return tree;
+    }
+
+    protected QueryTree parse(DomainModel model, String query) {
+        long start = System.nanoTime();
+        try {
+            return QueryTree.parse(model, query);
+        } finally {
+            parseCount.incrementAndGet();
+            parseTime.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Returns the cached result of the query transformation or null if it is not cached.
+     *
+     * @param query           source query
+     * @param transformations strings describing the transformation
+     */
+    @Nullable
+    public Transformation getTransformation(String query, List<String> transformations) {
+        return this.transformations.getIfPresent(new TransformationKey(query, transformations));
+    }
+
+    /**
+     * Caches the result of the query transformation.
+     *
+     * @param query           source query
+     * @param transformations strings describing the transformation
+     * @param result          transformed query
+     * @param addedParams     names of parameters added by the transformation
+     * @return cached result
+     */
+    public Transformation putTransformation(String query, List<String> transformations,
+                                            String result, Set<String> addedParams) {
+        Transformation transformation = new Transformation(result, addedParams);
+        this.transformations.put(new TransformationKey(query, transformations), transformation);
+        return transformation;
+    }
+
+    /**
+     * Discards all cached trees and transformations.
+     */
+    public void invalidateAll() {
+        trees.invalidateAll();
+        transformations.invalidateAll();
+    }
+
+    public int getMaxSize() {
+        return globalConfig.getJpqlQueryTreeCacheSize();
+    }
+
+    public long getTreeCount() {
+        return trees.size();
+    }
+
+    public long getTransformationCount() {
+        return transformations.size();
+    }
+
+    public long getParseCount() {
+        return parseCount.get();
+    }
+
+    public long getTotalParseTimeMs() {
+        return TimeUnit.NANOSECONDS.toMillis(parseTime.get());
+    }
+
+    public String printStatistics() {
+        CacheStats treeStats = trees.stats();
+        CacheStats transformationStats = transformations.stats();
+        long parses = parseCount.get();
+        return String.format("Trees: size=%d, hits=%d, misses=%d, hitRate=%.3f, evictions=%d\n" +
+                        "Transformations: size=%d, hits=%d, misses=%d, hitRate=%.3f, evictions=%d\n" +
+                        "Parsing: count=%d, totalTime=%dms, averageTime=%.3fms",
+                trees.size(), treeStats.hitCount(), treeStats.missCount(), treeStats.hitRate(),
+                treeStats.evictionCount(),
+                transformations.size(), transformationStats.hitCount(), transformationStats.missCount(),
+                transformationStats.hitRate(), transformationStats.evictionCount(),
+                parses, getTotalParseTimeMs(),
+                parses == 0 ? 0.0 : parseTime.get() / 1_000_000.0 / parses);
+    }
+
+    /**
+     * Result of a query transformation.
+     */
+    public static class Transformation {
+
+        protected final String result;
+        protected final Set<String> addedParams;
+
+        public Transformation(String result, Set<String> addedParams) {
+            this.result = result;
+            this.addedParams = Collections.unmodifiableSet(new HashSet<>(addedParams));
+        }
+
+        public String getResult() {
+            return result;
+        }
+
+        public Set<String> getAddedParams() {
+            return addedParams;
+        }
+    }
+
+    protected static class TransformationKey {
+
+        protected final String query;
+        protected final List<String> transformations;
+
+        public TransformationKey(String query, List<String> transformations) {
+            this.query = query;
+            this.transformations = new ArrayList<>(transformations);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            TransformationKey that = (TransformationKey) o;
+            return query.equals(that.query) && transformations.equals(that.transformations);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * query.hashCode() + transformations.hashCode();
+        }
+    }
+}
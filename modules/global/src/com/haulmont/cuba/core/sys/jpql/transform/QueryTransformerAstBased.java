@@ -32,11 +32,10 @@ import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
+import javax.inject.Inject;
 import java.util.*;
 import java.util.stream.Collectors;
 
-import static java.lang.String.format;
-
 @Scope(BeanDefinition.SCOPE_PROTOTYPE)
 @Component(QueryTransformer.NAME)
 public class QueryTransformerAstBased implements QueryTransformer {
@@ -47,6 +46,9 @@ public class QueryTransformerAstBased implements QueryTransformer {
     protected QueryTreeAnalyzer queryAnalyzer;
     protected Set<String> addedParams = new HashSet<>();
 
+    @Inject
+    protected QueryTreeCache queryTreeCache;
+
     public QueryTransformerAstBased(DomainModel model, String query) {
         this.model = model;
         this.query = query;
@@ -68,14 +70,11 @@ public class QueryTransformerAstBased implements QueryTransformer {
 
     protected QueryTree getTree() {
         if (queryTree == null) {
-            try {
-                queryTree = new QueryTree(model, query);
-            } catch (JPA2RecognitionException e) {
-                throw new JpqlSyntaxException(format("Errors found for input JPQL:[%s]\n%s", StringUtils.strip(query), e.getMessage()));
-            }
-            List<ErrorRec> errors = new ArrayList<>(queryTree.getInvalidIdVarNodes());
-            if (!errors.isEmpty()) {
-                throw new JpqlSyntaxException(format("Errors found for input JPQL:[%s]", StringUtils.strip(query)), errors);
+            if (queryTreeCache != null) {
+                // the cached tree is shared, so it is copied before transformations
+                queryTree = queryTreeCache.getTree(model, query).copy();
+            } else {
+                queryTree = QueryTree.parse(model, query);
             }
         }
         return queryTree;
@@ -210,6 +209,12 @@ public class QueryTransformerAstBased implements QueryTransformer {
         getTransformer().replaceWithCount(entityReference.createNode());
     }
 
+    @Override
+    public void replaceWithAggregate(String function, String property) {
+        EntityReference entityReference = createMainSelectedPathNodeReference();
+        getTransformer().replaceWithAggregate(function, entityReference.addFieldPath(property).createNode());
+    }
+
     @Override
     public void replaceWithSelectId() {
         getTransformer().replaceWithSelectId("id", getAnalyzer().getMainSelectedPathNode());
@@ -143,6 +143,40 @@ public class QueryTreeTransformer {
         queryTree.getAstTree().freshenParentAndChildIndexes();
     }
 
+    public void replaceWithAggregate(String function, Tree node) {
+        Tree selectedItems = queryTree.getAstSelectedItemsNode();
+        if (selectedItems.getChildCount() != 1 || "distinct".equalsIgnoreCase(selectedItems.getChild(0).getText()))
+            throw new IllegalStateException("Cannot replace with aggregate if distinct or multiple fields selected");
+
+        SelectedItemNode selectedItemNode = (SelectedItemNode) selectedItems.getChild(0);
+        AggregateExpressionNode aggregateNode = new AggregateExpressionNode(JPA2Lexer.T_AGGREGATE_EXPR);
+        aggregateNode.addChild(new CommonTree(new CommonToken(getAggregateFunctionType(function), function)));
+        aggregateNode.addChild(new CommonTree(new CommonToken(JPA2Lexer.LPAREN, "(")));
+        aggregateNode.addChild(node);
+        aggregateNode.addChild(new CommonTree(new CommonToken(JPA2Lexer.RPAREN, ")")));
+        selectedItemNode.deleteChild(0);
+        selectedItemNode.addChild(aggregateNode);
+
+        removeOrderBy();
+    }
+
+    protected int getAggregateFunctionType(String function) {
+        switch (function.toLowerCase()) {
+            case "avg":
+                return JPA2Lexer.AVG;
+            case "count":
+                return JPA2Lexer.COUNT;
+            case "max":
+                return JPA2Lexer.MAX;
+            case "min":
+                return JPA2Lexer.MIN;
+            case "sum":
+                return JPA2Lexer.SUM;
+            default:
+                throw new IllegalArgumentException("Unknown aggregate function: " + function);
+        }
+    }
+
     public void removeOrderBy() {
         Tree orderBy = queryTree.getAstTree().getFirstChildWithType(JPA2Lexer.T_ORDER_BY);
         if (orderBy != null) {
@@ -21,7 +21,6 @@ import com.haulmont.cuba.core.sys.jpql.ErrorRec;
 import com.haulmont.cuba.core.sys.jpql.QueryBuilder;
 import org.antlr.runtime.Token;
 import org.antlr.runtime.tree.CommonTree;
-import org.antlr.runtime.tree.Tree;
 
 import java.util.List;
 
@@ -53,10 +52,25 @@ public class BaseCustomNode extends CommonTree implements TreeToQueryCapable {
     }
 
     protected void dupChildren(CommonTree result) {
+        if (children == null) {
+            return;
+        }
         for (Object child : children) {
-            CommonTree t = (CommonTree) child;
-            Tree copy = t.dupNode();
-            result.addChild(copy);
+            result.addChild(dupTree((CommonTree) child));
+        }
+    }
+
+    /**
+     * Creates a deep copy of the tree. Custom nodes copy their children in {@code dupNode()}, children of other
+     * nodes are copied here.
+     */
+    public static CommonTree dupTree(CommonTree tree) {
+        CommonTree copy = (CommonTree) tree.dupNode();
+        if (!(tree instanceof BaseCustomNode) && tree.getChildCount() > 0) {
+            for (Object child : tree.getChildren()) {
+                copy.addChild(dupTree((CommonTree) child));
+            }
         }
+        return copy;
     }
 }
\ No newline at end of file
@@ -28,6 +28,13 @@ public class UpdateSetNode extends BaseCustomNode {
         super(t);
     }
 
+    @Override
+    public UpdateSetNode dupNode() {
+        UpdateSetNode result = new UpdateSetNode(token);
+        dupChildren(result);
+        return result;
+    }
+
     @Override
     public CommonTree treeToQueryPre(QueryBuilder sb, List<ErrorRec> invalidNodes) {
         sb.appendString(" ");
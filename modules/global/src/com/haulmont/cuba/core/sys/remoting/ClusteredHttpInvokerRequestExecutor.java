@@ -128,7 +128,11 @@ public class ClusteredHttpInvokerRequestExecutor extends SimpleHttpInvokerReques
 
     @Override
     protected RemoteInvocationResult doReadRemoteInvocationResult(ObjectInputStream ois) throws IOException, ClassNotFoundException {
-        return (RemoteInvocationResult) SerializationSupport.deserialize(ois);
+        RemoteInvocationResult result = (RemoteInvocationResult) SerializationSupport.deserialize(ois);
+        if (result.getValue() instanceof StreamedCollection) {
+            result.setValue(((StreamedCollection) result.getValue()).readElements(ois));
+        }
+        return result;
     }
 
     protected String printStopWatch(StopWatch sw) {
@@ -35,6 +35,7 @@ public class CubaRemoteInvocation extends RemoteInvocation {
     private TimeZone timeZone;
     private String address;
     private String clientInfo;
+    private int resultBatchSize;
 
     public CubaRemoteInvocation(MethodInvocation methodInvocation, UUID sessionId) {
         super(methodInvocation);
@@ -76,4 +77,17 @@ public class CubaRemoteInvocation extends RemoteInvocation {
     public void setClientInfo(String clientInfo) {
         this.clientInfo = clientInfo;
     }
+
+    /**
+     * @return number of collection elements sent between resets of the serialization stream if the client
+     * accepts a streamed collection result, 0 otherwise
+     * @see StreamedCollection
+     */
+    public int getResultBatchSize() {
+        return resultBatchSize;
+    }
+
+    public void setResultBatchSize(int resultBatchSize) {
+        this.resultBatchSize = resultBatchSize;
+    }
 }
\ No newline at end of file
@@ -19,13 +19,25 @@ package com.haulmont.cuba.core.sys.remoting;
 import com.haulmont.cuba.core.sys.AppContext;
 import com.haulmont.cuba.core.sys.SecurityContext;
 import com.haulmont.cuba.security.global.ClientBasedSession;
+import com.haulmont.cuba.core.sys.serialization.SerializationSupport;
 import com.haulmont.cuba.security.global.UserSession;
 import org.aopalliance.intercept.MethodInvocation;
 import org.springframework.remoting.support.RemoteInvocation;
 import org.springframework.remoting.support.RemoteInvocationFactory;
 
+import java.util.Collection;
+
 public class CubaRemoteInvocationFactory implements RemoteInvocationFactory {
 
+    protected int resultBatchSize;
+
+    public CubaRemoteInvocationFactory() {
+        String batchSizeProp = AppContext.getProperty("cuba.remoteResultStreamingBatchSize");
+        if (batchSizeProp != null && SerializationSupport.isStandardSerialization()) {
+            resultBatchSize = Integer.parseInt(batchSizeProp);
+        }
+    }
+
     @Override
     public RemoteInvocation createRemoteInvocation(MethodInvocation methodInvocation) {
         SecurityContext securityContext = AppContext.getSecurityContext();
@@ -44,6 +56,12 @@ public class CubaRemoteInvocationFactory implements RemoteInvocationFactory {
             }
         }
 
+        Class<?> returnType = methodInvocation.getMethod().getReturnType();
+        if (resultBatchSize > 0
+                && Collection.class.isAssignableFrom(returnType) && StreamedCollection.isSupportedType(returnType)) {
+            remoteInvocation.setResultBatchSize(resultBatchSize);
+        }
+
         return remoteInvocation;
     }
 }
\ No newline at end of file
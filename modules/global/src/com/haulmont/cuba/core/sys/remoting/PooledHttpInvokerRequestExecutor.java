@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.sys.remoting;
+
+import com.google.common.io.CountingInputStream;
+import com.haulmont.cuba.core.sys.remoting.discovery.ServerSelector;
+import com.haulmont.cuba.core.sys.serialization.SerializationSupport;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpPost;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.remoting.httpinvoker.HttpComponentsHttpInvokerRequestExecutor;
+import org.springframework.remoting.httpinvoker.HttpInvokerClientConfiguration;
+import org.springframework.remoting.support.RemoteInvocation;
+import org.springframework.remoting.support.RemoteInvocationResult;
+import org.springframework.util.StopWatch;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.URI;
+
+/**
+ * HttpInvokerRequestExecutor that executes a request on a server which is selected according to the current cluster
+ * topology, provided by {@link ServerSelector}, using keep-alive connections of {@link SharedHttpClient}.
+ */
+public class PooledHttpInvokerRequestExecutor extends HttpComponentsHttpInvokerRequestExecutor {
+
+    private ServerSelector serverSelector;
+
+    private static final Logger log = LoggerFactory.getLogger(PooledHttpInvokerRequestExecutor.class);
+
+    public PooledHttpInvokerRequestExecutor(ServerSelector serverSelector) {
+        super(SharedHttpClient.get());
+        this.serverSelector = serverSelector;
+    }
+
+    /**
+     * @return the current shared client, so that the executor keeps working if the client has been recreated
+     */
+    @Override
+    public HttpClient getHttpClient() {
+        return SharedHttpClient.get();
+    }
+
+    @Override
+    protected RemoteInvocationResult doExecuteRequest(HttpInvokerClientConfiguration config, ByteArrayOutputStream baos)
+            throws IOException, ClassNotFoundException {
+
+        Object context = serverSelector.initContext();
+        String url = currentServiceUrl(serverSelector.getUrl(context), config);
+        if (url == null)
+            throw new IllegalStateException("Server URL list is empty");
+
+        while (true) {
+            HttpPost postMethod = createHttpPost(config);
+            postMethod.setURI(URI.create(url));
+            setRequestBody(config, postMethod, baos);
+            try {
+                StopWatch sw = new StopWatch();
+                sw.start("waiting time");
+                HttpResponse response = executeHttpPost(config, getHttpClient(), postMethod);
+                validateResponse(config, response);
+                CountingInputStream responseInputStream = new CountingInputStream(getResponseBody(config, response));
+                sw.stop();
+
+                serverSelector.success(context);
+
+                sw.start("reading time");
+                RemoteInvocationResult result = readRemoteInvocationResult(responseInputStream, config.getCodebaseUrl());
+                sw.stop();
+                if (log.isDebugEnabled()) {
+                    log.debug(String.format("Receiving HTTP invoker response for service at [%s], with size %s, %s", config.getServiceUrl(),
+                            responseInputStream.getCount(), printStopWatch(sw)));
+                }
+                return result;
+            } catch (IOException e) {
+                log.info(String.format("Invocation of %s failed: %s", url, e));
+
+                serverSelector.fail(context);
+                url = currentServiceUrl(serverSelector.getUrl(context), config);
+                if (url != null) {
+                    log.info("Trying to invoke the next available URL: " + url);
+                    continue;
+                }
+                log.info("No more URL available");
+                throw e;
+            } finally {
+                postMethod.releaseConnection();
+            }
+        }
+    }
+
+    @Nullable
+    protected String currentServiceUrl(String url, HttpInvokerClientConfiguration config) {
+        return url == null ? null : url + "/" + config.getServiceUrl();
+    }
+
+    @Override
+    protected void doWriteRemoteInvocation(RemoteInvocation invocation, ObjectOutputStream oos) throws IOException {
+        SerializationSupport.serialize(invocation, oos);
+    }
+
+    @Override
+    protected RemoteInvocationResult doReadRemoteInvocationResult(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+        RemoteInvocationResult result = (RemoteInvocationResult) SerializationSupport.deserialize(ois);
+        if (result.getValue() instanceof StreamedCollection) {
+            result.setValue(((StreamedCollection) result.getValue()).readElements(ois));
+        }
+        return result;
+    }
+
+    protected String printStopWatch(StopWatch sw) {
+        StringBuilder sb = new StringBuilder();
+        StopWatch.TaskInfo[] tasks = sw.getTaskInfo();
+        for (int i = 0; i < tasks.length; i++) {
+            StopWatch.TaskInfo task = tasks[i];
+            sb.append(task.getTaskName()).append(" ").append(task.getTimeMillis());
+            if (i < tasks.length - 1) {
+                sb.append(", ");
+            }
+        }
+        return sb.toString();
+    }
+}
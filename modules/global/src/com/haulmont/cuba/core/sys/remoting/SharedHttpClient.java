@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.sys.remoting;
+
+import com.haulmont.cuba.core.sys.AppContext;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Static holder of the HTTP client with a pool of keep-alive connections, shared by all clients of the middleware
+ * in the current application block.
+ * <p>
+ * The pool is configured by the following application properties:
+ * <ul>
+ *     <li>{@code cuba.connectionPoolEnabled} - whether remote service invocations use the pool, false by default</li>
+ *     <li>{@code cuba.connectionPoolMaxTotal} - maximum number of connections in the pool</li>
+ *     <li>{@code cuba.connectionPoolMaxPerRoute} - maximum number of connections to one middleware server</li>
+ *     <li>{@code cuba.connectionPoolIdleTimeoutSec} - time after which idle connections are closed</li>
+ * </ul>
+ * Connection and read timeouts are taken from {@code cuba.connectionTimeout} and {@code cuba.connectionReadTimeout}.
+ * <p>
+ * The client and its connections are closed on application shutdown by an {@link AppContext.Listener}.
+ */
+public class SharedHttpClient {
+
+    private static final Logger log = LoggerFactory.getLogger(SharedHttpClient.class);
+
+    private static volatile CloseableHttpClient httpClient;
+
+    private static PoolingHttpClientConnectionManager connectionManager;
+
+    private static final AppContext.Listener SHUTDOWN_LISTENER = new AppContext.Listener() {
+        @Override
+        public void applicationStarted() {
+        }
+
+        @Override
+        public void applicationStopped() {
+            close();
+        }
+    };
+
+    /**
+     * @return true if remote service invocations should use the shared client
+     */
+    public static boolean isEnabled() {
+        return Boolean.valueOf(AppContext.getProperty("cuba.connectionPoolEnabled"));
+    }
+
+    /**
+     * @return the shared client, created on first invocation
+     */
+    public static CloseableHttpClient get() {
+        CloseableHttpClient client = httpClient;
+        if (client == null) {
+            synchronized (SharedHttpClient.class) {
+                client = httpClient;
+                if (client == null) {
+                    client = createHttpClient();
+                    httpClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    /**
+     * Closes the shared client and all its connections. The next invocation of {@link #get()} creates a new client.
+     */
+    public static void close() {
+        CloseableHttpClient client;
+        synchronized (SharedHttpClient.class) {
+            client = httpClient;
+            httpClient = null;
+            connectionManager = null;
+        }
+        if (client != null) {
+            log.info("Closing shared HTTP client");
+            try {
+                client.close();
+            } catch (IOException e) {
+                log.warn("Error closing shared HTTP client", e);
+            }
+        }
+    }
+
+    /**
+     * @return connection manager of the shared client or null if the client is not created yet
+     */
+    public static synchronized PoolingHttpClientConnectionManager getConnectionManager() {
+        return httpClient == null ? null : connectionManager;
+    }
+
+    /**
+     * @return statistics of the whole pool or null if the client is not created yet
+     */
+    public static PoolStats getTotalStats() {
+        PoolingHttpClientConnectionManager manager = getConnectionManager();
+        return manager == null ? null : manager.getTotalStats();
+    }
+
+    /**
+     * @return request configuration with the timeouts defined by application properties
+     */
+    public static RequestConfig createRequestConfig() {
+        int connectTimeout = getIntProperty("cuba.connectionTimeout", -1);
+        return RequestConfig.custom()
+                .setConnectTimeout(connectTimeout)
+                .setConnectionRequestTimeout(connectTimeout)
+                .setSocketTimeout(getIntProperty("cuba.connectionReadTimeout", -1))
+                .build();
+    }
+
+    private static CloseableHttpClient createHttpClient() {
+        connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(getIntProperty("cuba.connectionPoolMaxTotal", 100));
+        connectionManager.setDefaultMaxPerRoute(getIntProperty("cuba.connectionPoolMaxPerRoute", 20));
+
+        int idleTimeout = getIntProperty("cuba.connectionPoolIdleTimeoutSec", 60);
+
+        log.info("Creating shared HTTP client, max connections: {}, max connections per route: {}",
+                connectionManager.getMaxTotal(), connectionManager.getDefaultMaxPerRoute());
+
+        AppContext.addListener(SHUTDOWN_LISTENER);
+
+        return HttpClientBuilder.create()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(createRequestConfig())
+                .evictExpiredConnections()
+                .evictIdleConnections(idleTimeout, TimeUnit.SECONDS)
+                .build();
+    }
+
+    private static int getIntProperty(String name, int defaultValue) {
+        String value = AppContext.getProperty(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+}
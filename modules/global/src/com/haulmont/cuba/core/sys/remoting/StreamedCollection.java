@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.sys.remoting;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Placeholder of a collection returned by a remote service method, which is sent to the client element by element.
+ * <p>
+ * The placeholder is written to the stream as the value of the invocation result and is followed by the collection
+ * elements. The stream is reset after every batch of elements, so neither the server nor the client keeps references
+ * to all the objects in the serialization handle tables, and the client deserializes each batch as soon as
+ * it is received.
+ * <p>
+ * The client reads elements into an {@link ArrayList} or a {@link LinkedHashSet}, so the result is streamed only if
+ * the declared return type of the service method accepts these collections, see {@link #isSupportedType(Class)}.
+ * <p>
+ * Object identity is preserved only within a batch. Each batch is deserialized independently, so an object referenced
+ * by elements of different batches is transferred in each of these batches, and the client receives separate equal
+ * copies of it. For example, entities of different batches referencing the same related entity reference different
+ * instances of it on the client. The client code must not rely on identity of such objects.
+ * <p>
+ * The mode is enabled on the client by {@code cuba.remoteResultStreamingBatchSize} application property and works
+ * only with the standard Java serialization.
+ */
+public class StreamedCollection implements Serializable {
+
+    private static final long serialVersionUID = 7245961025718931655L;
+
+    protected final int size;
+    protected final boolean set;
+    protected final int batchSize;
+
+    protected transient Collection<?> collection;
+
+    public StreamedCollection(Collection<?> collection, int batchSize) {
+        this.collection = collection;
+        this.size = collection.size();
+        this.set = collection instanceof Set;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @return true if the collection can be streamed without changing its type for the client
+     */
+    public static boolean isSupported(Object value) {
+        return value instanceof List || value instanceof HashSet;
+    }
+
+    /**
+     * @param returnType declared return type of a service method
+     * @return true if the collection rebuilt by {@link #readElements(ObjectInputStream)} can be returned as the given
+     * type, i.e. the type is a supertype of {@link ArrayList} or {@link LinkedHashSet}
+     */
+    public static boolean isSupportedType(Class<?> returnType) {
+        return returnType.isAssignableFrom(ArrayList.class) || returnType.isAssignableFrom(LinkedHashSet.class);
+    }
+
+    /**
+     * Writes the collection elements after this placeholder.
+     */
+    public void writeElements(ObjectOutputStream oos) throws IOException {
+        oos.reset();
+        int count = 0;
+        for (Object element : collection) {
+            oos.writeObject(element);
+            if (++count % batchSize == 0) {
+                oos.reset();
+                oos.flush();
+            }
+        }
+    }
+
+    /**
+     * Reads the collection elements written after this placeholder.
+     */
+    public Collection<Object> readElements(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+        Collection<Object> result = set ? new LinkedHashSet<>(size) : new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(ois.readObject());
+        }
+        return result;
+    }
+}
@@ -65,6 +65,14 @@ public class SerializationSupport {
         return serialization.deserialize(bytes);
     }
 
+    /**
+     * @return true if objects are serialized by the standard Java serialization, which allows writing several
+     * objects to one {@link java.io.ObjectOutputStream} and reading them one by one
+     */
+    public static boolean isStandardSerialization() {
+        return serialization instanceof StandardSerialization;
+    }
+
     public static KryoSerialization getKryoSerialization() {
         return kryoSerialization;
     }
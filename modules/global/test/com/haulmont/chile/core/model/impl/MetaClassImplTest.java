@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.chile.core.model.impl;
+
+import com.haulmont.chile.core.datatypes.impl.StringDatatype;
+import com.haulmont.chile.core.model.MetaPropertyPath;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MetaClassImplTest {
+
+    private MetaClassImpl orderClass;
+    private MetaClassImpl customerClass;
+
+    @Before
+    public void setUp() {
+        MetaModelImpl model = new MetaModelImpl(new SessionImpl(), "test");
+        customerClass = new MetaClassImpl(model, "test$Customer");
+        orderClass = new MetaClassImpl(model, "test$Order");
+
+        MetaPropertyImpl name = new MetaPropertyImpl(customerClass, "name");
+        name.setRange(new DatatypeRange(new StringDatatype()));
+
+        MetaPropertyImpl customer = new MetaPropertyImpl(orderClass, "customer");
+        customer.setRange(new ClassRange(customerClass));
+    }
+
+    @Test
+    public void propertyPathIsCached() {
+        MetaPropertyPath path = orderClass.getPropertyPath("customer.name");
+
+        assertNotNull(path);
+        assertEquals("customer.name", path.toPathString());
+        assertSame(customerClass.getProperty("name"), path.getMetaProperty());
+        assertSame(path, orderClass.getPropertyPath("customer.name"));
+    }
+
+    @Test
+    public void invalidPathIsNotCached() {
+        assertNull(orderClass.getPropertyPath("number"));
+
+        MetaPropertyImpl number = new MetaPropertyImpl(orderClass, "number");
+        number.setRange(new DatatypeRange(new StringDatatype()));
+
+        assertNotNull(orderClass.getPropertyPath("number"));
+    }
+
+    @Test
+    public void pathsAreInvalidatedWhenPropertiesChange() {
+        MetaPropertyPath path = customerClass.getPropertyPath("name");
+
+        MetaPropertyImpl name = new MetaPropertyImpl(customerClass, "name");
+        name.setRange(new DatatypeRange(new StringDatatype()));
+
+        MetaPropertyPath newPath = customerClass.getPropertyPath("name");
+        assertNotSame(path, newPath);
+        assertSame(name, newPath.getMetaProperty());
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.chile.core.model.utils;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class MethodsCacheTest {
+
+    @Test
+    public void accessors() {
+        MethodsCache cache = new MethodsCache(Bean.class);
+        Bean bean = new Bean();
+
+        cache.invokeSetter(bean, "name", "abc");
+        cache.invokeSetter(bean, "count", 10);
+        cache.invokeSetter(bean, "active", true);
+        cache.invokeSetter(bean, "code", "X1");
+
+        assertEquals("abc", bean.getName());
+        assertEquals(10, bean.getCount());
+        assertTrue(bean.isActive());
+        assertEquals("X1", bean.getCode());
+
+        assertEquals("abc", cache.invokeGetter(bean, "name"));
+        assertEquals(10, cache.invokeGetter(bean, "count"));
+        assertEquals(true, cache.invokeGetter(bean, "active"));
+        assertEquals("X1", cache.invokeGetter(bean, "code"));
+        assertSame(cache.getGetter("name"), cache.getGetter("name"));
+    }
+
+    @Test
+    public void missingAccessor() {
+        MethodsCache cache = new MethodsCache(Bean.class);
+
+        assertNull(cache.getGetter("unknown"));
+        assertNull(cache.getSetter("unknown"));
+        try {
+            cache.invokeGetter(new Bean(), "unknown");
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void lambdaAccessorsAreDefinedInOwnerClass() {
+        // lambdas are used since Java 9, Java 8 uses method handles
+        Assume.assumeTrue(Arrays.stream(MethodHandles.class.getMethods())
+                .anyMatch(method -> method.getName().equals("privateLookupIn")));
+
+        MethodsCache cache = new MethodsCache(Bean.class);
+
+        assertTrue(cache.getGetter("name").getClass().getName().startsWith(Bean.class.getName()));
+        assertTrue(cache.getSetter("name").getClass().getName().startsWith(Bean.class.getName()));
+        assertTrue(cache.getGetter("code").getClass().getName().startsWith(BaseBean.class.getName()));
+    }
+
+    @Test
+    public void exceptionFromAccessorIsWrapped() {
+        MethodsCache cache = new MethodsCache(Bean.class);
+        try {
+            cache.invokeGetter(new Bean(), "failing");
+            fail();
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof InvocationTargetException);
+            assertTrue(e.getCause().getCause() instanceof IllegalStateException);
+        }
+        try {
+            cache.invokeSetter(new Bean(), "failing", "abc");
+            fail();
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof InvocationTargetException);
+            assertTrue(e.getCause().getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void exceptionFromRawAccessorIsNotWrapped() {
+        MethodsCache cache = new MethodsCache(Bean.class);
+        try {
+            cache.getGetter("failing").apply(new Bean());
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("failing", e.getMessage());
+        }
+    }
+
+    @Test
+    public void invalidValueOfSetter() {
+        MethodsCache cache = new MethodsCache(Bean.class);
+        Bean bean = new Bean();
+        try {
+            cache.invokeSetter(bean, "count", null);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            cache.invokeSetter(bean, "name", 10);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void wideningConversionOfSetterValue() {
+        MethodsCache cache = new MethodsCache(Bean.class);
+        Bean bean = new Bean();
+
+        cache.invokeSetter(bean, "total", 10);
+        assertEquals(10L, bean.getTotal());
+    }
+
+    public static class BaseBean {
+        private String code;
+
+        public String getCode() {
+            return code;
+        }
+
+        public void setCode(String code) {
+            this.code = code;
+        }
+    }
+
+    public static class Bean extends BaseBean {
+        private String name;
+        private int count;
+        private boolean active;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public void setActive(boolean active) {
+            this.active = active;
+        }
+
+        private long total;
+
+        public long getTotal() {
+            return total;
+        }
+
+        public void setTotal(long total) {
+            this.total = total;
+        }
+
+        public String getFailing() {
+            throw new IllegalStateException("failing");
+        }
+
+        public void setFailing(String failing) {
+            throw new IllegalStateException("failing");
+        }
+    }
+}
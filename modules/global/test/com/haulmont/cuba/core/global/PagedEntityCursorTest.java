@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.haulmont.cuba.core.global;
+
+import com.haulmont.cuba.core.entity.KeyValueEntity;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class PagedEntityCursorTest {
+
+    private List<KeyValueEntity> storage = createEntities(25);
+    private List<Integer> requestedPages = new ArrayList<>();
+
+    @Test
+    public void iteratesOverAllPages() {
+        LoadContext<KeyValueEntity> context = createContext(0, 0);
+
+        List<KeyValueEntity> loaded = new ArrayList<>();
+        try (EntityCursor<KeyValueEntity> cursor = new PagedEntityCursor<>(context, 10, this::loadPage)) {
+            cursor.forEachRemaining(loaded::add);
+        }
+
+        assertEquals(storage, loaded);
+        assertEquals(3, requestedPages.size());
+        assertEquals(0, context.getQuery().getFirstResult());
+        assertEquals(0, context.getQuery().getMaxResults());
+    }
+
+    @Test
+    public void respectsFirstAndMaxResults() {
+        LoadContext<KeyValueEntity> context = createContext(5, 12);
+
+        List<KeyValueEntity> loaded;
+        try (EntityCursor<KeyValueEntity> cursor = new PagedEntityCursor<>(context, 10, this::loadPage)) {
+            loaded = cursor.stream().collect(Collectors.toList());
+        }
+
+        assertEquals(storage.subList(5, 17), loaded);
+        assertEquals(2, requestedPages.size());
+        assertEquals(5, context.getQuery().getFirstResult());
+        assertEquals(12, context.getQuery().getMaxResults());
+    }
+
+    @Test
+    public void closedCursorHasNoElements() {
+        EntityCursor<KeyValueEntity> cursor = new PagedEntityCursor<>(createContext(0, 0), 10, this::loadPage);
+        assertTrue(cursor.hasNext());
+        cursor.close();
+
+        assertFalse(cursor.hasNext());
+        assertFalse(EntityCursor.empty().hasNext());
+    }
+
+    private List<KeyValueEntity> loadPage(LoadContext<KeyValueEntity> context) {
+        LoadContext.Query query = context.getQuery();
+        requestedPages.add(query.getFirstResult());
+        int from = Math.min(query.getFirstResult(), storage.size());
+        int to = Math.min(query.getFirstResult() + query.getMaxResults(), storage.size());
+        return new ArrayList<>(storage.subList(from, to));
+    }
+
+    private LoadContext<KeyValueEntity> createContext(int firstResult, int maxResults) {
+        LoadContext<KeyValueEntity> context = new LoadContext<>();
+        context.setQueryString("select e from test$Entity e")
+                .setFirstResult(firstResult)
+                .setMaxResults(maxResults);
+        return context;
+    }
+
+    private static List<KeyValueEntity> createEntities(int count) {
+        List<KeyValueEntity> entities = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            entities.add(new KeyValueEntity());
+        }
+        return entities;
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.sys;
+
+import com.haulmont.chile.core.model.MetaClass;
+import com.haulmont.chile.core.model.impl.MetaClassImpl;
+import com.haulmont.chile.core.model.impl.MetaModelImpl;
+import com.haulmont.chile.core.model.impl.SessionImpl;
+import com.haulmont.cuba.core.entity.KeyValueEntity;
+import com.haulmont.cuba.core.global.ExtendedEntities;
+import com.haulmont.cuba.core.global.Scripting;
+import com.haulmont.cuba.core.global.UserSessionSource;
+import com.haulmont.cuba.core.global.UuidProvider;
+import com.haulmont.cuba.security.entity.Constraint;
+import com.haulmont.cuba.security.entity.ConstraintCheckType;
+import com.haulmont.cuba.security.entity.ConstraintOperationType;
+import com.haulmont.cuba.security.global.ConstraintData;
+import com.haulmont.cuba.security.global.UserSession;
+import groovy.lang.GroovyShell;
+import groovy.lang.Script;
+import mockit.Delegate;
+import mockit.Expectations;
+import mockit.Mocked;
+import mockit.Verifications;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class ConstraintsEvaluatorTest {
+
+    @Mocked
+    private UuidProvider uuidProvider;
+
+    @Mocked
+    private UserSessionSource userSessionSource;
+
+    @Mocked
+    private UserSession userSession;
+
+    @Mocked
+    private ExtendedEntities extendedEntities;
+
+    @Mocked
+    private Scripting scripting;
+
+    private Map<String, List<ConstraintData>> constraints = new HashMap<>();
+
+    private MetaClass itemMetaClass;
+    private MetaClass orderMetaClass;
+
+    private SecurityImpl security;
+
+    @Before
+    public void setUp() {
+        MetaModelImpl model = new MetaModelImpl(new SessionImpl(), "test");
+        itemMetaClass = new MetaClassImpl(model, "test$Item");
+        orderMetaClass = new MetaClassImpl(model, "test$Order");
+
+        new Expectations() {{
+            userSessionSource.getUserSession(); result = userSession; minTimes = 0;
+            userSession.getConstraints(anyString); minTimes = 0;
+            result = new Delegate<List<ConstraintData>>() {
+                @SuppressWarnings("unused")
+                List<ConstraintData> getConstraints(String entityName) {
+                    return constraints.getOrDefault(entityName, Collections.emptyList());
+                }
+            };
+            extendedEntities.getOriginalOrThisMetaClass((MetaClass) any); minTimes = 0;
+            result = new Delegate<MetaClass>() {
+                @SuppressWarnings("unused")
+                MetaClass getOriginalOrThisMetaClass(MetaClass metaClass) {
+                    return metaClass;
+                }
+            };
+            scripting.compileGroovy(anyString); minTimes = 0;
+            result = new Delegate<Class<? extends Script>>() {
+                @SuppressWarnings("unused")
+                Class<? extends Script> compileGroovy(String text) {
+                    return new GroovyShell().parse(text).getClass();
+                }
+            };
+        }};
+
+        security = new SecurityImpl();
+        security.userSessionSource = userSessionSource;
+        security.extendedEntities = extendedEntities;
+        security.scripting = scripting;
+    }
+
+    @Test
+    public void testFilter() {
+        addConstraint("test$Item", "{E}.getValue('value') > 1", ConstraintCheckType.MEMORY);
+        addConstraint("test$Item", "{E}.getValue('value') < 10", ConstraintCheckType.DATABASE_AND_MEMORY);
+        // database constraints are not checked in memory
+        addConstraint("test$Item", "false", ConstraintCheckType.DATABASE);
+
+        SecurityImpl.ConstraintsEvaluator evaluator = createEvaluator();
+
+        assertFalse(evaluator.isPermitted(item(1, 1)));
+        assertTrue(evaluator.isPermitted(item(2, 5)));
+        assertFalse(evaluator.isPermitted(item(3, 10)));
+        // entities without constraints
+        assertTrue(evaluator.isPermitted(order(1)));
+
+        new Verifications() {{
+            // each script is compiled once for the evaluator
+            scripting.compileGroovy(anyString);
+            times = 2;
+            // constraints are resolved once for each meta-class
+            userSession.getConstraints("test$Item");
+            times = 1;
+            userSession.getConstraints("test$Order");
+            times = 1;
+        }};
+    }
+
+    @Test
+    public void testPredicate() {
+        addConstraint("test$Item", "false", ConstraintCheckType.MEMORY);
+
+        SecurityImpl.ConstraintsEvaluator evaluator = security.createConstraintsEvaluator(constraint ->
+                constraint.getOperationType() == ConstraintOperationType.UPDATE);
+
+        assertTrue(evaluator.isPermitted(item(1, 1)));
+    }
+
+    @Test
+    public void testResultsRememberedById() {
+        addConstraint("test$Item", "{E}.getValue('value') > 1", ConstraintCheckType.MEMORY);
+        addConstraint("test$Order", "{E}.getValue('value') > 1", ConstraintCheckType.MEMORY);
+
+        SecurityImpl.ConstraintsEvaluator evaluator = createEvaluator();
+
+        assertFalse(evaluator.isPermitted(item(1, 1)));
+        // another instance with the same id is not checked again
+        assertFalse(evaluator.isPermitted(item(1, 5)));
+        // the same id of another meta-class
+        KeyValueEntity order = order(1);
+        order.setValue("value", 5);
+        assertTrue(evaluator.isPermitted(order));
+
+        // entities without id are always checked
+        assertFalse(evaluator.isPermitted(item(null, 1)));
+        assertTrue(evaluator.isPermitted(item(null, 5)));
+
+        // a new evaluator does not know previous results
+        assertTrue(createEvaluator().isPermitted(item(1, 5)));
+    }
+
+    @Test
+    public void testBindingPerEntity() {
+        // the first constraint assigns a binding variable which is visible to other constraints of the same entity only
+        addConstraint("test$Item", "if (binding.hasVariable('checked')) return false; checked = {E}.id; return true",
+                ConstraintCheckType.MEMORY);
+        addConstraint("test$Item", "checked == {E}.id && userSession != null", ConstraintCheckType.MEMORY);
+
+        SecurityImpl.ConstraintsEvaluator evaluator = createEvaluator();
+
+        assertTrue(evaluator.isPermitted(item(1, 1)));
+        assertTrue(evaluator.isPermitted(item(2, 1)));
+        assertTrue(evaluator.isPermitted(item(3, 1)));
+    }
+
+    @Test
+    public void testScriptError() {
+        addConstraint("test$Item", "{E}.getValue('value').foo()", ConstraintCheckType.MEMORY);
+
+        SecurityImpl.ConstraintsEvaluator evaluator = createEvaluator();
+
+        assertFalse(evaluator.isPermitted(item(1, 1)));
+    }
+
+    private SecurityImpl.ConstraintsEvaluator createEvaluator() {
+        return security.createConstraintsEvaluator(constraint -> constraint.getCheckType().memory());
+    }
+
+    private void addConstraint(String entityName, String groovyScript, ConstraintCheckType checkType) {
+        Constraint constraint = new Constraint();
+        constraint.setEntityName(entityName);
+        constraint.setGroovyScript(groovyScript);
+        constraint.setCheckType(checkType);
+        constraint.setOperationType(ConstraintOperationType.READ);
+        constraints.computeIfAbsent(entityName, name -> new ArrayList<>()).add(new ConstraintData(constraint));
+    }
+
+    private KeyValueEntity item(Object id, int value) {
+        KeyValueEntity entity = new KeyValueEntity();
+        entity.setMetaClass(itemMetaClass);
+        entity.setIdName("id");
+        entity.setId(id);
+        entity.setValue("value", value);
+        return entity;
+    }
+
+    private KeyValueEntity order(Object id) {
+        KeyValueEntity entity = new KeyValueEntity();
+        entity.setMetaClass(orderMetaClass);
+        entity.setIdName("id");
+        entity.setId(id);
+        return entity;
+    }
+}
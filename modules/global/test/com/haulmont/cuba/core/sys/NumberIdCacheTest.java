@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.sys;
+
+import com.haulmont.cuba.core.global.GlobalConfig;
+import mockit.Expectations;
+import mockit.Mocked;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class NumberIdCacheTest {
+
+    private static final int CACHE_SIZE = 100;
+
+    @Mocked
+    private GlobalConfig config;
+
+    private NumberIdCache numberIdCache;
+    private TestSequence sequence;
+
+    @Before
+    public void setUp() {
+        new Expectations() {{
+            config.getNumberIdCacheSize(); result = CACHE_SIZE; minTimes = 0;
+        }};
+
+        numberIdCache = new NumberIdCache();
+        numberIdCache.config = config;
+        sequence = new TestSequence();
+    }
+
+    @Test
+    public void testSequentialIds() {
+        setPrefetchThreshold(0);
+        NumberIdCache.Generator generator = numberIdCache.new Generator("test$Entity", null, true, sequence);
+
+        for (long i = 1; i <= CACHE_SIZE * 3; i++) {
+            assertEquals(i, generator.getNext());
+        }
+        assertEquals(3, sequence.calls.get());
+        assertEquals(2, generator.waitCount.get());
+        assertEquals(0, generator.prefetchCount.get());
+    }
+
+    @Test
+    public void testPrefetch() throws Exception {
+        setPrefetchThreshold(20);
+        NumberIdCache.Generator generator = numberIdCache.new Generator("test$Entity", null, true, sequence);
+
+        for (long i = 1; i <= CACHE_SIZE - 20; i++) {
+            assertEquals(i, generator.getNext());
+        }
+        // the next block is requested in background
+        generator.nextBlock.get().get(10, TimeUnit.SECONDS);
+        assertEquals(2, sequence.calls.get());
+
+        for (long i = CACHE_SIZE - 19; i <= CACHE_SIZE * 2; i++) {
+            assertEquals(i, generator.getNext());
+        }
+        assertEquals(1, generator.prefetchCount.get());
+    }
+
+    @Test
+    public void testConcurrentIds() throws Exception {
+        setPrefetchThreshold(20);
+        NumberIdCache.Generator generator = numberIdCache.new Generator("test$Entity", null, true, sequence);
+
+        int threads = 8;
+        int idsPerThread = 10000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch latch = new CountDownLatch(threads);
+            for (int t = 0; t < threads; t++) {
+                executor.execute(() -> {
+                    try {
+                        for (int i = 0; i < idsPerThread; i++) {
+                            ids.add(generator.getNext());
+                        }
+                    } finally {
+                        latch.countDown();
+                    }
+                });
+            }
+            assertTrue(latch.await(30, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(threads * idsPerThread, ids.size());
+        assertEquals(threads * idsPerThread / CACHE_SIZE, sequence.calls.get(), 1);
+    }
+
+    @Test
+    public void testNotCached() {
+        NumberIdCache.Generator generator = numberIdCache.new Generator("test$Entity", null, false, sequence);
+
+        assertEquals(1, generator.getNext());
+        assertEquals(2, generator.getNext());
+        assertEquals(0, sequence.calls.get());
+    }
+
+    private void setPrefetchThreshold(int prefetchThreshold) {
+        new Expectations() {{
+            config.getNumberIdCachePrefetchThreshold(); result = prefetchThreshold; minTimes = 0;
+        }};
+    }
+
+    private static class TestSequence implements NumberIdSequence {
+
+        private AtomicLong value = new AtomicLong();
+        private AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public Long createLongId(String entityName, String sequenceName) {
+            return value.incrementAndGet();
+        }
+
+        @Override
+        public Long createCachedLongId(String entityName, String sequenceName) {
+            calls.incrementAndGet();
+            return value.getAndAdd(CACHE_SIZE);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.sys.jpql;
+
+import com.haulmont.cuba.core.sys.jpql.model.EntityBuilder;
+import com.haulmont.cuba.core.sys.jpql.transform.QueryTreeTransformer;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class QueryTreeTest {
+
+    @Test
+    public void copyIsIndependentOfOriginal() {
+        EntityBuilder builder = new EntityBuilder();
+        DomainModel model = new DomainModel(builder.produceImmediately("sec$User", "name", "login"));
+
+        QueryTree original = QueryTree.parse(model,
+                "select distinct u from sec$User u where u.name = :name order by u.login");
+        String originalQuery = original.visit(new TreeToQuery()).getQueryString().trim();
+
+        QueryTree copy = original.copy();
+        QueryTreeTransformer transformer = new QueryTreeTransformer(copy);
+        transformer.removeDistinct();
+        transformer.removeOrderBy();
+
+        assertEquals("select u from sec$User u where u.name = :name",
+                copy.visit(new TreeToQuery()).getQueryString().trim());
+        assertEquals(originalQuery, original.visit(new TreeToQuery()).getQueryString().trim());
+        assertEquals("sec$User", copy.getQueryVariableContext().getEntityByVariableName("u").getName());
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.sys.remoting;
+
+import com.haulmont.cuba.core.sys.AppContext;
+import mockit.Expectations;
+import mockit.Mocked;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
+public class CubaRemoteInvocationFactoryTest {
+
+    @Mocked
+    private AppContext appContext;
+
+    @Mocked
+    private MethodInvocation methodInvocation;
+
+    private CubaRemoteInvocationFactory factory;
+
+    @SuppressWarnings("unused")
+    private interface TestService {
+        List<String> list();
+
+        Collection<String> collection();
+
+        Set<String> set();
+
+        LinkedList<String> linkedList();
+
+        Deque<String> deque();
+
+        SortedSet<String> sortedSet();
+
+        String string();
+    }
+
+    @Before
+    public void setUp() {
+        new Expectations() {{
+            AppContext.getProperty("cuba.remoteResultStreamingBatchSize"); result = "100"; minTimes = 0;
+        }};
+        factory = new CubaRemoteInvocationFactory();
+    }
+
+    @Test
+    public void testResultBatchSize() throws Exception {
+        assertEquals(100, getResultBatchSize("list"));
+        assertEquals(100, getResultBatchSize("collection"));
+        assertEquals(100, getResultBatchSize("set"));
+
+        // the client would rebuild these collections with a different type
+        assertEquals(0, getResultBatchSize("linkedList"));
+        assertEquals(0, getResultBatchSize("deque"));
+        assertEquals(0, getResultBatchSize("sortedSet"));
+
+        assertEquals(0, getResultBatchSize("string"));
+    }
+
+    private int getResultBatchSize(String methodName) throws Exception {
+        new Expectations() {{
+            methodInvocation.getMethod(); result = TestService.class.getMethod(methodName);
+            methodInvocation.getArguments(); result = new Object[0]; minTimes = 0;
+        }};
+        return ((CubaRemoteInvocation) factory.createRemoteInvocation(methodInvocation)).getResultBatchSize();
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.sys.remoting;
+
+import com.haulmont.cuba.core.sys.AppContext;
+import com.haulmont.cuba.core.sys.remoting.discovery.ServerSelector;
+import com.haulmont.cuba.core.sys.serialization.SerializationSupport;
+import com.sun.net.httpserver.HttpServer;
+import mockit.Mocked;
+import mockit.Verifications;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.pool.PoolStats;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.remoting.httpinvoker.HttpInvokerClientConfiguration;
+import org.springframework.remoting.support.RemoteInvocation;
+import org.springframework.remoting.support.RemoteInvocationResult;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class PooledHttpInvokerRequestExecutorTest {
+
+    @Mocked
+    private AppContext appContext;
+
+    private HttpServer server;
+
+    private Set<Integer> clientPorts = Collections.synchronizedSet(new HashSet<>());
+
+    private HttpInvokerClientConfiguration config = new HttpInvokerClientConfiguration() {
+        @Override
+        public String getServiceUrl() {
+            return "test_Service";
+        }
+
+        @Override
+        public String getCodebaseUrl() {
+            return null;
+        }
+    };
+
+    @Before
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/remoting/test_Service", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            RemoteInvocation invocation;
+            try (ObjectInputStream ois = new ObjectInputStream(exchange.getRequestBody())) {
+                invocation = (RemoteInvocation) SerializationSupport.deserialize(ois);
+            }
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+                SerializationSupport.serialize(
+                        new RemoteInvocationResult(invocation.getMethodName() + Arrays.toString(invocation.getArguments())), oos);
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/x-java-serialized-object");
+            exchange.sendResponseHeaders(200, bos.size());
+            try (OutputStream os = exchange.getResponseBody()) {
+                bos.writeTo(os);
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        SharedHttpClient.close();
+    }
+
+    @Test
+    public void testConnectionsAreReused() throws Exception {
+        PooledHttpInvokerRequestExecutor executor = new PooledHttpInvokerRequestExecutor(new TestServerSelector(serverUrl()));
+
+        for (int i = 0; i < 3; i++) {
+            RemoteInvocationResult result = executor.executeRequest(config, createInvocation(i));
+            assertEquals("test[" + i + "]", result.getValue());
+        }
+
+        assertEquals(1, clientPorts.size());
+        PoolStats stats = SharedHttpClient.getTotalStats();
+        assertNotNull(stats);
+        assertEquals(0, stats.getLeased());
+        assertEquals(1, stats.getAvailable());
+    }
+
+    @Test
+    public void testFailover() throws Exception {
+        TestServerSelector serverSelector = new TestServerSelector(unavailableUrl(), serverUrl());
+        PooledHttpInvokerRequestExecutor executor = new PooledHttpInvokerRequestExecutor(serverSelector);
+
+        RemoteInvocationResult result = executor.executeRequest(config, createInvocation(1));
+
+        assertEquals("test[1]", result.getValue());
+        assertEquals(1, serverSelector.failures);
+        assertEquals(1, serverSelector.successes);
+    }
+
+    @Test(expected = IOException.class)
+    public void testNoAvailableServers() throws Exception {
+        TestServerSelector serverSelector = new TestServerSelector(unavailableUrl());
+        PooledHttpInvokerRequestExecutor executor = new PooledHttpInvokerRequestExecutor(serverSelector);
+
+        executor.executeRequest(config, createInvocation(1));
+    }
+
+    @Test
+    public void testClientIsClosedOnApplicationStop() throws Exception {
+        PooledHttpInvokerRequestExecutor executor = new PooledHttpInvokerRequestExecutor(new TestServerSelector(serverUrl()));
+        CloseableHttpClient client = SharedHttpClient.get();
+        executor.executeRequest(config, createInvocation(1));
+
+        List<AppContext.Listener> listeners = new ArrayList<>();
+        new Verifications() {{
+            AppContext.addListener(withCapture(listeners));
+        }};
+        assertEquals(1, listeners.size());
+
+        listeners.get(0).applicationStopped();
+
+        assertNull(SharedHttpClient.getConnectionManager());
+        assertNull(SharedHttpClient.getTotalStats());
+
+        // the executor switches to a new client
+        assertNotSame(client, executor.getHttpClient());
+        RemoteInvocationResult result = executor.executeRequest(config, createInvocation(2));
+        assertEquals("test[2]", result.getValue());
+    }
+
+    private RemoteInvocation createInvocation(int arg) {
+        RemoteInvocation invocation = new RemoteInvocation();
+        invocation.setMethodName("test");
+        invocation.setParameterTypes(new Class[]{Integer.class});
+        invocation.setArguments(new Object[]{arg});
+        return invocation;
+    }
+
+    private String serverUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + "/remoting";
+    }
+
+    private String unavailableUrl() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        return "http://localhost:" + port + "/remoting";
+    }
+
+    private static class TestServerSelector implements ServerSelector {
+
+        private final List<String> urls;
+        private int current;
+        private int failures;
+        private int successes;
+
+        TestServerSelector(String... urls) {
+            this.urls = Arrays.asList(urls);
+        }
+
+        @Override
+        public Object initContext() {
+            current = 0;
+            return null;
+        }
+
+        @Override
+        public String getUrl(Object context) {
+            return current < urls.size() ? urls.get(current) : null;
+        }
+
+        @Override
+        public void success(Object context) {
+            successes++;
+        }
+
+        @Override
+        public void fail(Object context) {
+            failures++;
+            current++;
+        }
+    }
+}
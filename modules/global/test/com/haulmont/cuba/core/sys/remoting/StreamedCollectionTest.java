@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.sys.remoting;
+
+import org.junit.Test;
+import org.springframework.remoting.support.RemoteInvocationResult;
+
+import java.io.*;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class StreamedCollectionTest {
+
+    @Test
+    public void testList() throws Exception {
+        List<String> list = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            list.add("item" + i);
+        }
+
+        Object value = transfer(list, 10);
+
+        assertTrue(value instanceof ArrayList);
+        assertEquals(list, value);
+    }
+
+    @Test
+    public void testSet() throws Exception {
+        Set<Integer> set = new LinkedHashSet<>(Arrays.asList(3, 1, 2));
+
+        Object value = transfer(set, 2);
+
+        assertTrue(value instanceof LinkedHashSet);
+        assertEquals(Arrays.asList(3, 1, 2), new ArrayList<>((Set) value));
+    }
+
+    @Test
+    public void testSharedObjectsAreCopiedBetweenBatches() throws Exception {
+        Date shared = new Date();
+        List<Date> list = Arrays.asList(shared, shared, shared);
+
+        List value = (List) transfer(list, 2);
+
+        assertSame(value.get(0), value.get(1));
+        assertNotSame(value.get(1), value.get(2));
+        assertEquals(value.get(1), value.get(2));
+    }
+
+    @Test
+    public void testIdentityWithinBatch() throws Exception {
+        Date shared = new Date();
+        List<Object> list = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            list.add(Arrays.asList(i, shared));
+        }
+
+        List value = (List) transfer(list, 5);
+
+        for (int i = 1; i < 5; i++) {
+            assertSame(((List) value.get(0)).get(1), ((List) value.get(i)).get(1));
+            assertSame(((List) value.get(5)).get(1), ((List) value.get(5 + i)).get(1));
+        }
+        assertNotSame(((List) value.get(4)).get(1), ((List) value.get(5)).get(1));
+    }
+
+    @Test
+    public void testSupportedTypes() {
+        assertTrue(StreamedCollection.isSupportedType(Collection.class));
+        assertTrue(StreamedCollection.isSupportedType(List.class));
+        assertTrue(StreamedCollection.isSupportedType(ArrayList.class));
+        assertTrue(StreamedCollection.isSupportedType(Set.class));
+        assertTrue(StreamedCollection.isSupportedType(HashSet.class));
+        assertTrue(StreamedCollection.isSupportedType(LinkedHashSet.class));
+
+        assertFalse(StreamedCollection.isSupportedType(LinkedList.class));
+        assertFalse(StreamedCollection.isSupportedType(Deque.class));
+        assertFalse(StreamedCollection.isSupportedType(Queue.class));
+        assertFalse(StreamedCollection.isSupportedType(SortedSet.class));
+        assertFalse(StreamedCollection.isSupportedType(TreeSet.class));
+    }
+
+    @Test
+    public void testSupportedValues() {
+        assertTrue(StreamedCollection.isSupported(new LinkedList<>()));
+        assertTrue(StreamedCollection.isSupported(new HashSet<>()));
+        assertFalse(StreamedCollection.isSupported(new TreeSet<>()));
+        assertFalse(StreamedCollection.isSupported(new ArrayDeque<>()));
+    }
+
+    private Object transfer(Collection<?> collection, int batchSize) throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            RemoteInvocationResult result = new RemoteInvocationResult(new StreamedCollection(collection, batchSize));
+            oos.writeObject(result);
+            ((StreamedCollection) result.getValue()).writeElements(oos);
+        }
+
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+            RemoteInvocationResult result = (RemoteInvocationResult) ois.readObject();
+            return ((StreamedCollection) result.getValue()).readElements(ois);
+        }
+    }
+}
@@ -27,6 +27,7 @@ import com.haulmont.cuba.gui.components.data.GroupTableItems;
 import com.haulmont.cuba.gui.data.GroupInfo;
 import com.haulmont.cuba.gui.data.impl.AbstractComparator;
 import com.haulmont.cuba.gui.data.impl.GroupInfoComparator;
+import com.haulmont.cuba.gui.data.impl.GroupTreeUpdater;
 import com.haulmont.cuba.gui.model.CollectionContainer;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.collections4.map.LinkedMap;
@@ -168,11 +169,9 @@ public class ContainerGroupTableItems<E extends Entity<K>, K>
         GroupInfo<MetaPropertyPath> groupInfo = new GroupInfo<>(groupValues);
         itemGroups.put(item.getId(), groupInfo);
 
+        // a group has the only parent, so it is new for the list of children if it is new for the whole tree
         if (!parents.containsKey(groupInfo)) {
             parents.put(groupInfo, parent);
-        }
-
-        if (!children.contains(groupInfo)) {
             children.add(groupInfo);
         }
 
@@ -186,6 +185,47 @@ public class ContainerGroupTableItems<E extends Entity<K>, K>
         return groupInfo;
     }
 
+    @Override
+    protected void containerCollectionChanged(CollectionContainer.CollectionChangeEvent<E> e) {
+        if (hasGroups() && !isGrouping) {
+            GroupTreeUpdater<E, K> updater = createTreeUpdater();
+            switch (e.getChangeType()) {
+                case ADD_ITEMS:
+                case SET_ITEM:
+                    for (E item : e.getChanges()) {
+                        if (itemGroups.containsKey(item.getId())) {
+                            updater.updateItem(item);
+                        } else {
+                            updater.addItem(item);
+                        }
+                    }
+                    break;
+                case REMOVE_ITEMS:
+                    for (E item : e.getChanges()) {
+                        updater.removeItem(item.getId());
+                    }
+                    break;
+                default:
+                    groupBy(groupProperties);
+            }
+        }
+        super.containerCollectionChanged(e);
+    }
+
+    protected GroupTreeUpdater<E, K> createTreeUpdater() {
+        GroupTreeUpdater<E, K> updater = new GroupTreeUpdater<>(groupProperties, roots, parents, children,
+                groupItems, itemGroups, this::getValueByProperty);
+        if (sortProperties != null && sortProperties.length > 0) {
+            Sort.Order order = createSort(sortProperties, sortAscending).getOrders().get(0);
+            MetaPropertyPath propertyPath = container.getEntityMetaClass().getPropertyPath(order.getProperty());
+            if (propertyPath != null) {
+                boolean asc = order.getDirection().equals(Sort.Direction.ASC);
+                updater.setSort(propertyPath, asc, new EntityByIdComparator<>(propertyPath, container, asc));
+            }
+        }
+        return updater;
+    }
+
     protected Object getValueByProperty(E item, MetaPropertyPath property) {
         Preconditions.checkNotNullArgument(item);
 
@@ -16,6 +16,7 @@
 
 package com.haulmont.cuba.gui.components.data.table;
 
+import com.google.common.collect.Lists;
 import com.haulmont.bali.events.EventHub;
 import com.haulmont.bali.events.Subscription;
 import com.haulmont.chile.core.model.MetaClass;
@@ -30,6 +31,7 @@ import com.haulmont.cuba.gui.components.data.meta.ContainerDataUnit;
 import com.haulmont.cuba.gui.components.data.meta.EntityTableItems;
 import com.haulmont.cuba.gui.data.impl.AggregatableDelegate;
 import com.haulmont.cuba.gui.model.CollectionContainer;
+import com.haulmont.cuba.gui.model.VirtualCollectionContainer;
 
 import javax.annotation.Nullable;
 import java.util.ArrayList;
@@ -68,6 +70,11 @@ public class ContainerTableItems<E extends Entity> implements EntityTableItems<E
             public Object getItemValue(MetaPropertyPath property, Object itemId) {
                 return ContainerTableItems.this.getItemValue(itemId, property);
             }
+
+            @Override
+            protected int getItemsCount() {
+                return container.getItems().size();
+            }
         };
     }
 
@@ -80,17 +87,34 @@ public class ContainerTableItems<E extends Entity> implements EntityTableItems<E
     }
 
     protected void containerCollectionChanged(CollectionContainer.CollectionChangeEvent<E> e) {
+        switch (e.getChangeType()) {
+            case ADD_ITEMS:
+                aggregatableDelegate.itemsAdded(e.getChanges());
+                break;
+            case REMOVE_ITEMS:
+                aggregatableDelegate.itemsRemoved(e.getChanges());
+                break;
+            default:
+                aggregatableDelegate.reset();
+        }
+
         events.publish(ItemSetChangeEvent.class, new ItemSetChangeEvent<>(this));
     }
 
     @SuppressWarnings("unchecked")
     protected void containerItemPropertyChanged(CollectionContainer.ItemPropertyChangeEvent<E> e) {
+        aggregatableDelegate.itemPropertyChanged(e.getItem(), e.getProperty(), e.getPrevValue(), e.getValue());
+
         events.publish(ValueChangeEvent.class, new ValueChangeEvent(this,
                 e.getItem(), e.getProperty(), e.getPrevValue(), e.getValue()));
     }
 
     @Override
     public Collection<?> getItemIds() {
+        if (container instanceof VirtualCollectionContainer) {
+            // ids are obtained lazily to avoid loading all pages
+            return Lists.transform(container.getItems(), Entity::getId);
+        }
         return container.getItems().stream().map(Entity::getId).collect(Collectors.toList());
     }
 
@@ -118,7 +142,7 @@ public class ContainerTableItems<E extends Entity> implements EntityTableItems<E
 
     @Override
     public boolean containsId(Object itemId) {
-        return container.getItems().stream().anyMatch(e -> e.getId().equals(itemId));
+        return container.getItemIndex(itemId) != -1;
     }
 
     @Override
@@ -22,6 +22,8 @@ public class GroupInfo<P> {
 
     private LinkedMap groupingValues;
     private P groupProperty;
+    // groups are used as keys of hash maps, so the string representation is computed once
+    private String stringValue;
 
     @SuppressWarnings("unchecked")
     public GroupInfo(LinkedMap groupingValues) {
@@ -49,6 +51,13 @@ public class GroupInfo<P> {
 
     @Override
     public String toString() {
+        if (stringValue == null) {
+            stringValue = createStringValue();
+        }
+        return stringValue;
+    }
+
+    protected String createStringValue() {
         StringBuilder sb = new StringBuilder("{");
         for (int groupIndex = 0; groupIndex < groupingValues.size(); groupIndex++) {
             Object value = groupingValues.getValue(groupIndex);
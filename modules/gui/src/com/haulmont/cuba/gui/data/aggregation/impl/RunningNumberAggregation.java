@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.haulmont.cuba.gui.data.aggregation.impl;
+
+import com.haulmont.cuba.gui.components.AggregationInfo;
+
+import javax.annotation.Nullable;
+
+/**
+ * Running state of a numeric aggregation over the values of one property.
+ * <p>
+ * Values are added and removed one by one, so SUM, COUNT and AVG are kept up to date in constant time.
+ * MIN and MAX become unavailable when an extreme value is removed, and the state must be rebuilt to
+ * get them. Results are converted by the given {@link BasicNumberAggregation} and are equal to the
+ * results of its methods up to rounding of the double sum.
+ */
+public class RunningNumberAggregation<T extends Number> {
+
+    protected final BasicNumberAggregation<T> aggregation;
+
+    protected int count;
+    protected double sum;
+    protected double min;
+    protected double max;
+    protected boolean extremesValid = true;
+
+    public RunningNumberAggregation(BasicNumberAggregation<T> aggregation) {
+        this.aggregation = aggregation;
+    }
+
+    public void add(@Nullable Object value) {
+        if (!(value instanceof Number)) {
+            return;
+        }
+        double doubleValue = ((Number) value).doubleValue();
+        if (count == 0) {
+            min = doubleValue;
+            max = doubleValue;
+            extremesValid = true;
+        } else if (extremesValid) {
+            min = Math.min(min, doubleValue);
+            max = Math.max(max, doubleValue);
+        }
+        count++;
+        sum += doubleValue;
+    }
+
+    public void remove(@Nullable Object value) {
+        if (!(value instanceof Number) || count == 0) {
+            return;
+        }
+        double doubleValue = ((Number) value).doubleValue();
+        count--;
+        if (count == 0) {
+            sum = 0;
+        } else {
+            sum -= doubleValue;
+            if (doubleValue <= min || doubleValue >= max) {
+                extremesValid = false;
+            }
+        }
+    }
+
+    /**
+     * @return number of non-null values
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return true if the result of the given aggregation type can be obtained from the current state
+     */
+    public boolean isAvailable(AggregationInfo.Type type) {
+        switch (type) {
+            case COUNT:
+            case SUM:
+            case AVG:
+                return true;
+            case MIN:
+            case MAX:
+                return extremesValid || count == 0;
+            default:
+                return false;
+        }
+    }
+
+    @Nullable
+    public Object getResult(AggregationInfo.Type type) {
+        switch (type) {
+            case COUNT:
+                return count;
+            case SUM:
+                return aggregation.convert(sum);
+            case AVG:
+                return count == 0 ? null : aggregation.convert(sum / count);
+            case MIN:
+                return count == 0 ? null : aggregation.convert(min);
+            case MAX:
+                return count == 0 ? null : aggregation.convert(max);
+            default:
+                throw new IllegalArgumentException(String.format("Unsupported aggregation type: %s", type));
+        }
+    }
+}
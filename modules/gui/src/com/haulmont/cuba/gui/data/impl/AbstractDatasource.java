@@ -267,10 +267,18 @@ public abstract class AbstractDatasource<T extends Entity> implements Datasource
         getEventRouter().fireEvent(StateChangeListener.class, StateChangeListener::stateChanged, stateChangeEvent);
     }
 
+    /**
+     * Invoked on each change of an attribute of an item, even if listeners are disabled.
+     */
+    protected void itemAttributeChanged(Instance.PropertyChangeEvent e) {
+    }
+
     protected class ItemListener implements Instance.PropertyChangeListener {
         @SuppressWarnings("unchecked")
         @Override
         public void propertyChanged(Instance.PropertyChangeEvent e) {
+            itemAttributeChanged(e);
+
             if (!listenersEnabled) {
                 return;
             }
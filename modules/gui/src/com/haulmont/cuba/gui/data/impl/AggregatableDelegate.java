@@ -17,19 +17,40 @@
 package com.haulmont.cuba.gui.data.impl;
 
 import com.haulmont.chile.core.datatypes.Datatypes;
+import com.haulmont.chile.core.model.Instance;
 import com.haulmont.chile.core.model.MetaPropertyPath;
 import com.haulmont.chile.core.model.Range;
+import com.haulmont.cuba.core.app.dynamicattributes.DynamicAttributesUtils;
 import com.haulmont.cuba.core.global.AppBeans;
 import com.haulmont.cuba.core.global.UserSessionSource;
 import com.haulmont.cuba.gui.components.AggregationInfo;
 import com.haulmont.cuba.gui.data.aggregation.Aggregation;
 import com.haulmont.cuba.gui.data.aggregation.AggregationStrategy;
 import com.haulmont.cuba.gui.data.aggregation.Aggregations;
+import com.haulmont.cuba.gui.data.aggregation.impl.BasicNumberAggregation;
+import com.haulmont.cuba.gui.data.aggregation.impl.RunningNumberAggregation;
+import org.apache.commons.lang3.tuple.Pair;
 
+import javax.annotation.Nullable;
 import java.util.*;
 import java.util.stream.Collectors;
 
+/**
+ * Calculates aggregations over the items of a datasource or a container.
+ * <p>
+ * If the owner overrides {@link #getItemsCount()}, results are cached. Totals of numeric aggregations by
+ * a direct property are kept in {@link RunningNumberAggregation}s and updated in constant time by
+ * {@link #itemsAdded(Collection)}, {@link #itemsRemoved(Collection)} and {@link #itemPropertyChanged}.
+ * Other aggregations by a direct property, for example aggregations of groups, are memoized until the next change.
+ * The owner must call {@link #reset()} on any other change of its items.
+ */
 public abstract class AggregatableDelegate<K> {
+
+    protected Map<MetaPropertyPath, RunningNumberAggregation> runningAggregations = new HashMap<>();
+    protected int runningItemsCount;
+
+    protected Map<Pair<AggregationInfo, List<K>>, Object> aggregationResults = new HashMap<>();
+
     public Map<AggregationInfo, String> aggregate(AggregationInfo[] aggregationInfos, Collection<K> itemIds) {
         if (aggregationInfos == null || aggregationInfos.length == 0) {
             throw new NullPointerException("Aggregation must be executed at least by one field");
@@ -87,8 +108,38 @@ public abstract class AggregatableDelegate<K> {
         return aggregationResults;
     }
 
-    @SuppressWarnings("unchecked")
     protected Object doPropertyAggregation(AggregationInfo aggregationInfo, Collection<K> itemIds) {
+        if (!isCacheable(aggregationInfo)) {
+            return calculatePropertyAggregation(aggregationInfo, itemIds);
+        }
+
+        int itemsCount = getItemsCount();
+        if (itemIds.size() == itemsCount && isRunningAggregationSupported(aggregationInfo)) {
+            if (runningItemsCount != itemsCount) {
+                runningAggregations.clear();
+                runningItemsCount = itemsCount;
+            }
+
+            MetaPropertyPath propertyPath = aggregationInfo.getPropertyPath();
+            RunningNumberAggregation runningAggregation = runningAggregations.get(propertyPath);
+            if (runningAggregation == null || !runningAggregation.isAvailable(aggregationInfo.getType())) {
+                runningAggregation = createRunningAggregation(propertyPath, itemIds);
+                runningAggregations.put(propertyPath, runningAggregation);
+            }
+            return runningAggregation.getResult(aggregationInfo.getType());
+        }
+
+        Pair<AggregationInfo, List<K>> key = Pair.of(aggregationInfo, new ArrayList<>(itemIds));
+        if (aggregationResults.containsKey(key)) {
+            return aggregationResults.get(key);
+        }
+        Object result = calculatePropertyAggregation(aggregationInfo, itemIds);
+        aggregationResults.put(key, result);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected Object calculatePropertyAggregation(AggregationInfo aggregationInfo, Collection<K> itemIds) {
         List items;
 
         if (aggregationInfo.getType() == AggregationInfo.Type.CUSTOM
@@ -137,6 +188,100 @@ public abstract class AggregatableDelegate<K> {
         return values;
     }
 
+    /**
+     * Returns whether the result of the aggregation can be cached. Only aggregations by a direct property
+     * are cached, because changes of nested entities are not tracked.
+     */
+    protected boolean isCacheable(AggregationInfo aggregationInfo) {
+        MetaPropertyPath propertyPath = aggregationInfo.getPropertyPath();
+        return getItemsCount() >= 0
+                && aggregationInfo.getType() != AggregationInfo.Type.CUSTOM
+                && propertyPath != null
+                && propertyPath.getMetaProperties().length == 1
+                && !DynamicAttributesUtils.isDynamicAttribute(propertyPath.getMetaProperty());
+    }
+
+    protected boolean isRunningAggregationSupported(AggregationInfo aggregationInfo) {
+        return aggregationInfo.getStrategy() == null
+                && Aggregations.get(aggregationInfo.getPropertyPath().getRangeJavaClass()) instanceof BasicNumberAggregation;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected RunningNumberAggregation createRunningAggregation(MetaPropertyPath propertyPath, Collection<K> itemIds) {
+        Aggregation aggregation = Aggregations.get(propertyPath.getRangeJavaClass());
+        RunningNumberAggregation runningAggregation = new RunningNumberAggregation((BasicNumberAggregation) aggregation);
+        for (K itemId : itemIds) {
+            runningAggregation.add(getItemValue(propertyPath, itemId));
+        }
+        return runningAggregation;
+    }
+
+    /**
+     * Must be invoked by the owner after the items have been added.
+     */
+    public void itemsAdded(Collection<?> items) {
+        aggregationResults.clear();
+        if (runningAggregations.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<MetaPropertyPath, RunningNumberAggregation> entry : runningAggregations.entrySet()) {
+            for (Object item : items) {
+                entry.getValue().add(getInstanceValue(item, entry.getKey()));
+            }
+        }
+        runningItemsCount += items.size();
+    }
+
+    /**
+     * Must be invoked by the owner after the items have been removed.
+     */
+    public void itemsRemoved(Collection<?> items) {
+        aggregationResults.clear();
+        if (runningAggregations.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<MetaPropertyPath, RunningNumberAggregation> entry : runningAggregations.entrySet()) {
+            for (Object item : items) {
+                entry.getValue().remove(getInstanceValue(item, entry.getKey()));
+            }
+        }
+        runningItemsCount -= items.size();
+    }
+
+    /**
+     * Must be invoked by the owner when an attribute of one of its items is changed.
+     */
+    public void itemPropertyChanged(Object item, String property, @Nullable Object prevValue, @Nullable Object value) {
+        aggregationResults.clear();
+        for (Map.Entry<MetaPropertyPath, RunningNumberAggregation> entry : runningAggregations.entrySet()) {
+            if (entry.getKey().getMetaProperty().getName().equals(property)) {
+                entry.getValue().remove(prevValue);
+                entry.getValue().add(value);
+            }
+        }
+    }
+
+    /**
+     * Drops all cached results. Must be invoked by the owner on any change of items that is not reported
+     * by other methods of this class.
+     */
+    public void reset() {
+        runningAggregations.clear();
+        aggregationResults.clear();
+    }
+
+    /**
+     * @return number of items of the owner, or -1 if aggregation results must not be cached
+     */
+    protected int getItemsCount() {
+        return -1;
+    }
+
+    @Nullable
+    protected Object getInstanceValue(Object item, MetaPropertyPath propertyPath) {
+        return item instanceof Instance ? ((Instance) item).getValue(propertyPath.getMetaProperty().getName()) : null;
+    }
+
     public abstract Object getItem(K itemId);
 
     public abstract Object getItemValue(MetaPropertyPath property, K itemId);
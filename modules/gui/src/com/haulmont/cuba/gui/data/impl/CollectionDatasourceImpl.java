@@ -21,6 +21,7 @@ import com.haulmont.chile.core.model.Instance;
 import com.haulmont.chile.core.model.MetaPropertyPath;
 import com.haulmont.cuba.client.ClientConfig;
 import com.haulmont.cuba.core.entity.Entity;
+import com.haulmont.cuba.core.entity.KeyValueEntity;
 import com.haulmont.cuba.core.global.*;
 import com.haulmont.cuba.core.global.filter.Condition;
 import com.haulmont.cuba.core.global.filter.DenyingClause;
@@ -28,13 +29,18 @@ import com.haulmont.cuba.core.global.filter.LogicalCondition;
 import com.haulmont.cuba.core.global.filter.LogicalOp;
 import com.haulmont.cuba.gui.components.AggregationInfo;
 import com.haulmont.cuba.gui.data.CollectionDatasource;
+import com.haulmont.cuba.gui.data.aggregation.Aggregation;
+import com.haulmont.cuba.gui.data.aggregation.Aggregations;
+import com.haulmont.cuba.gui.data.aggregation.impl.BasicNumberAggregation;
 import com.haulmont.cuba.gui.logging.UIPerformanceLogger;
 import com.haulmont.cuba.security.entity.EntityOp;
 import org.apache.commons.collections4.map.LinkedMap;
 import org.perf4j.StopWatch;
 import org.perf4j.slf4j.Slf4JStopWatch;
+import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.util.*;
 
 import static com.haulmont.bali.util.Preconditions.checkNotNullArgument;
@@ -59,6 +65,8 @@ public class CollectionDatasourceImpl<T extends Entity<K>, K>
             CollectionDatasource.SupportsPaging<T, K>,
             CollectionDatasource.SupportsApplyToSelected<T, K> {
 
+    private static final Logger log = LoggerFactory.getLogger(CollectionDatasourceImpl.class);
+
     protected LinkedMap data = new LinkedMap();
 
     protected boolean inRefresh;
@@ -73,8 +81,33 @@ public class CollectionDatasourceImpl<T extends Entity<K>, K>
         public Object getItemValue(MetaPropertyPath property, K itemId) {
             return CollectionDatasourceImpl.this.getItemValue(property, itemId);
         }
+
+        @Override
+        protected int getItemsCount() {
+            return data.size();
+        }
+
+        @Override
+        protected Object doPropertyAggregation(AggregationInfo aggregationInfo, Collection<K> itemIds) {
+            if (aggregationOnDb && itemIds.size() == data.size() && !containsAllDataFromDb()
+                    && isDbAggregationSupported(aggregationInfo)) {
+                if (dbAggregationResults.containsKey(aggregationInfo)) {
+                    return dbAggregationResults.get(aggregationInfo);
+                }
+                Object result = aggregateOnDb(aggregationInfo);
+                if (result != NOT_AGGREGATED) {
+                    dbAggregationResults.put(aggregationInfo, result);
+                    return result;
+                }
+            }
+            return super.doPropertyAggregation(aggregationInfo, itemIds);
+        }
     };
 
+    protected static final Object NOT_AGGREGATED = new Object();
+
+    protected Map<AggregationInfo, Object> dbAggregationResults = new HashMap<>();
+
     protected boolean suspended;
 
     protected boolean refreshOnResumeRequired;
@@ -84,6 +117,11 @@ public class CollectionDatasourceImpl<T extends Entity<K>, K>
     protected boolean sortOnDb = AppBeans.<Configuration>get(Configuration.NAME)
             .getConfig(ClientConfig.class).getCollectionDatasourceDbSortEnabled();
 
+    protected boolean aggregationOnDb = AppBeans.<Configuration>get(Configuration.NAME)
+            .getConfig(ClientConfig.class).getCollectionDatasourceDbAggregationEnabled();
+
+    protected boolean sorting;
+
     protected LoadContext.Query lastQuery;
     protected LinkedList<LoadContext.Query> prevQueries = new LinkedList<>();
     protected Integer queryKey;
@@ -255,12 +293,17 @@ public class CollectionDatasourceImpl<T extends Entity<K>, K>
         //noinspection unchecked
         this.sortInfos = sortInfos;
         if (data.size() > 0) {
-            if (!sortOnDb || containsAllDataFromDb()) {
-                doSort();
+            sorting = true;
+            try {
+                if (!sortOnDb || containsAllDataFromDb()) {
+                    doSort();
 
-                fireCollectionChanged(Operation.REFRESH, Collections.emptyList());
-            } else {
-                refresh();
+                    fireCollectionChanged(Operation.REFRESH, Collections.emptyList());
+                } else {
+                    refresh();
+                }
+            } finally {
+                sorting = false;
             }
         }
     }
@@ -270,14 +313,63 @@ public class CollectionDatasourceImpl<T extends Entity<K>, K>
         this.sortInfos = null;
     }
 
+    @Override
+    protected void fireCollectionChanged(Operation operation, List<T> items) {
+        updateAggregations(operation, items);
+
+        super.fireCollectionChanged(operation, items);
+    }
+
+    protected void updateAggregations(Operation operation, List<T> items) {
+        dbAggregationResults.clear();
+        if (listenersSuspended) {
+            // the event will be fired again on resume
+            aggregatableDelegate.reset();
+            return;
+        }
+        switch (operation) {
+            case ADD:
+                aggregatableDelegate.itemsAdded(items);
+                break;
+            case REMOVE:
+                aggregatableDelegate.itemsRemoved(items);
+                break;
+            case REFRESH:
+                // values are not changed by in-memory sorting
+                if (!sorting || inRefresh) {
+                    aggregatableDelegate.reset();
+                }
+                break;
+            default:
+                aggregatableDelegate.reset();
+        }
+    }
+
+    @Override
+    protected void itemAttributeChanged(Instance.PropertyChangeEvent e) {
+        Instance item = e.getItem();
+        if (!(item instanceof Entity) || data.get(((Entity) item).getId()) != item) {
+            // a stale instance that is not in the datasource anymore
+            return;
+        }
+        dbAggregationResults.clear();
+        aggregatableDelegate.itemPropertyChanged(e.getItem(), e.getProperty(), e.getPrevValue(), e.getValue());
+    }
+
     protected boolean containsAllDataFromDb() {
         return firstResult == 0 && data.size() < maxResults;
     }
 
+    @SuppressWarnings("unchecked")
     protected void doSort() {
-        @SuppressWarnings("unchecked")
-        List<T> list = new ArrayList<>(data.values());
-        list.sort(createEntityComparator());
+        List<T> list;
+        Comparator<T> comparator = createEntityComparator();
+        if (comparator instanceof EntityComparator) {
+            list = ((EntityComparator<T>) comparator).sort(data.values());
+        } else {
+            list = new ArrayList<>(data.values());
+            list.sort(comparator);
+        }
         data.clear();
         for (T t : list) {
             data.put(t.getId(), t);
@@ -519,7 +611,9 @@ public class CollectionDatasourceImpl<T extends Entity<K>, K>
         }
 
         if (data.containsKey(item.getId())) {
-            data.put(item.getId(), item);
+            Instance prevItem = (Instance) data.put(item.getId(), item);
+            // the listener must not be added twice to the same instance and must be removed from a replaced one
+            detachListener(prevItem);
             attachListener(item);
             fireCollectionChanged(Operation.UPDATE, Collections.singletonList(item));
         }
@@ -699,6 +793,97 @@ public class CollectionDatasourceImpl<T extends Entity<K>, K>
         return aggregatableDelegate.aggregate(aggregationInfos, itemIds);
     }
 
+    /**
+     * Returns whether the aggregation can be calculated by the database for all instances matching the datasource
+     * query. It is possible for standard aggregations of a persistent attribute of the loaded entity.
+     */
+    protected boolean isDbAggregationSupported(AggregationInfo aggregationInfo) {
+        MetaPropertyPath propertyPath = aggregationInfo.getPropertyPath();
+        if (query == null || !prevQueries.isEmpty()
+                || aggregationInfo.getStrategy() != null
+                || aggregationInfo.getType() == AggregationInfo.Type.CUSTOM
+                || propertyPath == null
+                || propertyPath.getMetaProperties().length != 1
+                || !propertyPath.getRange().isDatatype()
+                || !metadata.getTools().isPersistent(propertyPath.getMetaProperty())) {
+            return false;
+        }
+        return aggregationInfo.getType() == AggregationInfo.Type.COUNT
+                || Aggregations.get(propertyPath.getRangeJavaClass()) instanceof BasicNumberAggregation;
+    }
+
+    /**
+     * Calculates the aggregation by a separate query with an aggregate function, using the datasource query
+     * with its current parameters.
+     *
+     * @return aggregated value or {@link #NOT_AGGREGATED} if the query cannot be transformed or loading fails
+     */
+    @SuppressWarnings("unchecked")
+    protected Object aggregateOnDb(AggregationInfo aggregationInfo) {
+        ValueLoadContext context = ValueLoadContext.create();
+        ValueLoadContext.Query q = (ValueLoadContext.Query) createDataQuery(context,
+                savedParameters == null ? Collections.emptyMap() : savedParameters);
+        if (q == null) {
+            return NOT_AGGREGATED;
+        }
+
+        String queryString = createDbAggregationQuery(q.getQueryString(), aggregationInfo);
+        if (queryString == null) {
+            return NOT_AGGREGATED;
+        }
+        q.setQueryString(queryString);
+        context.setStoreName(metadata.getTools().getStoreName(metaClass));
+        context.setSoftDeletion(isSoftDeletion());
+        context.addProperty("value");
+
+        Object value;
+        try {
+            List<KeyValueEntity> list = dataSupplier.loadValues(context);
+            value = list.isEmpty() ? null : list.get(0).getValue("value");
+        } catch (RuntimeException e) {
+            log.warn("Unable to aggregate {} on database, aggregating loaded data", aggregationInfo.getPropertyPath(), e);
+            return NOT_AGGREGATED;
+        }
+
+        if (aggregationInfo.getType() == AggregationInfo.Type.COUNT) {
+            return value == null ? 0 : ((Number) value).intValue();
+        }
+        // convert the value to the type of in-memory aggregation results
+        Aggregation aggregation = Aggregations.get(aggregationInfo.getPropertyPath().getRangeJavaClass());
+        List values = value == null ? Collections.emptyList() : Collections.singletonList(value);
+        switch (aggregationInfo.getType()) {
+            case SUM:
+                return aggregation.sum(values);
+            case AVG:
+                return aggregation.avg(values);
+            case MIN:
+                return aggregation.min(values);
+            case MAX:
+                return aggregation.max(values);
+            default:
+                return NOT_AGGREGATED;
+        }
+    }
+
+    /**
+     * @return query selecting the aggregate of the property, or null if the datasource query is not supported
+     */
+    @Nullable
+    protected String createDbAggregationQuery(String queryString, AggregationInfo aggregationInfo) {
+        QueryParser parser = QueryTransformerFactory.createParser(queryString);
+        if (!parser.isEntitySelect(metaClass.getName()) || parser.isQueryWithJoins()) {
+            return null;
+        }
+
+        QueryTransformer transformer = QueryTransformerFactory.createTransformer(queryString);
+        if (transformer.removeDistinct()) {
+            return null;
+        }
+        transformer.replaceWithAggregate(aggregationInfo.getType().name().toLowerCase(),
+                aggregationInfo.getPropertyPath().getMetaProperty().getName());
+        return transformer.getResult();
+    }
+
     protected Object getItemValue(MetaPropertyPath property, K itemId) {
         Instance instance = getItemNN(itemId);
         if (property.getMetaProperties().length == 1) {
@@ -69,8 +69,18 @@ public class CollectionPropertyDatasourceImpl<T extends Entity<K>, K>
         public Object getItemValue(MetaPropertyPath property, K itemId) {
             return CollectionPropertyDatasourceImpl.this.getItemValue(property, itemId);
         }
+
+        @Override
+        protected int getItemsCount() {
+            Collection<T> collection = getCollection();
+            return collection == null ? 0 : collection.size();
+        }
     };
 
+    protected boolean sorting;
+    // true while the REFRESH event of a changed collection is being fired
+    protected boolean inRefresh;
+
     @Override
     public void setup(String id, Datasource masterDs, String property) {
         super.setup(id, masterDs, property);
@@ -102,13 +112,13 @@ public class CollectionPropertyDatasourceImpl<T extends Entity<K>, K>
                 item = null;
                 fireItemChanged(prevItem);
             }
-            fireCollectionChanged(Operation.REFRESH, Collections.emptyList());
+            fireCollectionRefreshed();
         });
 
         masterDs.addStateChangeListener(e -> {
             fireStateChanged(e.getPrevState());
 
-            fireCollectionChanged(Operation.REFRESH, Collections.emptyList());
+            fireCollectionRefreshed();
         });
 
         masterDs.addItemPropertyChangeListener(e -> {
@@ -117,7 +127,7 @@ public class CollectionPropertyDatasourceImpl<T extends Entity<K>, K>
 
                 reattachListeners((Collection) e.getPrevValue(), (Collection) e.getValue());
 
-                fireCollectionChanged(Operation.REFRESH, Collections.emptyList());
+                fireCollectionRefreshed();
             }
         });
     }
@@ -236,7 +246,21 @@ public class CollectionPropertyDatasourceImpl<T extends Entity<K>, K>
     public void refresh() {
         backgroundWorker.checkUIAccess();
 
-        fireCollectionChanged(Operation.REFRESH, Collections.emptyList());
+        fireCollectionRefreshed();
+    }
+
+    /**
+     * Fires the REFRESH event after the underlying collection has changed, as opposed to the REFRESH event fired by
+     * in-memory sorting.
+     */
+    protected void fireCollectionRefreshed() {
+        boolean prevInRefresh = inRefresh;
+        inRefresh = true;
+        try {
+            fireCollectionChanged(Operation.REFRESH, Collections.emptyList());
+        } finally {
+            inRefresh = prevInRefresh;
+        }
     }
 
     @Override
@@ -783,6 +807,8 @@ public class CollectionPropertyDatasourceImpl<T extends Entity<K>, K>
     }
 
     protected void fireCollectionChanged(Operation operation, List<T> items) {
+        updateAggregations(operation, items);
+
         if (listenersSuspended) {
             if (!suspendedEvents.isEmpty() && suspendedEvents.getFirst().getOperation().equals(operation)) {
                 suspendedEvents.getFirst().getItems().addAll(items);
@@ -801,6 +827,35 @@ public class CollectionPropertyDatasourceImpl<T extends Entity<K>, K>
         }
     }
 
+    protected void updateAggregations(Operation operation, List<T> items) {
+        if (listenersSuspended) {
+            // the event will be fired again on resume
+            aggregatableDelegate.reset();
+            return;
+        }
+        switch (operation) {
+            case ADD:
+                aggregatableDelegate.itemsAdded(items);
+                break;
+            case REMOVE:
+                aggregatableDelegate.itemsRemoved(items);
+                break;
+            case REFRESH:
+                // values are not changed by in-memory sorting
+                if (!sorting || inRefresh) {
+                    aggregatableDelegate.reset();
+                }
+                break;
+            default:
+                aggregatableDelegate.reset();
+        }
+    }
+
+    @Override
+    protected void itemAttributeChanged(Instance.PropertyChangeEvent e) {
+        aggregatableDelegate.itemPropertyChanged(e.getItem(), e.getProperty(), e.getPrevValue(), e.getValue());
+    }
+
     @Override
     public void suspendListeners() {
         listenersSuspended = true;
@@ -845,8 +900,13 @@ public class CollectionPropertyDatasourceImpl<T extends Entity<K>, K>
         //noinspection unchecked
         this.sortInfos = sortInfos;
 
-        doSort();
-        fireCollectionChanged(Operation.REFRESH, Collections.emptyList());
+        sorting = true;
+        try {
+            doSort();
+            fireCollectionChanged(Operation.REFRESH, Collections.emptyList());
+        } finally {
+            sorting = false;
+        }
     }
 
     @Override
@@ -859,8 +919,7 @@ public class CollectionPropertyDatasourceImpl<T extends Entity<K>, K>
         if (collection == null)
             return;
 
-        List<T> list = new LinkedList<>(collection);
-        list.sort(createEntityComparator());
+        List<T> list = createEntityComparator().sort(collection);
         collection.clear();
         collection.addAll(list);
     }
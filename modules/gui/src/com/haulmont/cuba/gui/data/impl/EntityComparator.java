@@ -23,7 +23,15 @@ import com.haulmont.chile.core.model.MetaPropertyPath;
 import com.haulmont.cuba.core.entity.Entity;
 import com.haulmont.cuba.core.entity.IdProxy;
 
+import java.util.*;
+
 public class EntityComparator<T extends Entity> extends AbstractComparator<T> {
+
+    /**
+     * Minimal number of items sorted by {@link Arrays#parallelSort}.
+     */
+    public static final int PARALLEL_SORT_THRESHOLD = 10000;
+
     private MetaPropertyPath propertyPath;
     private MetaProperty property;
 
@@ -49,6 +57,101 @@ public class EntityComparator<T extends Entity> extends AbstractComparator<T> {
         return __compare(v1, v2);
     }
 
+    /**
+     * Returns a new list of the given items in the order defined by this comparator.
+     * <p>
+     * Unlike sorting the list with this comparator, the property value of each item is resolved once.
+     * Strings are compared by precomputed case-folded keys, and large collections of strings or other
+     * comparable values are sorted in parallel. The result is the same as of a stable sort with this comparator.
+     */
+    public List<T> sort(Collection<? extends T> items) {
+        @SuppressWarnings("unchecked")
+        SortEntry<T>[] entries = new SortEntry[items.size()];
+        boolean allStrings = true;
+        boolean noStrings = true;
+        boolean allComparable = true;
+
+        int i = 0;
+        for (T item : items) {
+            Object value = getValue(item);
+            if (value instanceof String) {
+                noStrings = false;
+            } else if (value != null) {
+                allStrings = false;
+                if (!(value instanceof Comparable)) {
+                    allComparable = false;
+                }
+            }
+            entries[i++] = new SortEntry<>(value, item);
+        }
+
+        Comparator<SortEntry<T>> comparator;
+        if (allStrings || noStrings && allComparable) {
+            if (allStrings) {
+                for (SortEntry<T> entry : entries) {
+                    if (entry.key != null) {
+                        entry.key = foldCase((String) entry.key);
+                    }
+                }
+            }
+            comparator = (e1, e2) -> {
+                int c = compareKeys(e1.key, e2.key);
+                return asc ? c : -c;
+            };
+            if (entries.length >= PARALLEL_SORT_THRESHOLD) {
+                Arrays.parallelSort(entries, comparator);
+            } else {
+                Arrays.sort(entries, comparator);
+            }
+        } else {
+            comparator = (e1, e2) -> __compare(e1.key, e2.key);
+            Arrays.sort(entries, comparator);
+        }
+
+        List<T> result = new ArrayList<>(entries.length);
+        for (SortEntry<T> entry : entries) {
+            result.add(entry.item);
+        }
+        return result;
+    }
+
+    /**
+     * Compares keys of the same type in the same way as {@link #compareAsc(Object, Object)} compares
+     * comparable values.
+     */
+    @SuppressWarnings("unchecked")
+    protected int compareKeys(Object k1, Object k2) {
+        if (k1 == null) {
+            return k2 == null ? 0 : nullsLast;
+        }
+        if (k2 == null) {
+            return -nullsLast;
+        }
+        return ((Comparable) k1).compareTo(k2);
+    }
+
+    /**
+     * Returns a string which can be compared by {@link String#compareTo} with the same result as the source
+     * string is compared by {@link String#compareToIgnoreCase}.
+     */
+    protected static String foldCase(String value) {
+        char[] chars = value.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+        }
+        return new String(chars);
+    }
+
+    protected static class SortEntry<T> {
+        protected Object key;
+        protected final T item;
+
+        protected SortEntry(Object key, T item) {
+            this.key = key;
+            this.item = item;
+        }
+    }
+
     protected Object getValue(Instance instance) {
         Object value;
         if (property != null) {
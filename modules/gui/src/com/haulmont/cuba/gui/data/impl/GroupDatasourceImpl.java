@@ -22,7 +22,6 @@ import com.haulmont.cuba.gui.data.GroupDatasource;
 import com.haulmont.cuba.gui.data.GroupInfo;
 
 import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
 
 public class GroupDatasourceImpl<T extends Entity<K>, K>
@@ -50,6 +49,29 @@ public class GroupDatasourceImpl<T extends Entity<K>, K>
         }
     }
 
+    @Override
+    protected void fireCollectionChanged(Operation operation, List<T> items) {
+        if (hasGroups()) {
+            switch (operation) {
+                case ADD:
+                    groupDelegate.addItems(items);
+                    break;
+                case REMOVE:
+                    groupDelegate.removeItems(items);
+                    break;
+                case UPDATE:
+                    groupDelegate.updateItems(items);
+                    break;
+                default:
+                    // groups are sorted in place by doSort()
+                    if (!sorting || inRefresh) {
+                        groupBy(getGroupProperties().toArray());
+                    }
+            }
+        }
+        super.fireCollectionChanged(operation, items);
+    }
+
     @Override
     public List<GroupInfo> rootGroups() {
         return groupDelegate.rootGroups();
@@ -188,13 +210,8 @@ public class GroupDatasourceImpl<T extends Entity<K>, K>
         this.suspended = suspended;
 
         if (wasSuspended && !suspended && refreshOnResumeRequired) {
+            // groups are rebuilt on the refresh event
             refresh();
-
-            if (!getGroupProperties().isEmpty()) {
-                groupBy(getGroupProperties().toArray());
-
-                fireCollectionChanged(Operation.REFRESH, Collections.emptyList());
-            }
         }
     }
 }
\ No newline at end of file
@@ -47,6 +47,9 @@ public abstract class GroupDelegate<T extends Entity<K>, K> {
 
     protected boolean isGrouping;
 
+    // the last sort order applied to the groups
+    protected CollectionDatasource.Sortable.SortInfo<MetaPropertyPath>[] sortInfos;
+
     protected CollectionDatasource<T, K> datasource;
 
     protected GroupDelegate(CollectionDatasource<T, K> datasource) {
@@ -57,6 +60,7 @@ public abstract class GroupDelegate<T extends Entity<K>, K> {
         if (isGrouping) {
             return;
         }
+        this.sortInfos = sortInfos;
         isGrouping = true;
         try {
             if (properties != null) {
@@ -129,11 +133,9 @@ public abstract class GroupDelegate<T extends Entity<K>, K> {
         GroupInfo<MetaPropertyPath> groupInfo = new GroupInfo<>(groupValues);
         itemGroups.put(item.getId(), groupInfo);
 
+        // a group has the only parent, so it is new for the list of children if it is new for the whole tree
         if (!parents.containsKey(groupInfo)) {
             parents.put(groupInfo, parent);
-        }
-
-        if (!children.contains(groupInfo)) {
             children.add(groupInfo);
         }
 
@@ -147,9 +149,76 @@ public abstract class GroupDelegate<T extends Entity<K>, K> {
         return groupInfo;
     }
 
+    /**
+     * Puts the added items into their groups without rebuilding the whole group tree. Items which are already
+     * grouped are moved if their group values have changed. New groups and items are inserted according to the last
+     * sort order, see {@link GroupTreeUpdater}.
+     *
+     * @param items added items
+     */
+    public void addItems(Collection<T> items) {
+        if (!hasGroups() || isGrouping) {
+            return;
+        }
+        GroupTreeUpdater<T, K> updater = createTreeUpdater();
+        for (T item : items) {
+            if (itemGroups.containsKey(item.getId())) {
+                updater.updateItem(item);
+            } else {
+                updater.addItem(item);
+            }
+        }
+    }
+
+    /**
+     * Removes the items from their groups. Groups which become empty are removed from the group tree.
+     *
+     * @param items removed items
+     */
+    public void removeItems(Collection<T> items) {
+        if (!hasGroups() || isGrouping) {
+            return;
+        }
+        GroupTreeUpdater<T, K> updater = createTreeUpdater();
+        for (T item : items) {
+            updater.removeItem(item.getId());
+        }
+    }
+
+    /**
+     * Moves the changed items to other groups if their group values have changed.
+     *
+     * @param items changed items
+     */
+    public void updateItems(Collection<T> items) {
+        if (!hasGroups() || isGrouping) {
+            return;
+        }
+        GroupTreeUpdater<T, K> updater = createTreeUpdater();
+        for (T item : items) {
+            if (itemGroups.containsKey(item.getId())) {
+                updater.updateItem(item);
+            } else if (datasource.containsItem(item.getId())) {
+                updater.addItem(item);
+            }
+        }
+    }
+
+    protected GroupTreeUpdater<T, K> createTreeUpdater() {
+        GroupTreeUpdater<T, K> updater = new GroupTreeUpdater<>(groupProperties, roots, parents, children,
+                groupItems, itemGroups, this::getValueByProperty);
+        if (!ArrayUtils.isEmpty(sortInfos)) {
+            MetaPropertyPath propertyPath = sortInfos[0].getPropertyPath();
+            boolean asc = CollectionDatasource.Sortable.Order.ASC.equals(sortInfos[0].getOrder());
+            updater.setSort(propertyPath, asc, new EntityByIdComparator<>(propertyPath, datasource, asc));
+        }
+        return updater;
+    }
+
     protected abstract void doSort(CollectionDatasource.Sortable.SortInfo<MetaPropertyPath>[] sortInfo);
 
     protected void doGroupSort(CollectionDatasource.Sortable.SortInfo<MetaPropertyPath>[] sortInfo) {
+        this.sortInfos = sortInfo;
         if (hasGroups()) {
             MetaPropertyPath propertyPath = sortInfo[0].getPropertyPath();
             boolean asc = CollectionDatasource.Sortable.Order.ASC.equals(sortInfo[0].getOrder());
@@ -49,6 +49,29 @@ public class GroupPropertyDatasourceImpl<T extends Entity<K>, K>
         }
     }
 
+    @Override
+    protected void fireCollectionChanged(Operation operation, List<T> items) {
+        if (hasGroups()) {
+            switch (operation) {
+                case ADD:
+                    groupDelegate.addItems(items);
+                    break;
+                case REMOVE:
+                    groupDelegate.removeItems(items);
+                    break;
+                case UPDATE:
+                    groupDelegate.updateItems(items);
+                    break;
+                default:
+                    // groups are sorted in place by doSort()
+                    if (!sorting || inRefresh) {
+                        groupBy(getGroupProperties().toArray());
+                    }
+            }
+        }
+        super.fireCollectionChanged(operation, items);
+    }
+
     @Override
     public List<GroupInfo> rootGroups() {
         return groupDelegate.rootGroups();
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.gui.data.impl;
+
+import com.haulmont.chile.core.model.MetaPropertyPath;
+import com.haulmont.cuba.core.entity.Entity;
+import com.haulmont.cuba.gui.data.GroupInfo;
+import org.apache.commons.collections4.map.LinkedMap;
+import org.apache.commons.lang3.ArrayUtils;
+
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.function.BiFunction;
+
+/**
+ * Puts items into an existing group tree and removes them from it without rebuilding the whole tree.
+ * Used by {@link GroupDelegate} and {@code ContainerGroupTableItems}, which keep the tree in their own fields.
+ * <p>
+ * If the tree is sorted by a grouping property, new groups of this property are inserted at their sorted position,
+ * otherwise they are appended to their siblings. If the tree is sorted by another property, new items are inserted
+ * at their sorted position in their group.
+ */
+public class GroupTreeUpdater<E extends Entity<K>, K> {
+
+    protected final Object[] groupProperties;
+    protected final List<GroupInfo> roots;
+    protected final Map<GroupInfo, GroupInfo> parents;
+    protected final Map<GroupInfo, List<GroupInfo>> children;
+    protected final Map<GroupInfo, List<K>> groupItems;
+    protected final Map<K, GroupInfo> itemGroups;
+    protected final BiFunction<E, MetaPropertyPath, Object> valueProvider;
+
+    protected Object sortProperty;
+    protected boolean sortAscending;
+    protected Comparator<K> itemComparator;
+
+    public GroupTreeUpdater(Object[] groupProperties,
+                            List<GroupInfo> roots,
+                            Map<GroupInfo, GroupInfo> parents,
+                            Map<GroupInfo, List<GroupInfo>> children,
+                            Map<GroupInfo, List<K>> groupItems,
+                            Map<K, GroupInfo> itemGroups,
+                            BiFunction<E, MetaPropertyPath, Object> valueProvider) {
+        this.groupProperties = groupProperties;
+        this.roots = roots;
+        this.parents = parents;
+        this.children = children;
+        this.groupItems = groupItems;
+        this.itemGroups = itemGroups;
+        this.valueProvider = valueProvider;
+    }
+
+    /**
+     * Sets the current sort order of the tree.
+     *
+     * @param sortProperty   sort property or null if the tree is not sorted
+     * @param ascending      sort direction
+     * @param itemComparator comparator of item ids by the sort property, used if it is not a grouping property
+     */
+    public void setSort(@Nullable Object sortProperty, boolean ascending, @Nullable Comparator<K> itemComparator) {
+        this.sortProperty = sortProperty;
+        this.sortAscending = ascending;
+        this.itemComparator = itemComparator;
+    }
+
+    /**
+     * Puts the item into its group, creating missing groups.
+     */
+    public void addItem(E item) {
+        LinkedMap<MetaPropertyPath, Object> groupValues = new LinkedMap<>();
+        GroupInfo parent = null;
+        GroupInfo<MetaPropertyPath> groupInfo = null;
+        for (Object groupProperty : groupProperties) {
+            MetaPropertyPath property = (MetaPropertyPath) groupProperty;
+            groupValues.put(property, valueProvider.apply(item, property));
+            groupInfo = new GroupInfo<>(groupValues);
+
+            if (!parents.containsKey(groupInfo)) {
+                parents.put(groupInfo, parent);
+                List<GroupInfo> siblings = parent == null
+                        ? roots : children.computeIfAbsent(parent, k -> new ArrayList<>());
+                insertGroup(siblings, groupInfo);
+            }
+            children.computeIfAbsent(groupInfo, k -> new ArrayList<>());
+            parent = groupInfo;
+        }
+        if (groupInfo == null) {
+            throw new IllegalStateException("Item group cannot be NULL");
+        }
+
+        itemGroups.put(item.getId(), groupInfo);
+        insertItem(groupItems.computeIfAbsent(groupInfo, k -> new ArrayList<>()), item.getId());
+    }
+
+    /**
+     * Moves the item to another group if its group values have changed.
+     */
+    public void updateItem(E item) {
+        GroupInfo groupInfo = itemGroups.get(item.getId());
+
+        LinkedMap<MetaPropertyPath, Object> groupValues = new LinkedMap<>();
+        for (Object property : groupProperties) {
+            groupValues.put((MetaPropertyPath) property, valueProvider.apply(item, (MetaPropertyPath) property));
+        }
+        if (!new GroupInfo<>(groupValues).equals(groupInfo)) {
+            removeItem(item.getId());
+            addItem(item);
+        }
+    }
+
+    /**
+     * Removes the item from its group. Groups which become empty are removed from the tree.
+     */
+    public void removeItem(K itemId) {
+        GroupInfo groupInfo = itemGroups.remove(itemId);
+        if (groupInfo == null) {
+            return;
+        }
+        List<K> itemIds = groupItems.get(groupInfo);
+        if (itemIds != null) {
+            itemIds.remove(itemId);
+            if (itemIds.isEmpty()) {
+                groupItems.remove(groupInfo);
+                removeGroup(groupInfo);
+            }
+        }
+    }
+
+    protected void removeGroup(GroupInfo groupInfo) {
+        GroupInfo parent = parents.remove(groupInfo);
+        children.remove(groupInfo);
+
+        List<GroupInfo> siblings = parent == null ? roots : children.get(parent);
+        if (siblings != null) {
+            siblings.remove(groupInfo);
+            if (parent != null && siblings.isEmpty()) {
+                removeGroup(parent);
+            }
+        }
+    }
+
+    protected void insertGroup(List<GroupInfo> siblings, GroupInfo groupInfo) {
+        if (sortProperty != null && sortProperty.equals(groupInfo.getProperty())) {
+            int index = Collections.binarySearch(siblings, groupInfo, new GroupInfoComparator(sortAscending));
+            siblings.add(index < 0 ? -index - 1 : index, groupInfo);
+        } else {
+            siblings.add(groupInfo);
+        }
+    }
+
+    protected void insertItem(List<K> itemIds, K itemId) {
+        if (sortProperty != null && itemComparator != null && !ArrayUtils.contains(groupProperties, sortProperty)) {
+            int index = Collections.binarySearch(itemIds, itemId, itemComparator);
+            itemIds.add(index < 0 ? -index - 1 : index, itemId);
+        } else {
+            itemIds.add(itemId);
+        }
+    }
+}
@@ -89,6 +89,7 @@ public interface CollectionLoader<E extends Entity> extends BaseCollectionLoader
 
     /**
      * Sets a function which will be used to load data instead of standard implementation.
+     * <p>On {@link #loadAsync(com.haulmont.cuba.gui.components.Frame)} the function is invoked in a working thread.
      */
     void setLoadDelegate(Function<LoadContext<E>, List<E>> delegate);
 }
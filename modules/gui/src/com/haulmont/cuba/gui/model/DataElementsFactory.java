@@ -72,6 +72,13 @@ public class DataElementsFactory implements ApplicationContextAware {
         return new CollectionContainerImpl<>(metadata.getClassNN(entityClass));
     }
 
+    /**
+     * Creates {@code VirtualCollectionContainer}.
+     */
+    public <E extends Entity> VirtualCollectionContainer<E> createVirtualCollectionContainer(Class<E> entityClass) {
+        return new VirtualCollectionContainerImpl<>(metadata.getClassNN(entityClass));
+    }
+
     /**
      * Creates {@code CollectionPropertyContainer}.
      */
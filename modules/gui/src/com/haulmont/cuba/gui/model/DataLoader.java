@@ -17,6 +17,9 @@
 package com.haulmont.cuba.gui.model;
 
 import com.haulmont.cuba.core.global.queryconditions.Condition;
+import com.haulmont.cuba.gui.components.Frame;
+import com.haulmont.cuba.gui.executors.BackgroundTaskHandler;
+import com.haulmont.cuba.gui.executors.BackgroundWorker;
 
 import javax.annotation.Nullable;
 import java.util.Map;
@@ -35,6 +38,20 @@ public interface DataLoader {
      */
     void load();
 
+    /**
+     * Loads data to the connected container asynchronously. The data is loaded in a working thread of
+     * {@link BackgroundWorker} and set to the container in the UI thread, so several loaders started one after
+     * another load their data in parallel.
+     * <p>A pending asynchronous load is canceled when the loader is loaded again.
+     * <p>The load delegate, if set, is invoked in the working thread too. It must not access UI components, data
+     * containers and the data context, and it cannot rely on thread-bound state of the UI thread.
+     *
+     * @param ownerFrame if not null, loading is canceled when the frame is closed
+     * @return handler of the background loading or null if there is nothing to load
+     */
+    @Nullable
+    BackgroundTaskHandler<?> loadAsync(@Nullable Frame ownerFrame);
+
     /**
      * Returns connected container.
      */
@@ -83,6 +83,7 @@ public interface InstanceLoader<E extends Entity> extends DataLoader {
 
     /**
      * Sets a function which will be used to load data instead of standard implementation.
+     * <p>On {@link #loadAsync(com.haulmont.cuba.gui.components.Frame)} the function is invoked in a working thread.
      */
     void setLoadDelegate(Function<LoadContext<E>, E> delegate);
 }
\ No newline at end of file
@@ -16,8 +16,11 @@
 
 package com.haulmont.cuba.gui.model;
 
+import com.haulmont.cuba.gui.components.Frame;
 import com.haulmont.cuba.gui.screen.Screen;
 
+import javax.annotation.Nullable;
+
 import java.util.Set;
 
 /**
@@ -37,6 +40,14 @@ public interface ScreenData {
      */
     void loadAll();
 
+    /**
+     * Performs {@link DataLoader#loadAsync(Frame)} for all loaders registered in the screen. Loaders are executed in
+     * parallel and their containers are filled in the UI thread when the data is loaded.
+     *
+     * @param ownerFrame if not null, loading is canceled when the frame is closed
+     */
+    void loadAllAsync(@Nullable Frame ownerFrame);
+
     /**
      * Returns a container by its id.
      * @throws IllegalArgumentException if there is no such container in the screen
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.haulmont.cuba.gui.model;
+
+import com.haulmont.cuba.core.entity.Entity;
+
+import java.util.List;
+
+/**
+ * Collection container that does not keep all its items in memory. The container knows the total number of items
+ * and loads them by pages when they are requested, keeping no more than {@link #getMaxLoadedPages()} pages loaded.
+ * <p>
+ * The container is filled by {@link CollectionLoader}: it obtains the number of items using
+ * {@code DataManager.getCount()} and loads pages of the same query on demand. Items loaded by pages are not merged
+ * into {@link DataContext}.
+ * <p>
+ * Items added to the container are kept separately from the loaded pages until the container is reloaded. Items can
+ * be added only to the beginning or to the end of the list.
+ */
+public interface VirtualCollectionContainer<E extends Entity> extends CollectionContainer<E> {
+
+    int DEFAULT_PAGE_SIZE = 50;
+
+    int DEFAULT_MAX_LOADED_PAGES = 10;
+
+    /**
+     * Loads a page of items.
+     */
+    @FunctionalInterface
+    interface PageLoader<E extends Entity> {
+        /**
+         * @param firstResult index of the first item of the page
+         * @param maxResults  number of items in the page
+         * @return loaded items
+         */
+        List<E> load(int firstResult, int maxResults);
+    }
+
+    /**
+     * Sets the total number of items and the loader of pages. Pages loaded previously are discarded.
+     */
+    void setItems(int size, PageLoader<E> pageLoader);
+
+    /**
+     * Returns the number of items currently kept in memory.
+     */
+    int getLoadedSize();
+
+    /**
+     * Returns the number of items in a page.
+     */
+    int getPageSize();
+
+    /**
+     * Sets the number of items in a page. Takes effect on the next loading of the container.
+     */
+    void setPageSize(int pageSize);
+
+    /**
+     * Returns the maximum number of pages kept in memory. The least recently used page is evicted when the limit is
+     * exceeded.
+     */
+    int getMaxLoadedPages();
+
+    /**
+     * Sets the maximum number of pages kept in memory. Takes effect on the next loading of the container.
+     */
+    void setMaxLoadedPages(int maxLoadedPages);
+}
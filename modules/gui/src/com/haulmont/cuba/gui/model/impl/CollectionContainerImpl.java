@@ -117,6 +117,10 @@ public class CollectionContainerImpl<E extends Entity>
                 entityId = entity.getId();
             }
         }
+        return findItemIndex(entityId);
+    }
+
+    protected int findItemIndex(Object entityId) {
         Integer idx = idMap.get(entityId);
         return idx != null ? idx : -1;
     }
@@ -24,6 +24,7 @@ import com.haulmont.cuba.gui.data.impl.EntityComparator;
 import com.haulmont.cuba.gui.model.BaseCollectionLoader;
 import com.haulmont.cuba.gui.model.CollectionContainer;
 import com.haulmont.cuba.gui.model.Sorter;
+import com.haulmont.cuba.gui.model.VirtualCollectionContainer;
 
 import java.util.ArrayList;
 import java.util.Comparator;
@@ -52,7 +53,8 @@ public class CollectionContainerSorter implements Sorter {
         if (items.isEmpty()) {
             return;
         }
-        if (loader.getFirstResult() == 0
+        if (!(container instanceof VirtualCollectionContainer)
+                && loader.getFirstResult() == 0
                 && container.getItems().size() < loader.getMaxResults()) {
             sortInMemory(sort);
         } else {
@@ -64,8 +66,15 @@ public class CollectionContainerSorter implements Sorter {
         if (sort.getOrders().isEmpty()) {
             return;
         }
-        List<Entity> list = new ArrayList<>(container.getItems());
-        list.sort(createComparator(sort, container.getEntityMetaClass()));
+        List<Entity> list;
+        Comparator<Entity> comparator = createComparator(sort, container.getEntityMetaClass());
+        if (comparator instanceof EntityComparator) {
+            // extracts sort keys once for each item
+            list = ((EntityComparator<Entity>) comparator).sort(container.getItems());
+        } else {
+            list = new ArrayList<>(container.getItems());
+            list.sort(comparator);
+        }
         container.setItems(list);
     }
 
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.haulmont.cuba.gui.model.impl;
+
+import com.haulmont.cuba.client.ClientConfig;
+import com.haulmont.cuba.core.global.Configuration;
+import com.haulmont.cuba.gui.components.Frame;
+import com.haulmont.cuba.gui.executors.BackgroundTask;
+import com.haulmont.cuba.gui.executors.BackgroundTaskHandler;
+import com.haulmont.cuba.gui.executors.BackgroundWorker;
+import com.haulmont.cuba.gui.executors.TaskLifeCycle;
+import org.springframework.context.ApplicationContext;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+
+/**
+ * Background task used by data loaders to load data asynchronously. The data is loaded in a working thread of
+ * {@link BackgroundWorker} and passed to the consumer in the UI thread.
+ * <p>
+ * The finish callback is invoked in the UI thread when the task completes in any way: successfully, with an exception,
+ * by timeout or by cancellation.
+ *
+ * @param <V> type of loaded data
+ */
+class DataLoadTask<V> extends BackgroundTask<Void, V> {
+
+    private final Callable<V> loader;
+    private final Consumer<V> consumer;
+    private final Consumer<BackgroundTaskHandler<V>> finisher;
+    private BackgroundTaskHandler<V> handler;
+
+    DataLoadTask(long timeoutSeconds, @Nullable Frame ownerFrame, Callable<V> loader, Consumer<V> consumer,
+                 Consumer<BackgroundTaskHandler<V>> finisher) {
+        super(timeoutSeconds, ownerFrame);
+        this.loader = loader;
+        this.consumer = consumer;
+        this.finisher = finisher;
+    }
+
+    /**
+     * Starts loading in background.
+     *
+     * @param applicationContext application context to obtain beans
+     * @param ownerFrame         if not null, loading is canceled when the frame is closed
+     * @param loader             loads data in a working thread
+     * @param consumer           applies loaded data in the UI thread
+     * @param finisher           receives the handler of the task when it is finished
+     * @return handler of the started task
+     */
+    static <V> BackgroundTaskHandler<V> execute(ApplicationContext applicationContext, @Nullable Frame ownerFrame,
+                                                Callable<V> loader, Consumer<V> consumer,
+                                                Consumer<BackgroundTaskHandler<V>> finisher) {
+        Configuration configuration = applicationContext.getBean(Configuration.NAME, Configuration.class);
+        int timeoutSec = configuration.getConfig(ClientConfig.class).getAsyncDataLoadTimeoutSec();
+
+        BackgroundWorker backgroundWorker = applicationContext.getBean(BackgroundWorker.NAME, BackgroundWorker.class);
+        DataLoadTask<V> task = new DataLoadTask<>(timeoutSec, ownerFrame, loader, consumer, finisher);
+        task.handler = backgroundWorker.handle(task);
+        task.handler.execute();
+        return task.handler;
+    }
+
+    @Override
+    public V run(TaskLifeCycle<Void> taskLifeCycle) throws Exception {
+        return loader.call();
+    }
+
+    @Override
+    public void done(V result) {
+        finisher.accept(handler);
+        consumer.accept(result);
+    }
+
+    @Override
+    public void canceled() {
+        finisher.accept(handler);
+    }
+
+    @Override
+    public boolean handleTimeoutException() {
+        finisher.accept(handler);
+        return super.handleTimeoutException();
+    }
+
+    @Override
+    public boolean handleException(Exception ex) {
+        finisher.accept(handler);
+        return super.handleException(ex);
+    }
+}
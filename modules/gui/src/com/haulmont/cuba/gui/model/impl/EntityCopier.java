@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.haulmont.cuba.gui.model.impl;
+
+import com.haulmont.chile.core.model.MetaClass;
+import com.haulmont.chile.core.model.MetaProperty;
+import com.haulmont.cuba.core.entity.Entity;
+
+import javax.annotation.Nullable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Describes how to copy the state of entities of a particular class.
+ * <p>
+ * Properties of the class are analyzed once, and fields are read and written through method handles instead of
+ * reflection. Instances are cached for each entity class and rebuilt if the meta-class of the entity class changes.
+ *
+ * @see StandardDataContext
+ */
+public class EntityCopier {
+
+    protected static final Map<Class, EntityCopier> copiers = new ConcurrentHashMap<>();
+
+    protected static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    protected static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    protected static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+
+    protected final Class<?> entityClass;
+    protected final MetaClass metaClass;
+    protected final List<PropertyCopier> properties;
+    protected final MethodHandle constructor;
+
+    /**
+     * @param entityClass   entity class
+     * @param metaClass     meta-class of the entity class
+     * @return copier for entities of the given class
+     */
+    public static EntityCopier get(Class<?> entityClass, MetaClass metaClass) {
+        EntityCopier copier = copiers.get(entityClass);
+        if (copier == null || copier.metaClass != metaClass) {
+            copier = new EntityCopier(entityClass, metaClass);
+            copiers.put(entityClass, copier);
+        }
+        return copier;
+    }
+
+    protected EntityCopier(Class<?> entityClass, MetaClass metaClass) {
+        this.entityClass = entityClass;
+        this.metaClass = metaClass;
+
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        List<PropertyCopier> list = new ArrayList<>();
+        for (MetaProperty property : metaClass.getProperties()) {
+            if (!property.isReadOnly()) {
+                list.add(new PropertyCopier(property, lookup));
+            }
+        }
+        this.properties = Collections.unmodifiableList(list);
+        this.constructor = findConstructor(entityClass, lookup);
+    }
+
+    @Nullable
+    protected MethodHandle findConstructor(Class<?> javaClass, MethodHandles.Lookup lookup) {
+        try {
+            return lookup.findConstructor(javaClass, MethodType.methodType(void.class)).asType(CONSTRUCTOR_TYPE);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    public Class<?> getEntityClass() {
+        return entityClass;
+    }
+
+    public MetaClass getMetaClass() {
+        return metaClass;
+    }
+
+    /**
+     * @return copiers of all properties that are not read-only
+     */
+    public List<PropertyCopier> getProperties() {
+        return properties;
+    }
+
+    /**
+     * Creates a new instance of the entity class using its public no-arg constructor.
+     */
+    public Entity newInstance() {
+        if (constructor == null) {
+            throw new RuntimeException("Cannot create an instance of " + entityClass);
+        }
+        try {
+            return (Entity) (Object) constructor.invokeExact();
+        } catch (Throwable e) {
+            throw new RuntimeException("Cannot create an instance of " + entityClass, e);
+        }
+    }
+
+    /**
+     * Copies values of a single entity property.
+     */
+    public static class PropertyCopier {
+
+        protected final MetaProperty metaProperty;
+        protected final String name;
+        protected final boolean reference;
+        protected final boolean collection;
+
+        protected final MethodHandle fieldGetter;
+        protected final MethodHandle fieldSetter;
+
+        protected PropertyCopier(MetaProperty metaProperty, MethodHandles.Lookup lookup) {
+            this.metaProperty = metaProperty;
+            this.name = metaProperty.getName();
+            this.collection = metaProperty.getRange().getCardinality().isMany();
+            this.reference = metaProperty.getRange().isClass() && !collection;
+
+            MethodHandle getter = null;
+            MethodHandle setter = null;
+            AnnotatedElement annotatedElement = metaProperty.getAnnotatedElement();
+            if (annotatedElement instanceof Field) {
+                Field field = (Field) annotatedElement;
+                field.setAccessible(true);
+                try {
+                    getter = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+                    setter = lookup.unreflectSetter(field).asType(SETTER_TYPE);
+                } catch (IllegalAccessException e) {
+                    // the field cannot be written directly, e.g. it is final
+                    getter = null;
+                    setter = null;
+                }
+            }
+            this.fieldGetter = getter;
+            this.fieldSetter = setter;
+        }
+
+        public MetaProperty getMetaProperty() {
+            return metaProperty;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return true if the property is a to-one reference to another entity
+         */
+        public boolean isReference() {
+            return reference;
+        }
+
+        /**
+         * @return true if the property is a collection
+         */
+        public boolean isCollection() {
+            return collection;
+        }
+
+        /**
+         * @return true if the property is stored in a field which can be accessed directly
+         */
+        public boolean hasField() {
+            return fieldGetter != null;
+        }
+
+        /**
+         * Reads the field of the property bypassing the getter.
+         */
+        public Object getFieldValue(Object entity) {
+            try {
+                return (Object) fieldGetter.invokeExact(entity);
+            } catch (Throwable e) {
+                throw new RuntimeException("Error copying state of attribute " + name, e);
+            }
+        }
+
+        /**
+         * Writes the field of the property bypassing the setter.
+         */
+        public void setFieldValue(Object entity, Object value) {
+            try {
+                fieldSetter.invokeExact(entity, value);
+            } catch (Throwable e) {
+                throw new RuntimeException("Error copying state of attribute " + name, e);
+            }
+        }
+    }
+}
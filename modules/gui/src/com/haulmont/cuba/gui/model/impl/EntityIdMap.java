@@ -0,0 +1,322 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.haulmont.cuba.gui.model.impl;
+
+import com.haulmont.cuba.core.entity.Entity;
+
+import java.util.*;
+
+import static com.haulmont.bali.util.Preconditions.checkNotNullArgument;
+
+/**
+ * Map of entity instances by their identifiers.
+ * <p>
+ * {@code UUID} and {@code Long} identifiers are stored unboxed in open addressing tables of packed {@code long} keys,
+ * without node objects for entries. Identifiers of other types are stored in a regular {@code HashMap}.
+ * <p>
+ * Null values are not permitted. The map is not thread-safe, and its iterators do not support removal.
+ */
+public class EntityIdMap extends AbstractMap<Object, Entity> {
+
+    protected PackedTable uuids;
+    protected PackedTable longs;
+    protected Map<Object, Entity> others;
+
+    @Override
+    public Entity get(Object key) {
+        if (key instanceof UUID) {
+            UUID uuid = (UUID) key;
+            return uuids == null ? null : uuids.get(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        } else if (key instanceof Long) {
+            return longs == null ? null : longs.get((Long) key, 0);
+        } else {
+            return others == null ? null : others.get(key);
+        }
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public Entity put(Object key, Entity value) {
+        checkNotNullArgument(value, "value is null");
+        if (key instanceof UUID) {
+            if (uuids == null) {
+                uuids = new PackedTable();
+            }
+            UUID uuid = (UUID) key;
+            return uuids.put(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), value);
+        } else if (key instanceof Long) {
+            if (longs == null) {
+                longs = new PackedTable();
+            }
+            return longs.put((Long) key, 0, value);
+        } else {
+            if (others == null) {
+                others = new HashMap<>();
+            }
+            return others.put(key, value);
+        }
+    }
+
+    @Override
+    public Entity remove(Object key) {
+        if (key instanceof UUID) {
+            UUID uuid = (UUID) key;
+            return uuids == null ? null : uuids.remove(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        } else if (key instanceof Long) {
+            return longs == null ? null : longs.remove((Long) key, 0);
+        } else {
+            return others == null ? null : others.remove(key);
+        }
+    }
+
+    @Override
+    public int size() {
+        return (uuids == null ? 0 : uuids.size)
+                + (longs == null ? 0 : longs.size)
+                + (others == null ? 0 : others.size());
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public void clear() {
+        uuids = null;
+        longs = null;
+        others = null;
+    }
+
+    @Override
+    public Collection<Entity> values() {
+        return new AbstractCollection<Entity>() {
+            @Override
+            public Iterator<Entity> iterator() {
+                return new EntryIterator<Entity>() {
+                    @Override
+                    protected Entity next(PackedTable table, int slot) {
+                        return table.values[slot];
+                    }
+
+                    @Override
+                    protected Entity next(Map.Entry<Object, Entity> entry) {
+                        return entry.getValue();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return EntityIdMap.this.size();
+            }
+        };
+    }
+
+    @Override
+    public Set<Entry<Object, Entity>> entrySet() {
+        return new AbstractSet<Entry<Object, Entity>>() {
+            @Override
+            public Iterator<Entry<Object, Entity>> iterator() {
+                return new EntryIterator<Entry<Object, Entity>>() {
+                    @Override
+                    protected Entry<Object, Entity> next(PackedTable table, int slot) {
+                        Object key = table == uuids
+                                ? new UUID(table.keys[slot * 2], table.keys[slot * 2 + 1])
+                                : Long.valueOf(table.keys[slot * 2]);
+                        return new SimpleImmutableEntry<>(key, table.values[slot]);
+                    }
+
+                    @Override
+                    protected Entry<Object, Entity> next(Map.Entry<Object, Entity> entry) {
+                        return new SimpleImmutableEntry<>(entry);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return EntityIdMap.this.size();
+            }
+        };
+    }
+
+    /**
+     * Iterates over occupied slots of the packed tables and then over entries of the regular map.
+     */
+    protected abstract class EntryIterator<T> implements Iterator<T> {
+
+        protected PackedTable[] tables = {uuids, longs};
+        protected int tableIndex;
+        protected int slot = -1;
+        protected Iterator<Map.Entry<Object, Entity>> othersIterator;
+
+        protected EntryIterator() {
+            advance();
+        }
+
+        protected void advance() {
+            while (tableIndex < tables.length) {
+                PackedTable table = tables[tableIndex];
+                if (table != null) {
+                    while (++slot < table.values.length) {
+                        if (table.values[slot] != null) {
+                            return;
+                        }
+                    }
+                }
+                tableIndex++;
+                slot = -1;
+            }
+            if (othersIterator == null) {
+                othersIterator = others == null
+                        ? Collections.emptyIterator()
+                        : others.entrySet().iterator();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return tableIndex < tables.length || othersIterator.hasNext();
+        }
+
+        @Override
+        public T next() {
+            if (tableIndex < tables.length) {
+                T result = next(tables[tableIndex], slot);
+                advance();
+                return result;
+            }
+            return next(othersIterator.next());
+        }
+
+        protected abstract T next(PackedTable table, int slot);
+
+        protected abstract T next(Map.Entry<Object, Entity> entry);
+    }
+
+    /**
+     * Open addressing table with linear probing. Each key consists of two {@code long} values stored
+     * in adjacent elements of the keys array; a slot is free if its value is null.
+     */
+    protected static class PackedTable {
+
+        protected static final int INITIAL_CAPACITY = 16;
+
+        protected long[] keys = new long[INITIAL_CAPACITY * 2];
+        protected Entity[] values = new Entity[INITIAL_CAPACITY];
+        protected int size;
+
+        protected static int hash(long hi, long lo) {
+            long h = (hi ^ lo) * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+
+        /**
+         * @return slot of the key, or {@code -(insertion slot + 1)} if the key is absent
+         */
+        protected int find(long hi, long lo) {
+            int mask = values.length - 1;
+            int slot = hash(hi, lo) & mask;
+            while (values[slot] != null) {
+                if (keys[slot * 2] == hi && keys[slot * 2 + 1] == lo) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -(slot + 1);
+        }
+
+        public Entity get(long hi, long lo) {
+            int slot = find(hi, lo);
+            return slot >= 0 ? values[slot] : null;
+        }
+
+        public Entity put(long hi, long lo, Entity value) {
+            int slot = find(hi, lo);
+            if (slot >= 0) {
+                Entity prev = values[slot];
+                values[slot] = value;
+                return prev;
+            }
+            if ((size + 1) * 3 > values.length * 2) {
+                resize();
+                slot = find(hi, lo);
+            }
+            slot = -slot - 1;
+            keys[slot * 2] = hi;
+            keys[slot * 2 + 1] = lo;
+            values[slot] = value;
+            size++;
+            return null;
+        }
+
+        public Entity remove(long hi, long lo) {
+            int slot = find(hi, lo);
+            if (slot < 0) {
+                return null;
+            }
+            Entity prev = values[slot];
+            size--;
+
+            // shift back the following entries of the probe sequence to keep it without gaps
+            int mask = values.length - 1;
+            int free = slot;
+            int next = free;
+            while (true) {
+                next = (next + 1) & mask;
+                if (values[next] == null) {
+                    break;
+                }
+                int home = hash(keys[next * 2], keys[next * 2 + 1]) & mask;
+                boolean stays = free <= next
+                        ? free < home && home <= next
+                        : free < home || home <= next;
+                if (!stays) {
+                    keys[free * 2] = keys[next * 2];
+                    keys[free * 2 + 1] = keys[next * 2 + 1];
+                    values[free] = values[next];
+                    free = next;
+                }
+            }
+            keys[free * 2] = 0;
+            keys[free * 2 + 1] = 0;
+            values[free] = null;
+            return prev;
+        }
+
+        protected void resize() {
+            long[] oldKeys = keys;
+            Entity[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new Entity[oldValues.length * 2];
+            for (int i = 0; i < oldValues.length; i++) {
+                if (oldValues[i] != null) {
+                    int slot = -find(oldKeys[i * 2], oldKeys[i * 2 + 1]) - 1;
+                    keys[slot * 2] = oldKeys[i * 2];
+                    keys[slot * 2 + 1] = oldKeys[i * 2 + 1];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+    }
+}
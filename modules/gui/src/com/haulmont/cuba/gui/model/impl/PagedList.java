@@ -0,0 +1,305 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.haulmont.cuba.gui.model.impl;
+
+import com.haulmont.cuba.core.entity.Entity;
+import com.haulmont.cuba.gui.model.VirtualCollectionContainer.PageLoader;
+
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * List of entities loaded by pages on demand. Used by {@link VirtualCollectionContainerImpl}.
+ * <p>
+ * The list consists of items added to its beginning, the range of items loaded by pages, and items added to its end.
+ * Loaded pages are kept in the access order and the least recently used page is evicted when the number of pages
+ * exceeds the limit. Items are looked up by id only in the loaded pages.
+ * <p>
+ * If the data store returns less items than expected for a page, e.g. because some of them were deleted after
+ * counting, the list shrinks to the end of this page and the subsequent pages are discarded. Accessing an index that
+ * is beyond the new size throws {@link IndexOutOfBoundsException}.
+ */
+public class PagedList<E extends Entity> extends AbstractList<E> {
+
+    protected final int pageSize;
+    protected final int maxLoadedPages;
+    protected final PageLoader<E> pageLoader;
+    protected final Consumer<Collection<E>> loadListener;
+    protected final Consumer<Collection<E>> evictListener;
+
+    protected int pagedSize;
+    protected List<E> head = new ArrayList<>();
+    protected List<E> tail = new ArrayList<>();
+    protected LinkedHashMap<Integer, List<E>> pages = new LinkedHashMap<>(16, 0.75f, true);
+    protected Map<Object, Integer> pagedIndexes = new HashMap<>();
+
+    /**
+     * @param pagedSize      number of items loaded by pages
+     * @param pageSize       number of items in a page
+     * @param maxLoadedPages maximum number of pages kept in memory
+     * @param pageLoader     loads pages, can be null if {@code pagedSize} is 0
+     * @param loadListener   invoked with items of a loaded page
+     * @param evictListener  invoked with items of an evicted page and with all items when the list is cleared
+     */
+    public PagedList(int pagedSize, int pageSize, int maxLoadedPages, @Nullable PageLoader<E> pageLoader,
+                     Consumer<Collection<E>> loadListener, Consumer<Collection<E>> evictListener) {
+        if (pagedSize > 0 && pageLoader == null)
+            throw new IllegalArgumentException("pageLoader is null");
+        if (pageSize <= 0)
+            throw new IllegalArgumentException("pageSize must be positive");
+        if (maxLoadedPages <= 0)
+            throw new IllegalArgumentException("maxLoadedPages must be positive");
+
+        this.pagedSize = pagedSize;
+        this.pageSize = pageSize;
+        this.maxLoadedPages = maxLoadedPages;
+        this.pageLoader = pageLoader;
+        this.loadListener = loadListener;
+        this.evictListener = evictListener;
+    }
+
+    @Override
+    public int size() {
+        return head.size() + pagedSize + tail.size();
+    }
+
+    @Override
+    public E get(int index) {
+        checkIndex(index, size());
+        if (index < head.size()) {
+            return head.get(index);
+        }
+        int pagedIndex = index - head.size();
+        if (pagedIndex < pagedSize) {
+            List<E> page = getPage(pagedIndex / pageSize);
+            int offset = pagedIndex % pageSize;
+            if (offset < page.size()) {
+                return page.get(offset);
+            }
+            // the page is short and the list has shrunk
+            checkIndex(index, size());
+        }
+        return tail.get(pagedIndex - pagedSize);
+    }
+
+    @Override
+    public E set(int index, E element) {
+        checkIndex(index, size());
+        if (index < head.size()) {
+            return head.set(index, element);
+        }
+        int pagedIndex = index - head.size();
+        if (pagedIndex < pagedSize) {
+            List<E> page = getPage(pagedIndex / pageSize);
+            int offset = pagedIndex % pageSize;
+            if (offset < page.size()) {
+                E prev = page.set(offset, element);
+                pagedIndexes.remove(prev.getId(), pagedIndex);
+                pagedIndexes.put(element.getId(), pagedIndex);
+                return prev;
+            }
+            // the page is short and the list has shrunk
+            checkIndex(index, size());
+        }
+        return tail.set(pagedIndex - pagedSize, element);
+    }
+
+    @Override
+    public void add(int index, E element) {
+        checkIndex(index, size() + 1);
+        if (index <= head.size()) {
+            head.add(index, element);
+        } else if (index >= head.size() + pagedSize) {
+            tail.add(index - head.size() - pagedSize, element);
+        } else {
+            throw new UnsupportedOperationException("Cannot insert an item between loaded pages");
+        }
+        modCount++;
+    }
+
+    @Override
+    public E remove(int index) {
+        // loads the page of the item, which can shrink the list
+        E removed = get(index);
+        if (index < head.size()) {
+            head.remove(index);
+        } else {
+            int pagedIndex = index - head.size();
+            if (pagedIndex < pagedSize) {
+                // indexes of all subsequent items are shifted, so their pages will be loaded again
+                discardPages(pagedIndex / pageSize);
+                pagedSize--;
+            } else {
+                tail.remove(pagedIndex - pagedSize);
+            }
+        }
+        modCount++;
+        return removed;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        int index = indexOf(o);
+        if (index == -1) {
+            return false;
+        }
+        remove(index);
+        return true;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        boolean changed = false;
+        for (Object o : c) {
+            changed |= remove(o);
+        }
+        return changed;
+    }
+
+    @Override
+    public void clear() {
+        discardPages(0);
+        evictListener.accept(head);
+        evictListener.accept(tail);
+        head.clear();
+        tail.clear();
+        pagedSize = 0;
+        modCount++;
+    }
+
+    /**
+     * Returns the index of an item with the given id among the items kept in memory or -1 if there is no such item.
+     */
+    public int indexOfId(Object id) {
+        for (int i = 0; i < head.size(); i++) {
+            if (Objects.equals(head.get(i).getId(), id)) {
+                return i;
+            }
+        }
+        Integer pagedIndex = pagedIndexes.get(id);
+        if (pagedIndex != null) {
+            return head.size() + pagedIndex;
+        }
+        for (int i = 0; i < tail.size(); i++) {
+            if (Objects.equals(tail.get(i).getId(), id)) {
+                return head.size() + pagedSize + i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        if (!(o instanceof Entity)) {
+            return -1;
+        }
+        int index = indexOfId(((Entity) o).getId());
+        return index != -1 && o.equals(get(index)) ? index : -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return indexOf(o);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) != -1;
+    }
+
+    /**
+     * Returns the number of items kept in memory.
+     */
+    public int getLoadedSize() {
+        int size = head.size() + tail.size();
+        for (List<E> page : pages.values()) {
+            size += page.size();
+        }
+        return size;
+    }
+
+    /**
+     * Returns true if all pages are loaded, i.e. {@link #indexOfId(Object)} takes into account all items.
+     */
+    public boolean isFullyLoaded() {
+        return pages.size() == (pagedSize + pageSize - 1) / pageSize;
+    }
+
+    protected List<E> getPage(int pageNumber) {
+        List<E> page = pages.get(pageNumber);
+        if (page == null) {
+            page = loadPage(pageNumber);
+        }
+        return page;
+    }
+
+    protected List<E> loadPage(int pageNumber) {
+        int firstResult = pageNumber * pageSize;
+        int maxResults = Math.min(pageSize, pagedSize - firstResult);
+
+        List<E> page = new ArrayList<>(pageLoader.load(firstResult, maxResults));
+        if (page.size() > maxResults) {
+            page = new ArrayList<>(page.subList(0, maxResults));
+        }
+        pages.put(pageNumber, page);
+        for (int i = 0; i < page.size(); i++) {
+            pagedIndexes.put(page.get(i).getId(), firstResult + i);
+        }
+        loadListener.accept(page);
+
+        if (page.size() < maxResults) {
+            // the data store has less items than counted, so there is nothing after this page
+            pagedSize = firstResult + page.size();
+            discardPages(pageNumber + 1);
+        }
+
+        if (pages.size() > maxLoadedPages) {
+            Iterator<Map.Entry<Integer, List<E>>> iterator = pages.entrySet().iterator();
+            Map.Entry<Integer, List<E>> eldest = iterator.next();
+            iterator.remove();
+            unindexPage(eldest.getKey(), eldest.getValue());
+        }
+        return page;
+    }
+
+    protected void discardPages(int fromPageNumber) {
+        Iterator<Map.Entry<Integer, List<E>>> iterator = pages.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, List<E>> entry = iterator.next();
+            if (entry.getKey() >= fromPageNumber) {
+                iterator.remove();
+                unindexPage(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    protected void unindexPage(int pageNumber, List<E> page) {
+        int firstResult = pageNumber * pageSize;
+        for (int i = 0; i < page.size(); i++) {
+            pagedIndexes.remove(page.get(i).getId(), firstResult + i);
+        }
+        evictListener.accept(page);
+    }
+
+    protected void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+    }
+}
@@ -16,11 +16,13 @@
 
 package com.haulmont.cuba.gui.model.impl;
 
+import com.haulmont.cuba.gui.components.Frame;
 import com.haulmont.cuba.gui.model.DataContext;
 import com.haulmont.cuba.gui.model.DataLoader;
 import com.haulmont.cuba.gui.model.InstanceContainer;
 import com.haulmont.cuba.gui.model.ScreenData;
 
+import javax.annotation.Nullable;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
@@ -79,6 +81,13 @@ public class ScreenDataImpl implements ScreenData {
         }
     }
 
+    @Override
+    public void loadAllAsync(@Nullable Frame ownerFrame) {
+        for (DataLoader loader : loaders.values()) {
+            loader.loadAsync(ownerFrame);
+        }
+    }
+
     @Override
     public void registerContainer(String id, InstanceContainer container) {
         containers.put(id, container);
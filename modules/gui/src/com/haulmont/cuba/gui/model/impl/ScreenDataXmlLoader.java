@@ -112,7 +112,17 @@ public class ScreenDataXmlLoader {
             //noinspection ConstantConditions
             container = hostScreenData.getContainer(containerId);
         } else {
-            container = factory.createCollectionContainer(getEntityClass(element));
+            if (Boolean.parseBoolean(element.attributeValue("virtual"))) {
+                VirtualCollectionContainer<Entity> virtualContainer =
+                        factory.createVirtualCollectionContainer(getEntityClass(element));
+                String pageSize = element.attributeValue("pageSize");
+                if (!Strings.isNullOrEmpty(pageSize)) {
+                    virtualContainer.setPageSize(Integer.parseInt(pageSize));
+                }
+                container = virtualContainer;
+            } else {
+                container = factory.createCollectionContainer(getEntityClass(element));
+            }
             loadView(element, getEntityClass(element), container);
         }
 
@@ -19,10 +19,13 @@ package com.haulmont.cuba.gui.model.impl;
 import com.haulmont.cuba.core.entity.Entity;
 import com.haulmont.cuba.core.global.*;
 import com.haulmont.cuba.core.global.queryconditions.Condition;
+import com.haulmont.cuba.gui.components.Frame;
+import com.haulmont.cuba.gui.executors.BackgroundTaskHandler;
 import com.haulmont.cuba.gui.model.CollectionContainer;
 import com.haulmont.cuba.gui.model.CollectionLoader;
 import com.haulmont.cuba.gui.model.DataContext;
 import com.haulmont.cuba.gui.model.HasLoader;
+import com.haulmont.cuba.gui.model.VirtualCollectionContainer;
 import org.springframework.context.ApplicationContext;
 
 import javax.annotation.Nullable;
@@ -50,6 +53,7 @@ public class StandardCollectionLoader<E extends Entity> implements CollectionLoa
     private String viewName;
     private Sort sort;
     private Function<LoadContext<E>, List<E>> delegate;
+    private BackgroundTaskHandler<?> pendingLoad;
 
     public StandardCollectionLoader(ApplicationContext applicationContext) {
         this.applicationContext = applicationContext;
@@ -76,20 +80,73 @@ public class StandardCollectionLoader<E extends Entity> implements CollectionLoa
 
     @Override
     public void load() {
+        checkLoadable();
+        cancelPendingLoad();
+
+        LoadContext<E> loadContext = createLoadContext();
+        if (isVirtual()) {
+            applyCount(loadContext, loadCount(loadContext));
+        } else {
+            applyEntities(loadEntities(loadContext));
+        }
+    }
+
+    @Override
+    public BackgroundTaskHandler<?> loadAsync(@Nullable Frame ownerFrame) {
+        checkLoadable();
+        cancelPendingLoad();
+
+        LoadContext<E> loadContext = createLoadContext();
+        if (isVirtual()) {
+            pendingLoad = DataLoadTask.execute(applicationContext, ownerFrame,
+                    () -> loadCount(loadContext),
+                    count -> applyCount(loadContext, count),
+                    this::loadFinished);
+        } else {
+            pendingLoad = DataLoadTask.execute(applicationContext, ownerFrame,
+                    () -> loadEntities(loadContext),
+                    this::applyEntities,
+                    this::loadFinished);
+        }
+        return pendingLoad;
+    }
+
+    protected void checkLoadable() {
         if (container == null)
             throw new IllegalStateException("container is null");
         if (query == null)
             throw new IllegalStateException("query is null");
+    }
 
-        LoadContext<E> loadContext = createLoadContext();
+    protected void cancelPendingLoad() {
+        if (pendingLoad != null) {
+            pendingLoad.cancel();
+            pendingLoad = null;
+        }
+    }
 
-        List<E> list;
+    protected void loadFinished(BackgroundTaskHandler<?> handler) {
+        // a canceled load can finish after the next one is started
+        if (pendingLoad == handler) {
+            pendingLoad = null;
+        }
+    }
+
+    /**
+     * Loads entities. Can be invoked from a working thread, so it must not touch the container and data context.
+     */
+    protected List<E> loadEntities(LoadContext<E> loadContext) {
         if (delegate == null) {
-            list = getDataManager().loadList(loadContext);
+            return getDataManager().loadList(loadContext);
         } else {
-            list = delegate.apply(loadContext);
+            return delegate.apply(loadContext);
         }
+    }
 
+    /**
+     * Merges loaded entities into the data context and sets them to the container. Invoked in the UI thread.
+     */
+    protected void applyEntities(List<E> list) {
         if (dataContext != null) {
             List<E> mergedList = new ArrayList<>(list.size());
             for (E entity : list) {
@@ -101,6 +158,55 @@ public class StandardCollectionLoader<E extends Entity> implements CollectionLoa
         }
     }
 
+    /**
+     * Returns true if the container is virtual and the loader can obtain the number of items and load them by pages.
+     */
+    protected boolean isVirtual() {
+        return container instanceof VirtualCollectionContainer && delegate == null;
+    }
+
+    /**
+     * Returns the number of items for a virtual container. Can be invoked from a working thread.
+     */
+    @SuppressWarnings("unchecked")
+    protected int loadCount(LoadContext<E> loadContext) {
+        LoadContext<E> countContext = (LoadContext<E>) loadContext.copy();
+        LoadContext.Query query = countContext.getQuery();
+        // Query.copy() does not copy the condition
+        query.setCondition(loadContext.getQuery().getCondition());
+        query.setFirstResult(0);
+        query.setMaxResults(0);
+        query.setSort(null);
+
+        long count = getDataManager().getCount(countContext);
+        return (int) Math.max(0, Math.min(count - firstResult, maxResults));
+    }
+
+    /**
+     * Sets the number of items and the loader of pages to a virtual container. Invoked in the UI thread.
+     */
+    @SuppressWarnings("unchecked")
+    protected void applyCount(LoadContext<E> loadContext, int count) {
+        ((VirtualCollectionContainer<E>) container).setItems(count,
+                (pageFirstResult, pageMaxResults) -> loadPage(loadContext, pageFirstResult, pageMaxResults));
+    }
+
+    /**
+     * Loads a page of a virtual container. Loaded entities are not merged into the data context to keep the number of
+     * instances in memory bounded.
+     */
+    @SuppressWarnings("unchecked")
+    protected List<E> loadPage(LoadContext<E> loadContext, int pageFirstResult, int pageMaxResults) {
+        LoadContext<E> pageContext = (LoadContext<E>) loadContext.copy();
+        LoadContext.Query query = pageContext.getQuery();
+        // Query.copy() does not copy the condition and sort
+        query.setCondition(loadContext.getQuery().getCondition());
+        query.setSort(loadContext.getQuery().getSort());
+        query.setFirstResult(loadContext.getQuery().getFirstResult() + pageFirstResult);
+        query.setMaxResults(pageMaxResults);
+        return getDataManager().loadList(pageContext);
+    }
+
     @Override
     public LoadContext<E> createLoadContext() {
         LoadContext<E> loadContext = LoadContext.create(container.getEntityMetaClass().getJavaClass());
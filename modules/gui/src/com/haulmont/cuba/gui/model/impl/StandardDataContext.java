@@ -36,8 +36,6 @@ import org.eclipse.persistence.queries.FetchGroupTracker;
 import org.springframework.context.ApplicationContext;
 
 import javax.annotation.Nullable;
-import java.lang.reflect.AnnotatedElement;
-import java.lang.reflect.Field;
 import java.util.*;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
@@ -86,6 +84,11 @@ public class StandardDataContext implements DataContext {
         return applicationContext.getBean(DataManager.NAME, DataManager.class);
     }
 
+    protected EntityCopier getCopier(Entity entity) {
+        Class<? extends Entity> entityClass = entity.getClass();
+        return EntityCopier.get(entityClass, getMetadata().getClassNN(entityClass));
+    }
+
     @Override
     public DataContext getParent() {
         return parentContext;
@@ -154,7 +157,7 @@ public class StandardDataContext implements DataContext {
     }
 
     protected Entity internalMerge(Entity entity) {
-        Map<Object, Entity> entityMap = content.computeIfAbsent(entity.getClass(), aClass -> new HashMap<>());
+        Map<Object, Entity> entityMap = content.computeIfAbsent(entity.getClass(), aClass -> new EntityIdMap());
         Entity managedInstance = entityMap.get(entity.getId());
 
         if (managedInstance != null) {
@@ -182,11 +185,9 @@ public class StandardDataContext implements DataContext {
     protected void copyReferences(Entity srcEntity, Entity dstEntity) {
         EntityStates entityStates = getEntityStates();
 
-        for (MetaProperty property : getMetadata().getClassNN(srcEntity.getClass()).getProperties()) {
+        for (EntityCopier.PropertyCopier property : getCopier(srcEntity).getProperties()) {
             String propertyName = property.getName();
-            if (!property.getRange().isClass()
-                    || property.getRange().getCardinality().isMany()
-                    || property.isReadOnly()
+            if (!property.isReference()
                     || !entityStates.isLoaded(srcEntity, propertyName)
                     || !entityStates.isLoaded(dstEntity, propertyName)) {
                 continue;
@@ -207,11 +208,9 @@ public class StandardDataContext implements DataContext {
     protected void mergeReferences(Entity entity) {
         EntityStates entityStates = getEntityStates();
 
-        for (MetaProperty property : getMetadata().getClassNN(entity.getClass()).getProperties()) {
+        for (EntityCopier.PropertyCopier property : getCopier(entity).getProperties()) {
             String propertyName = property.getName();
-            if (!property.getRange().isClass()
-                    || property.getRange().getCardinality().isMany()
-                    || property.isReadOnly()
+            if (!property.isReference()
                     || !entityStates.isLoaded(entity, propertyName)) {
                 continue;
             }
@@ -248,10 +247,9 @@ public class StandardDataContext implements DataContext {
                 }
             }
         }
-        for (MetaProperty property : getMetadata().getClassNN(srcEntity.getClass()).getProperties()) {
+        for (EntityCopier.PropertyCopier property : getCopier(srcEntity).getProperties()) {
             String name = property.getName();
-            if ((!property.getRange().isClass() || property.getRange().getCardinality().isMany()) // local and collections
-                    && !property.isReadOnly()                                                     // read-write
+            if (!property.isReference()                                                           // local and collections
                     && (srcNew || entityStates.isLoaded(srcEntity, name))                         // loaded src
                     && (dstNew || entityStates.isLoaded(dstEntity, name))) {                      // loaded dst
                 Object value = srcEntity.getValue(name);
@@ -262,7 +260,7 @@ public class StandardDataContext implements DataContext {
                 }
 
                 // copy only non-null collections
-                if (property.getRange().getCardinality().isMany()) {
+                if (property.isCollection()) {
                     if (value != null) {
                         Collection copy = createObservableCollection((Collection) value, dstEntity.getValue(name), dstEntity);
                         dstEntity.setValue(name, copy);
@@ -311,46 +309,31 @@ public class StandardDataContext implements DataContext {
         EntityStates entityStates = getEntityStates();
         boolean srcNew = entityStates.isNew(srcEntity);
 
-        Entity dstEntity;
-        try {
-            dstEntity = srcEntity.getClass().newInstance();
-        } catch (InstantiationException | IllegalAccessException e) {
-            throw new RuntimeException("Cannot create an instance of " + srcEntity.getClass(), e);
-        }
+        EntityCopier copier = getCopier(srcEntity);
+        Entity dstEntity = copier.newInstance();
         copyIdAndVersion(srcEntity, dstEntity);
 
         copied.put(srcEntity, dstEntity);
 
-        for (MetaProperty property : getMetadata().getClassNN(srcEntity.getClass()).getProperties()) {
+        for (EntityCopier.PropertyCopier property : copier.getProperties()) {
             String name = property.getName();
-            if (!property.isReadOnly()
+            if (property.hasField()
                     && (srcNew || entityStates.isLoaded(srcEntity, name))) {
-                AnnotatedElement annotatedElement = property.getAnnotatedElement();
-                if (annotatedElement instanceof Field) {
-                    Field field = (Field) annotatedElement;
-                    field.setAccessible(true);
-                    try {
-                        Object value = field.get(srcEntity);
-                        Object newValue;
-                        if (value != null) {
-                            if (!property.getRange().isClass()) {
-                                newValue = value;
-                            } else if (!property.getRange().getCardinality().isMany()) {
-                                newValue = copyGraph((Entity) value, copied);
-                            } else {
-                                Collection dstCollection = value instanceof List ? new ArrayList() : new LinkedHashSet();
-                                for (Object item : (Collection) value) {
-                                    dstCollection.add(copyGraph((Entity) item, copied));
-                                }
-                                newValue = dstCollection;
-                            }
-                            if (newValue != null) {
-                                field.set(dstEntity, newValue);
-                            }
+                Object value = property.getFieldValue(srcEntity);
+                if (value != null) {
+                    Object newValue;
+                    if (!property.getMetaProperty().getRange().isClass()) {
+                        newValue = value;
+                    } else if (property.isReference()) {
+                        newValue = copyGraph((Entity) value, copied);
+                    } else {
+                        Collection dstCollection = value instanceof List ? new ArrayList() : new LinkedHashSet();
+                        for (Object item : (Collection) value) {
+                            dstCollection.add(copyGraph((Entity) item, copied));
                         }
-                    } catch (IllegalAccessException e) {
-                        throw new RuntimeException("Error copying state of attribute " + name, e);
+                        newValue = dstCollection;
                     }
+                    property.setFieldValue(dstEntity, newValue);
                 }
             }
         }
@@ -389,10 +372,10 @@ public class StandardDataContext implements DataContext {
     }
 
     @SuppressWarnings("unchecked")
-    protected void copyValue(Object dstObject, Field field, Object srcValue) throws IllegalAccessException {
+    protected void copyValue(Object dstObject, EntityCopier.PropertyCopier property, Object srcValue) {
         if (srcValue instanceof Collection) {
             Collection srcCollection = (Collection) srcValue;
-            Collection dstCollection = (Collection) field.get(dstObject);
+            Collection dstCollection = (Collection) property.getFieldValue(dstObject);
             Collection newDstCollection = srcValue instanceof List ? new ArrayList() : new LinkedHashSet();
             if (dstCollection == null) {
                 newDstCollection.addAll(srcCollection);
@@ -407,9 +390,9 @@ public class StandardDataContext implements DataContext {
             Collection observable = newDstCollection instanceof List ?
                     new ObservableList(((List) newDstCollection), onChanged) :
                     new ObservableSet(((Set) newDstCollection), onChanged);
-            field.set(dstObject, observable);
+            property.setFieldValue(dstObject, observable);
         } else {
-            field.set(dstObject, srcValue);
+            property.setFieldValue(dstObject, srcValue);
         }
     }
 
@@ -20,6 +20,8 @@ import com.google.common.base.Strings;
 import com.haulmont.cuba.core.entity.Entity;
 import com.haulmont.cuba.core.global.*;
 import com.haulmont.cuba.core.global.queryconditions.Condition;
+import com.haulmont.cuba.gui.components.Frame;
+import com.haulmont.cuba.gui.executors.BackgroundTaskHandler;
 import com.haulmont.cuba.gui.model.DataContext;
 import com.haulmont.cuba.gui.model.HasLoader;
 import com.haulmont.cuba.gui.model.InstanceContainer;
@@ -50,6 +52,7 @@ public class StandardInstanceLoader<E extends Entity> implements InstanceLoader<
     private View view;
     private String viewName;
     private Function<LoadContext<E>, E> delegate;
+    private BackgroundTaskHandler<E> pendingLoad;
 
     public StandardInstanceLoader(ApplicationContext applicationContext) {
         this.applicationContext = applicationContext;
@@ -79,23 +82,67 @@ public class StandardInstanceLoader<E extends Entity> implements InstanceLoader<
         if (container == null)
             throw new IllegalStateException("container is null");
 
-        E entity;
+        cancelPendingLoad();
 
-        if (delegate == null) {
-            if (!needLoad())
-                return;
+        if (delegate == null && !needLoad())
+            return;
+
+        LoadContext<E> loadContext = createLoadContext();
+        applyEntity(loadEntity(loadContext));
+    }
+
+    @Nullable
+    @Override
+    public BackgroundTaskHandler<E> loadAsync(@Nullable Frame ownerFrame) {
+        if (container == null)
+            throw new IllegalStateException("container is null");
+
+        cancelPendingLoad();
 
-            LoadContext<E> loadContext = createLoadContext();
+        if (delegate == null && !needLoad())
+            return null;
 
-            entity = getDataManager().load(loadContext);
+        LoadContext<E> loadContext = createLoadContext();
+        pendingLoad = DataLoadTask.execute(applicationContext, ownerFrame,
+                () -> loadEntity(loadContext),
+                this::applyEntity,
+                this::loadFinished);
+        return pendingLoad;
+    }
 
+    protected void cancelPendingLoad() {
+        if (pendingLoad != null) {
+            pendingLoad.cancel();
+            pendingLoad = null;
+        }
+    }
+
+    protected void loadFinished(BackgroundTaskHandler<?> handler) {
+        // a canceled load can finish after the next one is started
+        if (pendingLoad == handler) {
+            pendingLoad = null;
+        }
+    }
+
+    /**
+     * Loads the entity. Can be invoked from a working thread, so it must not touch the container and data context.
+     */
+    protected E loadEntity(LoadContext<E> loadContext) {
+        if (delegate == null) {
+            E entity = getDataManager().load(loadContext);
             if (entity == null) {
-                throw new EntityAccessException(container.getEntityMetaClass(), entityId);
+                throw new EntityAccessException(container.getEntityMetaClass(), loadContext.getId());
             }
+            return entity;
         } else {
-            entity = delegate.apply(createLoadContext());
+            return delegate.apply(loadContext);
         }
+    }
 
+    /**
+     * Merges the loaded entity into the data context and sets it to the container. Invoked in the UI thread.
+     */
+    protected void applyEntity(E entity) {
         if (dataContext != null) {
             entity = dataContext.merge(entity);
         }
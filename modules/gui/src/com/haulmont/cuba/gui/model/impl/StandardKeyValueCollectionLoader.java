@@ -23,6 +23,8 @@ import com.haulmont.cuba.core.global.Sort;
 import com.haulmont.cuba.core.global.Stores;
 import com.haulmont.cuba.core.global.ValueLoadContext;
 import com.haulmont.cuba.core.global.queryconditions.Condition;
+import com.haulmont.cuba.gui.components.Frame;
+import com.haulmont.cuba.gui.executors.BackgroundTaskHandler;
 import com.haulmont.cuba.gui.model.DataContext;
 import com.haulmont.cuba.gui.model.HasLoader;
 import com.haulmont.cuba.gui.model.KeyValueCollectionContainer;
@@ -52,6 +54,7 @@ public class StandardKeyValueCollectionLoader implements KeyValueCollectionLoade
 
     private String storeName = Stores.MAIN;
     private Function<ValueLoadContext, Collection<KeyValueEntity>> delegate;
+    private BackgroundTaskHandler<Collection<KeyValueEntity>> pendingLoad;
 
     public StandardKeyValueCollectionLoader(ApplicationContext applicationContext) {
         this.applicationContext = applicationContext;
@@ -74,20 +77,62 @@ public class StandardKeyValueCollectionLoader implements KeyValueCollectionLoade
 
     @Override
     public void load() {
+        checkLoadable();
+        cancelPendingLoad();
+
+        ValueLoadContext loadContext = createLoadContext();
+        applyValues(loadValues(loadContext));
+    }
+
+    @Override
+    public BackgroundTaskHandler<Collection<KeyValueEntity>> loadAsync(@Nullable Frame ownerFrame) {
+        checkLoadable();
+        cancelPendingLoad();
+
+        ValueLoadContext loadContext = createLoadContext();
+        pendingLoad = DataLoadTask.execute(applicationContext, ownerFrame,
+                () -> loadValues(loadContext),
+                this::applyValues,
+                this::loadFinished);
+        return pendingLoad;
+    }
+
+    protected void checkLoadable() {
         if (container == null)
             throw new IllegalStateException("container is null");
         if (query == null)
             throw new IllegalStateException("query is null");
+    }
 
-        ValueLoadContext loadContext = createLoadContext();
+    protected void cancelPendingLoad() {
+        if (pendingLoad != null) {
+            pendingLoad.cancel();
+            pendingLoad = null;
+        }
+    }
 
-        Collection<KeyValueEntity> list;
+    protected void loadFinished(BackgroundTaskHandler<?> handler) {
+        // a canceled load can finish after the next one is started
+        if (pendingLoad == handler) {
+            pendingLoad = null;
+        }
+    }
+
+    /**
+     * Loads values. Can be invoked from a working thread, so it must not touch the container and data context.
+     */
+    protected Collection<KeyValueEntity> loadValues(ValueLoadContext loadContext) {
         if (delegate == null) {
-            list = getDataManager().loadValues(loadContext);
+            return getDataManager().loadValues(loadContext);
         } else {
-            list = delegate.apply(loadContext);
+            return delegate.apply(loadContext);
         }
+    }
 
+    /**
+     * Sets loaded values to the container. Invoked in the UI thread.
+     */
+    protected void applyValues(Collection<KeyValueEntity> list) {
         // TODO merge KeyValueEntity ???
         if (dataContext != null) {
             for (KeyValueEntity entity : list) {
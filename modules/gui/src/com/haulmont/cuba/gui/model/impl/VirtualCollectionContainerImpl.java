@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.haulmont.cuba.gui.model.impl;
+
+import com.haulmont.chile.core.model.MetaClass;
+import com.haulmont.cuba.core.entity.Entity;
+import com.haulmont.cuba.gui.model.CollectionChangeType;
+import com.haulmont.cuba.gui.model.VirtualCollectionContainer;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Standard implementation of {@link VirtualCollectionContainer} based on {@link PagedList}.
+ */
+public class VirtualCollectionContainerImpl<E extends Entity>
+        extends CollectionContainerImpl<E> implements VirtualCollectionContainer<E> {
+
+    protected int pageSize = DEFAULT_PAGE_SIZE;
+    protected int maxLoadedPages = DEFAULT_MAX_LOADED_PAGES;
+
+    public VirtualCollectionContainerImpl(MetaClass metaClass) {
+        super(metaClass);
+        collection = createPagedList(0, null);
+    }
+
+    protected PagedList<E> createPagedList(int size, @Nullable PageLoader<E> pageLoader) {
+        return new PagedList<>(size, pageSize, maxLoadedPages, pageLoader, this::attachListener, this::detachListener);
+    }
+
+    protected PagedList<E> getPagedList() {
+        return (PagedList<E>) collection;
+    }
+
+    @Override
+    public void setItems(int size, PageLoader<E> pageLoader) {
+        resetItems(createPagedList(size, pageLoader));
+    }
+
+    @Override
+    public void setItems(@Nullable Collection<E> entities) {
+        PagedList<E> pagedList = createPagedList(0, null);
+        if (entities != null) {
+            pagedList.addAll(entities);
+            attachListener(entities);
+        }
+        resetItems(pagedList);
+    }
+
+    protected void resetItems(PagedList<E> pagedList) {
+        getPagedList().clear();
+        collection = pagedList;
+        clearItemIfNotExists();
+        fireCollectionChanged(CollectionChangeType.REFRESH, Collections.emptyList());
+    }
+
+    @Override
+    public List<E> getMutableItems() {
+        return new ObservableList<>(collection, (changeType, changes) -> {
+            if (changeType == CollectionChangeType.REMOVE_ITEMS && item != null && changes.contains(item)) {
+                E prevItem = item;
+                detachListener(prevItem);
+                item = null;
+                fireItemChanged(prevItem);
+            }
+            clearItemIfNotExists();
+            fireCollectionChanged(changeType, changes);
+        });
+    }
+
+    @Override
+    protected int findItemIndex(Object entityId) {
+        return getPagedList().indexOfId(entityId);
+    }
+
+    @Override
+    protected void buildIdMap() {
+        // items are indexed by the paged list
+    }
+
+    @Override
+    protected void clearItemIfNotExists() {
+        if (item != null && getItemIndex(item.getId()) == -1 && !getPagedList().isFullyLoaded()) {
+            // the item can belong to an evicted page
+            return;
+        }
+        super.clearItemIfNotExists();
+    }
+
+    @Override
+    public int getLoadedSize() {
+        return getPagedList().getLoadedSize();
+    }
+
+    @Override
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    @Override
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public int getMaxLoadedPages() {
+        return maxLoadedPages;
+    }
+
+    @Override
+    public void setMaxLoadedPages(int maxLoadedPages) {
+        this.maxLoadedPages = maxLoadedPages;
+    }
+
+    @Override
+    public String toString() {
+        return "VirtualCollectionContainerImpl{" +
+                "entity=" + entityMetaClass +
+                ", view=" + view +
+                ", size=" + collection.size() +
+                ", loadedSize=" + getLoadedSize() +
+                '}';
+    }
+}
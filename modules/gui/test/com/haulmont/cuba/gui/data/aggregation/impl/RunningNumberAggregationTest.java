@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.haulmont.cuba.gui.data.aggregation.impl;
+
+import com.haulmont.cuba.gui.components.AggregationInfo;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RunningNumberAggregationTest {
+
+    @Test
+    public void testAddRemove() {
+        LongAggregation aggregation = new LongAggregation();
+        RunningNumberAggregation<Long> running = new RunningNumberAggregation<>(aggregation);
+        List<Long> values = new ArrayList<>(Arrays.asList(5L, 1L, 7L, 3L));
+        values.forEach(running::add);
+        running.add(null);
+
+        assertResults(aggregation, running, values);
+
+        running.remove(3L);
+        values.remove(3L);
+        assertResults(aggregation, running, values);
+
+        running.add(10L);
+        values.add(10L);
+        assertResults(aggregation, running, values);
+    }
+
+    @Test
+    public void testRemoveExtreme() {
+        DoubleAggregation aggregation = new DoubleAggregation();
+        RunningNumberAggregation<Double> running = new RunningNumberAggregation<>(aggregation);
+        running.add(1.5);
+        running.add(2.5);
+        running.add(4.0);
+
+        running.remove(4.0);
+        assertFalse(running.isAvailable(AggregationInfo.Type.MAX));
+        assertFalse(running.isAvailable(AggregationInfo.Type.MIN));
+        assertTrue(running.isAvailable(AggregationInfo.Type.SUM));
+        assertEquals(4.0, running.getResult(AggregationInfo.Type.SUM));
+        assertEquals(2.0, running.getResult(AggregationInfo.Type.AVG));
+
+        running.remove(1.5);
+        running.remove(2.5);
+        assertTrue(running.isAvailable(AggregationInfo.Type.MAX));
+        assertResults(aggregation, running, Collections.emptyList());
+
+        running.add(3.0);
+        assertResults(aggregation, running, Collections.singletonList(3.0));
+    }
+
+    @Test
+    public void testChangeValue() {
+        LongAggregation aggregation = new LongAggregation();
+        RunningNumberAggregation<Long> running = new RunningNumberAggregation<>(aggregation);
+        running.add(2L);
+        running.add(4L);
+        running.add(6L);
+
+        running.remove(4L);
+        running.add(5L);
+        assertResults(aggregation, running, Arrays.asList(2L, 5L, 6L));
+    }
+
+    protected <T extends Number> void assertResults(BasicNumberAggregation<T> aggregation,
+                                                    RunningNumberAggregation<T> running, List<T> values) {
+        assertEquals(aggregation.count(values), running.getResult(AggregationInfo.Type.COUNT));
+        assertEquals(aggregation.sum(values), running.getResult(AggregationInfo.Type.SUM));
+        assertEquals(aggregation.avg(values), running.getResult(AggregationInfo.Type.AVG));
+        assertEquals(aggregation.min(values), running.getResult(AggregationInfo.Type.MIN));
+        assertEquals(aggregation.max(values), running.getResult(AggregationInfo.Type.MAX));
+    }
+}
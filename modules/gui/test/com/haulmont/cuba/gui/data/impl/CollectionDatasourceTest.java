@@ -16,10 +16,13 @@
 
 package com.haulmont.cuba.gui.data.impl;
 
+import com.haulmont.chile.core.model.MetaPropertyPath;
 import com.haulmont.cuba.client.testsupport.CubaClientTestCase;
 import com.haulmont.cuba.core.entity.BaseEntityInternalAccess;
 import com.haulmont.cuba.core.global.AppBeans;
+import com.haulmont.cuba.gui.components.AggregationInfo;
 import com.haulmont.cuba.gui.data.CollectionDatasource;
+import com.haulmont.cuba.gui.data.aggregation.impl.RunningNumberAggregation;
 import com.haulmont.cuba.gui.data.impl.testmodel1.TestDetailEntity;
 import com.haulmont.cuba.gui.data.impl.testmodel1.TestMasterEntity;
 import com.haulmont.cuba.gui.executors.BackgroundWorker;
@@ -29,7 +32,9 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -156,4 +161,124 @@ public class CollectionDatasourceTest extends CubaClientTestCase {
         assertTrue("Not all removed items passed on resume", removedItems.containsAll(itemsToRemove));
         assertTrue("Not all added items passed on resume", addedItems.containsAll(itemsToAdd));
     }
+
+    @Test
+    public void testAggregationAfterUpdateOfSameInstance() {
+        CollectionDatasourceImpl<TestDetailEntity, UUID> cds = createDetailDs();
+        TestDetailEntity detail1 = createDetail(10);
+        TestDetailEntity detail2 = createDetail(20);
+        cds.includeItem(detail1);
+        cds.includeItem(detail2);
+
+        AggregationInfo sum = createAmountAggregation(cds, AggregationInfo.Type.SUM);
+        assertEquals("30", aggregate(cds, sum));
+
+        cds.updateItem(detail1);
+        cds.updateItem(detail1);
+        assertEquals("30", aggregate(cds, sum));
+
+        detail1.setAmount(15);
+        assertEquals("35", aggregate(cds, sum));
+
+        detail1.setAmount(5);
+        assertEquals("25", aggregate(cds, sum));
+    }
+
+    @Test
+    public void testAggregationAfterUpdateWithOtherInstance() {
+        CollectionDatasourceImpl<TestDetailEntity, UUID> cds = createDetailDs();
+        TestDetailEntity detail1 = createDetail(10);
+        TestDetailEntity detail2 = createDetail(20);
+        cds.includeItem(detail1);
+        cds.includeItem(detail2);
+
+        AggregationInfo sum = createAmountAggregation(cds, AggregationInfo.Type.SUM);
+        assertEquals("30", aggregate(cds, sum));
+
+        TestDetailEntity detail1Copy = metadata.getTools().copy(detail1);
+        detail1Copy.setAmount(15);
+        cds.updateItem(detail1Copy);
+        assertEquals("35", aggregate(cds, sum));
+
+        // the replaced instance does not affect the datasource anymore
+        detail1.setAmount(100);
+        assertEquals("35", aggregate(cds, sum));
+
+        detail1Copy.setAmount(5);
+        assertEquals("25", aggregate(cds, sum));
+    }
+
+    @Test
+    public void testAggregationOfSeveralProperties() {
+        CollectionDatasourceImpl<TestDetailEntity, UUID> cds = createDetailDs();
+        TestDetailEntity detail1 = createDetail(10);
+        detail1.setQuantity(1);
+        TestDetailEntity detail2 = createDetail(20);
+        detail2.setQuantity(2);
+        cds.includeItem(detail1);
+        cds.includeItem(detail2);
+
+        AggregationInfo amountSum = createAmountAggregation(cds, AggregationInfo.Type.SUM);
+        AggregationInfo quantitySum = createAggregation(cds, "quantity", AggregationInfo.Type.SUM);
+        AggregationInfo quantityMax = createAggregation(cds, "quantity", AggregationInfo.Type.MAX);
+        AggregationInfo[] aggregationInfos = {amountSum, quantitySum, quantityMax};
+
+        Map<AggregationInfo, String> results = cds.aggregate(aggregationInfos, cds.getItemIds());
+        assertEquals("30", results.get(amountSum));
+        assertEquals("3", results.get(quantitySum));
+        assertEquals("2", results.get(quantityMax));
+
+        // running aggregations of all properties are kept and updated instead of being recalculated
+        Map<MetaPropertyPath, RunningNumberAggregation> runningAggregations =
+                new HashMap<>(cds.aggregatableDelegate.runningAggregations);
+        assertEquals(2, runningAggregations.size());
+
+        TestDetailEntity detail3 = createDetail(30);
+        detail3.setQuantity(3);
+        cds.includeItem(detail3);
+        // neither the minimum nor the maximum is removed, so MAX stays available
+        detail2.setQuantity(4);
+
+        results = cds.aggregate(aggregationInfos, cds.getItemIds());
+        assertEquals("60", results.get(amountSum));
+        assertEquals("8", results.get(quantitySum));
+        assertEquals("4", results.get(quantityMax));
+        assertEquals(runningAggregations, cds.aggregatableDelegate.runningAggregations);
+    }
+
+    private CollectionDatasourceImpl<TestDetailEntity, UUID> createDetailDs() {
+        CollectionDatasourceImpl<TestDetailEntity, UUID> cds = new CollectionDatasourceImpl<>();
+        cds.setMetaClass(metadata.getClassNN(TestDetailEntity.class));
+        cds.setRefreshMode(CollectionDatasource.RefreshMode.NEVER);
+        cds.valid();
+        return cds;
+    }
+
+    @SuppressWarnings("IncorrectCreateEntity")
+    private TestDetailEntity createDetail(Integer amount) {
+        TestDetailEntity detail = new TestDetailEntity();
+        BaseEntityInternalAccess.setNew(detail, false);
+        BaseEntityInternalAccess.setDetached(detail, true);
+        detail.setAmount(amount);
+        return detail;
+    }
+
+    private AggregationInfo createAmountAggregation(CollectionDatasourceImpl<TestDetailEntity, UUID> cds,
+                                                    AggregationInfo.Type type) {
+        return createAggregation(cds, "amount", type);
+    }
+
+    private AggregationInfo createAggregation(CollectionDatasourceImpl<TestDetailEntity, UUID> cds,
+                                              String property, AggregationInfo.Type type) {
+        AggregationInfo aggregationInfo = new AggregationInfo();
+        aggregationInfo.setPropertyPath(cds.getMetaClass().getPropertyPath(property));
+        aggregationInfo.setType(type);
+        aggregationInfo.setFormatter(String::valueOf);
+        return aggregationInfo;
+    }
+
+    @SuppressWarnings("unchecked")
+    private String aggregate(CollectionDatasourceImpl<TestDetailEntity, UUID> cds, AggregationInfo aggregationInfo) {
+        return cds.aggregate(new AggregationInfo[]{aggregationInfo}, cds.getItemIds()).get(aggregationInfo);
+    }
 }
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.gui.data.impl;
+
+import com.haulmont.chile.core.model.MetaClass;
+import com.haulmont.chile.core.model.MetaPropertyPath;
+import com.haulmont.chile.core.model.impl.MetaClassImpl;
+import com.haulmont.chile.core.model.impl.MetaModelImpl;
+import com.haulmont.chile.core.model.impl.MetaPropertyImpl;
+import com.haulmont.chile.core.model.impl.SessionImpl;
+import com.haulmont.cuba.client.sys.PersistenceManagerClient;
+import com.haulmont.cuba.core.entity.KeyValueEntity;
+import com.haulmont.cuba.core.global.AppBeans;
+import com.haulmont.cuba.core.global.Metadata;
+import com.haulmont.cuba.core.global.MetadataTools;
+import mockit.Delegate;
+import mockit.Expectations;
+import mockit.Mocked;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that {@link EntityComparator#sort(Collection)} gives the same order as sorting a list with the comparator.
+ */
+public class EntityComparatorTest {
+
+    protected static final String ALPHABET = "aAbBzZ_09 éÉßẞıİiIσΣςωΩжЖǅǄǆ";
+
+    @Mocked
+    protected AppBeans appBeans;
+
+    @Mocked
+    protected PersistenceManagerClient persistenceManager;
+
+    @Mocked
+    protected Metadata metadata;
+
+    @Mocked
+    protected MetadataTools metadataTools;
+
+    protected boolean nullsLast;
+
+    protected MetaPropertyPath value;
+
+    protected Random random = new Random(42);
+
+    @Before
+    public void setUp() throws Exception {
+        MetaModelImpl model = new MetaModelImpl(new SessionImpl(), "test");
+        MetaClassImpl metaClass = new MetaClassImpl(model, "test$Item");
+        MetaPropertyImpl nameProperty = new MetaPropertyImpl(metaClass, "name");
+        value = new MetaPropertyPath(metaClass, new MetaPropertyImpl(metaClass, "value"));
+
+        new Expectations() {
+            {
+                AppBeans.get(PersistenceManagerClient.NAME, PersistenceManagerClient.class);
+                result = persistenceManager; minTimes = 0;
+                AppBeans.get(Metadata.NAME); result = metadata; minTimes = 0;
+                persistenceManager.isNullsLastSorting(); minTimes = 0;
+                result = new Delegate<Boolean>() {
+                    @SuppressWarnings("unused")
+                    boolean isNullsLastSorting() {
+                        return nullsLast;
+                    }
+                };
+                // entity references are compared by their names
+                metadata.getTools(); result = metadataTools; minTimes = 0;
+                metadataTools.getNamePatternProperties((MetaClass) any, true);
+                result = Collections.singletonList(nameProperty); minTimes = 0;
+            }
+        };
+    }
+
+    @Test
+    public void testStrings() {
+        List<KeyValueEntity> items = items("b", "B", null, "a", "A", "ab", "", "Ab", null, "aB", "b");
+        assertSameOrder(items);
+    }
+
+    @Test
+    public void testNonAsciiStrings() {
+        List<KeyValueEntity> items = items("é", "É", "e", "f", "ß", "ẞ", "ss", "ı", "I", "i", "İ",
+                "σ", "Σ", "ς", "ω", "Ω", "ж", "Ж", "ǅ", "Ǆ", "ǆ", "dž", "z");
+        assertSameOrder(items);
+    }
+
+    @Test
+    public void testRandomStrings() {
+        assertSameOrder(randomStrings(500));
+    }
+
+    @Test
+    public void testComparableValues() {
+        assertSameOrder(items(3, null, 1, 2, 1, null, -5, 3));
+        assertSameOrder(items(new Date(2000), null, new Date(1000), new Date(2000)));
+        assertSameOrder(items(new UUID(0, 2), new UUID(0, 1), null, new UUID(0, 2)));
+    }
+
+    @Test
+    public void testMixedValues() {
+        // values which are not comparable are compared as strings
+        assertSameOrder(items("b", new StringBuilder("A"), null, "a", new StringBuilder("B")));
+
+        // strings, entity references and nulls are compared by the comparator itself
+        assertSameOrder(items("b", reference("x"), null, "a", reference("A"), reference("b"), null, "B"));
+
+        assertSameOrder(items(reference("x"), null, reference("A"), reference("b"), null, reference("a")));
+    }
+
+    @Test
+    public void testParallelSort() {
+        int size = EntityComparator.PARALLEL_SORT_THRESHOLD + 1000;
+
+        assertSameOrder(randomStrings(size));
+
+        List<KeyValueEntity> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            items.add(item(random.nextInt(10) == 0 ? null : random.nextInt(size / 10)));
+        }
+        assertSameOrder(items);
+    }
+
+    protected void assertSameOrder(List<KeyValueEntity> items) {
+        for (boolean nullsLastSorting : new boolean[]{false, true}) {
+            nullsLast = nullsLastSorting;
+            for (boolean asc : new boolean[]{true, false}) {
+                List<KeyValueEntity> expected = new ArrayList<>(items);
+                expected.sort(new EntityComparator<>(value, asc));
+
+                List<KeyValueEntity> actual = new EntityComparator<KeyValueEntity>(value, asc).sort(items);
+
+                assertEquals(expected.size(), actual.size());
+                for (int i = 0; i < expected.size(); i++) {
+                    // items with equal values must keep their relative order
+                    assertSame(String.format("asc: %s, nullsLast: %s, index: %s", asc, nullsLast, i),
+                            expected.get(i), actual.get(i));
+                }
+            }
+        }
+    }
+
+    protected List<KeyValueEntity> randomStrings(int size) {
+        List<KeyValueEntity> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            if (random.nextInt(20) == 0) {
+                items.add(item(null));
+            } else {
+                StringBuilder sb = new StringBuilder();
+                int length = random.nextInt(4);
+                for (int j = 0; j < length; j++) {
+                    sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+                }
+                items.add(item(sb.toString()));
+            }
+        }
+        return items;
+    }
+
+    protected List<KeyValueEntity> items(Object... values) {
+        List<KeyValueEntity> items = new ArrayList<>(values.length);
+        for (Object v : values) {
+            items.add(item(v));
+        }
+        return items;
+    }
+
+    protected KeyValueEntity item(Object v) {
+        KeyValueEntity item = new KeyValueEntity();
+        item.setValue("value", v);
+        return item;
+    }
+
+    protected KeyValueEntity reference(String name) {
+        KeyValueEntity reference = new KeyValueEntity();
+        reference.setValue("name", name);
+        return reference;
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.gui.data.impl;
+
+import com.haulmont.chile.core.model.MetaPropertyPath;
+import com.haulmont.chile.core.model.impl.MetaClassImpl;
+import com.haulmont.chile.core.model.impl.MetaModelImpl;
+import com.haulmont.chile.core.model.impl.MetaPropertyImpl;
+import com.haulmont.chile.core.model.impl.SessionImpl;
+import com.haulmont.cuba.client.sys.PersistenceManagerClient;
+import com.haulmont.cuba.core.entity.KeyValueEntity;
+import com.haulmont.cuba.core.global.AppBeans;
+import com.haulmont.cuba.gui.data.CollectionDatasource;
+import com.haulmont.cuba.gui.data.CollectionDatasource.Sortable.Order;
+import com.haulmont.cuba.gui.data.CollectionDatasource.Sortable.SortInfo;
+import com.haulmont.cuba.gui.data.Datasource;
+import com.haulmont.cuba.gui.data.GroupInfo;
+import mockit.Delegate;
+import mockit.Expectations;
+import mockit.Mocked;
+import org.apache.commons.collections4.map.LinkedMap;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class GroupDelegateTest {
+
+    @Mocked
+    protected CollectionDatasource<KeyValueEntity, Object> datasource;
+
+    @Mocked
+    protected AppBeans appBeans;
+
+    @Mocked
+    protected PersistenceManagerClient persistenceManager;
+
+    protected Map<Object, KeyValueEntity> data = new LinkedHashMap<>();
+
+    protected MetaPropertyPath category;
+    protected MetaPropertyPath status;
+    protected MetaPropertyPath name;
+
+    protected GroupDelegate<KeyValueEntity, Object> delegate;
+
+    @Before
+    public void setUp() throws Exception {
+        MetaModelImpl model = new MetaModelImpl(new SessionImpl(), "test");
+        MetaClassImpl metaClass = new MetaClassImpl(model, "test$Item");
+        category = new MetaPropertyPath(metaClass, new MetaPropertyImpl(metaClass, "category"));
+        status = new MetaPropertyPath(metaClass, new MetaPropertyImpl(metaClass, "status"));
+        name = new MetaPropertyPath(metaClass, new MetaPropertyImpl(metaClass, "name"));
+
+        new Expectations() {
+            {
+                AppBeans.get(PersistenceManagerClient.NAME, PersistenceManagerClient.class);
+                result = persistenceManager; minTimes = 0;
+
+                datasource.getState(); result = Datasource.State.VALID; minTimes = 0;
+                datasource.getItemIds(); result = data.keySet(); minTimes = 0;
+                datasource.getItem(any); minTimes = 0;
+                result = new Delegate<KeyValueEntity>() {
+                    @SuppressWarnings("unused")
+                    KeyValueEntity getItem(Object id) {
+                        return data.get(id);
+                    }
+                };
+                datasource.containsItem(any); minTimes = 0;
+                result = new Delegate<Boolean>() {
+                    @SuppressWarnings("unused")
+                    boolean containsItem(Object id) {
+                        return data.containsKey(id);
+                    }
+                };
+            }
+        };
+
+        delegate = new GroupDelegate<KeyValueEntity, Object>(datasource) {
+            @Override
+            protected void doSort(SortInfo<MetaPropertyPath>[] sortInfo) {
+            }
+        };
+    }
+
+    @Test
+    public void testAddItems() {
+        add("a", "new");
+        add("a", "closed");
+        add("b", "new");
+        delegate.groupBy(new Object[]{category, status}, null);
+
+        assertEquals(2, delegate.rootGroups().size());
+
+        KeyValueEntity item = add("c", "new");
+        delegate.addItems(Collections.singletonList(item));
+
+        assertGroupedAsRebuilt();
+        assertEquals(3, delegate.rootGroups().size());
+        assertEquals(item, delegate.getChildItems(delegate.rootGroups().get(2)).get(0));
+    }
+
+    @Test
+    public void testRemoveItems() {
+        KeyValueEntity item1 = add("a", "new");
+        KeyValueEntity item2 = add("a", "closed");
+        add("b", "new");
+        delegate.groupBy(new Object[]{category, status}, null);
+
+        delegate.removeItems(Collections.singletonList(remove(item2)));
+        assertGroupedAsRebuilt();
+        assertEquals(2, delegate.rootGroups().size());
+
+        delegate.removeItems(Collections.singletonList(remove(item1)));
+        assertGroupedAsRebuilt();
+        assertEquals(1, delegate.rootGroups().size());
+        assertFalse(delegate.containsGroup(group(category, "a")));
+    }
+
+    @Test
+    public void testUpdateItems() {
+        KeyValueEntity item = add("a", "new");
+        add("a", "closed");
+        add("b", "new");
+        delegate.groupBy(new Object[]{category, status}, null);
+
+        item.setValue("status", "closed");
+        delegate.updateItems(Collections.singletonList(item));
+        assertGroupedAsRebuilt();
+        assertEquals(1, delegate.getChildren(group(category, "a")).size());
+        assertEquals(2, delegate.getGroupItemsCount(group(category, "a")));
+
+        item.setValue("category", "b");
+        delegate.updateItems(Collections.singletonList(item));
+        assertGroupedAsRebuilt();
+        assertEquals("b", delegate.getParentGroup(item).getPropertyValue(category));
+        assertEquals(2, delegate.getGroupItemsCount(group(category, "b")));
+    }
+
+    @Test
+    public void testAddGroupsInSortedPosition() {
+        add("a", "new");
+        add("c", "closed");
+        add("c", "new");
+        delegate.groupBy(new Object[]{category, status}, sortInfos(category, Order.DESC));
+
+        assertEquals(Arrays.asList("c", "a"), groupValues(delegate.rootGroups()));
+
+        delegate.addItems(Collections.singletonList(add("b", "new")));
+        delegate.addItems(Collections.singletonList(add("d", "new")));
+        assertEquals(Arrays.asList("d", "c", "b", "a"), groupValues(delegate.rootGroups()));
+
+        delegate.doGroupSort(sortInfos(status, Order.ASC));
+        delegate.addItems(Collections.singletonList(add("c", "active")));
+        assertEquals(Arrays.asList("active", "closed", "new"),
+                groupValues(delegate.getChildren(group(category, "c"))));
+    }
+
+    @Test
+    public void testAddItemsInSortedPosition() {
+        add("a", "new", "item2");
+        add("a", "new", "item4");
+        delegate.groupBy(new Object[]{category}, sortInfos(name, Order.ASC));
+
+        KeyValueEntity item3 = add("a", "closed", "item3");
+        KeyValueEntity item1 = add("a", "closed", "item1");
+        delegate.addItems(Arrays.asList(item3, item1));
+
+        List<String> names = new ArrayList<>();
+        for (KeyValueEntity item : delegate.getChildItems(group(category, "a"))) {
+            names.add(item.getValue("name"));
+        }
+        assertEquals(Arrays.asList("item1", "item2", "item3", "item4"), names);
+    }
+
+    protected KeyValueEntity add(String categoryValue, String statusValue, String nameValue) {
+        KeyValueEntity item = add(categoryValue, statusValue);
+        item.setValue("name", nameValue);
+        return item;
+    }
+
+    protected KeyValueEntity add(String categoryValue, String statusValue) {
+        KeyValueEntity item = new KeyValueEntity();
+        item.setValue("category", categoryValue);
+        item.setValue("status", statusValue);
+        data.put(item.getId(), item);
+        return item;
+    }
+
+    protected KeyValueEntity remove(KeyValueEntity item) {
+        data.remove(item.getId());
+        return item;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected GroupInfo group(MetaPropertyPath property, Object value) {
+        LinkedMap groupValues = new LinkedMap();
+        groupValues.put(property, value);
+        return new GroupInfo(groupValues);
+    }
+
+    @SuppressWarnings("unchecked")
+    protected SortInfo<MetaPropertyPath>[] sortInfos(MetaPropertyPath propertyPath, Order order) {
+        SortInfo<MetaPropertyPath> sortInfo = new SortInfo<>();
+        sortInfo.setPropertyPath(propertyPath);
+        sortInfo.setOrder(order);
+        return new SortInfo[]{sortInfo};
+    }
+
+    protected List<Object> groupValues(List<GroupInfo> groups) {
+        List<Object> values = new ArrayList<>();
+        for (GroupInfo group : groups) {
+            values.add(group.getValue());
+        }
+        return values;
+    }
+
+    protected void assertGroupedAsRebuilt() {
+        Map<GroupInfo, Set<Object>> incremental = collectGroups();
+        delegate.groupBy(delegate.getGroupProperties().toArray(), null);
+        assertEquals(collectGroups(), incremental);
+    }
+
+    protected Map<GroupInfo, Set<Object>> collectGroups() {
+        Map<GroupInfo, Set<Object>> groups = new HashMap<>();
+        Deque<GroupInfo> queue = new ArrayDeque<>(delegate.rootGroups());
+        while (!queue.isEmpty()) {
+            GroupInfo group = queue.poll();
+            groups.put(group, new HashSet<>(delegate.getGroupItemIds(group)));
+            queue.addAll(delegate.getChildren(group));
+        }
+        return groups;
+    }
+}
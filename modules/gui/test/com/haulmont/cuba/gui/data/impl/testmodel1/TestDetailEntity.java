@@ -30,6 +30,12 @@ public class TestDetailEntity extends BaseUuidEntity {
     @Column(name = "NAME")
     private String detailName;
 
+    @Column(name = "AMOUNT")
+    private Integer amount;
+
+    @Column(name = "QUANTITY")
+    private Integer quantity;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "MASTER_ID")
     private TestMasterEntity master;
@@ -52,6 +58,28 @@ public class TestDetailEntity extends BaseUuidEntity {
             propertyChanged("detailName", o, detailName);
     }
 
+    public Integer getAmount() {
+        return amount;
+    }
+
+    public void setAmount(Integer amount) {
+        Integer o = this.amount;
+        this.amount = amount;
+        if (!Objects.equals(o, amount))
+            propertyChanged("amount", o, amount);
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        Integer o = this.quantity;
+        this.quantity = quantity;
+        if (!Objects.equals(o, quantity))
+            propertyChanged("quantity", o, quantity);
+    }
+
     public TestMasterEntity getMaster() {
         return master;
     }
@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.gui.model.impl;
+
+import com.haulmont.cuba.client.testsupport.CubaClientTestCase;
+import com.haulmont.cuba.core.global.Configuration;
+import com.haulmont.cuba.core.global.DataManager;
+import com.haulmont.cuba.core.global.LoadContext;
+import com.haulmont.cuba.gui.components.Frame;
+import com.haulmont.cuba.gui.data.impl.testmodel1.TestMasterEntity;
+import com.haulmont.cuba.gui.executors.BackgroundTask;
+import com.haulmont.cuba.gui.executors.BackgroundTaskHandler;
+import com.haulmont.cuba.gui.executors.BackgroundWorker;
+import mockit.Delegate;
+import mockit.Expectations;
+import mockit.Mocked;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.ApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AsyncDataLoadTest extends CubaClientTestCase {
+
+    @Mocked
+    private ApplicationContext applicationContext;
+
+    @Mocked
+    private DataManager dataManager;
+
+    @Mocked
+    private BackgroundWorker backgroundWorker;
+
+    @Mocked
+    private Frame frame;
+
+    private List<TestMasterEntity> storage;
+    private List<TestTaskHandler> handlers;
+
+    @Before
+    public void setUp() throws Exception {
+        addEntityPackage("com.haulmont.cuba");
+        setupInfrastructure();
+
+        storage = Arrays.asList(new TestMasterEntity(), new TestMasterEntity());
+        handlers = new ArrayList<>();
+
+        new Expectations() {{
+            applicationContext.getBean(DataManager.NAME, DataManager.class); result = dataManager; minTimes = 0;
+            applicationContext.getBean(Configuration.NAME, Configuration.class); result = configuration; minTimes = 0;
+            applicationContext.getBean(BackgroundWorker.NAME, BackgroundWorker.class);
+            result = backgroundWorker; minTimes = 0;
+
+            clientConfig.getAsyncDataLoadTimeoutSec(); result = 60; minTimes = 0;
+
+            dataManager.loadList((LoadContext) any); result = storage; minTimes = 0;
+
+            backgroundWorker.handle((BackgroundTask) any); minTimes = 0;
+            result = new Delegate<BackgroundTaskHandler>() {
+                @SuppressWarnings("unused")
+                BackgroundTaskHandler handle(BackgroundTask<Void, Object> task) {
+                    TestTaskHandler handler = new TestTaskHandler(task);
+                    handlers.add(handler);
+                    return handler;
+                }
+            };
+        }};
+    }
+
+    @Test
+    public void testLoadAsync() throws Exception {
+        CollectionContainerImpl<TestMasterEntity> container = createContainer();
+        StandardCollectionLoader<TestMasterEntity> loader = createLoader(container);
+
+        BackgroundTaskHandler<?> handler = loader.loadAsync(frame);
+
+        assertEquals(1, handlers.size());
+        assertSame(handlers.get(0), handler);
+        assertTrue(handlers.get(0).executed);
+        assertSame(frame, handlers.get(0).task.getOwnerFrame());
+        assertEquals(60, handlers.get(0).task.getTimeoutSeconds());
+        // nothing is loaded until the task is done in the UI thread
+        assertTrue(container.getItems().isEmpty());
+
+        handlers.get(0).complete();
+
+        assertEquals(storage, container.getItems());
+
+        // the finished load is not canceled by the next one
+        loader.loadAsync(frame);
+        assertFalse(handlers.get(0).cancelled);
+    }
+
+    @Test
+    public void testLoadDelegateInWorkingThread() throws Exception {
+        CollectionContainerImpl<TestMasterEntity> container = createContainer();
+        StandardCollectionLoader<TestMasterEntity> loader = createLoader(container);
+
+        List<LoadContext<TestMasterEntity>> contexts = new ArrayList<>();
+        loader.setLoadDelegate(context -> {
+            contexts.add(context);
+            return storage.subList(0, 1);
+        });
+        loader.loadAsync(null);
+
+        assertTrue(contexts.isEmpty());
+
+        handlers.get(0).complete();
+
+        assertEquals(1, contexts.size());
+        assertEquals(storage.subList(0, 1), container.getItems());
+    }
+
+    @Test
+    public void testPendingLoadCanceled() throws Exception {
+        CollectionContainerImpl<TestMasterEntity> container = createContainer();
+        StandardCollectionLoader<TestMasterEntity> loader = createLoader(container);
+
+        loader.loadAsync(frame);
+        loader.loadAsync(frame);
+
+        assertEquals(2, handlers.size());
+        assertTrue(handlers.get(0).cancelled);
+        assertFalse(handlers.get(1).cancelled);
+
+        // synchronous load cancels the pending asynchronous one
+        loader.load();
+        assertTrue(handlers.get(1).cancelled);
+        assertEquals(storage, container.getItems());
+
+        loader.loadAsync(frame);
+        // a late notification of the canceled task does not clear the new pending load
+        handlers.get(1).task.canceled();
+        loader.loadAsync(frame);
+        assertTrue(handlers.get(2).cancelled);
+    }
+
+    @Test
+    public void testFailedLoad() throws Exception {
+        CollectionContainerImpl<TestMasterEntity> container = createContainer();
+        StandardCollectionLoader<TestMasterEntity> loader = createLoader(container);
+
+        loader.setLoadDelegate(context -> {
+            throw new IllegalStateException("test");
+        });
+        loader.loadAsync(frame);
+
+        handlers.get(0).complete();
+
+        assertTrue(handlers.get(0).failed);
+        assertTrue(container.getItems().isEmpty());
+
+        // the failed load is not pending anymore
+        loader.setLoadDelegate(null);
+        loader.loadAsync(frame);
+        assertFalse(handlers.get(0).cancelled);
+
+        handlers.get(1).complete();
+        assertEquals(storage, container.getItems());
+    }
+
+    @Test
+    public void testLoadAllAsync() throws Exception {
+        CollectionContainerImpl<TestMasterEntity> container1 = createContainer();
+        CollectionContainerImpl<TestMasterEntity> container2 = createContainer();
+
+        ScreenDataImpl screenData = new ScreenDataImpl();
+        screenData.registerLoader("loader1", createLoader(container1));
+        screenData.registerLoader("loader2", createLoader(container2));
+
+        screenData.loadAllAsync(frame);
+
+        // all loaders are started before any of them is done
+        assertEquals(2, handlers.size());
+        assertTrue(container1.getItems().isEmpty());
+        assertTrue(container2.getItems().isEmpty());
+
+        handlers.get(1).complete();
+        handlers.get(0).complete();
+
+        assertEquals(storage, container1.getItems());
+        assertEquals(storage, container2.getItems());
+    }
+
+    private CollectionContainerImpl<TestMasterEntity> createContainer() {
+        return new CollectionContainerImpl<>(metadata.getClassNN(TestMasterEntity.class));
+    }
+
+    private StandardCollectionLoader<TestMasterEntity> createLoader(CollectionContainerImpl<TestMasterEntity> container) {
+        StandardCollectionLoader<TestMasterEntity> loader = new StandardCollectionLoader<>(applicationContext);
+        loader.setContainer(container);
+        loader.setQuery("select e from test$MasterEntity e");
+        return loader;
+    }
+
+    /**
+     * Runs the task synchronously when asked, like {@link BackgroundWorker} does in a working and then UI thread.
+     */
+    private static class TestTaskHandler implements BackgroundTaskHandler<Object> {
+
+        private final BackgroundTask<Void, Object> task;
+        private boolean executed;
+        private boolean cancelled;
+        private boolean failed;
+        private Object result;
+
+        private TestTaskHandler(BackgroundTask<Void, Object> task) {
+            this.task = task;
+        }
+
+        private void complete() {
+            try {
+                result = task.run(null);
+            } catch (Exception e) {
+                failed = true;
+                task.handleException(e);
+                return;
+            }
+            task.done(result);
+        }
+
+        @Override
+        public void execute() {
+            executed = true;
+        }
+
+        @Override
+        public boolean cancel() {
+            cancelled = true;
+            task.canceled();
+            return true;
+        }
+
+        @Override
+        public Object getResult() {
+            return result;
+        }
+
+        @Override
+        public boolean isDone() {
+            return result != null || failed;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public boolean isAlive() {
+            return executed && !cancelled && !isDone();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.haulmont.cuba.gui.model.impl;
+
+import com.haulmont.chile.core.model.Range;
+import com.haulmont.chile.core.model.impl.*;
+import com.haulmont.cuba.core.entity.Entity;
+import com.haulmont.cuba.gui.data.impl.testmodel1.TestDetailEntity;
+import com.haulmont.cuba.gui.data.impl.testmodel1.TestMasterEntity;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class EntityCopierTest {
+
+    protected MetaClassImpl metaClass;
+
+    @Before
+    public void setUp() throws Exception {
+        MetaModelImpl model = new MetaModelImpl(new SessionImpl(), "test");
+        metaClass = new MetaClassImpl(model, "test$MasterEntity");
+        metaClass.setJavaClass(TestMasterEntity.class);
+        MetaClassImpl detailMetaClass = new MetaClassImpl(model, "test$DetailEntity");
+        detailMetaClass.setJavaClass(TestDetailEntity.class);
+
+        addProperty("masterName", new DatatypeRange(null), false);
+        addProperty("details", classRange(detailMetaClass, Range.Cardinality.ONE_TO_MANY), false);
+        addProperty("detail", classRange(detailMetaClass, Range.Cardinality.ONE_TO_ONE), false);
+        addProperty("instanceName", new DatatypeRange(null), true);
+    }
+
+    protected ClassRange classRange(MetaClassImpl rangeClass, Range.Cardinality cardinality) {
+        ClassRange range = new ClassRange(rangeClass);
+        range.setCardinality(cardinality);
+        return range;
+    }
+
+    protected void addProperty(String name, Range range, boolean readOnly) throws NoSuchFieldException {
+        MetaPropertyImpl property = new MetaPropertyImpl(metaClass, name);
+        property.setRange(range);
+        property.setReadOnly(readOnly);
+        if (!readOnly) {
+            property.setAnnotatedElement(TestMasterEntity.class.getDeclaredField(name));
+        }
+        metaClass.registerProperty(property);
+    }
+
+    @Test
+    public void testProperties() {
+        EntityCopier copier = EntityCopier.get(TestMasterEntity.class, metaClass);
+        assertSame(copier, EntityCopier.get(TestMasterEntity.class, metaClass));
+
+        List<EntityCopier.PropertyCopier> properties = copier.getProperties();
+        assertEquals(3, properties.size());
+
+        EntityCopier.PropertyCopier masterName = getProperty(copier, "masterName");
+        assertFalse(masterName.isReference());
+        assertFalse(masterName.isCollection());
+
+        EntityCopier.PropertyCopier details = getProperty(copier, "details");
+        assertFalse(details.isReference());
+        assertTrue(details.isCollection());
+
+        EntityCopier.PropertyCopier detail = getProperty(copier, "detail");
+        assertTrue(detail.isReference());
+        assertFalse(detail.isCollection());
+    }
+
+    protected EntityCopier.PropertyCopier getProperty(EntityCopier copier, String name) {
+        return copier.getProperties().stream()
+                .filter(property -> property.getName().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("Property not found: " + name));
+    }
+
+    @Test
+    public void testCopyFields() {
+        EntityCopier copier = EntityCopier.get(TestMasterEntity.class, metaClass);
+
+        TestMasterEntity src = new TestMasterEntity();
+        src.setMasterName("master");
+        Set<TestDetailEntity> details = new HashSet<>(Collections.singletonList(new TestDetailEntity()));
+        src.setDetails(details);
+
+        Entity dst = copier.newInstance();
+        assertTrue(dst instanceof TestMasterEntity);
+
+        for (EntityCopier.PropertyCopier property : copier.getProperties()) {
+            assertTrue(property.hasField());
+            property.setFieldValue(dst, property.getFieldValue(src));
+        }
+        assertEquals("master", ((TestMasterEntity) dst).getMasterName());
+        assertSame(details, ((TestMasterEntity) dst).getDetails());
+        assertNull(((TestMasterEntity) dst).getDetail());
+    }
+
+    @Test
+    public void testRebuildOnMetaClassChange() {
+        EntityCopier copier = EntityCopier.get(TestMasterEntity.class, metaClass);
+
+        MetaClassImpl newMetaClass = new MetaClassImpl(new MetaModelImpl(new SessionImpl(), "test"), "test$MasterEntity");
+        newMetaClass.setJavaClass(TestMasterEntity.class);
+        EntityCopier newCopier = EntityCopier.get(TestMasterEntity.class, newMetaClass);
+
+        assertNotSame(copier, newCopier);
+        assertTrue(newCopier.getProperties().isEmpty());
+    }
+}
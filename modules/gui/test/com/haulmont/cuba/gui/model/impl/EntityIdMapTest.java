@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.haulmont.cuba.gui.model.impl;
+
+import com.haulmont.cuba.core.entity.Entity;
+import com.haulmont.cuba.core.entity.KeyValueEntity;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class EntityIdMapTest {
+
+    @Test
+    public void testUuidKeys() {
+        EntityIdMap map = new EntityIdMap();
+        UUID id = UUID.randomUUID();
+        KeyValueEntity entity = new KeyValueEntity();
+
+        assertNull(map.put(id, entity));
+        assertSame(entity, map.get(new UUID(id.getMostSignificantBits(), id.getLeastSignificantBits())));
+        assertTrue(map.containsKey(id));
+        assertNull(map.get(UUID.randomUUID()));
+        assertEquals(1, map.size());
+
+        KeyValueEntity other = new KeyValueEntity();
+        assertSame(entity, map.put(id, other));
+        assertEquals(1, map.size());
+
+        assertSame(other, map.remove(id));
+        assertTrue(map.isEmpty());
+        assertNull(map.get(id));
+    }
+
+    @Test
+    public void testMixedKeys() {
+        EntityIdMap map = new EntityIdMap();
+        KeyValueEntity byLong = new KeyValueEntity();
+        KeyValueEntity byInteger = new KeyValueEntity();
+        KeyValueEntity byString = new KeyValueEntity();
+
+        map.put(1L, byLong);
+        map.put(1, byInteger);
+        map.put("1", byString);
+
+        assertEquals(3, map.size());
+        assertSame(byLong, map.get(1L));
+        assertSame(byInteger, map.get(1));
+        assertSame(byString, map.get("1"));
+        assertEquals(new HashSet<>(Arrays.asList(byLong, byInteger, byString)), new HashSet<>(map.values()));
+
+        Map<Object, Entity> copy = new HashMap<>(map);
+        assertEquals(3, copy.size());
+        assertSame(byLong, copy.get(1L));
+        assertSame(byInteger, copy.get(1));
+    }
+
+    @Test
+    public void testSameAsHashMap() {
+        Random random = new Random(42);
+        EntityIdMap map = new EntityIdMap();
+        Map<Object, Entity> expected = new HashMap<>();
+
+        List<Object> keys = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            keys.add(new UUID(random.nextInt(64), random.nextLong()));
+            keys.add((long) random.nextInt(1000));
+        }
+
+        for (int i = 0; i < 20000; i++) {
+            Object key = keys.get(random.nextInt(keys.size()));
+            if (random.nextInt(3) == 0) {
+                assertSame(expected.remove(key), map.remove(key));
+            } else {
+                KeyValueEntity entity = new KeyValueEntity();
+                assertSame(expected.put(key, entity), map.put(key, entity));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+
+        for (Object key : keys) {
+            assertSame(expected.get(key), map.get(key));
+        }
+        assertEquals(expected, map);
+    }
+}
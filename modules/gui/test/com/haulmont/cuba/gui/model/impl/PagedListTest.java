@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.haulmont.cuba.gui.model.impl;
+
+import com.haulmont.cuba.core.entity.KeyValueEntity;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PagedListTest {
+
+    private List<int[]> loadedPages;
+    private int evictedCount;
+    private int available;
+
+    @Before
+    public void setUp() {
+        loadedPages = new ArrayList<>();
+        evictedCount = 0;
+        available = Integer.MAX_VALUE;
+    }
+
+    @Test
+    public void testLoadByPages() {
+        PagedList<KeyValueEntity> list = createList(25, 10, 2);
+
+        assertEquals(25, list.size());
+        assertEquals(0, list.getLoadedSize());
+
+        assertEquals(12, list.get(12).getId());
+        assertEquals(1, loadedPages.size());
+        assertArrayEquals(new int[]{10, 10}, loadedPages.get(0));
+
+        assertEquals(24, list.get(24).getId());
+        assertArrayEquals(new int[]{20, 5}, loadedPages.get(1));
+        assertEquals(15, list.getLoadedSize());
+
+        assertEquals(13, list.indexOfId(13));
+        assertEquals(-1, list.indexOfId(3));
+
+        assertEquals(11, list.get(11).getId());
+        assertEquals(2, loadedPages.size());
+    }
+
+    @Test
+    public void testEviction() {
+        PagedList<KeyValueEntity> list = createList(100, 10, 3);
+
+        int count = 0;
+        for (KeyValueEntity entity : list) {
+            assertEquals(count++, entity.getId());
+            assertTrue(list.getLoadedSize() <= 30);
+        }
+        assertEquals(100, count);
+        assertEquals(10, loadedPages.size());
+        assertEquals(70, evictedCount);
+        assertFalse(list.isFullyLoaded());
+
+        assertEquals(-1, list.indexOfId(5));
+        assertEquals(95, list.indexOfId(95));
+    }
+
+    @Test
+    public void testModification() {
+        PagedList<KeyValueEntity> list = createList(20, 10, 2);
+
+        KeyValueEntity first = createEntity("first");
+        KeyValueEntity last = createEntity("last");
+        list.add(0, first);
+        list.add(last);
+
+        assertEquals(22, list.size());
+        assertEquals(0, list.indexOf(first));
+        assertEquals(21, list.indexOf(last));
+        assertEquals(0, list.get(1).getId());
+        assertEquals(19, list.get(20).getId());
+
+        try {
+            list.add(5, createEntity("middle"));
+            fail();
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+
+        KeyValueEntity replacement = createEntity(3);
+        assertEquals(3, list.set(4, replacement).getId());
+        assertSame(replacement, list.get(4));
+
+        assertTrue(list.remove(list.get(4)));
+        assertEquals(21, list.size());
+        assertEquals(-1, list.indexOfId(15));
+
+        assertTrue(list.remove(first));
+        assertTrue(list.remove(last));
+        assertEquals(19, list.size());
+
+        list.clear();
+        assertEquals(0, list.size());
+        assertEquals(0, list.getLoadedSize());
+    }
+
+    @Test
+    public void testShortPage() {
+        // some items have been deleted from the data store after counting
+        available = 15;
+        PagedList<KeyValueEntity> list = createList(50, 10, 5);
+        KeyValueEntity last = createEntity("last");
+        list.add(last);
+        assertEquals(51, list.size());
+
+        assertEquals(12, list.get(12).getId());
+        assertEquals(16, list.size());
+        assertSame(last, list.get(15));
+        assertEquals(15, list.indexOf(last));
+
+        try {
+            list.get(20);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testShortPageDiscardsSubsequentPages() {
+        PagedList<KeyValueEntity> list = createList(50, 10, 5);
+        assertEquals(25, list.get(25).getId());
+        assertEquals(25, list.indexOfId(25));
+
+        available = 15;
+        assertEquals(12, list.get(12).getId());
+
+        assertEquals(15, list.size());
+        assertEquals(-1, list.indexOfId(25));
+        assertEquals(5, list.getLoadedSize());
+        assertEquals(10, evictedCount);
+    }
+
+    @Test
+    public void testIterationOverShortPage() {
+        available = 15;
+        PagedList<KeyValueEntity> list = createList(50, 10, 5);
+
+        int count = 0;
+        for (KeyValueEntity entity : list) {
+            assertEquals(count++, entity.getId());
+        }
+        assertEquals(15, count);
+    }
+
+    private PagedList<KeyValueEntity> createList(int size, int pageSize, int maxPages) {
+        return new PagedList<>(size, pageSize, maxPages,
+                (firstResult, maxResults) -> {
+                    loadedPages.add(new int[]{firstResult, maxResults});
+                    List<KeyValueEntity> page = new ArrayList<>();
+                    for (int i = firstResult; i < Math.min(firstResult + maxResults, available); i++) {
+                        page.add(createEntity(i));
+                    }
+                    return page;
+                },
+                entities -> {},
+                entities -> evictedCount += entities.size());
+    }
+
+    private KeyValueEntity createEntity(Object id) {
+        KeyValueEntity entity = new KeyValueEntity();
+        entity.setIdName("id");
+        entity.setId(id);
+        return entity;
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.gui.model.impl;
+
+import com.haulmont.cuba.client.testsupport.CubaClientTestCase;
+import com.haulmont.cuba.core.global.DataManager;
+import com.haulmont.cuba.core.global.LoadContext;
+import com.haulmont.cuba.core.global.Sort;
+import com.haulmont.cuba.core.global.queryconditions.JpqlCondition;
+import com.haulmont.cuba.gui.data.impl.testmodel1.TestMasterEntity;
+import mockit.Delegate;
+import mockit.Expectations;
+import mockit.Mocked;
+import mockit.Verifications;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.ApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class StandardCollectionLoaderTest extends CubaClientTestCase {
+
+    @Mocked
+    private ApplicationContext applicationContext;
+
+    @Mocked
+    private DataManager dataManager;
+
+    private List<TestMasterEntity> storage;
+    private List<LoadContext.Query> loadedQueries;
+    private VirtualCollectionContainerImpl<TestMasterEntity> container;
+    private StandardCollectionLoader<TestMasterEntity> loader;
+
+    @Before
+    public void setUp() throws Exception {
+        addEntityPackage("com.haulmont.cuba");
+        setupInfrastructure();
+
+        storage = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            storage.add(new TestMasterEntity());
+        }
+        loadedQueries = new ArrayList<>();
+
+        new Expectations() {{
+            applicationContext.getBean(DataManager.NAME, DataManager.class); result = dataManager; minTimes = 0;
+
+            dataManager.getCount((LoadContext) any); result = storage.size(); minTimes = 0;
+
+            dataManager.loadList((LoadContext) any); minTimes = 0;
+            result = new Delegate<List<TestMasterEntity>>() {
+                @SuppressWarnings("unused")
+                List<TestMasterEntity> loadList(LoadContext<TestMasterEntity> context) {
+                    LoadContext.Query query = context.getQuery();
+                    loadedQueries.add(query);
+                    int first = query.getFirstResult();
+                    int last = query.getMaxResults() == 0
+                            ? storage.size() : Math.min(first + query.getMaxResults(), storage.size());
+                    return new ArrayList<>(storage.subList(first, last));
+                }
+            };
+        }};
+
+        container = new VirtualCollectionContainerImpl<>(metadata.getClassNN(TestMasterEntity.class));
+        container.setPageSize(10);
+
+        loader = new StandardCollectionLoader<>(applicationContext);
+        loader.setContainer(container);
+        loader.setQuery("select e from test$MasterEntity e");
+        loader.setSort(Sort.by("masterName"));
+        loader.setCondition(new JpqlCondition("e.masterName is not null"));
+    }
+
+    @Test
+    public void testLoadCount() {
+        loader.load();
+
+        assertEquals(100, container.getItems().size());
+        assertEquals(0, container.getLoadedSize());
+        assertTrue(loadedQueries.isEmpty());
+
+        new Verifications() {{
+            LoadContext<TestMasterEntity> context;
+            dataManager.getCount(context = withCapture());
+            times = 1;
+
+            assertEquals(0, context.getQuery().getFirstResult());
+            assertEquals(0, context.getQuery().getMaxResults());
+            assertNull(context.getQuery().getSort());
+            assertNotNull(context.getQuery().getCondition());
+        }};
+    }
+
+    @Test
+    public void testLoadPages() {
+        loader.load();
+
+        assertSame(storage.get(25), container.getItems().get(25));
+        assertSame(storage.get(99), container.getItems().get(99));
+
+        assertEquals(2, loadedQueries.size());
+        assertEquals(20, loadedQueries.get(0).getFirstResult());
+        assertEquals(10, loadedQueries.get(0).getMaxResults());
+        assertEquals(90, loadedQueries.get(1).getFirstResult());
+        assertEquals(10, loadedQueries.get(1).getMaxResults());
+        assertNotNull(loadedQueries.get(1).getSort());
+        assertNotNull(loadedQueries.get(1).getCondition());
+    }
+
+    @Test
+    public void testLoadPagesWithinLimits() {
+        loader.setFirstResult(30);
+        loader.setMaxResults(25);
+        loader.load();
+
+        assertEquals(25, container.getItems().size());
+
+        assertSame(storage.get(50), container.getItems().get(20));
+        assertEquals(1, loadedQueries.size());
+        assertEquals(50, loadedQueries.get(0).getFirstResult());
+        assertEquals(5, loadedQueries.get(0).getMaxResults());
+    }
+
+    @Test
+    public void testLoadWithDelegate() {
+        loader.setLoadDelegate(context -> new ArrayList<>(storage.subList(0, 5)));
+        loader.load();
+
+        assertEquals(5, container.getItems().size());
+        assertEquals(5, container.getLoadedSize());
+
+        new Verifications() {{
+            dataManager.getCount((LoadContext) any);
+            times = 0;
+        }};
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.gui.model.impl;
+
+import com.haulmont.cuba.client.testsupport.CubaClientTestCase;
+import com.haulmont.cuba.gui.components.data.table.ContainerTableItems;
+import com.haulmont.cuba.gui.data.impl.testmodel1.TestMasterEntity;
+import com.haulmont.cuba.gui.model.CollectionChangeType;
+import com.haulmont.cuba.gui.model.CollectionContainer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class VirtualCollectionContainerImplTest extends CubaClientTestCase {
+
+    private List<TestMasterEntity> storage;
+    private int loadedPages;
+    private VirtualCollectionContainerImpl<TestMasterEntity> container;
+    private List<CollectionContainer.CollectionChangeEvent<TestMasterEntity>> events;
+
+    @Before
+    public void setUp() throws Exception {
+        addEntityPackage("com.haulmont.cuba");
+        setupInfrastructure();
+
+        storage = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            TestMasterEntity entity = new TestMasterEntity();
+            entity.setMasterName("master" + i);
+            storage.add(entity);
+        }
+
+        container = new VirtualCollectionContainerImpl<>(metadata.getClassNN(TestMasterEntity.class));
+        container.setPageSize(10);
+        container.setMaxLoadedPages(3);
+
+        events = new ArrayList<>();
+        container.addCollectionChangeListener(events::add);
+    }
+
+    @Test
+    public void testLoadByPages() {
+        setItems(100);
+
+        assertEquals(1, events.size());
+        assertEquals(CollectionChangeType.REFRESH, events.get(0).getChangeType());
+        assertEquals(100, container.getItems().size());
+        assertEquals(0, container.getLoadedSize());
+
+        assertSame(storage.get(55), container.getItems().get(55));
+        assertEquals(1, loadedPages);
+        assertEquals(10, container.getLoadedSize());
+
+        assertEquals(55, container.getItemIndex(storage.get(55).getId()));
+        assertSame(storage.get(57), container.getItem(storage.get(57).getId()));
+        assertNull(container.getItemOrNull(storage.get(5).getId()));
+
+        for (TestMasterEntity entity : container.getItems()) {
+            assertNotNull(entity);
+            assertTrue(container.getLoadedSize() <= 30);
+        }
+        assertEquals(11, loadedPages);
+    }
+
+    @Test
+    public void testSelectedItemOfEvictedPage() {
+        setItems(100);
+
+        TestMasterEntity selected = container.getItems().get(5);
+        container.setItem(selected);
+
+        container.getItems().get(95);
+        container.getItems().get(85);
+        container.getItems().get(75);
+        assertEquals(-1, container.getItemIndex(selected.getId()));
+
+        container.getMutableItems().remove(container.getItems().get(95));
+        assertSame(selected, container.getItemOrNull());
+    }
+
+    @Test
+    public void testModification() {
+        setItems(100);
+        events.clear();
+
+        TestMasterEntity added = new TestMasterEntity();
+        container.getMutableItems().add(added);
+
+        assertEquals(101, container.getItems().size());
+        assertEquals(100, container.getItemIndex(added.getId()));
+        assertEquals(CollectionChangeType.ADD_ITEMS, events.get(0).getChangeType());
+
+        TestMasterEntity replacement = metadata.getTools().copy(storage.get(3));
+        container.getItems().get(3);
+        container.replaceItem(replacement);
+        assertSame(replacement, container.getItems().get(3));
+        assertEquals(CollectionChangeType.SET_ITEM, events.get(1).getChangeType());
+
+        TestMasterEntity next = storage.get(4);
+        container.getMutableItems().remove(replacement);
+        storage.remove(3);
+        assertEquals(100, container.getItems().size());
+        assertEquals(-1, container.getItemIndex(replacement.getId()));
+        assertSame(next, container.getItems().get(3));
+    }
+
+    @Test
+    public void testSetItemsCollection() {
+        container.setItems(storage.subList(0, 5));
+
+        assertEquals(5, container.getItems().size());
+        assertEquals(5, container.getLoadedSize());
+        assertEquals(2, container.getItemIndex(storage.get(2).getId()));
+    }
+
+    @Test
+    public void testShortPage() {
+        // the container is counted with 100 items, but the data store has only 25 of them now
+        setItems(100);
+        storage = storage.subList(0, 25);
+
+        assertSame(storage.get(15), container.getItems().get(15));
+        assertEquals(100, container.getItems().size());
+
+        assertSame(storage.get(22), container.getItems().get(22));
+        assertEquals(25, container.getItems().size());
+
+        List<?> ids = (List<?>) new ContainerTableItems<>(container).getItemIds();
+        assertEquals(25, ids.size());
+        for (Object id : ids) {
+            assertNotNull(id);
+        }
+        assertEquals(storage.get(24).getId(), ids.get(24));
+    }
+
+    private void setItems(int size) {
+        container.setItems(size, (firstResult, maxResults) -> {
+            loadedPages++;
+            int last = Math.min(firstResult + maxResults, storage.size());
+            return firstResult < last ? new ArrayList<>(storage.subList(firstResult, last)) : new ArrayList<>();
+        });
+    }
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.restapi.common;
+
+import com.google.common.base.Strings;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.haulmont.chile.core.model.MetaClass;
+import com.haulmont.chile.core.model.MetaProperty;
+import com.haulmont.cuba.core.entity.Entity;
+import com.haulmont.cuba.core.global.*;
+import com.haulmont.restapi.exception.RestAPIException;
+import org.apache.commons.lang3.ClassUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.*;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * Keyset (seek) pagination of REST API entity lists.
+ * <p>
+ * Instead of an offset, a client passes a cursor returned with the previous page. The cursor is an opaque token
+ * containing the sort attribute value and the id of the last loaded entity; it is turned into a {@code where}
+ * condition, so the database does not have to skip all preceding rows. An empty cursor requests the first page.
+ * <p>
+ * The list is ordered by the sort attribute and the id. The sort attribute must be a mandatory non-reference
+ * attribute of the entity itself, and the entity must have a simple primary key. A query having its own
+ * {@code order by} clause cannot be paginated by a cursor.
+ * <p>
+ * Values are stored in the cursor without loss of precision and independently of the user locale: numbers by their
+ * exact string representation, dates by epoch milliseconds (and nanoseconds of timestamps), other values by ISO
+ * strings.
+ */
+@Component("cuba_RestKeysetPagination")
+public class RestKeysetPagination {
+
+    public static final String SORT_VALUE_PARAM = "keysetSortValue";
+    public static final String ID_PARAM = "keysetId";
+
+    @Inject
+    protected MetadataTools metadataTools;
+
+    @Inject
+    protected QueryTransformerFactory queryTransformerFactory;
+
+    @Inject
+    protected Security security;
+
+    /**
+     * Orders the query for keyset pagination and restricts it to entities following the cursor.
+     *
+     * @param query        query to modify
+     * @param metaClass    entity meta-class
+     * @param sortProperty sort attribute, or null to order by id only
+     * @param desc         whether the sort order is descending
+     * @param cursor       cursor returned with the previous page, or empty string for the first page
+     * @throws RestAPIException if the query is already ordered
+     */
+    public void applyCursor(LoadContext.Query query, MetaClass metaClass, @Nullable String sortProperty, boolean desc,
+                            String cursor) {
+        String idName = getIdName(metaClass);
+        MetaProperty sortMetaProperty = getSortProperty(metaClass, sortProperty);
+        if (QueryParserRegex.ORDER_BY_PATTERN.matcher(query.getQueryString()).find()) {
+            throw new RestAPIException("Cursor pagination is not supported",
+                    "Cursor pagination cannot be used with a query that has its own order by clause",
+                    HttpStatus.BAD_REQUEST);
+        }
+
+        QueryTransformer transformer = queryTransformerFactory.transformer(query.getQueryString());
+        if (sortMetaProperty != null) {
+            transformer.replaceOrderBy(desc, sortMetaProperty.getName(), idName);
+        } else {
+            transformer.replaceOrderBy(desc, idName);
+        }
+
+        if (!Strings.isNullOrEmpty(cursor)) {
+            JsonObject token = parseCursor(cursor);
+            String op = desc ? "<" : ">";
+            if (!Objects.equals(metaClass.getName(), getString(token, "e"))
+                    || !Objects.equals(sortMetaProperty != null ? sortMetaProperty.getName() : null, getString(token, "s"))
+                    || desc != Boolean.parseBoolean(getString(token, "d"))) {
+                throw new RestAPIException("Invalid cursor",
+                        "The cursor does not match the entity or the sort order of the request", HttpStatus.BAD_REQUEST);
+            }
+            Object id = getValue(token, "id", getIdType(metaClass));
+            if (sortMetaProperty != null) {
+                Object sortValue = getValue(token, "v", sortMetaProperty.getJavaType());
+                transformer.addWhere(String.format("({E}.%1$s %2$s :%3$s or ({E}.%1$s = :%3$s and {E}.%4$s %2$s :%5$s))",
+                        sortMetaProperty.getName(), op, SORT_VALUE_PARAM, idName, ID_PARAM));
+                query.setParameter(SORT_VALUE_PARAM, sortValue);
+            } else {
+                transformer.addWhere(String.format("{E}.%s %s :%s", idName, op, ID_PARAM));
+            }
+            query.setParameter(ID_PARAM, id);
+        }
+
+        query.setQueryString(transformer.getResult());
+    }
+
+    /**
+     * Returns the view to load a page with. The next cursor is created from the sort attribute of the last entity,
+     * so if the view does not contain the attribute, it is added to a copy of the view.
+     *
+     * @param view         view requested by the client
+     * @param metaClass    entity meta-class
+     * @param sortProperty sort attribute, or null to order by id only
+     * @return the view itself or its copy containing the sort attribute
+     */
+    public View getLoadView(View view, MetaClass metaClass, @Nullable String sortProperty) {
+        MetaProperty sortMetaProperty = getSortProperty(metaClass, sortProperty);
+        if (sortMetaProperty == null || view.containsProperty(sortMetaProperty.getName())) {
+            return view;
+        }
+        View loadView = View.copy(view);
+        loadView.addProperty(sortMetaProperty.getName());
+        return loadView;
+    }
+
+    /**
+     * Creates a cursor pointing after the last entity of the loaded page.
+     *
+     * @param entities   loaded page
+     * @param maxResults page size requested from the database
+     * @return cursor, or null if the page is not full and there are no more entities to load
+     */
+    @Nullable
+    public String createCursor(MetaClass metaClass, @Nullable String sortProperty, boolean desc,
+                               List<? extends Entity> entities, int maxResults) {
+        if (entities.isEmpty() || entities.size() < maxResults) {
+            return null;
+        }
+        Entity last = entities.get(entities.size() - 1);
+
+        JsonObject token = new JsonObject();
+        token.addProperty("e", metaClass.getName());
+        putValue(token, "id", last.getId());
+        MetaProperty sortMetaProperty = getSortProperty(metaClass, sortProperty);
+        if (sortMetaProperty != null) {
+            token.addProperty("s", sortMetaProperty.getName());
+            putValue(token, "v", last.getValue(sortMetaProperty.getName()));
+        }
+        if (desc) {
+            token.addProperty("d", true);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(token.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    protected String getIdName(MetaClass metaClass) {
+        String idName = metadataTools.getPrimaryKeyName(metaClass);
+        if (idName == null || metadataTools.hasCompositePrimaryKey(metaClass)) {
+            throw new RestAPIException("Cursor pagination is not supported",
+                    String.format("Entity %s does not have a simple primary key", metaClass.getName()),
+                    HttpStatus.BAD_REQUEST);
+        }
+        return idName;
+    }
+
+    protected Class<?> getIdType(MetaClass metaClass) {
+        return metaClass.getPropertyNN(getIdName(metaClass)).getJavaType();
+    }
+
+    protected boolean isSupportedType(Class<?> javaType) {
+        Class<?> type = ClassUtils.primitiveToWrapper(javaType);
+        return Number.class.isAssignableFrom(type)
+                || Date.class.isAssignableFrom(type)
+                || type == String.class
+                || type == UUID.class
+                || type == Boolean.class
+                || type == Character.class
+                || type == LocalDate.class
+                || type == LocalDateTime.class
+                || type == LocalTime.class
+                || type == OffsetDateTime.class
+                || type == OffsetTime.class;
+    }
+
+    @Nullable
+    protected MetaProperty getSortProperty(MetaClass metaClass, @Nullable String sortProperty) {
+        if (Strings.isNullOrEmpty(sortProperty)) {
+            return null;
+        }
+        MetaProperty metaProperty = metaClass.getProperty(sortProperty);
+        if (metaProperty == null
+                || !metaProperty.getRange().isDatatype()
+                || !metaProperty.isMandatory()
+                || !isSupportedType(metaProperty.getJavaType())
+                || !security.isEntityAttrReadPermitted(metaClass, sortProperty)) {
+            throw new RestAPIException("Cursor pagination is not supported",
+                    String.format("Attribute %s of entity %s cannot be used for cursor pagination. " +
+                            "It must be a readable mandatory attribute of a simple type", sortProperty, metaClass.getName()),
+                    HttpStatus.BAD_REQUEST);
+        }
+        return metaProperty;
+    }
+
+    protected JsonObject parseCursor(String cursor) {
+        try {
+            String json = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            return new JsonParser().parse(json).getAsJsonObject();
+        } catch (IllegalArgumentException | IllegalStateException | JsonParseException e) {
+            throw new RestAPIException("Invalid cursor", "Cannot parse the cursor", HttpStatus.BAD_REQUEST, e);
+        }
+    }
+
+    @Nullable
+    protected String getString(JsonObject token, String name) {
+        JsonElement element = token.get(name);
+        if (element == null || element.isJsonNull()) {
+            return null;
+        }
+        if (!element.isJsonPrimitive()) {
+            throw new RestAPIException("Invalid cursor", "Cannot parse the cursor", HttpStatus.BAD_REQUEST);
+        }
+        return element.getAsString();
+    }
+
+    protected void putValue(JsonObject token, String name, Object value) {
+        if (value instanceof Date) {
+            token.addProperty(name, ((Date) value).getTime());
+            if (value instanceof Timestamp) {
+                token.addProperty(name + "n", ((Timestamp) value).getNanos());
+            }
+        } else if (value instanceof BigDecimal) {
+            token.addProperty(name, ((BigDecimal) value).toPlainString());
+        } else if (value != null) {
+            // string representations of other supported types are exact, including Double.toString()
+            token.addProperty(name, value.toString());
+        }
+    }
+
+    protected Object getValue(JsonObject token, String name, Class<?> javaType) {
+        String value = getString(token, name);
+        if (value == null) {
+            throw new RestAPIException("Invalid cursor", "The cursor does not contain a required value", HttpStatus.BAD_REQUEST);
+        }
+        Class<?> type = ClassUtils.primitiveToWrapper(javaType);
+        try {
+            if (Date.class.isAssignableFrom(type)) {
+                long time = Long.parseLong(value);
+                String nanos = getString(token, name + "n");
+                if (type == java.sql.Date.class) {
+                    return new java.sql.Date(time);
+                } else if (type == Time.class) {
+                    return new Time(time);
+                } else if (nanos != null || type == Timestamp.class) {
+                    Timestamp timestamp = new Timestamp(time);
+                    if (nanos != null) {
+                        timestamp.setNanos(Integer.parseInt(nanos));
+                    }
+                    return timestamp;
+                }
+                return new Date(time);
+            } else if (type == BigDecimal.class) {
+                return new BigDecimal(value);
+            } else if (type == Double.class) {
+                return Double.valueOf(value);
+            } else if (type == Float.class) {
+                return Float.valueOf(value);
+            } else if (type == Long.class) {
+                return Long.valueOf(value);
+            } else if (type == Integer.class) {
+                return Integer.valueOf(value);
+            } else if (type == Short.class) {
+                return Short.valueOf(value);
+            } else if (type == Byte.class) {
+                return Byte.valueOf(value);
+            } else if (type == Boolean.class) {
+                return Boolean.valueOf(value);
+            } else if (type == UUID.class) {
+                return UUID.fromString(value);
+            } else if (type == Character.class && value.length() == 1) {
+                return value.charAt(0);
+            } else if (type == LocalDate.class) {
+                return LocalDate.parse(value);
+            } else if (type == LocalDateTime.class) {
+                return LocalDateTime.parse(value);
+            } else if (type == LocalTime.class) {
+                return LocalTime.parse(value);
+            } else if (type == OffsetDateTime.class) {
+                return OffsetDateTime.parse(value);
+            } else if (type == OffsetTime.class) {
+                return OffsetTime.parse(value);
+            } else if (type == String.class) {
+                return value;
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new RestAPIException("Invalid cursor", "Cannot parse the cursor value", HttpStatus.BAD_REQUEST, e);
+        }
+        throw new RestAPIException("Invalid cursor", "Cannot parse the cursor value", HttpStatus.BAD_REQUEST);
+    }
+}
@@ -21,6 +21,7 @@ import com.haulmont.cuba.core.config.Property;
 import com.haulmont.cuba.core.config.Source;
 import com.haulmont.cuba.core.config.SourceType;
 import com.haulmont.cuba.core.config.defaults.DefaultBoolean;
+import com.haulmont.cuba.core.config.defaults.DefaultInt;
 import com.haulmont.cuba.core.config.type.CommaSeparatedStringListTypeFactory;
 import com.haulmont.cuba.core.config.type.Factory;
 
@@ -72,4 +73,12 @@ public interface RestApiConfig extends Config {
     @Property("cuba.rest.optimisticLockingEnabled")
     @DefaultBoolean(false)
     boolean getOptimisticLockingEnabled();
+
+    /**
+     * @return how long the total count of entities returned by the entities list and search endpoints is cached for
+     *         the same query, parameters and user session, in seconds. 0 disables caching.
+     */
+    @Property("cuba.rest.entitiesCountCacheExpirationSec")
+    @DefaultInt(0)
+    int getEntitiesCountCacheExpirationSec();
 }
\ No newline at end of file
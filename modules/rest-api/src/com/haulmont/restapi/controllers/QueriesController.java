@@ -17,6 +17,7 @@
 package com.haulmont.restapi.controllers;
 
 import com.haulmont.restapi.config.RestQueriesConfiguration;
+import com.haulmont.restapi.data.EntitiesSearchResult;
 import com.haulmont.restapi.service.QueriesControllerManager;
 import org.apache.commons.lang3.BooleanUtils;
 import org.springframework.http.HttpStatus;
@@ -44,19 +45,23 @@ public class QueriesController {
                                @PathVariable String queryName,
                                @RequestParam(required = false) Integer limit,
                                @RequestParam(required = false) Integer offset,
+                               @RequestParam(required = false) String cursor,
                                @RequestParam(required = false) String view,
                                @RequestParam(required = false) Boolean returnNulls,
                                @RequestParam(required = false) Boolean dynamicAttributes,
                                @RequestParam(required = false) Boolean returnCount,
                                @RequestParam(required = false) String modelVersion,
                                @RequestParam Map<String, String> params) {
-        String resultJson = queriesControllerManager.executeQueryGet(entityName, queryName, limit, offset, view, returnNulls, dynamicAttributes, modelVersion, params);
+        EntitiesSearchResult result = queriesControllerManager.executeQueryGet(entityName, queryName, limit, offset, cursor, view, returnNulls, dynamicAttributes, modelVersion, params);
         ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(HttpStatus.OK);
         if (BooleanUtils.isTrue(returnCount)) {
             String count = queriesControllerManager.getCountGet(entityName, queryName, modelVersion, params);
             responseBuilder.header("X-Total-Count", count);
         }
-        return responseBuilder.body(resultJson);
+        if (result.getNextCursor() != null) {
+            responseBuilder.header("X-Next-Cursor", result.getNextCursor());
+        }
+        return responseBuilder.body(result.getJson());
     }
 
     @PostMapping("/{entityName}/{queryName}")
@@ -64,6 +69,7 @@ public class QueriesController {
                                @PathVariable String queryName,
                                @RequestParam(required = false) Integer limit,
                                @RequestParam(required = false) Integer offset,
+                               @RequestParam(required = false) String cursor,
                                @RequestParam(required = false) String view,
                                @RequestParam(required = false) Boolean returnNulls,
                                @RequestParam(required = false) Boolean dynamicAttributes,
@@ -71,13 +77,16 @@ public class QueriesController {
                                @RequestParam(required = false) String modelVersion,
                                @RequestBody String paramsJson) {
 
-        String resultJson = queriesControllerManager.executeQueryPost(entityName, queryName, limit, offset, view, returnNulls, dynamicAttributes, modelVersion, paramsJson);
+        EntitiesSearchResult result = queriesControllerManager.executeQueryPost(entityName, queryName, limit, offset, cursor, view, returnNulls, dynamicAttributes, modelVersion, paramsJson);
         ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(HttpStatus.OK);
         if (BooleanUtils.isTrue(returnCount)) {
             String count = queriesControllerManager.getCountPost(entityName, queryName, modelVersion, paramsJson);
             responseBuilder.header("X-Total-Count", count);
         }
-        return responseBuilder.body(resultJson);
+        if (result.getNextCursor() != null) {
+            responseBuilder.header("X-Next-Cursor", result.getNextCursor());
+        }
+        return responseBuilder.body(result.getJson());
     }
 
     @GetMapping(value = "/{entityName}/{queryName}/count")
@@ -16,20 +16,76 @@
 
 package com.haulmont.restapi.data;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Result of loading a list of entities. JSON is either a ready string or is written on demand by
+ * {@link #writeJson(Writer)}, so it can be streamed to the response without building a string.
+ */
 public class EntitiesSearchResult {
     protected String json;
+    protected JsonContent jsonContent;
     protected Long count;
+    protected String nextCursor;
 
     public EntitiesSearchResult(String json, Long count) {
         this.json = json;
         this.count = count;
     }
 
+    public EntitiesSearchResult(JsonContent jsonContent, Long count) {
+        this.jsonContent = jsonContent;
+        this.count = count;
+    }
+
     public String getJson() {
+        if (json == null && jsonContent != null) {
+            StringWriter writer = new StringWriter();
+            try {
+                jsonContent.writeTo(writer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            json = writer.toString();
+        }
         return json;
     }
 
+    /**
+     * Writes JSON to the given writer without building an intermediate string if possible.
+     */
+    public void writeJson(Writer writer) throws IOException {
+        if (json == null && jsonContent != null) {
+            jsonContent.writeTo(writer);
+        } else if (json != null) {
+            writer.write(json);
+        }
+    }
+
     public Long getCount() {
         return count;
     }
+
+    public void setCount(Long count) {
+        this.count = count;
+    }
+
+    /**
+     * @return cursor for loading the next page in the keyset pagination mode, or null if there are no more entities
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    @FunctionalInterface
+    public interface JsonContent {
+        void writeTo(Writer writer) throws IOException;
+    }
 }
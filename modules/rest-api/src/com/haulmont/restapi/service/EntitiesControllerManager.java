@@ -17,6 +17,8 @@
 package com.haulmont.restapi.service;
 
 import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import com.haulmont.chile.core.model.MetaClass;
@@ -31,6 +33,7 @@ import com.haulmont.cuba.core.entity.*;
 import com.haulmont.cuba.core.global.*;
 import com.haulmont.cuba.security.entity.EntityOp;
 import com.haulmont.restapi.common.RestControllerUtils;
+import com.haulmont.restapi.common.RestKeysetPagination;
 import com.haulmont.restapi.config.RestApiConfig;
 import com.haulmont.restapi.data.CreatedEntityInfo;
 import com.haulmont.restapi.data.EntitiesSearchResult;
@@ -44,9 +47,11 @@ import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.Nullable;
+import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Class that executes business logic required by the {@link com.haulmont.restapi.controllers.EntitiesController}. It
@@ -88,6 +93,25 @@ public class EntitiesControllerManager {
     @Inject
     protected RestApiConfig restApiConfig;
 
+    @Inject
+    protected RestKeysetPagination restKeysetPagination;
+
+    @Inject
+    protected UserSessionSource userSessionSource;
+
+    protected Cache<List<Object>, Long> countCache;
+
+    @PostConstruct
+    protected void init() {
+        int expirationSec = restApiConfig.getEntitiesCountCacheExpirationSec();
+        if (expirationSec > 0) {
+            countCache = CacheBuilder.newBuilder()
+                    .expireAfterWrite(expirationSec, TimeUnit.SECONDS)
+                    .maximumSize(1000)
+                    .build();
+        }
+    }
+
     public String loadEntity(String entityName,
                              String entityId,
                              @Nullable String viewName,
@@ -128,6 +152,7 @@ public class EntitiesControllerManager {
                                                  @Nullable String viewName,
                                                  @Nullable Integer limit,
                                                  @Nullable Integer offset,
+                                                 @Nullable String cursor,
                                                  @Nullable String sort,
                                                  @Nullable Boolean returnNulls,
                                                  @Nullable Boolean returnCount,
@@ -138,18 +163,13 @@ public class EntitiesControllerManager {
         checkCanReadEntity(metaClass);
 
         String queryString = "select e from " + entityName + " e";
-        String json = _loadEntitiesList(queryString, viewName, limit, offset, sort, returnNulls, dynamicAttributes, modelVersion,
-                metaClass, new HashMap<>());
+        EntitiesSearchResult result = _loadEntitiesList(queryString, viewName, limit, offset, cursor, sort,
+                returnNulls, dynamicAttributes, modelVersion, metaClass, new HashMap<>());
 
-        json = restControllerUtils.transformJsonIfRequired(entityName, modelVersion, JsonTransformationDirection.TO_VERSION, json);
-
-        Long count = null;
         if (BooleanUtils.isTrue(returnCount)) {
-            LoadContext ctx = LoadContext.create(metaClass.getJavaClass())
-                    .setQuery(LoadContext.createQuery(queryString));
-            count = dataManager.getCount(ctx);
+            result.setCount(getCount(metaClass, queryString, Collections.emptyMap()));
         }
-        return new EntitiesSearchResult(json, count);
+        return result;
 
     }
 
@@ -158,6 +178,7 @@ public class EntitiesControllerManager {
                                                @Nullable String viewName,
                                                @Nullable Integer limit,
                                                @Nullable Integer offset,
+                                               @Nullable String cursor,
                                                @Nullable String sort,
                                                @Nullable Boolean returnNulls,
                                                @Nullable Boolean returnCount,
@@ -182,16 +203,13 @@ public class EntitiesControllerManager {
         Map<String, Object> queryParameters = filterParseResult.getQueryParameters();
 
         String queryString = "select e from " + entityName + " e where " + jpqlWhere;
-        String json = _loadEntitiesList(queryString, viewName, limit, offset, sort, returnNulls,
-                dynamicAttributes, modelVersion, metaClass, queryParameters);
-        Long count = null;
+        EntitiesSearchResult result = _loadEntitiesList(queryString, viewName, limit, offset, cursor, sort,
+                returnNulls, dynamicAttributes, modelVersion, metaClass, queryParameters);
         if (BooleanUtils.isTrue(returnCount)) {
-            LoadContext ctx = LoadContext.create(metaClass.getJavaClass())
-                    .setQuery(LoadContext.createQuery(queryString).setParameters(queryParameters));
-            count = dataManager.getCount(ctx);
+            result.setCount(getCount(metaClass, queryString, queryParameters));
         }
 
-        return new EntitiesSearchResult(json, count);
+        return result;
     }
 
     public EntitiesSearchResult searchEntities(String entityName, String searchRequestBody) {
@@ -213,6 +231,7 @@ public class EntitiesControllerManager {
                 view,
                 searchEntitiesRequest.getLimit(),
                 searchEntitiesRequest.getOffset(),
+                searchEntitiesRequest.getCursor(),
                 searchEntitiesRequest.getSort(),
                 searchEntitiesRequest.getReturnNulls(),
                 searchEntitiesRequest.getReturnCount(),
@@ -221,26 +240,40 @@ public class EntitiesControllerManager {
         );
     }
 
-    protected String _loadEntitiesList(String queryString,
-                                       @Nullable String viewName,
-                                       @Nullable Integer limit,
-                                       @Nullable Integer offset,
-                                       @Nullable String sort,
-                                       @Nullable Boolean returnNulls,
-                                       @Nullable Boolean dynamicAttributes,
-                                       @Nullable String modelVersion,
-                                       MetaClass metaClass,
-                                       Map<String, Object> queryParameters) {
+    /**
+     * Loads entities and returns the result without count. If no model version transformation is required, JSON is
+     * not built here but written on demand by {@link EntitiesSearchResult#writeJson(java.io.Writer)}.
+     * <p>
+     * If {@code cursor} is not null, the list is loaded in the keyset pagination mode, see {@link RestKeysetPagination}.
+     */
+    protected EntitiesSearchResult _loadEntitiesList(String queryString,
+                                                     @Nullable String viewName,
+                                                     @Nullable Integer limit,
+                                                     @Nullable Integer offset,
+                                                     @Nullable String cursor,
+                                                     @Nullable String sort,
+                                                     @Nullable Boolean returnNulls,
+                                                     @Nullable Boolean dynamicAttributes,
+                                                     @Nullable String modelVersion,
+                                                     MetaClass metaClass,
+                                                     Map<String, Object> queryParameters) {
+        if (cursor != null && offset != null) {
+            throw new RestAPIException("Invalid pagination parameters",
+                    "The offset parameter cannot be used together with cursor", HttpStatus.BAD_REQUEST);
+        }
+
         LoadContext<Entity> ctx = new LoadContext<>(metaClass);
+        boolean descSortOrder = false;
         if (!Strings.isNullOrEmpty(sort)) {
-            boolean descSortOrder = false;
             if (sort.startsWith("-")) {
                 descSortOrder = true;
                 sort = sort.substring(1);
             } else if (sort.startsWith("+")) {
                 sort = sort.substring(1);
             }
-            queryString += " order by e." + sort + (descSortOrder ? " desc" : "");
+            if (cursor == null) {
+                queryString += " order by e." + sort + (descSortOrder ? " desc" : "");
+            }
         }
         LoadContext.Query query = new LoadContext.Query(queryString);
         if (limit != null) {
@@ -254,26 +287,62 @@ public class EntitiesControllerManager {
         if (queryParameters != null) {
             query.setParameters(queryParameters);
         }
+        if (cursor != null) {
+            restKeysetPagination.applyCursor(query, metaClass, sort, descSortOrder, cursor);
+        }
         ctx.setQuery(query);
 
         View view = null;
         if (!Strings.isNullOrEmpty(viewName)) {
             view = restControllerUtils.getView(metaClass, viewName);
-            ctx.setView(view);
+            ctx.setView(cursor != null ? restKeysetPagination.getLoadView(view, metaClass, sort) : view);
         }
 
         ctx.setLoadDynamicAttributes(BooleanUtils.isTrue(dynamicAttributes));
 
         List<Entity> entities = dataManager.loadList(ctx);
+        String nextCursor = cursor != null ?
+                restKeysetPagination.createCursor(metaClass, sort, descSortOrder, entities, query.getMaxResults()) : null;
         entities.forEach(entity -> restControllerUtils.applyAttributesSecurity(entity));
 
         List<EntitySerializationOption> serializationOptions = new ArrayList<>();
         serializationOptions.add(EntitySerializationOption.SERIALIZE_INSTANCE_NAME);
         if (BooleanUtils.isTrue(returnNulls)) serializationOptions.add(EntitySerializationOption.SERIALIZE_NULLS);
 
-        String json = entitySerializationAPI.toJson(entities, view, serializationOptions.toArray(new EntitySerializationOption[0]));
-        json = restControllerUtils.transformJsonIfRequired(metaClass.getName(), modelVersion, JsonTransformationDirection.TO_VERSION, json);
-        return json;
+        EntitySerializationOption[] options = serializationOptions.toArray(new EntitySerializationOption[0]);
+        EntitiesSearchResult result;
+        if (Strings.isNullOrEmpty(modelVersion)) {
+            View serializationView = view;
+            result = new EntitiesSearchResult(
+                    writer -> entitySerializationAPI.toJson(entities, serializationView, writer, options), null);
+        } else {
+            String json = entitySerializationAPI.toJson(entities, view, options);
+            json = restControllerUtils.transformJsonIfRequired(metaClass.getName(), modelVersion, JsonTransformationDirection.TO_VERSION, json);
+            result = new EntitiesSearchResult(json, null);
+        }
+        result.setNextCursor(nextCursor);
+        return result;
+    }
+
+    /**
+     * Returns the number of entities for the query. If {@link RestApiConfig#getEntitiesCountCacheExpirationSec()} is
+     * set, the count is cached for the same query, parameters and user session.
+     */
+    protected long getCount(MetaClass metaClass, String queryString, Map<String, Object> queryParameters) {
+        LoadContext ctx = LoadContext.create(metaClass.getJavaClass())
+                .setQuery(LoadContext.createQuery(queryString).setParameters(queryParameters));
+        if (countCache == null) {
+            return dataManager.getCount(ctx);
+        }
+
+        List<Object> key = Arrays.asList(userSessionSource.getUserSession().getId(), queryString,
+                new HashMap<>(queryParameters));
+        Long count = countCache.getIfPresent(key);
+        if (count == null) {
+            count = dataManager.getCount(ctx);
+            countCache.put(key, count);
+        }
+        return count;
     }
 
     public CreatedEntityInfo createEntity(String entityJson, String entityName, String modelVersion) {
@@ -476,6 +545,7 @@ public class EntitiesControllerManager {
         protected String viewName;
         protected Integer limit;
         protected Integer offset;
+        protected String cursor;
         protected String sort;
         protected Boolean returnNulls;
         protected Boolean returnCount;
@@ -506,6 +576,10 @@ public class EntitiesControllerManager {
             return offset;
         }
 
+        public String getCursor() {
+            return cursor;
+        }
+
         public String getSort() {
             return sort;
         }
@@ -547,6 +621,10 @@ public class EntitiesControllerManager {
             this.offset = offset;
         }
 
+        public void setCursor(String cursor) {
+            this.cursor = cursor;
+        }
+
         public void setSort(String sort) {
             this.sort = sort;
         }
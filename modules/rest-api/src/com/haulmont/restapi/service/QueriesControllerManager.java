@@ -30,8 +30,10 @@ import com.haulmont.cuba.core.global.*;
 import com.haulmont.cuba.security.entity.EntityOp;
 import com.haulmont.cuba.security.entity.User;
 import com.haulmont.restapi.common.RestControllerUtils;
+import com.haulmont.restapi.common.RestKeysetPagination;
 import com.haulmont.restapi.common.RestParseUtils;
 import com.haulmont.restapi.config.RestQueriesConfiguration;
+import com.haulmont.restapi.data.EntitiesSearchResult;
 import com.haulmont.restapi.exception.RestAPIException;
 import com.haulmont.restapi.transform.JsonTransformationDirection;
 import org.apache.commons.lang3.BooleanUtils;
@@ -76,40 +78,58 @@ public class QueriesControllerManager {
     @Inject
     protected UserSessionSource userSessionSource;
 
-    public String executeQueryGet(String entityName,
-                                  String queryName,
-                                  @Nullable Integer limit,
-                                  @Nullable Integer offset,
-                                  @Nullable String viewName,
-                                  @Nullable Boolean returnNulls,
-                                  @Nullable Boolean dynamicAttributes,
-                                  @Nullable String version,
-                                  Map<String, String> params) {
-        return _executeQuery(entityName, queryName, limit, offset, viewName, returnNulls, dynamicAttributes, version, params);
+    @Inject
+    protected RestKeysetPagination restKeysetPagination;
+
+    public EntitiesSearchResult executeQueryGet(String entityName,
+                                                String queryName,
+                                                @Nullable Integer limit,
+                                                @Nullable Integer offset,
+                                                @Nullable String cursor,
+                                                @Nullable String viewName,
+                                                @Nullable Boolean returnNulls,
+                                                @Nullable Boolean dynamicAttributes,
+                                                @Nullable String version,
+                                                Map<String, String> params) {
+        return _executeQuery(entityName, queryName, limit, offset, cursor, viewName, returnNulls, dynamicAttributes,
+                version, params);
     }
 
-    public String executeQueryPost(String entityName,
-                                  String queryName,
-                                  @Nullable Integer limit,
-                                  @Nullable Integer offset,
-                                  @Nullable String viewName,
-                                  @Nullable Boolean returnNulls,
-                                  @Nullable Boolean dynamicAttributes,
-                                  @Nullable String version,
-                                  String paramsJson) {
+    public EntitiesSearchResult executeQueryPost(String entityName,
+                                                 String queryName,
+                                                 @Nullable Integer limit,
+                                                 @Nullable Integer offset,
+                                                 @Nullable String cursor,
+                                                 @Nullable String viewName,
+                                                 @Nullable Boolean returnNulls,
+                                                 @Nullable Boolean dynamicAttributes,
+                                                 @Nullable String version,
+                                                 String paramsJson) {
         Map<String, String> paramsMap = restParseUtils.parseParamsJson(paramsJson);
-        return _executeQuery(entityName, queryName, limit, offset, viewName, returnNulls, dynamicAttributes, version, paramsMap);
+        return _executeQuery(entityName, queryName, limit, offset, cursor, viewName, returnNulls, dynamicAttributes,
+                version, paramsMap);
     }
 
-    protected String _executeQuery(String entityName,
-                                   String queryName,
-                                   @Nullable Integer limit,
-                                   @Nullable Integer offset,
-                                   @Nullable String viewName,
-                                   @Nullable Boolean returnNulls,
-                                   @Nullable Boolean dynamicAttributes,
-                                   @Nullable String version,
-                                   Map<String, String> params) {
+    /**
+     * Executes the query. If {@code cursor} is not null, the query is ordered by id and executed in the keyset
+     * pagination mode, see {@link RestKeysetPagination}. A query having its own {@code order by} clause cannot be
+     * executed with a cursor.
+     */
+    protected EntitiesSearchResult _executeQuery(String entityName,
+                                                 String queryName,
+                                                 @Nullable Integer limit,
+                                                 @Nullable Integer offset,
+                                                 @Nullable String cursor,
+                                                 @Nullable String viewName,
+                                                 @Nullable Boolean returnNulls,
+                                                 @Nullable Boolean dynamicAttributes,
+                                                 @Nullable String version,
+                                                 Map<String, String> params) {
+        if (cursor != null && offset != null) {
+            throw new RestAPIException("Invalid pagination parameters",
+                    "The offset parameter cannot be used together with cursor", HttpStatus.BAD_REQUEST);
+        }
+
         LoadContext<Entity> ctx;
         entityName = restControllerUtils.transformEntityNameIfRequired(entityName, version, JsonTransformationDirection.FROM_VERSION);
         try {
@@ -119,13 +139,18 @@ public class QueriesControllerManager {
         }
         ctx.setLoadDynamicAttributes(BooleanUtils.isTrue(dynamicAttributes));
 
+        MetaClass metaClass = restControllerUtils.getMetaClass(entityName);
         //override default view defined in queries config
         if (!Strings.isNullOrEmpty(viewName)) {
-            MetaClass metaClass = restControllerUtils.getMetaClass(entityName);
             restControllerUtils.getView(metaClass, viewName);
             ctx.setView(viewName);
         }
+        if (cursor != null) {
+            restKeysetPagination.applyCursor(ctx.getQuery(), metaClass, null, false, cursor);
+        }
         List<Entity> entities = dataManager.loadList(ctx);
+        String nextCursor = cursor != null ?
+                restKeysetPagination.createCursor(metaClass, null, false, entities, ctx.getQuery().getMaxResults()) : null;
         entities.forEach(entity -> restControllerUtils.applyAttributesSecurity(entity));
 
         List<EntitySerializationOption> serializationOptions = new ArrayList<>();
@@ -134,7 +159,9 @@ public class QueriesControllerManager {
 
         String json = entitySerializationAPI.toJson(entities, ctx.getView(), serializationOptions.toArray(new EntitySerializationOption[0]));
         json = restControllerUtils.transformJsonIfRequired(entityName, version, JsonTransformationDirection.TO_VERSION, json);
-        return json;
+        EntitiesSearchResult result = new EntitiesSearchResult(json, null);
+        result.setNextCursor(nextCursor);
+        return result;
     }
 
     public String getCountGet(String entityName,
@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.haulmont.restapi.common;
+
+import com.haulmont.chile.core.model.MetaClass;
+import com.haulmont.cuba.client.testsupport.CubaClientTestCase;
+import com.haulmont.cuba.core.global.LoadContext;
+import com.haulmont.cuba.core.global.QueryTransformerFactory;
+import com.haulmont.cuba.core.global.View;
+import com.haulmont.restapi.common.testmodel.KeysetTestEntity;
+import com.haulmont.restapi.exception.RestAPIException;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.junit.Assert.*;
+
+public class RestKeysetPaginationTest extends CubaClientTestCase {
+
+    private static final String QUERY = "select e from test$KeysetTestEntity e";
+
+    private RestKeysetPagination keysetPagination;
+
+    private MetaClass metaClass;
+
+    @Before
+    public void setUp() {
+        addEntityPackage("com.haulmont.cuba");
+        addEntityPackage("com.haulmont.restapi.common.testmodel");
+        setupInfrastructure();
+
+        keysetPagination = new RestKeysetPagination();
+        keysetPagination.metadataTools = metadata.getTools();
+        keysetPagination.security = security;
+        keysetPagination.queryTransformerFactory = new QueryTransformerFactory() {{
+            useAst = false;
+        }};
+
+        metaClass = metadata.getClassNN(KeysetTestEntity.class);
+    }
+
+    @Test
+    public void testFirstPage() {
+        LoadContext.Query query = createQuery();
+        keysetPagination.applyCursor(query, metaClass, "name", false, "");
+
+        assertEquals(QUERY + " order by e.name, e.id", query.getQueryString());
+        assertTrue(query.getParameters().isEmpty());
+    }
+
+    @Test
+    public void testAscendingPredicate() {
+        KeysetTestEntity entity = createEntity();
+        String cursor = keysetPagination.createCursor(metaClass, "name", false, Collections.singletonList(entity), 1);
+        assertNotNull(cursor);
+
+        LoadContext.Query query = createQuery();
+        keysetPagination.applyCursor(query, metaClass, "name", false, cursor);
+
+        assertEquals(QUERY + " where ((e.name > :keysetSortValue or (e.name = :keysetSortValue and e.id > :keysetId)))" +
+                " order by e.name, e.id", query.getQueryString());
+        assertEquals("entity-1", query.getParameters().get(RestKeysetPagination.SORT_VALUE_PARAM));
+        assertEquals(entity.getId(), query.getParameters().get(RestKeysetPagination.ID_PARAM));
+    }
+
+    @Test
+    public void testDescendingPredicate() {
+        KeysetTestEntity entity = createEntity();
+        String cursor = keysetPagination.createCursor(metaClass, "name", true, Collections.singletonList(entity), 1);
+
+        LoadContext.Query query = createQuery();
+        keysetPagination.applyCursor(query, metaClass, "name", true, cursor);
+
+        assertEquals(QUERY + " where ((e.name < :keysetSortValue or (e.name = :keysetSortValue and e.id < :keysetId)))" +
+                " order by e.name desc, e.id desc", query.getQueryString());
+    }
+
+    @Test
+    public void testIdPredicate() {
+        KeysetTestEntity entity = createEntity();
+        String cursor = keysetPagination.createCursor(metaClass, null, false, Collections.singletonList(entity), 1);
+
+        LoadContext.Query query = createQuery();
+        keysetPagination.applyCursor(query, metaClass, null, false, cursor);
+
+        assertEquals(QUERY + " where (e.id > :keysetId) order by e.id", query.getQueryString());
+        assertEquals(entity.getId(), query.getParameters().get(RestKeysetPagination.ID_PARAM));
+    }
+
+    @Test
+    public void testBigDecimalRoundTrip() {
+        KeysetTestEntity entity = createEntity();
+        entity.setAmount(new BigDecimal("12345678901234567890.1234567890"));
+
+        assertEquals(entity.getAmount(), applyCursorOfEntity(entity, "amount"));
+    }
+
+    @Test
+    public void testDoubleRoundTrip() {
+        KeysetTestEntity entity = createEntity();
+        entity.setRatio(0.1 + 0.2);
+
+        assertEquals(entity.getRatio(), applyCursorOfEntity(entity, "ratio"));
+    }
+
+    @Test
+    public void testDateRoundTrip() {
+        KeysetTestEntity entity = createEntity();
+        entity.setTs(new Date(1234567890123L));
+        assertEquals(entity.getTs(), applyCursorOfEntity(entity, "ts"));
+
+        // timestamps loaded from the database may contain fractions of a millisecond
+        Timestamp timestamp = new Timestamp(1234567890123L);
+        timestamp.setNanos(123456789);
+        entity.setTs(timestamp);
+        assertEquals(timestamp, applyCursorOfEntity(entity, "ts"));
+    }
+
+    @Test
+    public void testNoCursorForLastPage() {
+        assertNull(keysetPagination.createCursor(metaClass, "name", false, Collections.emptyList(), 10));
+        assertNull(keysetPagination.createCursor(metaClass, "name", false,
+                Arrays.asList(createEntity(), createEntity()), 10));
+    }
+
+    @Test
+    public void testMismatchedCursor() {
+        String cursor = keysetPagination.createCursor(metaClass, "name", false,
+                Collections.singletonList(createEntity()), 1);
+
+        assertInvalidCursor(cursor, "amount", false);
+        assertInvalidCursor(cursor, "name", true);
+        assertInvalidCursor(cursor, null, false);
+        assertInvalidCursor("not a cursor", "name", false);
+    }
+
+    @Test
+    public void testUnsupportedSortAttribute() {
+        try {
+            keysetPagination.applyCursor(createQuery(), metaClass, "description", false, "");
+            fail("RestAPIException expected");
+        } catch (RestAPIException e) {
+            assertEquals(HttpStatus.BAD_REQUEST, e.getHttpStatus());
+        }
+    }
+
+    @Test
+    public void testQueryWithOwnOrderRejected() {
+        LoadContext.Query query = new LoadContext<>(metaClass).setQueryString(QUERY + " order by e.description");
+        try {
+            keysetPagination.applyCursor(query, metaClass, null, false, "");
+            fail("RestAPIException expected");
+        } catch (RestAPIException e) {
+            assertEquals(HttpStatus.BAD_REQUEST, e.getHttpStatus());
+        }
+    }
+
+    @Test
+    public void testLoadViewContainsSortAttribute() {
+        View view = new View(KeysetTestEntity.class, View.MINIMAL).addProperty("name");
+
+        View loadView = keysetPagination.getLoadView(view, metaClass, "ts");
+        assertTrue(loadView.containsProperty("ts"));
+        assertTrue(loadView.containsProperty("name"));
+        assertFalse(view.containsProperty("ts"));
+
+        assertSame(view, keysetPagination.getLoadView(view, metaClass, "name"));
+        assertSame(view, keysetPagination.getLoadView(view, metaClass, null));
+    }
+
+    private Object applyCursorOfEntity(KeysetTestEntity entity, String sortProperty) {
+        String cursor = keysetPagination.createCursor(metaClass, sortProperty, false, Collections.singletonList(entity), 1);
+        LoadContext.Query query = createQuery();
+        keysetPagination.applyCursor(query, metaClass, sortProperty, false, cursor);
+        return query.getParameters().get(RestKeysetPagination.SORT_VALUE_PARAM);
+    }
+
+    private void assertInvalidCursor(String cursor, String sortProperty, boolean desc) {
+        try {
+            keysetPagination.applyCursor(createQuery(), metaClass, sortProperty, desc, cursor);
+            fail("RestAPIException expected");
+        } catch (RestAPIException e) {
+            assertEquals(HttpStatus.BAD_REQUEST, e.getHttpStatus());
+        }
+    }
+
+    private LoadContext.Query createQuery() {
+        return new LoadContext<>(metaClass).setQueryString(QUERY);
+    }
+
+    private KeysetTestEntity createEntity() {
+        KeysetTestEntity entity = new KeysetTestEntity();
+        entity.setName("entity-1");
+        entity.setAmount(BigDecimal.TEN);
+        entity.setRatio(1.0);
+        entity.setTs(new Date());
+        return entity;
+    }
+}
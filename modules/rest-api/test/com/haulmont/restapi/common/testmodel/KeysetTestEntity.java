@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.haulmont.restapi.common.testmodel;
+
+import com.haulmont.cuba.core.entity.StandardEntity;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.util.Date;
+
+@Entity(name = "test$KeysetTestEntity")
+@Table(name = "TEST_KEYSET_TEST_ENTITY")
+public class KeysetTestEntity extends StandardEntity {
+
+    @Column(name = "NAME", nullable = false)
+    protected String name;
+
+    @Column(name = "AMOUNT", nullable = false)
+    protected BigDecimal amount;
+
+    @Column(name = "RATIO", nullable = false)
+    protected Double ratio;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "TS", nullable = false)
+    protected Date ts;
+
+    @Column(name = "DESCRIPTION")
+    protected String description;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public Double getRatio() {
+        return ratio;
+    }
+
+    public void setRatio(Double ratio) {
+        this.ratio = ratio;
+    }
+
+    public Date getTs() {
+        return ts;
+    }
+
+    public void setTs(Date ts) {
+        this.ts = ts;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+}
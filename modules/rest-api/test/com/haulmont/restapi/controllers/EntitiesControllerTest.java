@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.haulmont.restapi.controllers;
+
+import com.haulmont.restapi.data.EntitiesSearchResult;
+import com.haulmont.restapi.service.EntitiesControllerManager;
+import mockit.Expectations;
+import mockit.Mocked;
+import mockit.Verifications;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+
+public class EntitiesControllerTest {
+
+    private static final String JSON = "[{\"_entityName\":\"sec$User\",\"id\":\"60885987-1b61-4247-94c7-dff348347f93\"," +
+            "\"login\":\"admin\"},{\"_entityName\":\"sec$User\",\"id\":\"a405db59-e674-4f63-8afe-269dda788fe8\"," +
+            "\"login\":\"anonymous\"}]";
+
+    @Mocked
+    private EntitiesControllerManager entitiesControllerManager;
+
+    @Mocked
+    private HttpServletResponse response;
+
+    private EntitiesController controller;
+
+    private StringWriter body;
+
+    @Before
+    public void setUp() throws Exception {
+        controller = new EntitiesController();
+        controller.entitiesControllerManager = entitiesControllerManager;
+
+        body = new StringWriter();
+        new Expectations() {{
+            response.getWriter(); result = new PrintWriter(body); minTimes = 0;
+        }};
+    }
+
+    @Test
+    public void testStreamedListIsWrittenAsString() throws Exception {
+        new Expectations() {{
+            entitiesControllerManager.loadEntitiesList("sec$User", null, null, null, null, null, null, true, null, null);
+            result = new EntitiesSearchResult(writer -> writer.write(JSON), 2L);
+        }};
+
+        controller.loadEntitiesList("sec$User", null, null, null, null, null, null, true, null, null, response);
+
+        assertEquals(JSON, body.toString());
+        new Verifications() {{
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+            response.setHeader("X-Total-Count", "2");
+            response.setHeader("X-Next-Cursor", anyString); times = 0;
+        }};
+    }
+
+    @Test
+    public void testModelVersionListIsWrittenAsIs() throws Exception {
+        // with a model version the JSON is built as a string to be transformed
+        new Expectations() {{
+            entitiesControllerManager.loadEntitiesList("sec$User", null, null, null, null, null, null, null, null, "1.0");
+            result = new EntitiesSearchResult(JSON, null);
+        }};
+
+        controller.loadEntitiesList("sec$User", null, null, null, null, null, null, null, null, "1.0", response);
+
+        assertEquals(JSON, body.toString());
+        new Verifications() {{
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+            response.setHeader("X-Total-Count", anyString); times = 0;
+        }};
+    }
+
+    @Test
+    public void testSearchResultWithCountAndCursor() throws Exception {
+        String requestBody = "{\"filter\":{\"conditions\":[]},\"returnCount\":true}";
+        EntitiesSearchResult searchResult = new EntitiesSearchResult(writer -> writer.write(JSON), 10L);
+        searchResult.setNextCursor("cursor");
+        new Expectations() {{
+            entitiesControllerManager.searchEntities("sec$User", requestBody);
+            result = searchResult;
+        }};
+
+        controller.searchEntitiesListPost("sec$User", requestBody, response);
+
+        assertEquals(JSON, body.toString());
+        new Verifications() {{
+            response.setHeader("X-Total-Count", "10");
+            response.setHeader("X-Next-Cursor", "cursor");
+        }};
+    }
+
+    @Test
+    public void testEmptyResult() throws Exception {
+        new Expectations() {{
+            entitiesControllerManager.searchEntities("sec$User", "{}", null, null, null, null, null, null, null,
+                    null, null);
+            result = new EntitiesSearchResult(writer -> writer.write("[]"), null);
+        }};
+
+        controller.searchEntitiesListGet("sec$User", "{}", null, null, null, null, null, null, null, null, null,
+                response);
+
+        assertEquals("[]", body.toString());
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.haulmont.restapi.service;
+
+import com.haulmont.chile.core.model.MetaClass;
+import com.haulmont.cuba.core.global.DataManager;
+import com.haulmont.cuba.core.global.Security;
+import com.haulmont.cuba.security.entity.EntityOp;
+import com.haulmont.restapi.common.RestControllerUtils;
+import com.haulmont.restapi.exception.RestAPIException;
+import com.haulmont.restapi.service.filter.RestFilterParser;
+import mockit.Expectations;
+import mockit.Mocked;
+import mockit.Verifications;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class CursorPaginationParametersTest {
+
+    @Mocked
+    private RestControllerUtils restControllerUtils;
+
+    @Mocked
+    private Security security;
+
+    @Mocked
+    private DataManager dataManager;
+
+    @Mocked
+    private RestFilterParser restFilterParser;
+
+    private EntitiesControllerManager entitiesControllerManager;
+
+    private QueriesControllerManager queriesControllerManager;
+
+    @Before
+    public void setUp() {
+        entitiesControllerManager = new EntitiesControllerManager();
+        entitiesControllerManager.restControllerUtils = restControllerUtils;
+        entitiesControllerManager.security = security;
+        entitiesControllerManager.dataManager = dataManager;
+        entitiesControllerManager.restFilterParser = restFilterParser;
+
+        queriesControllerManager = new QueriesControllerManager();
+        queriesControllerManager.restControllerUtils = restControllerUtils;
+        queriesControllerManager.security = security;
+        queriesControllerManager.dataManager = dataManager;
+
+        new Expectations() {{
+            restControllerUtils.transformEntityNameIfRequired(anyString, anyString, withNotNull()); result = "sec$User"; minTimes = 0;
+            security.isEntityOpPermitted((MetaClass) any, (EntityOp) any); result = true; minTimes = 0;
+        }};
+    }
+
+    @Test
+    public void testEntitiesListRejectsOffsetWithCursor() {
+        try {
+            entitiesControllerManager.loadEntitiesList("sec$User", null, 10, 20, "", null, null, null, null, null);
+            fail("RestAPIException expected");
+        } catch (RestAPIException e) {
+            assertEquals(HttpStatus.BAD_REQUEST, e.getHttpStatus());
+        }
+        verifyNothingLoaded();
+    }
+
+    @Test
+    public void testEntitiesSearchRejectsOffsetWithCursor() throws Exception {
+        new Expectations() {{
+            restFilterParser.parse(anyString, (MetaClass) any).getJpqlWhere(); result = "e.login is not null";
+        }};
+
+        try {
+            entitiesControllerManager.searchEntities("sec$User", "{\"conditions\": []}", null, 10, 20, "", null,
+                    null, null, null, null);
+            fail("RestAPIException expected");
+        } catch (RestAPIException e) {
+            assertEquals(HttpStatus.BAD_REQUEST, e.getHttpStatus());
+        }
+        verifyNothingLoaded();
+    }
+
+    @Test
+    public void testQueryRejectsOffsetWithCursor() {
+        try {
+            queriesControllerManager.executeQueryGet("sec$User", "allUsers", 10, 20, "", null, null, null, null,
+                    Collections.emptyMap());
+            fail("RestAPIException expected");
+        } catch (RestAPIException e) {
+            assertEquals(HttpStatus.BAD_REQUEST, e.getHttpStatus());
+        }
+        verifyNothingLoaded();
+    }
+
+    private void verifyNothingLoaded() {
+        new Verifications() {{
+            dataManager.loadList(withNotNull()); times = 0;
+        }};
+    }
+}
@@ -18,6 +18,7 @@ package com.haulmont.cuba.web.gui.components.table;
 
 import com.haulmont.cuba.gui.components.data.BindingState;
 import com.haulmont.cuba.gui.components.data.GroupTableItems;
+import com.haulmont.cuba.gui.components.data.TableItems;
 import com.haulmont.cuba.gui.data.GroupInfo;
 import com.haulmont.cuba.web.widgets.data.GroupTableContainer;
 
@@ -67,6 +68,14 @@ public class GroupTableDataContainer<I> extends SortableDataContainer<I> impleme
         resetCachedItems();
     }
 
+    @Override
+    protected void datasourceItemSetChanged(TableItems.ItemSetChangeEvent<I> e) {
+        // groups are updated by the table source, only the flattened list of visible ids should be rebuilt
+        resetCachedItems();
+
+        super.datasourceItemSetChanged(e);
+    }
+
     @Override
     public boolean isGroup(Object id) {
         return id instanceof GroupInfo && getGroupTableSource().containsGroup((GroupInfo) id);